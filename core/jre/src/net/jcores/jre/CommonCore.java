@@ -40,6 +40,7 @@ import java.util.Map;
 import java.util.Random;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicReference;
 import java.util.logging.Level;
 
@@ -47,6 +48,9 @@ import net.jcores.jre.annotations.AttentionWithClassloaders;
 import net.jcores.jre.annotations.Beta;
 import net.jcores.jre.annotations.SupportsOption;
 import net.jcores.jre.cores.Core;
+import net.jcores.jre.cores.CoreDouble;
+import net.jcores.jre.cores.CoreInt;
+import net.jcores.jre.cores.CoreLong;
 import net.jcores.jre.cores.CoreNumber;
 import net.jcores.jre.cores.CoreObject;
 import net.jcores.jre.cores.adapter.ListAdapter;
@@ -69,6 +73,7 @@ import net.jcores.jre.utils.Async;
 import net.jcores.jre.utils.Async.Queue;
 import net.jcores.jre.utils.internal.Options;
 import net.jcores.jre.utils.internal.Reporter;
+import net.jcores.jre.utils.internal.structures.BufferPool;
 import net.jcores.jre.utils.internal.structures.ProfileInformation;
 import net.jcores.jre.utils.map.ConcurrentMapUtil;
 import net.jcores.jre.utils.map.MapUtil;
@@ -109,14 +114,11 @@ public class CommonCore {
     /** Random variable */
     private final Random random = new Random();
 
-    /** Keeps the profile information */
-    private ProfileInformation profileInformation;
-
     /** Executes commands */
     private ManagerExecution executionManager;
 
-    /** Method to clone objects */
-    private Method cloneMethod;
+    /** Method to clone objects, looked up on first use */
+    private volatile Method cloneMethod;
 
     /** Common system utilities */
     public final CommonSys sys = new CommonSys(this);
@@ -133,6 +135,9 @@ public class CommonCore {
     /** The ID of this CommonCore */
     protected final String id;
 
+    /** How many CPUs parallel operations currently use */
+    private final AtomicInteger usedCPUs = new AtomicInteger();
+
     /**
      * Constructs the common core.
      */
@@ -144,20 +149,12 @@ public class CommonCore {
         manager(ManagerDebugGUI.class, new ManagerDebugGUI());
         manager(ManagerLogging.class, new ManagerLogging());
 
-        try {
-            this.cloneMethod = Object.class.getDeclaredMethod("clone");
-            this.cloneMethod.setAccessible(true);
-        } catch (Exception e) {
-            report(MessageType.EXCEPTION, "Unable to get cloning method for objects. $.clone() will not work: " + e.getMessage());
-        }
-
         this.id = this.sys.uniqueID();
     }
 
     /** Updates the managers and their returned information in this core */
     protected void updateManagerInformation() {
         this.executionManager = manager(ManagerExecution.class);
-        this.profileInformation = this.executionManager.getProfile();
     }
 
     /**
@@ -269,6 +266,17 @@ public class CommonCore {
         return myIntegers;
     }
 
+    /**
+     * Returns the pool of heap and direct buffers used when copying, hashing, zipping and 
+     * downloading. Its statistics are also available over JMX as <code>net.jcores:type=BufferPool</code>.
+     * Only required internally.
+     * 
+     * @return The shared buffer pool.
+     */
+    public BufferPool buffers() {
+        return BufferPool.shared();
+    }
+
     /**
      * Clones the given object if it is cloneable.
      * 
@@ -283,7 +291,7 @@ public class CommonCore {
         if (!(object instanceof Cloneable)) return null;
 
         try {
-            return (T) this.cloneMethod.invoke(object);
+            return (T) cloneMethod().invoke(object);
         } catch (Exception e) {
             Options.$(this, options).failure(object, e, "clone:unknown", "Unable to clone object.");
         }
@@ -291,6 +299,24 @@ public class CommonCore {
         return null;
     }
 
+    /**
+     * Returns the method to clone objects, which is looked up when it is needed first, so
+     * the reflective lookup doesn't slow down the creation of the core.
+     * 
+     * @return The clone method.
+     * @throws Exception If the method can't be accessed (reported as a failure of <code>clone()</code>).
+     */
+    private Method cloneMethod() throws Exception {
+        Method rval = this.cloneMethod;
+        if (rval != null) return rval;
+
+        rval = Object.class.getDeclaredMethod("clone");
+        rval.setAccessible(true);
+
+        this.cloneMethod = rval;
+        return rval;
+    }
+
     /**
      * Clones the given array and returns a <b>shallow</b> copy (i.e., the elements themselves
      * are the same in both arrays).
@@ -560,12 +586,13 @@ public class CommonCore {
     }
 
     /**
-     * Returns the profiling information gathered at startup. Only required internally.
+     * Returns the profiling information. The VM is calibrated when this is called first, 
+     * usually by the first parallel operation. Only required internally.
      * 
      * @return The current profile information.
      */
     public ProfileInformation profileInformation() {
-        return this.profileInformation;
+        return this.executionManager.getProfile();
     }
 
     /**
@@ -618,6 +645,42 @@ public class CommonCore {
         return new CoreNumber(this, box(rval));
     }
 
+    /**
+     * Wraps the given <code>int</code> values without boxing them. The array is not copied.
+     * Use <code>number()</code> on the result if you need a {@link CoreNumber}.
+     * 
+     * @since 1.0
+     * @param values The values to wrap.
+     * @return A CoreInt wrapping the given values.
+     */
+    public CoreInt ints(int... values) {
+        return new CoreInt(this, values);
+    }
+
+    /**
+     * Wraps the given <code>long</code> values without boxing them. The array is not copied.
+     * Use <code>number()</code> on the result if you need a {@link CoreNumber}.
+     * 
+     * @since 1.0
+     * @param values The values to wrap.
+     * @return A CoreLong wrapping the given values.
+     */
+    public CoreLong longs(long... values) {
+        return new CoreLong(this, values);
+    }
+
+    /**
+     * Wraps the given <code>double</code> values without boxing them. The array is not copied.
+     * Use <code>number()</code> on the result if you need a {@link CoreNumber}.
+     * 
+     * @since 1.0
+     * @param values The values to wrap.
+     * @return A CoreDouble wrapping the given values.
+     */
+    public CoreDouble doubles(double... values) {
+        return new CoreDouble(this, values);
+    }
+
     /**
      * Returns a new, empty {@link AtomicReference}.
      * 
@@ -702,7 +765,9 @@ public class CommonCore {
     /**
      * Requests a number of CPUs. The system will check how many CPUs are available
      * and allocate up to <code>request</code> units. The number of allocated CPUs is
-     * returned.<br/>
+     * returned. All parallel operations share the same budget of <code>numCPUs</code>, so
+     * when many threads start parallel operations at the same time, the late ones receive
+     * no CPUs and run on their own thread.<br/>
      * <br/>
      * 
      * This function is only used internally. Also note that it is essential to call <code>releaseCPUs</code> after the
@@ -710,30 +775,18 @@ public class CommonCore {
      * 
      * @param request The number of CPUs to request.
      * 
-     * @return The actual number of CPUs available.
+     * @return The actual number of CPUs available, might be <code>0</code>.
      */
     public int requestCPUs(int request) {
-        // When looking at our benchmarks, it seems this does not speed up things, see Issue #12.
-        return Math.min(profileInformation().numCPUs, request);
-
-        /*
-         * synchronized (this.freeCPUs) {
-         * final int free = this.freeCPUs.get();
-         * 
-         * // No free CPUs means to party
-         * if(free == 0) return 0;
-         * 
-         * // More requested than free, return what we have
-         * if(request > free) {
-         * this.freeCPUs.set(0);
-         * return free;
-         * }
-         * 
-         * // In other cases, subtract what we have
-         * this.freeCPUs.set(free - request);
-         * return request;
-         * }
-         */
+        final int numCPUs = profileInformation().numCPUs;
+
+        while (true) {
+            final int used = this.usedCPUs.get();
+            final int granted = Math.max(0, Math.min(request, numCPUs - used));
+
+            if (granted == 0) return 0;
+            if (this.usedCPUs.compareAndSet(used, used + granted)) return granted;
+        }
     }
 
     /**
@@ -746,12 +799,22 @@ public class CommonCore {
      * @param toRelease The number of CPUs to release.
      */
     public void releaseCPUs(int toRelease) {
-        // When looking at our benchmarks, it seems this does not speed up things, see Issue #12.
-        /*
-         * synchronized (this.freeCPUs) {
-         * final int free = this.freeCPUs.get();
-         * this.freeCPUs.set(Math.min(this.profileInformation.numCPUs, free + toRelease));
-         * }
-         */
+        if (toRelease <= 0) return;
+        this.usedCPUs.addAndGet(-toRelease);
+    }
+
+    /**
+     * Returns how many CPUs of the budget parallel operations are using right now.<br/>
+     * <br/>
+     * 
+     * Examples:
+     * <ul>
+     * <li><code>$.usedCPUs()</code> - Returns <code>0</code> if no parallel operation is running.</li>
+     * </ul>
+     * 
+     * @return The number of CPUs in use.
+     */
+    public int usedCPUs() {
+        return this.usedCPUs.get();
     }
 }
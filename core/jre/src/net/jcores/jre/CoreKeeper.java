@@ -55,6 +55,7 @@ import net.jcores.jre.cores.CoreObject;
 import net.jcores.jre.cores.CoreString;
 import net.jcores.jre.cores.CoreURI;
 import net.jcores.jre.cores.adapter.AbstractAdapter;
+import net.jcores.jre.cores.adapter.CollectionAdapter;
 import net.jcores.jre.cores.adapter.MapAdapter;
 import net.jcores.jre.extensions.GlobalExtension;
 import net.jcores.jre.interfaces.functions.F1;
@@ -349,12 +350,12 @@ public class CoreKeeper {
      * 
      * @param collection The collection to convert and wrap.
      * @param converter The converter.
-     * @param options Relevant options: <code>OptionMapType</code>.
+     * @param options Relevant options: <code>OptionMapType</code> and all options of 
+     * <code>map()</code>.
      * 
      * @return A CoreObject of the given type wrapping a converted array of the
      * collection.
      */
-    @SuppressWarnings({ "unchecked", "cast" })
     public static <Y, T> CoreObject<Y> $(Collection<T> collection, F1<T, Y> converter,
                                          Option... options) {
 
@@ -368,6 +369,12 @@ public class CoreKeeper {
             }
         }
 
-        return new CoreObject<Y>($, (Y[]) Wrapper.convert(collection, converter, (Class<Y>) mapType));
+        // Without a type the result stays an Object array, as it always was
+        final Option[] _options = new Option[options.length + 1];
+        System.arraycopy(options, 0, _options, 1, options.length);
+        _options[0] = MapType.TYPE(mapType == null ? Object.class : mapType);
+
+        // The workers pull the collection in segments and convert them in parallel
+        return new CoreObject<T>($, (AbstractAdapter<T>) new CollectionAdapter<T, T>(collection)).map(converter, _options);
     }
 }
@@ -29,15 +29,20 @@ package net.jcores.jre.cores;
 
 import java.io.Serializable;
 import java.util.ListIterator;
-import java.util.concurrent.BrokenBarrierException;
-import java.util.concurrent.CyclicBarrier;
 import java.util.concurrent.atomic.AtomicInteger;
 
 import net.jcores.jre.CommonCore;
+import net.jcores.jre.managers.ManagerExecution;
+import net.jcores.jre.options.Cancellation;
+import net.jcores.jre.options.Execution;
 import net.jcores.jre.options.Option;
+import net.jcores.jre.utils.internal.processing.Engine;
 import net.jcores.jre.utils.internal.processing.Folder;
 import net.jcores.jre.utils.internal.processing.Mapper;
+import net.jcores.jre.utils.internal.processing.Reducer;
+import net.jcores.jre.utils.internal.structures.CostEstimate;
 import net.jcores.jre.utils.internal.structures.ProfileInformation;
+import net.jcores.jre.utils.internal.structures.Trace;
 
 /**
  * The abstract base class of all cores. Contains commonly used methods and variables. In
@@ -54,6 +59,12 @@ public abstract class Core implements Serializable {
     /** Used for serialization */
     private static final long serialVersionUID = 2195880634253143587L;
 
+    /** How many elements we sample at most before deciding if we go parallel. */
+    private static final int SAMPLES = 4;
+
+    /** How many elements we reduce directly before deciding if we go parallel. */
+    private static final int REDUCE_SAMPLES = 16;
+
     /** Our 'parent' core. */
     protected transient CommonCore commonCore;
 
@@ -83,7 +94,7 @@ public abstract class Core implements Serializable {
      * Starts a new parallel mapping process.
      * 
      * @param mapper The mapper to use.
-     * @param options Relevant options: <code>OptionMapType</code>.
+     * @param options Relevant options: <code>OptionMapType</code>, {@link Execution}, {@link Cancellation}.
      */
     @SuppressWarnings("rawtypes")
     protected void map(final Mapper mapper, final Option... options) {
@@ -97,126 +108,191 @@ public abstract class Core implements Serializable {
             return;
         }
         
-        // Compute the later step size and the number of threads.
+        // Get the profile information, the function's cost estimate and the index we start from.
         final ProfileInformation profileInfo = cc.profileInformation();
-        final int STEP_SIZE = Math.max(size() / 10, 1);
+        final ManagerExecution executor = cc.executor();
+        final CostEstimate cost = mapper.cost(executor);
         final AtomicInteger index = new AtomicInteger();
+        final Trace trace = executor.trace(size);
+        mapper.trace(trace);
         
-        // Test-convert the first item and measure time. If time and size are above
-        // a certain threshold, parallelize, otherwise map sequentially. However, in here we 
-        // only test the first one
+        // Test-convert the first few non-null items and measure time. We sample more than one element
+        // so a single slow or fast element doesn't flip the decision, but we stop early once the samples
+        // alone took longer than going parallel would.
+        int sampled = 0;
         long delta = 0;
 
         final ListIterator iterator = mapper.core().iterator();
-        while(iterator.hasNext()) {
+        final long sampleStart = System.nanoTime();
+        while(iterator.hasNext() && sampled < SAMPLES && delta < profileInfo.forkTime) {
             final int i = iterator.nextIndex();
             final Object o = iterator.next();
             
-            // Skipp all null elements
-            if(o == null) continue;
-            
             // Set the base count to the next position we should consider (in case we break the look)
             index.set(i + 1);
 
+            // Skipp all null elements
+            if(o == null) continue;
+            
             // Now map the given value
-            final long start = System.nanoTime();
             mapper.handle(i);
-            delta = System.nanoTime() - start;
-            
-            break;
+            delta = System.nanoTime() - sampleStart;
+            sampled++;
         }
         
+        // Blend the samples into what we know about the function from previous calls
+        cost.update(delta, sampled, executor.costDecay());
+        final double nanos = Double.isNaN(cost.nanos()) ? 0 : cost.nanos();
+        
         // Next, we check if have a speed gain when we move parallel. In general, we do not 
         // have a speed gain when the time it takes to spawn threads takes longer than it would 
         // take to finish the loop single-threaded
         final int toGo = size - index.get();
-        final long estTime = delta * toGo;
+        final double estTime = nanos * toGo;
 
-        // Request a CPU for each element we have (in case we have many, we only receive maxCPU, in case we have 
-        // very few, we don't block all CPUs.
-        final int NUM_THREADS = Math.min(toGo, this.commonCore.profileInformation().numCPUs); // cc.requestCPUs(toGo);
-        
         // We use a safetey factor of 2 for the fork time (FIXME: Should investigate what's the best factor),
         // also, we only spawn something if there is more than one element still to go.
-        if((estTime < 2 * profileInfo.forkTime && toGo > 1) || NUM_THREADS < 2) {
+        final boolean cheap = estTime < 2 * profileInfo.forkTime && toGo > 1;
+
+        // Request a CPU for each element we have (in case we have many, we only receive maxCPU, in case we have 
+        // very few, we don't block all CPUs. If others use the CPUs already, we might receive none.
+        final Engine engine = executor.engine(options);
+        final int NUM_THREADS = cheap ? 0 : requestCPUs(engine, toGo);
+        
+        if(cheap || NUM_THREADS < 2) {
             // Instantly release all CPUs when we go singlethreaded
-            // this.commonCore.releaseCPUs(NUM_THREADS);
+            releaseCPUs(engine, NUM_THREADS);
             
-            // In this case, we go single threaded
+            // In this case, we go single threaded, and as we are measuring anyway, we also
+            // update our estimate with the rest of the elements.
+            int handled = 0;
+            final boolean cancellable = mapper.cancellable();
+            final long serialStart = System.nanoTime();
             while(iterator.hasNext()) {
                 final int i = iterator.nextIndex();
-                iterator.next(); // We need to get the next() that the nextIndex increases. 
+                
+                // Also serial loops stop when cancelled
+                if (cancellable && mapper.cancelled()) {
+                    mapper.skipped(i, size);
+                    break;
+                }
+                
+                final Object o = iterator.next(); // We need to get the next() that the nextIndex increases. 
                 mapper.handle(i);
+                if(o != null) handled++;
             }
+            cost.update(System.nanoTime() - serialStart, handled, executor.costDecay());
+            executor.record(trace, 1);
             
             return;
         }
 
 
-        // TODO: Get proper value for step size (same problem, see below)
-        // TODO: Check size, if small, don't do all this setup in here ...
-        // NAH, even for two objects we can have a speed gain if the calls
-        // are very slow ...
-
-        
-        // Okay, in this case the loop was broken and we decided to go parallel. In that case
-        // setup the barrier and spawn threads for all our processors so that we process the array.
-        final CyclicBarrier barrier = new CyclicBarrier(NUM_THREADS + 1);
-        final AtomicInteger baseCount = new AtomicInteger();
-
-        final Runnable runner = new Runnable() {
-            public void run() {
-                int bc = baseCount.getAndIncrement() * STEP_SIZE;
-                int lower = Math.max(index.get(), bc);
-                
+        // Okay, in this case the loop was broken and we decided to go parallel. Let the engine
+        // process the rest of the array, and release all CPUs we used afterwards.
+        try {
+            engine.map(mapper, index.get(), size, NUM_THREADS, executor.grain(nanos, toGo, NUM_THREADS));
+        } finally {
+            releaseCPUs(engine, NUM_THREADS);
+            executor.record(trace, NUM_THREADS);
+        }
+    }
 
-                // Get new basecount for every pass ...
-                while (lower < size) {
-                    final int max = Math.min(Math.min(lower + STEP_SIZE, size), bc + STEP_SIZE);
+    /**
+     * Starts a parallel reduction process. A head of the core is reduced directly to
+     * measure the reducer's cost, the rest is then either reduced serially or handed to the 
+     * engine in chunks, depending on what the estimate suggests.
+     * 
+     * @param <O> The type of the result.
+     * @param reducer The reducer to use.
+     * @param options Relevant options: {@link Execution}, {@link Cancellation}.
+     * @return The reduced value, or <code>null</code> if there was nothing to reduce.
+     */
+    protected <O> O reduce(final Reducer<?, O> reducer, final Option... options) {
+        return reduce(reducer, reducer.core().size(), options);
+    }
 
-                    // Pass over all elements
-                    for (int i = lower; i < max; i++) {
-                        mapper.handle(i);
+    /**
+     * Starts a parallel reduction process over the indices <code>0 &lt;= i &lt; size</code>,
+     * for reducers not bound to a {@link CoreObject}.
+     * 
+     * @param <O> The type of the result.
+     * @param reducer The reducer to use.
+     * @param size The number of elements to reduce.
+     * @param options Relevant options: {@link Execution}, {@link Cancellation}.
+     * @return The reduced value, or <code>null</code> if there was nothing to reduce.
+     */
+    protected <O> O reduce(final Reducer<?, O> reducer, final int size, final Option... options) {
+        // Quick pass for the probably most common events
+        if (size <= 0) return null;
+        
+        final ProfileInformation profileInfo = this.commonCore.profileInformation();
+        final ManagerExecution executor = this.commonCore.executor();
+        final CostEstimate cost = reducer.cost(executor);
+        final Trace trace = executor.trace(size);
+        reducer.trace(trace);
+
+        // Reduce the head directly and see how long it took
+        final int head = Math.min(size, REDUCE_SAMPLES);
+        final long start = System.nanoTime();
+        final O left = reducer.reduce(0, head);
+        cost.update(System.nanoTime() - start, head, executor.costDecay());
+
+        final int toGo = size - head;
+        final double nanos = Double.isNaN(cost.nanos()) ? 0 : cost.nanos();
+        final boolean cheap = nanos * toGo < 2 * profileInfo.forkTime;
+        final Engine engine = executor.engine(options);
+        final int NUM_THREADS = cheap ? 0 : requestCPUs(engine, toGo);
+
+        // Same as for map(), if it isn't worth it (or there are no CPUs), stay single threaded.
+        if (cheap || NUM_THREADS < 2) {
+            releaseCPUs(engine, NUM_THREADS);
+            if (toGo <= 0) {
+                executor.record(trace, 1);
+                return left;
+            }
+            
+            final long serialStart = System.nanoTime();
+            O right = null;
+            int reduced = toGo;
+            
+            // Cancellable reducers are reduced in blocks, so we can stop in between
+            if (reducer.cancellable()) {
+                final int block = executor.grain(nanos, toGo, 1);
+                for (int from = head; from < size; from += block) {
+                    if (reducer.cancelled()) {
+                        reducer.skipped(from, size);
+                        reduced = from - head;
+                        break;
                     }
-
-                    bc = baseCount.getAndIncrement() * STEP_SIZE;
-                    lower = bc;
-                }
-
-                // Signal finish
-                try {
-                    barrier.await();
-                } catch (InterruptedException e) {
-                    e.printStackTrace();
-                } catch (BrokenBarrierException e) {
-                    e.printStackTrace();
+                    
+                    right = reducer.combine(right, reducer.reduce(from, Math.min(size, from + block)));
                 }
+            } else {
+                right = reducer.reduce(head, size);
             }
-        };
+            
+            cost.update(System.nanoTime() - serialStart, reduced, executor.costDecay());
 
-        // Execute all our runnables.
-        for(int i=0; i<NUM_THREADS; i++) {
-            cc.executor().getExecutor().execute(runner);
+            final O rval = reducer.combine(left, right);
+            executor.record(trace, 1);
+            return rval;
         }
 
-        // Wait for all threads to finish ...
+        // Otherwise reduce the rest in parallel
         try {
-            barrier.await();
-        } catch (InterruptedException e) {
-            e.printStackTrace();
-        } catch (BrokenBarrierException e) {
-            e.printStackTrace();
+            return reducer.combine(left, engine.reduce(reducer, head, size, NUM_THREADS, executor.grain(nanos, toGo, NUM_THREADS)));
+        } finally {
+            releaseCPUs(engine, NUM_THREADS);
+            executor.record(trace, NUM_THREADS);
         }
-        
-        // Release all CPUs we used
-        // cc.releaseCPUs(NUM_THREADS);
     }
 
     /**
      * Starts a parallel folding process.
      * 
      * @param folder The folder to use.
-     * @param options Relevant options: <code>OptionMapType</code>.
+     * @param options Relevant options: <code>OptionMapType</code>, {@link Execution}, {@link Cancellation}.
      */
     @SuppressWarnings("rawtypes")
     protected void fold(final Folder folder, final Option... options) {
@@ -229,186 +305,62 @@ public abstract class Core implements Serializable {
             return;
         }
 
-        final int NUM_THREADS = this.commonCore.profileInformation().numCPUs; 
-
-        // Indicates which level (in the folding hierarchy) we are and where the next
-        // thread should proceed. The base count indicates where which element should be
-        // selected next by the thread, the level indicates how many times we already passed
-        // through the whole array.
-        final AtomicInteger baseCount = new AtomicInteger();
-        final AtomicInteger round = new AtomicInteger();
-
-        // Synchronizes threads. Each thread waits at the level-barrier when it finished the last level,
-        // and waits the the global barrier when it is completely done. The main thread will also
-        // wait at the global barrier (thus +1) for all spawned threads.
-        final CyclicBarrier levelbarrier = new CyclicBarrier(NUM_THREADS);
-        final CyclicBarrier barrier = new CyclicBarrier(NUM_THREADS + 1);
-        
-        // Algorithm example for 10 elements and 4 CPUs :
-        // Content: a b c d e f g h i j
-        // Array:   _ _ _ _ _ _ _ _ _ _
-        // Index:   0 1 2 3 4 5 6 7 8 9
-        
-        // In general, we process in levels, in parallel. In each level, each thread
-        // takes the next two elements, merges them, and stores them in the position of 
-        // the first element. This means, after each level the number of elements we need to 
-        // consider halves.
-        
-        // 1) We create 4 runner threads
-        // 2) Each runner starts by picking / computing
-        //    2.1) The current level (0 in the beginning) - lvl
-        //    2.2) The distance of between X and Y for the fold operation in this level 2^0 = 1
-        // 3) Each level, we check if the distance is bigger than the actual size (10 in this 
-        //    case) of the array. If it is, we know we have finished.
-        // 4) The upper bound for each run is the size of the array minus the stepping distance
-        //    (10 - 1) = 9
-        // 5) The index X for this operation is the base count (0 * 1) = 0
-        // 6) The index Y is X + dist (0 + 1) = 1
-        // 7) Until we reached the upper bound:
-        //    7.1) handle the two elements
-        //    7.2) Take the next available elements (X, Y)
-        // ...
-        
-        // Given fold = max
-        
-        // Level 0, dist = 1
-        // 0 x 1 -> 0
-        // Content: b b c d e f g h i j
-        // 2 x 3 -> 2
-        // Content: b b d d e f g h i j
-        // 4 x 5 -> 4
-        // Content: b b d d f f g h i j
-        // 6 x 7 -> 6
-        // Content: b b d d f f h h i j
-        // 8 x 9 -> 8
-        // Content: b b d d f f h h i i
-        
-        // Level 1, dist = 2
-        // 0 x 2 -> 0
-        // Content: d b d d f f h h i i
-        // 4 x 6 -> 4
-        // Content: d b d d h f h h i i
-        // 4 x 8 -> 4
-        // Content: d b d d h i h h i i
-
-        // Level 2, dist = 4
-        // 0 x 4 -> 4
-        // Content: i b d d h i h h i i
-
-        // Return index[0]
-        
-        
-        final Runnable runner = new Runnable() {
-            public void run() {
-                int rnd = round.get();
-                int elementDistance = (int) Math.pow(2, rnd);
-
-                // Each thread processes as long as the distance between elements is smaller
-                // than the size
-                while (elementDistance < size) {
-                	// Each round the upper bound gets lower as we don't have to consider
-                	// the last elements
-                    final int upperBound = size - elementDistance;
-
-                    
-                    // Now we take a next element pair 
-                    int lastHandledI = -1;
-                    int i = baseCount.getAndAdd(2) * elementDistance;
-                    int j = i + elementDistance;
-
-                    // And each thread loop in here, until the right element
-                    // has left the righter bound
-                    while (j <= upperBound) {
-                    	// Process two elements and store them
-                        folder.handle(i, j, i);
-
-                        // Remember what we processed last
-                        lastHandledI = i;
-                        
-                        // Take the next available element pairs
-                        i = baseCount.getAndAdd(2) * elementDistance;
-                        j = i + elementDistance;
-                    }
-
-                    
-                    // Ideally, at this point, we are through the array. However, it might be the case 
-                    // that an uneven number of elements was in that loop run
-                    // 10 -> 5 pairs
-                    // 11 -> 5 pairs, one left
-                    
-                    // So we check now if we were the thread processing the last element pair
-                    // in that turn, and if there was a sole element left
-                    
-                    // This is the case when we processed something (lastHandledI > 0)
-                    // and when element 2nd element to the right (the next one) exists
-                    // but its pair (the 3rd one) does not. 
-                    
-                    // In that case we connect this element wit the next one 
-                    
-                    if (lastHandledI + 2 * elementDistance <= upperBound && 
-                        	lastHandledI + 3 * elementDistance > upperBound &&
-                        	lastHandledI >= 0) {
-                        	folder.handle(lastHandledI, lastHandledI + 2 * elementDistance, lastHandledI);
-                    }
-                
-                    // At this point we finished the round
-                    try {
-                        levelbarrier.await();
-                    } catch (InterruptedException e) {
-                        e.printStackTrace();
-                    } catch (BrokenBarrierException e) {
-                        e.printStackTrace();
-                    }
-                    
-                    
-                    // If we were the one who changed the level, we also change the baseCount 
-                    // back to 0
-                    if (round.compareAndSet(rnd, rnd + 1)) {
-                        baseCount.set(0);
-                    }
-                    
-                   
-                    // We first have to wait twice, as otherwise an other thread
-                    // might be quicker than us in returning up to the loop again and use the
-                    // old level value 
-                    
-
-                    // Now we all wait that the level has been updated
-                    try {
-                        levelbarrier.await();
-                    } catch (InterruptedException e) {
-                        e.printStackTrace();
-                    } catch (BrokenBarrierException e) {
-                        e.printStackTrace();
-                    }
-                    
-                    // And get new parameters
-                    rnd = round.get();
-                    elementDistance = (int) Math.pow(2, rnd);
-                }
-
-                try {
-                    barrier.await();
-                } catch (InterruptedException e) {
-                    e.printStackTrace();
-                } catch (BrokenBarrierException e) {
-                    e.printStackTrace();
+        final ManagerExecution executor = this.commonCore.executor();
+        final Engine engine = executor.engine(options);
+        final int NUM_THREADS = requestCPUs(engine, size); 
+        final Trace trace = executor.trace(size);
+        folder.trace(trace);
+
+        // Without CPUs we fold everything into the first slot on our own.
+        if (NUM_THREADS < 2) {
+            releaseCPUs(engine, NUM_THREADS);
+            for (int i = 1; i < size; i++) {
+                if (folder.cancellable() && folder.cancelled()) {
+                    folder.skipped(i, size);
+                    break;
                 }
+                folder.handle(0, i, 0);
             }
-        };
-
-        // Execute all our runnables.
-        for(int i=0; i<NUM_THREADS; i++) {
-            this.commonCore.executor().getExecutor().execute(runner);
+            executor.record(trace, 1);
+            return;
         }
 
-        // Wait for all threads to finish ...
+        // Let the engine fold all elements into the first slot.
         try {
-            barrier.await();
-        } catch (InterruptedException e) {
-            e.printStackTrace();
-        } catch (BrokenBarrierException e) {
-            e.printStackTrace();
+            engine.fold(folder, size, NUM_THREADS);
+        } finally {
+            releaseCPUs(engine, NUM_THREADS);
+            executor.record(trace, NUM_THREADS);
         }
     }
+
+    /**
+     * Requests the workers for a parallel operation from the CPU budget of the common core.
+     * Nested operations receive no workers, as the outer operation keeps the CPUs busy already.
+     * Blocking engines are neither bound to the budget nor suppressed when nested, their workers
+     * mostly wait.
+     * 
+     * @param engine The engine that will run the operation.
+     * @param elements The number of elements to process.
+     * @return The number of workers to use, less than <code>2</code> means the operation should
+     * run inline.
+     */
+    protected final int requestCPUs(Engine engine, int elements) {
+        final int workers = engine.workers(elements, this.commonCore.profileInformation().numCPUs);
+        if (engine.blocking()) return workers;
+        if (engine.nested()) return 0;
+
+        return this.commonCore.requestCPUs(workers);
+    }
+
+    /**
+     * Releases the workers obtained by <code>requestCPUs()</code>.
+     * 
+     * @param engine The engine that ran the operation.
+     * @param workers The number of workers received.
+     */
+    protected final void releaseCPUs(Engine engine, int workers) {
+        if (engine.blocking()) return;
+        this.commonCore.releaseCPUs(workers);
+    }
 }
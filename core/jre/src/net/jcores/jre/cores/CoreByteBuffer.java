@@ -30,8 +30,12 @@ package net.jcores.jre.cores;
 import static net.jcores.jre.CoreKeeper.$;
 
 import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
 
 import net.jcores.jre.CommonCore;
+import net.jcores.jre.cores.adapter.AbstractAdapter;
 import net.jcores.jre.interfaces.functions.F1;
 import net.jcores.jre.options.Hash;
 import net.jcores.jre.options.Option;
@@ -54,6 +58,9 @@ public class CoreByteBuffer extends CoreObject<ByteBuffer> {
     /** Used for serialization */
     private static final long serialVersionUID = 6075205848624531993L;
 
+    /** Where the buffers of each file start if several buffers belong to one file, plus our size at the end */
+    final int[] files;
+
     /**
      * Creates an ZipInputStream core.
      * 
@@ -62,10 +69,38 @@ public class CoreByteBuffer extends CoreObject<ByteBuffer> {
      */
     public CoreByteBuffer(CommonCore supercore, ByteBuffer... objects) {
         super(supercore, objects);
+        this.files = null;
+    }
+
+    /**
+     * Creates a ByteBuffer core.
+     * 
+     * @param supercore The common core.
+     * @param adapter The adapter to wrap.
+     */
+    public CoreByteBuffer(CommonCore supercore, AbstractAdapter<ByteBuffer> adapter) {
+        super(supercore, adapter);
+        this.files = null;
+    }
+
+    /**
+     * Creates a ByteBuffer core for files consisting of one or more buffers each.
+     * 
+     * @param supercore The common core.
+     * @param files The buffers of each file, <code>null</code> for files that could not be read.
+     */
+    CoreByteBuffer(CommonCore supercore, ByteBuffer[][] files) {
+        this(supercore, flatten(files), offsets(files));
+    }
+
+    private CoreByteBuffer(CommonCore supercore, ByteBuffer[] buffers, int[] files) {
+        super(supercore, buffers);
+        this.files = files;
     }
 
     /**
-     * Creates a hash of the given data.<br/>
+     * Creates a hash of the given data. If this core came from <code>data()</code>, files 
+     * spanning several buffers are hashed as a whole.<br/>
      * <br/>
      * 
      * Examples:
@@ -85,10 +120,52 @@ public class CoreByteBuffer extends CoreObject<ByteBuffer> {
         final Options options$ = Options.$(this.commonCore, options);
         final String method = $(options).get(Hash.class, Hash.MD5).getMethod();
 
-        return new CoreString(this.commonCore, map(new F1<ByteBuffer, String>() {
-            public String f(final ByteBuffer x) {
-                return Bytes.generateHash(x, method, options$);
+        if (this.files == null || this.files.length == size() + 1) {
+            return new CoreString(this.commonCore, map(new F1<ByteBuffer, String>() {
+                public String f(final ByteBuffer x) {
+                    return Bytes.generateHash(method, options$, x);
+                }
+            }).array(String.class));
+        }
+
+        // Hash the buffers of each file together
+        final int[] files = this.files;
+        final ByteBuffer[] buffers = unsafearray();
+        return new CoreString(this.commonCore, $.range(files.length - 1).map(new F1<Number, String>() {
+            public String f(final Number x) {
+                final int i = x.intValue();
+                if (buffers[files[i]] == null) return null;
+                return Bytes.generateHash(method, options$, Arrays.copyOfRange(buffers, files[i], files[i + 1]));
             }
         }).array(String.class));
     }
+
+    /**
+     * Joins the buffers of all files.
+     * 
+     * @param files The buffers of each file.
+     * @return All buffers, a single <code>null</code> for each missing file.
+     */
+    private static ByteBuffer[] flatten(ByteBuffer[][] files) {
+        final List<ByteBuffer> rval = new ArrayList<ByteBuffer>();
+        for (ByteBuffer[] file : files) {
+            if (file == null) rval.add(null);
+            else rval.addAll(Arrays.asList(file));
+        }
+        return rval.toArray(new ByteBuffer[rval.size()]);
+    }
+
+    /**
+     * Computes where the buffers of each file start.
+     * 
+     * @param files The buffers of each file.
+     * @return The offsets.
+     */
+    private static int[] offsets(ByteBuffer[][] files) {
+        final int[] rval = new int[files.length + 1];
+        for (int i = 0; i < files.length; i++) {
+            rval[i + 1] = rval[i] + (files[i] == null ? 1 : files[i].length);
+        }
+        return rval;
+    }
 }
@@ -0,0 +1,576 @@
+/*
+ * CoreDouble.java
+ * 
+ * Copyright (c) 2010, Ralf Biedert All rights reserved.
+ * 
+ * Redistribution and use in source and binary forms, with or without modification, are
+ * permitted provided that the following conditions are met:
+ * 
+ * Redistributions of source code must retain the above copyright notice, this list of
+ * conditions and the following disclaimer. Redistributions in binary form must reproduce the
+ * above copyright notice, this list of conditions and the following disclaimer in the
+ * documentation and/or other materials provided with the distribution.
+ * 
+ * Neither the name of the author nor the names of its contributors may be used to endorse or
+ * promote products derived from this software without specific prior written permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY EXPRESS
+ * OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE
+ * COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL,
+ * EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION)
+ * HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR
+ * TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE,
+ * EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ * 
+ */
+package net.jcores.jre.cores;
+
+import java.util.Arrays;
+
+import net.jcores.jre.CommonCore;
+import net.jcores.jre.annotations.SupportsOption;
+import net.jcores.jre.interfaces.functions.F1Double2Bool;
+import net.jcores.jre.interfaces.functions.F1Double2Double;
+import net.jcores.jre.interfaces.functions.F2ReduceDoubles;
+import net.jcores.jre.options.Associative;
+import net.jcores.jre.options.Execution;
+import net.jcores.jre.options.InvertSelection;
+import net.jcores.jre.options.Option;
+import net.jcores.jre.utils.internal.Options;
+import net.jcores.jre.utils.internal.processing.Reducer;
+
+/**
+ * Wraps a primitive <code>double</code> array without boxing its values, and provides parallel 
+ * kernels to map, filter, reduce, sort and analyze them. Compared to a {@link CoreNumber}
+ * this needs a fraction of the memory, and no value is ever boxed or unboxed. Use 
+ * <code>number()</code> if you need a {@link CoreNumber} nonetheless.<br/>
+ * <br/>
+ * 
+ * Examples:
+ * <ul>
+ * <li><code>$.doubles(values).variance()</code> - Computes the variance of all values in parallel.</li>
+ * </ul>
+ * 
+ * @author Ralf Biedert
+ * @since 1.0
+ */
+public class CoreDouble extends CorePrimitive {
+
+    /** Used for serialization */
+    private static final long serialVersionUID = 1940558319236427905L;
+
+    /** The wrapped values */
+    protected final double[] values;
+
+    /**
+     * Wraps the given values. The array is not copied.
+     * 
+     * @param supercore The common core.
+     * @param values The values to wrap.
+     */
+    public CoreDouble(CommonCore supercore, double... values) {
+        super(supercore, values == null ? 0 : values.length);
+        this.values = values == null ? new double[0] : values;
+    }
+
+    /**
+     * Returns a copy of the wrapped values.<br/>
+     * <br/>
+     * 
+     * Examples:
+     * <ul>
+     * <li><code>$.doubles(values).sort().array()</code> - Returns a sorted copy of <code>values</code>.</li>
+     * </ul>
+     * 
+     * Single-threaded.<br/>
+     * <br/>
+     * 
+     * @return A copy of the wrapped array.
+     */
+    public double[] array() {
+        return Arrays.copyOf(this.values, this.size);
+    }
+
+    /**
+     * Returns the average of all values, ignoring <code>NaN</code>.<br/>
+     * <br/>
+     * 
+     * Examples:
+     * <ul>
+     * <li><code>$.doubles(1, 3).average()</code> - Returns 2.0.</li>
+     * </ul>
+     * 
+     * Multi-threaded.<br/>
+     * <br/>
+     * 
+     * @return The average of all values, or <code>0</code> if there are none.
+     */
+    public double average() {
+        final Moments moments = moments();
+        return moments == null || moments.n == 0 ? 0 : moments.mean;
+    }
+
+    /**
+     * Keeps only the values for which <code>f</code> returns true.<br/>
+     * <br/>
+     * 
+     * Examples:
+     * <ul>
+     * <li><code>$.doubles(values).filter(f).size()</code> - Counts the values passing <code>f</code>.</li>
+     * </ul>
+     * 
+     * Multi-threaded.<br/>
+     * <br/>
+     * 
+     * @param f If f returns true the value is kept.
+     * @param options Supports {@link InvertSelection} if the filter logic should be inverted, and {@link Execution}.
+     * @return A new core with the kept values, in their original order.
+     */
+    @SupportsOption(options = { InvertSelection.class, Execution.class })
+    public CoreDouble filter(final F1Double2Bool f, Option... options) {
+        final boolean invert = Options.$(this.commonCore, options).invert();
+
+        final Segment segments = reduce(new Reducer<Object, Segment>() {
+            @Override
+            public Object function() {
+                return f;
+            }
+
+            @Override
+            public Segment reduce(int from, int to) {
+                final double[] kept = new double[to - from];
+                final Segment segment = new Segment(kept);
+
+                for (int i = from; i < to; i++) {
+                    final double value = CoreDouble.this.values[i];
+                    if (f.f(value) != invert) kept[segment.size++] = value;
+                }
+
+                return segment;
+            }
+
+            @Override
+            public Segment combine(Segment left, Segment right) {
+                return Segment.combine(left, right);
+            }
+        }, options);
+
+        final double[] rval = new double[Segment.size(segments)];
+        Segment.copy(segments, rval);
+
+        return new CoreDouble(this.commonCore, rval);
+    }
+
+    /**
+     * Returns the value at the given position, negative indices are counted from the end.<br/>
+     * <br/>
+     * 
+     * Examples:
+     * <ul>
+     * <li><code>$.doubles(1, 2, 3).get(-1)</code> - Returns 3.</li>
+     * </ul>
+     * 
+     * Single-threaded.<br/>
+     * <br/>
+     * 
+     * @param index The index of the value.
+     * @return The value, or <code>0</code> if the index was out of range.
+     */
+    public double get(int index) {
+        final int i = index(index);
+        return i < 0 ? 0 : this.values[i];
+    }
+
+    /**
+     * Maps all values with the given function.<br/>
+     * <br/>
+     * 
+     * Examples:
+     * <ul>
+     * <li><code>$.doubles(values).map(square).sum()</code> - Returns the sum of squares.</li>
+     * </ul>
+     * 
+     * Multi-threaded.<br/>
+     * <br/>
+     * 
+     * @param f The function to apply, must be thread-safe.
+     * @param options Relevant options: {@link Execution}.
+     * @return A new core with the mapped values.
+     */
+    @SupportsOption(options = { Execution.class })
+    public CoreDouble map(final F1Double2Double f, Option... options) {
+        final double[] rval = new double[this.size];
+
+        reduce(new Reducer<Object, Object>() {
+            @Override
+            public Object function() {
+                return f;
+            }
+
+            @Override
+            public Object reduce(int from, int to) {
+                for (int i = from; i < to; i++) {
+                    rval[i] = f.f(CoreDouble.this.values[i]);
+                }
+                return null;
+            }
+
+            @Override
+            public Object combine(Object left, Object right) {
+                return null;
+            }
+        }, options);
+
+        return new CoreDouble(this.commonCore, rval);
+    }
+
+    /**
+     * Returns the maximum value, ignoring <code>NaN</code>.<br/>
+     * <br/>
+     * 
+     * Examples:
+     * <ul>
+     * <li><code>$.doubles(3, 1, 2).max()</code> - Returns 3.</li>
+     * </ul>
+     * 
+     * Multi-threaded.<br/>
+     * <br/>
+     * 
+     * @return The maximum value, or <code>0</code> if there is none.
+     */
+    public double max() {
+        return max(0);
+    }
+
+    /**
+     * Returns the maximum value, ignoring <code>NaN</code>, or <code>alternative</code> if there is none.<br/>
+     * <br/>
+     * 
+     * Examples:
+     * <ul>
+     * <li><code>$.doubles().max(Double.NaN)</code> - Returns <code>Double.NaN</code>.</li>
+     * </ul>
+     * 
+     * Multi-threaded.<br/>
+     * <br/>
+     * 
+     * @param alternative The value to return if there is no value.
+     * @return The maximum value, or <code>alternative</code>.
+     */
+    public double max(double alternative) {
+        return extreme(true, alternative);
+    }
+
+    /**
+     * Returns the minimum value, ignoring <code>NaN</code>.<br/>
+     * <br/>
+     * 
+     * Examples:
+     * <ul>
+     * <li><code>$.doubles(3, 1, 2).min()</code> - Returns 1.</li>
+     * </ul>
+     * 
+     * Multi-threaded.<br/>
+     * <br/>
+     * 
+     * @return The minimum value, or <code>0</code> if there is none.
+     */
+    public double min() {
+        return min(0);
+    }
+
+    /**
+     * Returns the minimum value, ignoring <code>NaN</code>, or <code>alternative</code> if there is none.<br/>
+     * <br/>
+     * 
+     * Examples:
+     * <ul>
+     * <li><code>$.doubles().min(Double.NaN)</code> - Returns <code>Double.NaN</code>.</li>
+     * </ul>
+     * 
+     * Multi-threaded.<br/>
+     * <br/>
+     * 
+     * @param alternative The value to return if there is no value.
+     * @return The minimum value, or <code>alternative</code>.
+     */
+    public double min(double alternative) {
+        return extreme(false, alternative);
+    }
+
+    /**
+     * Boxes all values into a {@link CoreNumber}.<br/>
+     * <br/>
+     * 
+     * Examples:
+     * <ul>
+     * <li><code>$.doubles(values).number().string(".0")</code> - Formats all values.</li>
+     * </ul>
+     * 
+     * Single-threaded.<br/>
+     * <br/>
+     * 
+     * @return A CoreNumber with the boxed values.
+     */
+    public CoreNumber number() {
+        return new CoreNumber(this.commonCore, this.commonCore.box(array()));
+    }
+
+    /**
+     * Reduces all values with the given function. By default the values are reduced 
+     * sequentially from left to right. If <code>f</code> is declared {@link Associative}
+     * each worker reduces its own chunk and the partial results are combined afterwards.<br/>
+     * <br/>
+     * 
+     * Examples:
+     * <ul>
+     * <li><code>$.doubles(values).reduce(gcd, 0, Associative.DO)</code> - Computes the result in parallel.</li>
+     * </ul>
+     * 
+     * Multi-threaded (if associative).<br/>
+     * <br/>
+     * 
+     * @param f The function to reduce with.
+     * @param alternative The value to return if there is no value.
+     * @param options Relevant options: {@link Associative}, {@link Execution}.
+     * @return The reduced value, or <code>alternative</code>.
+     */
+    @SupportsOption(options = { Associative.class, Execution.class })
+    public double reduce(final F2ReduceDoubles f, double alternative, Option... options) {
+        if (this.size == 0) return alternative;
+
+        if (!Options.$(this.commonCore, options).associative()) {
+            double stack = this.values[0];
+            for (int i = 1; i < this.size; i++) {
+                stack = f.f(stack, this.values[i]);
+            }
+            return stack;
+        }
+
+        final Double rval = reduce(new Reducer<Object, Double>() {
+            @Override
+            public Object function() {
+                return f;
+            }
+
+            @Override
+            public Double reduce(int from, int to) {
+                double stack = CoreDouble.this.values[from];
+                for (int i = from + 1; i < to; i++) {
+                    stack = f.f(stack, CoreDouble.this.values[i]);
+                }
+                return Double.valueOf(stack);
+            }
+
+            @Override
+            public Double combine(Double left, Double right) {
+                if (left == null) return right;
+                if (right == null) return left;
+                return Double.valueOf(f.f(left.doubleValue(), right.doubleValue()));
+            }
+        }, options);
+
+        return rval == null ? alternative : rval.doubleValue();
+    }
+
+    /**
+     * Returns a sorted copy of this core.<br/>
+     * <br/>
+     * 
+     * Examples:
+     * <ul>
+     * <li><code>$.doubles(3, 1, 2).sort()</code> - Returns a core with <code>1, 2, 3</code>.</li>
+     * </ul>
+     * 
+     * Multi-threaded.<br/>
+     * <br/>
+     * 
+     * @param options Relevant options: {@link Execution}.
+     * @return A new core with all values in ascending order.
+     */
+    @SupportsOption(options = { Execution.class })
+    public CoreDouble sort(Option... options) {
+        final CoreDouble rval = new CoreDouble(this.commonCore, array());
+        rval.sortInPlace(options);
+        return rval;
+    }
+
+    /**
+     * Returns the standard deviation of all values, ignoring <code>NaN</code>.<br/>
+     * <br/>
+     * 
+     * Examples:
+     * <ul>
+     * <li><code>$.doubles(2, -2, 2, -2).standarddeviation()</code> - Returns 2.0.</li>
+     * </ul>
+     * 
+     * Multi-threaded.<br/>
+     * <br/>
+     * 
+     * @return The standard deviation of all values, or <code>0</code> if there are none.
+     */
+    public double standarddeviation() {
+        return Math.sqrt(variance());
+    }
+
+    /**
+     * Returns the sum of all values, ignoring <code>NaN</code>.<br/>
+     * <br/>
+     * 
+     * Examples:
+     * <ul>
+     * <li><code>$.doubles(1, 2, 3).sum()</code> - Returns 6.</li>
+     * </ul>
+     * 
+     * Multi-threaded.<br/>
+     * <br/>
+     * 
+     * @return The sum of all values, or <code>0</code> if there are none.
+     */
+    public double sum() {
+        final Double rval = reduce(new Reducer<Object, Double>() {
+            @Override
+            public Double reduce(int from, int to) {
+                double sum = 0;
+                for (int i = from; i < to; i++) {
+                    final double value = CoreDouble.this.values[i];
+                    if (Double.isNaN(value)) continue;
+                    sum += value;
+                }
+                return Double.valueOf(sum);
+            }
+
+            @Override
+            public Double combine(Double left, Double right) {
+                if (left == null) return right;
+                if (right == null) return left;
+                return Double.valueOf(left.doubleValue() + right.doubleValue());
+            }
+        });
+
+        return rval == null ? 0 : rval.doubleValue();
+    }
+
+    /**
+     * Returns the wrapped array. Changes to the array will be reflected by this core.<br/>
+     * <br/>
+     * 
+     * Single-threaded.<br/>
+     * <br/>
+     * 
+     * @return The wrapped array.
+     */
+    public double[] unsafearray() {
+        return this.values;
+    }
+
+    /**
+     * Returns the variance of all values, ignoring <code>NaN</code>, assuming a uniform distribution. The variance
+     * is computed in a single pass.<br/>
+     * <br/>
+     * 
+     * Examples:
+     * <ul>
+     * <li><code>$.doubles(2, -2, 2, -2).variance()</code> - Returns 4.0.</li>
+     * </ul>
+     * 
+     * Multi-threaded.<br/>
+     * <br/>
+     * 
+     * @return The variance of all values, or <code>0</code> if there are none.
+     */
+    public double variance() {
+        final Moments moments = moments();
+        return moments == null ? 0 : moments.variance();
+    }
+
+    /**
+     * Computes the extreme value in parallel.
+     * 
+     * @param max If the maximum (or the minimum) should be computed.
+     * @param alternative The value to return if there is no value.
+     * @return The maximum or minimum.
+     */
+    private double extreme(final boolean max, double alternative) {
+        final Double rval = reduce(new Reducer<Object, Double>() {
+            @Override
+            public Double reduce(int from, int to) {
+                boolean any = false;
+                double extreme = 0;
+
+                for (int i = from; i < to; i++) {
+                    final double value = CoreDouble.this.values[i];
+                    if (Double.isNaN(value)) continue;
+                    if (!any || (max ? value > extreme : value < extreme)) extreme = value;
+                    any = true;
+                }
+
+                return any ? Double.valueOf(extreme) : null;
+            }
+
+            @Override
+            public Double combine(Double left, Double right) {
+                if (left == null) return right;
+                if (right == null) return left;
+                return max == left.doubleValue() >= right.doubleValue() ? left : right;
+            }
+        });
+
+        return rval == null ? alternative : rval.doubleValue();
+    }
+
+    /**
+     * Computes the moments of all values in parallel.
+     * 
+     * @return The moments, or <code>null</code> if there were no values.
+     */
+    private Moments moments() {
+        return reduce(new Reducer<Object, Moments>() {
+            @Override
+            public Moments reduce(int from, int to) {
+                final Moments moments = new Moments();
+
+                for (int i = from; i < to; i++) {
+                    final double value = CoreDouble.this.values[i];
+                    if (Double.isNaN(value)) continue;
+                    moments.add(value);
+                }
+
+                return moments;
+            }
+
+            @Override
+            public Moments combine(Moments left, Moments right) {
+                return Moments.combine(left, right);
+            }
+        });
+    }
+
+    /* (non-Javadoc)
+     * @see net.jcores.jre.cores.CorePrimitive#sort(int, int)
+     */
+    @Override
+    protected void sort(int from, int to) {
+        Arrays.sort(this.values, from, to);
+    }
+
+    /* (non-Javadoc)
+     * @see net.jcores.jre.cores.CorePrimitive#merge(int, int, int)
+     */
+    @Override
+    protected void merge(int from, int mid, int to) {
+        // Nothing to do if both ranges are already in order (compare() keeps the order of Arrays.sort() for NaN and -0.0)
+        if (mid <= from || mid >= to || Double.compare(this.values[mid - 1], this.values[mid]) <= 0) return;
+
+        final double[] left = Arrays.copyOfRange(this.values, from, mid);
+        int l = 0, r = mid, dst = from;
+
+        while (l < left.length && r < to) {
+            this.values[dst++] = Double.compare(this.values[r], left[l]) < 0 ? this.values[r++] : left[l++];
+        }
+
+        System.arraycopy(left, l, this.values, dst, left.length - l);
+    }
+}
@@ -41,7 +41,7 @@ import java.io.PrintWriter;
 import java.io.UnsupportedEncodingException;
 import java.net.URI;
 import java.nio.ByteBuffer;
-import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
 import java.util.List;
 import java.util.jar.Manifest;
 import java.util.regex.Matcher;
@@ -52,17 +52,26 @@ import javax.sound.sampled.AudioInputStream;
 
 import net.jcores.jre.CommonCore;
 import net.jcores.jre.CoreKeeper;
+import net.jcores.jre.annotations.SupportsOption;
 import net.jcores.jre.cores.adapter.AbstractAdapter;
+import net.jcores.jre.cores.adapter.LinesAdapter;
+import net.jcores.jre.cores.adapter.LinesAdapter.Chunk;
 import net.jcores.jre.interfaces.functions.F1;
 import net.jcores.jre.interfaces.functions.F1Object2Bool;
 import net.jcores.jre.options.DefaultOption;
+import net.jcores.jre.options.Execution;
+import net.jcores.jre.options.KillSwitch;
 import net.jcores.jre.options.ListDirectories;
+import net.jcores.jre.options.Mapped;
 import net.jcores.jre.options.MessageType;
 import net.jcores.jre.options.Option;
+import net.jcores.jre.options.Walk;
+import net.jcores.jre.utils.Async;
 import net.jcores.jre.utils.internal.Files;
 import net.jcores.jre.utils.internal.Options;
 import net.jcores.jre.utils.internal.Sound;
 import net.jcores.jre.utils.internal.Streams;
+import net.jcores.jre.utils.internal.Walker;
 
 /**
  * Convenience functions for {@link File} objects, e.g. <code>text()</code>. For example,
@@ -210,16 +219,22 @@ public class CoreFile extends CoreObject<File> {
      * <code>bin</code></li>
      * </ul>
      * 
+     * The files are copied with channel transfers, so the kernel can do the copying. Directory 
+     * trees are listed first and their files are then copied in parallel.<br/>
+     * <br/>
+     * 
      * Multi-threaded.<br/>
      * <br/>
      * 
      * @param destination The destination to write to. Can be a directory or a file. Directories <b>must end with a
      * slash
      * (<code>/</code>) or pre-exist</b>, otherwise they will be treated as files!
+     * @param options Relevant options: {@link Execution} (default is <code>Execution.IO</code>).
      * 
      * @return The new core file object, containing all files that have been copied..
      */
-    public CoreFile copy(String destination) {
+    @SupportsOption(options = { Execution.class })
+    public CoreFile copy(String destination, Option... options) {
         if (destination == null) {
             this.commonCore.report(MessageType.MISUSE, "Destination null for copy().");
             return this;
@@ -228,57 +243,62 @@ public class CoreFile extends CoreObject<File> {
         final File dest = new File(destination);
         final CommonCore cc = this.commonCore;
 
-        return new CoreFile(this.commonCore, map(new F1<File, File[]>() {
+        // Find out what goes where ...
+        final CoreObject<File[]> plan = map(new F1<File, File[][]>() {
+            @Override
+            public File[][] f(File x) {
+                return Files.plan(x, dest);
+            }
+        }, blocking(options)).expand(File[].class);
+
+        // ... and copy all files of all trees at the same time
+        return new CoreFile(this.commonCore, plan.map(new F1<File[], File>() {
             @Override
-            public File[] f(File x) {
-                return Files.copy(cc, x, dest);
+            public File f(File[] x) {
+                return Files.copyFile(cc, x[0], x[1]);
             }
-        }).expand(File.class).array(File.class));
+        }, blocking(options)).array(File.class));
     }
 
     /**
      * Opens the enclosed file streams as binary files and reads their data into byte
-     * buffers.
+     * buffers. With {@link Mapped} the files are mapped into memory instead, which also 
+     * works for files larger than 2 GB. These take several consecutive buffers in the 
+     * returned core, <code>hash()</code> still hashes each file as a whole.
      * File stream which could not be opened will be returned as null.<br/>
      * <br/>
      * 
      * Examples:
      * <ul>
      * <li><code>$("data.jar").file().data().hash().print()</code> - Prints the (MD5) hash of the given file.</li>
+     * <li><code>$("dump.bin").file().data(Mapped.DO).hash().print()</code> - Hashes a huge file without reading it onto the heap.</li>
      * </ul>
      * 
      * Multi-threaded.<br/>
      * <br/>
      * 
+     * @param options Relevant options: {@link Execution} (default is <code>Execution.IO</code>) and {@link Mapped}.
+     * 
      * @return A CoreByteBuffer with binary content.
      */
-    public CoreByteBuffer data() {
+    @SupportsOption(options = { Execution.class, Mapped.class })
+    public CoreByteBuffer data(Option... options) {
         final CommonCore cc = this.commonCore;
-        return new CoreByteBuffer(this.commonCore, map(new F1<File, ByteBuffer>() {
-            public ByteBuffer f(File x) {
-                try {
-                    final FileChannel channel = new FileInputStream(x).getChannel();
-                    final long size = channel.size();
 
-                    final ByteBuffer buffer = ByteBuffer.allocate((int) size);
-                    int read = channel.read(buffer);
-
-                    if (read != size) {
-                        cc.report(MessageType.EXCEPTION, "Error reading data() from " + x + ". Size mismatch (" + read + " != " + size + ")");
-                        return null;
-                    }
-
-                    channel.close();
-                    return buffer;
-                } catch (FileNotFoundException e) {
-                    cc.report(MessageType.EXCEPTION, "Error reading data() from " + x + ". File not found!");
-                    return null;
-                } catch (IOException e) {
-                    cc.report(MessageType.EXCEPTION, "Error reading data() from " + x + ". IOException!");
-                    return null;
+        // Mapped files may take several segments each
+        if (Options.$(cc, options).mapped()) {
+            return new CoreByteBuffer(this.commonCore, map(new F1<File, ByteBuffer[]>() {
+                public ByteBuffer[] f(File x) {
+                    return Files.mapData(cc, x);
                 }
+            }, blocking(options)).array(ByteBuffer[].class));
+        }
+
+        return new CoreByteBuffer(this.commonCore, map(new F1<File, ByteBuffer>() {
+            public ByteBuffer f(File x) {
+                return Files.readData(cc, x);
             }
-        }).array(ByteBuffer.class));
+        }, blocking(options)).array(ByteBuffer.class));
     }
 
     /**
@@ -374,26 +394,53 @@ public class CoreFile extends CoreObject<File> {
      * Examples:
      * <ul>
      * <li><code>$(".").file().dir().print()</code> - Lists all files below the current directory.</li>
+     * <li><code>$(".").file().dir(Walk.MATCH(".*java$"), Walk.PRUNE(".*\\.git"))</code> - Lists all Java files, 
+     * without entering <code>.git</code> directories.</li>
      * </ul>
      * 
+     * The directories are walked in parallel, see {@link #walk(Option...)}, so the order of the 
+     * returned files is undefined.<br/>
+     * <br/>
+     * 
      * Multi-threaded.<br/>
      * <br/>
      * 
-     * @param options Accepts {@link ListDirectories} in case sub directories should be considered as well.
+     * @param options Accepts {@link ListDirectories} in case sub directories should be considered as well, 
+     * {@link Walk} to restrict the walk and {@link Execution} to change how many directories are listed at once.
      * 
      * @return A CoreFile with all found files (and, if selected, directories).
      */
+    @SupportsOption(options = { ListDirectories.class, Walk.class, Execution.class })
     public CoreFile dir(Option... options) {
+        return new CoreFile(this.commonCore, walk(options).await().unique().array(File.class));
+    }
 
+    /**
+     * Walks all enclosed directories in parallel and returns their contents as they are found, 
+     * in no particular order. {@link Walk} options are applied during the walk, so pruned 
+     * directories are never listed and entries not matching are never returned.<br/>
+     * <br/>
+     * 
+     * Examples:
+     * <ul>
+     * <li><code>$("/mnt/share").file().walk(Walk.MATCH(".*\\.log"), Walk.DEPTH(3)).onNext(...)</code> - Processes all 
+     * logs at most three levels down, while the walk is still running.</li>
+     * </ul>
+     * 
+     * Multi-threaded. Asynchronous.<br/>
+     * <br/>
+     * 
+     * @param options Accepts {@link ListDirectories}, {@link Walk}, {@link KillSwitch} to stop the walk and 
+     * {@link Execution} to change how many directories are listed at once (default is {@link Walker#LIMIT}).
+     * 
+     * @return An {@link Async} receiving all found files (and, if selected, directories).
+     */
+    @SupportsOption(options = { ListDirectories.class, Walk.class, KillSwitch.class, Execution.class })
+    public Async<File> walk(Option... options) {
         // Check if we should emit diretories
         final boolean listDirs = net.jcores.jre.CoreKeeper.$(options).contains(ListDirectories.DO);
 
-        return map(new F1<File, File[]>() {
-            @Override
-            public File[] f(File x) {
-                return Files.dir(x, listDirs);
-            }
-        }).expand(File.class).unique().as(CoreFile.class);
+        return new Walker(this.commonCore, listDirs, options).walk(unsafeadapter().array());
     }
 
     /**
@@ -490,9 +537,12 @@ public class CoreFile extends CoreObject<File> {
      * Multi-threaded.<br/>
      * <br/>
      * 
+     * @param options Relevant options: {@link Execution} (default is <code>Execution.IO</code>).
+     * 
      * @return A CoreInputStream with the opened files.
      */
-    public CoreInputStream input() {
+    @SupportsOption(options = { Execution.class })
+    public CoreInputStream input(Option... options) {
         return new CoreInputStream(this.commonCore, map(new F1<File, InputStream>() {
             public InputStream f(File x) {
                 try {
@@ -500,7 +550,7 @@ public class CoreFile extends CoreObject<File> {
                 } catch (FileNotFoundException e) {}
                 return null;
             }
-        }).array(InputStream.class));
+        }, blocking(options)).array(InputStream.class));
     }
 
     /**
@@ -528,6 +578,58 @@ public class CoreFile extends CoreObject<File> {
         return this;
     }
 
+    /**
+     * Returns the lines of all files, in order. The files are split into chunks ending at 
+     * line breaks, which are only decoded when their lines are needed, so parallel workers 
+     * decode different parts of a file at the same time and large files never need to fit 
+     * into memory at once. Lines end with <code>\n</code> or <code>\r\n</code>, the files 
+     * are decoded with the platform's charset. Files which could not be read add no lines.<br/>
+     * <br/>
+     * 
+     * Examples:
+     * <ul>
+     * <li><code>$("access.log").file().lines().filter(".*404.*").size()</code> - Counts the lines containing 404.</li>
+     * </ul>
+     * 
+     * Multi-threaded.<br/>
+     * <br/>
+     * 
+     * @param options Relevant options: {@link Execution} (default is <code>Execution.IO</code>).
+     * 
+     * @return A CoreString containing the lines of all files.
+     */
+    @SupportsOption(options = { Execution.class })
+    public CoreString lines(Option... options) {
+        final CommonCore cc = this.commonCore;
+        final Charset charset = Charset.defaultCharset();
+
+        // Split the files into chunks ending at line breaks ...
+        final CoreObject<Chunk> chunks = map(new F1<File, Chunk[]>() {
+            public Chunk[] f(File x) {
+                try {
+                    return Chunk.split(cc, x, charset, LinesAdapter.CHUNK);
+                } catch (IOException e) {
+                    cc.report(MessageType.EXCEPTION, "Error reading lines() from " + x + ". IOException!");
+                    return null;
+                }
+            }
+        }, blocking(options)).expand(Chunk.class);
+
+        // ... and count their lines in parallel, they are decoded when needed
+        chunks.map(new F1<Chunk, Object>() {
+            public Object f(Chunk x) {
+                try {
+                    x.count();
+                } catch (IOException e) {
+                    cc.report(MessageType.EXCEPTION, "Error reading lines() from a file. IOException!");
+                }
+                return null;
+            }
+        }, blocking(options));
+
+        return new CoreString(this.commonCore, new LinesAdapter(chunks.compact().array(Chunk.class)));
+    }
+
     /**
      * Creates all enclosed directories and return this object again.<br/>
      * <br/>
@@ -567,15 +669,18 @@ public class CoreFile extends CoreObject<File> {
      * Multi-threaded.<br/>
      * <br/>
      * 
+     * @param options Relevant options: {@link Execution} (default is <code>Execution.IO</code>).
+     * 
      * @return A CoreString object containing the files' contents.
      */
-    public CoreString text() {
+    @SupportsOption(options = { Execution.class })
+    public CoreString text(Option... options) {
         final CommonCore cc = this.commonCore;
         return new CoreString(this.commonCore, map(new F1<File, String>() {
             public String f(final File x) {
                 return Files.readText(cc, x);
             }
-        }).array(String.class));
+        }, blocking(options)).array(String.class));
     }
 
     /**
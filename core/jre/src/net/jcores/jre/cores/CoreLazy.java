@@ -0,0 +1,690 @@
+/*
+ * CoreLazy.java
+ * 
+ * Copyright (c) 2010, Ralf Biedert All rights reserved.
+ * 
+ * Redistribution and use in source and binary forms, with or without modification, are
+ * permitted provided that the following conditions are met:
+ * 
+ * Redistributions of source code must retain the above copyright notice, this list of
+ * conditions and the following disclaimer. Redistributions in binary form must reproduce the
+ * above copyright notice, this list of conditions and the following disclaimer in the
+ * documentation and/or other materials provided with the distribution.
+ * 
+ * Neither the name of the author nor the names of its contributors may be used to endorse or
+ * promote products derived from this software without specific prior written permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY EXPRESS
+ * OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE
+ * COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL,
+ * EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION)
+ * HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR
+ * TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE,
+ * EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ * 
+ */
+package net.jcores.jre.cores;
+
+import java.lang.reflect.Array;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Pattern;
+
+import net.jcores.jre.CommonCore;
+import net.jcores.jre.annotations.SupportsOption;
+import net.jcores.jre.interfaces.functions.F1;
+import net.jcores.jre.interfaces.functions.F1Object2Bool;
+import net.jcores.jre.interfaces.functions.F2ReduceObjects;
+import net.jcores.jre.managers.ManagerExecution;
+import net.jcores.jre.options.Associative;
+import net.jcores.jre.options.Execution;
+import net.jcores.jre.options.InvertSelection;
+import net.jcores.jre.options.Option;
+import net.jcores.jre.utils.internal.Options;
+import net.jcores.jre.utils.internal.processing.Reducer;
+import net.jcores.jre.utils.internal.structures.CostEstimate;
+
+/**
+ * A lazy view of a {@link CoreObject}, obtained by calling <code>lazy()</code>. Calls like
+ * <code>map()</code> or <code>filter()</code> are only recorded, no intermediate core is being
+ * created. Once a terminal operation like <code>array()</code>, <code>list()</code>,
+ * <code>size()</code>, <code>join()</code> or <code>reduce()</code> is called, all recorded
+ * stages are applied to each element in a single (parallel) pass, each worker collecting
+ * its chunk's survivors on its own.<br/>
+ * <br/>
+ * 
+ * The results are the same as for the eager calls: <code>$(x).lazy().map(f).filter(g).list()</code>
+ * equals <code>$(x).map(f).filter(g).list()</code>. A lazy core never caches results, each terminal
+ * operation runs the whole pipeline again, so <code>f</code> and <code>g</code> must be
+ * thread-safe and should be free of side effects.<br/>
+ * <br/>
+ * 
+ * Examples:
+ * <ul>
+ * <li><code>$(files).lazy().filter(".*txt").map(f).string().join(",")</code> - Runs the filter, the
+ * mapping and the string conversion in one pass.</li>
+ * </ul>
+ * 
+ * @author Ralf Biedert
+ * @since 1.0
+ * @param <T> The type of the elements after all stages.
+ */
+public class CoreLazy<T> extends Core {
+
+    /** Used for serialization */
+    private static final long serialVersionUID = -3320585418251870437L;
+
+    /** Returned by a stage for elements which should be removed. */
+    static final Object DROP = new Object();
+
+    /** The core providing the elements */
+    protected final CoreObject<Object> source;
+
+    /** The stages to apply, in order */
+    protected final Stage[] stages;
+
+    /** The type of the resulting elements if known, otherwise <code>null</code> */
+    protected final Class<?> type;
+
+    /**
+     * Creates a lazy view of the given core without any stage.
+     * 
+     * @param supercore The common core.
+     * @param source The core to take the elements from.
+     */
+    @SuppressWarnings("unchecked")
+    public CoreLazy(CommonCore supercore, CoreObject<T> source) {
+        this(supercore, (CoreObject<Object>) (CoreObject<?>) source, new Stage[0], source.adapter.clazz());
+    }
+
+    /**
+     * Creates a lazy view with the given stages.
+     * 
+     * @param supercore The common core.
+     * @param source The core to take the elements from.
+     * @param stages The stages to apply.
+     * @param type The type of the resulting elements, if known.
+     */
+    CoreLazy(CommonCore supercore, CoreObject<Object> source, Stage[] stages, Class<?> type) {
+        super(supercore);
+
+        this.source = source;
+        this.stages = stages;
+        this.type = type;
+    }
+
+    /**
+     * Lazily casts all elements to the given type, see <code>CoreObject.cast()</code>.<br/>
+     * <br/>
+     * 
+     * Examples:
+     * <ul>
+     * <li><code>$(objects).lazy().cast(String.class).compact().list()</code> - Returns all strings.</li>
+     * </ul>
+     * 
+     * Lazy.<br/>
+     * <br/>
+     * 
+     * @param <N> Target type.
+     * @param target Class to cast all elements to.
+     * @return A lazy core with the additional stage.
+     */
+    public <N> CoreLazy<N> cast(final Class<N> target) {
+        return stage(new Stage() {
+            @Override
+            Object apply(Object x) {
+                if (x == null) return null;
+                return target.isAssignableFrom(x.getClass()) ? x : null;
+            }
+        }, target);
+    }
+
+    /**
+     * Lazily removes all <code>null</code> elements, see <code>CoreObject.compact()</code>.<br/>
+     * <br/>
+     * 
+     * Examples:
+     * <ul>
+     * <li><code>$("a", null, "b").lazy().compact().size()</code> - Returns <code>2</code>.</li>
+     * </ul>
+     * 
+     * Lazy.<br/>
+     * <br/>
+     * 
+     * @return A lazy core with the additional stage.
+     */
+    public CoreLazy<T> compact() {
+        return stage(new Stage() {
+            @Override
+            Object apply(Object x) {
+                return x == null ? DROP : x;
+            }
+        }, this.type);
+    }
+
+    /**
+     * Lazily filters the elements, see <code>CoreObject.filter()</code>. As for the eager
+     * version <code>null</code> elements are removed as well.<br/>
+     * <br/>
+     * 
+     * Examples:
+     * <ul>
+     * <li><code>$(strings).lazy().filter(f).map(g).list()</code> - Only calls <code>g</code> for
+     * elements that passed <code>f</code>, without creating an intermediate core.</li>
+     * </ul>
+     * 
+     * Lazy.<br/>
+     * <br/>
+     * 
+     * @param f If f returns true the object is kept.
+     * @param options Supports {@link InvertSelection} if the filter logic should be inverted.
+     * @return A lazy core with the additional stage.
+     */
+    @SupportsOption(options = { InvertSelection.class })
+    public CoreLazy<T> filter(final F1Object2Bool<T> f, Option... options) {
+        final boolean invert = Options.$(this.commonCore, options).invert();
+
+        return stage(new Stage(f) {
+            @SuppressWarnings("unchecked")
+            @Override
+            Object apply(Object x) {
+                if (x == null) return DROP;
+                return f.f((T) x) != invert ? x : DROP;
+            }
+        }, this.type);
+    }
+
+    /**
+     * Lazily filters all elements by their <code>toString()</code> value, see
+     * <code>CoreObject.filter()</code>.<br/>
+     * <br/>
+     * 
+     * Examples:
+     * <ul>
+     * <li><code>$("ax", "bx", "cy").lazy().filter(".y").list()</code> - Returns a list containing <code>"cy"</code>.</li>
+     * </ul>
+     * 
+     * Lazy.<br/>
+     * <br/>
+     * 
+     * @param regex The regular expression to use.
+     * @param options Supports {@link InvertSelection} if the filter logic should be inverted.
+     * @return A lazy core with the additional stage.
+     */
+    @SupportsOption(options = { InvertSelection.class })
+    public CoreLazy<T> filter(final String regex, Option... options) {
+        final Pattern p = Pattern.compile(regex);
+
+        return filter(new F1Object2Bool<T>() {
+            public boolean f(T x) {
+                return p.matcher(x.toString()).matches();
+            }
+        }, options);
+    }
+
+    /**
+     * Lazily maps the elements with the given function, see <code>CoreObject.map()</code>. As
+     * for the eager version <code>f</code> is not called for <code>null</code> elements.<br/>
+     * <br/>
+     * 
+     * Examples:
+     * <ul>
+     * <li><code>$.range(1000000).lazy().map(f).map(g).size()</code> - Calls <code>f</code> and
+     * <code>g</code> on each element in a single pass.</li>
+     * </ul>
+     * 
+     * Lazy.<br/>
+     * <br/>
+     * 
+     * @param <R> Return type.
+     * @param f Mapper function, must be thread-safe.
+     * @return A lazy core with the additional stage.
+     */
+    public <R> CoreLazy<R> map(final F1<T, R> f) {
+        return stage(new Stage(f) {
+            @SuppressWarnings("unchecked")
+            @Override
+            Object apply(Object x) {
+                if (x == null) return null;
+                return f.f((T) x);
+            }
+        }, null);
+    }
+
+    /**
+     * Lazily converts all elements to strings, see <code>CoreObject.string()</code>.<br/>
+     * <br/>
+     * 
+     * Examples:
+     * <ul>
+     * <li><code>$(1, 2).lazy().string().join(",")</code> - Returns <code>"1,2"</code>.</li>
+     * </ul>
+     * 
+     * Lazy.<br/>
+     * <br/>
+     * 
+     * @return A lazy core with the additional stage.
+     */
+    public CoreLazy<String> string() {
+        return stage(new Stage() {
+            @Override
+            Object apply(Object x) {
+                if (x == null) return null;
+                return x.toString();
+            }
+        }, String.class);
+    }
+
+    /**
+     * Runs the pipeline and returns the result as an array of the given type, see
+     * <code>CoreObject.array()</code>.<br/>
+     * <br/>
+     * 
+     * Examples:
+     * <ul>
+     * <li><code>$(objects).lazy().string().array(String.class)</code> - Returns the string values as an array.</li>
+     * </ul>
+     * 
+     * Multi-threaded.<br/>
+     * <br/>
+     * 
+     * @param <N> Type of the array.
+     * @param in Type of the target array to use.
+     * @param options Relevant options: {@link Execution}.
+     * @return An array containing the all resulting elements.
+     */
+    @SuppressWarnings("unchecked")
+    @SupportsOption(options = { Execution.class })
+    public <N> N[] array(Class<N> in, Option... options) {
+        final Chunk chunks = collect(options);
+        final N[] rval = (N[]) Array.newInstance(in, Chunk.size(chunks));
+
+        Chunk.copy(chunks, rval);
+        return rval;
+    }
+
+    /**
+     * Runs the pipeline and returns the result as a new core.<br/>
+     * <br/>
+     * 
+     * Examples:
+     * <ul>
+     * <li><code>$(files).lazy().filter(f).map(g).core().print()</code> - Filters and maps in one pass,
+     * then prints the result.</li>
+     * </ul>
+     * 
+     * Multi-threaded.<br/>
+     * <br/>
+     * 
+     * @param options Relevant options: {@link Execution}.
+     * @return A CoreObject containing the resulting elements in a stable order.
+     */
+    @SuppressWarnings("unchecked")
+    @SupportsOption(options = { Execution.class })
+    public CoreObject<T> core(Option... options) {
+        final Chunk chunks = collect(options);
+        final int size = Chunk.size(chunks);
+
+        // Use the type we know, or (as map() does) the one of the first result.
+        Class<?> clazz = this.type;
+        if (clazz == null) {
+            final Object first = Chunk.first(chunks);
+            clazz = first == null ? Object.class : first.getClass();
+        }
+
+        T[] rval = (T[]) Array.newInstance(clazz, size);
+        try {
+            Chunk.copy(chunks, rval);
+        } catch (ArrayStoreException e) {
+            rval = (T[]) new Object[size];
+            Chunk.copy(chunks, rval);
+        }
+
+        return new CoreObject<T>(this.commonCore, rval);
+    }
+
+    /**
+     * Runs the pipeline and joins the string values of all resulting elements, see
+     * <code>CoreString.join()</code>.<br/>
+     * <br/>
+     * 
+     * Examples:
+     * <ul>
+     * <li><code>$("a", "b", "c").lazy().join(",")</code> - Returns <code>"a,b,c"</code>.</li>
+     * </ul>
+     * 
+     * Multi-threaded.<br/>
+     * <br/>
+     * 
+     * @param joiner String used to join.
+     * @param options Relevant options: {@link Execution}.
+     * @return The joined result or "" of there was nothing to do.
+     */
+    @SupportsOption(options = { Execution.class })
+    public String join(String joiner, Option... options) {
+        final CoreLazy<String> strings = string();
+        return new CoreString(this.commonCore, strings.array(String.class, options)).join(joiner);
+    }
+
+    /**
+     * Runs the pipeline and returns the resulting elements as a list, see
+     * <code>CoreObject.list()</code>.<br/>
+     * <br/>
+     * 
+     * Examples:
+     * <ul>
+     * <li><code>$(strings).lazy().map(f).list()</code> - Returns a list with all mapped elements.</li>
+     * </ul>
+     * 
+     * Multi-threaded.<br/>
+     * <br/>
+     * 
+     * @param options Relevant options: {@link Execution}.
+     * @return A list containing all elements. Null values are preserved.
+     */
+    @SuppressWarnings("unchecked")
+    @SupportsOption(options = { Execution.class })
+    public List<T> list(Option... options) {
+        final Chunk chunks = collect(options);
+        final List<T> rval = new ArrayList<T>(Chunk.size(chunks));
+
+        for (Chunk chunk = chunks; chunk != null; chunk = chunk.next) {
+            for (int i = 0; i < chunk.size; i++) {
+                rval.add((T) chunk.values[i]);
+            }
+        }
+
+        return rval;
+    }
+
+    /**
+     * Runs the pipeline and reduces the resulting elements, see <code>CoreObject.reduce()</code>.
+     * If the operator is declared {@link Associative} the reduction is fused into the pipeline
+     * and no intermediate array is created at all, otherwise the results are collected first
+     * and reduced sequentially.<br/>
+     * <br/>
+     * 
+     * Examples:
+     * <ul>
+     * <li><code>$(strings).lazy().map(length).reduce(max, Associative.DO)</code> - Returns the longest length
+     * without creating an array of lengths.</li>
+     * </ul>
+     * 
+     * Multi-threaded.<br/>
+     * <br/>
+     * 
+     * @param f The reduce function.
+     * @param options Relevant options: {@link Associative}, {@link Execution}.
+     * @return A core of size one containing the reduced value, or an empty core.
+     */
+    @SuppressWarnings("unchecked")
+    @SupportsOption(options = { Associative.class, Execution.class })
+    public CoreObject<T> reduce(final F2ReduceObjects<T> f, Option... options) {
+        if (!Options.$(this.commonCore, options).associative())
+            return core(options).reduce(f, options);
+
+        final T value = reduce(new Pass<T>(f) {
+            @Override
+            public T reduce(int from, int to) {
+                T stack = null;
+
+                for (int i = from; i < to; i++) {
+                    final Object current = apply(i);
+                    if (current == null || current == DROP) continue;
+
+                    stack = stack == null ? (T) current : f.f(stack, (T) current);
+                }
+
+                return stack;
+            }
+
+            @Override
+            public T combine(T left, T right) {
+                if (left == null) return right;
+                if (right == null) return left;
+                return f.f(left, right);
+            }
+        }, options);
+
+        return new CoreObject<T>(this.commonCore, value == null ? (T[]) new Object[0] : (T[]) new Object[] { value });
+    }
+
+    /**
+     * Runs the pipeline and returns the number of resulting elements, counting
+     * <code>null</code> elements. No intermediate array is being created.<br/>
+     * <br/>
+     * 
+     * Examples:
+     * <ul>
+     * <li><code>$(strings).lazy().filter(f).size()</code> - Counts how many elements pass <code>f</code>.</li>
+     * </ul>
+     * 
+     * Multi-threaded.<br/>
+     * <br/>
+     * 
+     * @return The number of element slots the resulting core would have.
+     */
+    @Override
+    public int size() {
+        final Integer rval = reduce(new Pass<Integer>(null) {
+            @Override
+            public Integer reduce(int from, int to) {
+                int count = 0;
+
+                for (int i = from; i < to; i++) {
+                    if (apply(i) != DROP) count++;
+                }
+
+                return Integer.valueOf(count);
+            }
+
+            @Override
+            public Integer combine(Integer left, Integer right) {
+                if (left == null) return right;
+                if (right == null) return left;
+                return Integer.valueOf(left.intValue() + right.intValue());
+            }
+        });
+
+        return rval == null ? 0 : rval.intValue();
+    }
+
+    /**
+     * Returns a new lazy core with the given stage appended.
+     * 
+     * @param <N> The new element type.
+     * @param stage The stage to append.
+     * @param newType The type of the resulting elements, if known.
+     * @return The new lazy core.
+     */
+    <N> CoreLazy<N> stage(Stage stage, Class<?> newType) {
+        final Stage[] next = new Stage[this.stages.length + 1];
+        System.arraycopy(this.stages, 0, next, 0, this.stages.length);
+        next[this.stages.length] = stage;
+
+        return new CoreLazy<N>(this.commonCore, this.source, next, newType);
+    }
+
+    /**
+     * Applies all stages to the source element <code>i</code>.
+     * 
+     * @param i The index of the element in the source core.
+     * @return The resulting value, or {@link #DROP} if the element was removed.
+     */
+    Object apply(int i) {
+        Object value = this.source.adapter.get(i);
+
+        for (int s = 0; s < this.stages.length; s++) {
+            value = this.stages[s].apply(value);
+            if (value == DROP) return DROP;
+        }
+
+        return value;
+    }
+
+    /**
+     * Runs the pipeline over all elements and collects the results chunk-wise.
+     * 
+     * @param options Relevant options: {@link Execution}.
+     * @return The first chunk, or <code>null</code> if there was nothing.
+     */
+    Chunk collect(Option... options) {
+        return reduce(new Pass<Chunk>(null) {
+            @Override
+            public Chunk reduce(int from, int to) {
+                final Chunk chunk = new Chunk(to - from);
+
+                for (int i = from; i < to; i++) {
+                    final Object value = apply(i);
+                    if (value != DROP) chunk.values[chunk.size++] = value;
+                }
+
+                return chunk;
+            }
+
+            @Override
+            public Chunk combine(Chunk left, Chunk right) {
+                if (left == null) return right;
+                if (right == null) return left;
+
+                // Chunks are linked, so combining them is cheap and doesn't copy anything
+                left.last.next = right;
+                left.last = right.last;
+                return left;
+            }
+        }, options);
+    }
+
+    /**
+     * A single pass over the source, running all stages and a terminal operation. Its cost 
+     * estimate is kept per pipeline of stage functions, so cheap and expensive pipelines 
+     * ending in the same terminal operation don't share one.
+     * 
+     * @param <O> The result type.
+     */
+    abstract class Pass<O> extends Reducer<Object, O> {
+        /** The terminal function, or <code>null</code> if the pass itself is the terminal operation */
+        private final Object terminal;
+
+        /**
+         * @param terminal The terminal function, or <code>null</code>.
+         */
+        Pass(Object terminal) {
+            super(CoreLazy.this.source);
+            this.terminal = terminal;
+        }
+
+        /* (non-Javadoc)
+         * @see net.jcores.jre.utils.internal.processing.Handler#cost(net.jcores.jre.managers.ManagerExecution)
+         */
+        @Override
+        public CostEstimate cost(ManagerExecution executor) {
+            final List<Class<?>> functions = new ArrayList<Class<?>>(CoreLazy.this.stages.length + 1);
+            for (Stage stage : CoreLazy.this.stages) {
+                functions.add(stage.function == null ? stage.getClass() : stage.function.getClass());
+            }
+            functions.add(this.terminal == null ? getClass() : this.terminal.getClass());
+
+            return executor.cost(functions);
+        }
+    }
+
+    /**
+     * A single processing stage of a lazy core.
+     */
+    abstract static class Stage {
+        /** The user's function this stage applies, or <code>null</code> */
+        final Object function;
+
+        /** Creates a stage that applies no user function. */
+        Stage() {
+            this(null);
+        }
+
+        /**
+         * Creates a stage applying the given function.
+         * 
+         * @param function The function.
+         */
+        Stage(Object function) {
+            this.function = function;
+        }
+
+        /**
+         * Applies this stage.
+         * 
+         * @param x The element, might be <code>null</code>.
+         * @return The result, or {@link CoreLazy#DROP} if the element should be removed.
+         */
+        abstract Object apply(Object x);
+    }
+
+    /**
+     * The surviving elements of a range, linked to the chunk of the following range.
+     */
+    static final class Chunk {
+        /** The values we collected */
+        final Object[] values;
+
+        /** The number of valid values */
+        int size;
+
+        /** The next chunk */
+        Chunk next;
+
+        /** The last chunk of the list starting with this one */
+        Chunk last = this;
+
+        /**
+         * @param capacity The maximal number of values.
+         */
+        Chunk(int capacity) {
+            this.values = new Object[capacity];
+        }
+
+        /**
+         * Returns the number of values in all chunks starting from the given one.
+         * 
+         * @param chunk The first chunk, might be <code>null</code>.
+         * @return The number of values.
+         */
+        static int size(Chunk chunk) {
+            int rval = 0;
+            for (Chunk c = chunk; c != null; c = c.next) {
+                rval += c.size;
+            }
+            return rval;
+        }
+
+        /**
+         * Returns the first non-null value in all chunks starting from the given one.
+         * 
+         * @param chunk The first chunk, might be <code>null</code>.
+         * @return The value or <code>null</code>.
+         */
+        static Object first(Chunk chunk) {
+            for (Chunk c = chunk; c != null; c = c.next) {
+                for (int i = 0; i < c.size; i++) {
+                    if (c.values[i] != null) return c.values[i];
+                }
+            }
+            return null;
+        }
+
+        /**
+         * Copies all values of the chunks starting from the given one into the target.
+         * 
+         * @param chunk The first chunk, might be <code>null</code>.
+         * @param target The array to copy to, must be large enough.
+         */
+        static void copy(Chunk chunk, Object[] target) {
+            int offset = 0;
+            for (Chunk c = chunk; c != null; c = c.next) {
+                System.arraycopy(c.values, 0, target, offset, c.size);
+                offset += c.size;
+            }
+        }
+    }
+}
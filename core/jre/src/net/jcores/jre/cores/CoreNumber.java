@@ -34,6 +34,7 @@ import net.jcores.jre.cores.adapter.AbstractAdapter;
 import net.jcores.jre.interfaces.functions.F1;
 import net.jcores.jre.interfaces.functions.F2ReduceObjects;
 import net.jcores.jre.options.Option;
+import net.jcores.jre.utils.internal.processing.Reducer;
 
 /**
  * A core holding {@link Number} objects (like {@link Integer}, {@link Double}, ...). For example,
@@ -173,6 +174,27 @@ public class CoreNumber extends CoreObject<Number> {
         return rval;
     }
 
+    /**
+     * Returns all contained numbers as a {@link CoreDouble}, which works on primitive 
+     * values.<br/>
+     * <br/>
+     * 
+     * Examples:
+     * <ul>
+     * <li><code>$(numbers).doubles().variance()</code> - Computes the variance without unboxing every 
+     * number on each pass.</li>
+     * </ul>
+     * 
+     * Single-threaded.<br/>
+     * <br/>
+     * 
+     * @since 1.0
+     * @return A CoreDouble with all numbers. Null objects are converted to <code>Double.NaN</code>.
+     */
+    public CoreDouble doubles() {
+        return new CoreDouble(this.commonCore, ds());
+    }
+
     /**
      * Returns the number at the given position as an integer, or
      * returns <code>0</code> if the object was null.<br/>
@@ -218,6 +240,51 @@ public class CoreNumber extends CoreObject<Number> {
         return rval;
     }
 
+    /**
+     * Returns all contained numbers as a {@link CoreInt}, which works on primitive 
+     * values.<br/>
+     * <br/>
+     * 
+     * Examples:
+     * <ul>
+     * <li><code>$(numbers).ints().sort()</code> - Sorts the numbers as primitive values.</li>
+     * </ul>
+     * 
+     * Single-threaded.<br/>
+     * <br/>
+     * 
+     * @since 1.0
+     * @return A CoreInt with all numbers. Null objects are converted to <code>0</code>.
+     */
+    public CoreInt ints() {
+        return new CoreInt(this.commonCore, is());
+    }
+
+    /**
+     * Returns all contained numbers as a {@link CoreLong}, which works on primitive 
+     * values.<br/>
+     * <br/>
+     * 
+     * Examples:
+     * <ul>
+     * <li><code>$(numbers).longs().sum()</code> - Sums up the numbers as primitive values.</li>
+     * </ul>
+     * 
+     * Single-threaded.<br/>
+     * <br/>
+     * 
+     * @since 1.0
+     * @return A CoreLong with all numbers. Null objects are converted to <code>0</code>.
+     */
+    public CoreLong longs() {
+        final long rval[] = new long[size()];
+        for (int i = 0; i < rval.length; i++) {
+            rval[i] = get(i) == null ? 0 : get(i).longValue();
+        }
+
+        return new CoreLong(this.commonCore, rval);
+    }
+
     /**
      * Returns the maximum value.<br/>
      * <br/>
@@ -227,7 +294,7 @@ public class CoreNumber extends CoreObject<Number> {
      * <li><code>$(3, 1, 2).max()</code> - Returns 3.0.</li>
      * </ul>
      * 
-     * Single-threaded.<br/>
+     * Multi-threaded.<br/>
      * <br/>
      * 
      * @since 1.0
@@ -248,23 +315,22 @@ public class CoreNumber extends CoreObject<Number> {
      * <li><code>$(null, Double.NaN).min(1.0)</code> - Returns 1.0</li>
      * </ul>
      * 
-     * Single-threaded.<br/>
+     * Multi-threaded.<br/>
      * <br/>
      * 
      * @param alternative The alternative to return when the result would otherwise be <code>null</code> /
      * <code>NaN</code>. 
      * @return The maximum value enclosed in this core, or <code>0</code> if no value was found.
      */
-    @SuppressWarnings("boxing")
     public double max(final double alternative) {
-        double value = reduce(new F2ReduceObjects<Number>() {
+        final Number value = reduce(new DoubleReducer() {
             @Override
-            public Number f(Number left, Number right) {
-                return Math.max(left.doubleValue(), right.doubleValue());
+            protected double f(double left, double right) {
+                return Math.max(left, right);
             }
-        }).get(Double.valueOf(alternative)).doubleValue();
+        });
 
-        return Double.isNaN(value) ? alternative : value;
+        return value == null ? alternative : value.doubleValue();
     }
 
 
@@ -277,7 +343,7 @@ public class CoreNumber extends CoreObject<Number> {
      * <li><code>$(3, 1, -2).min()</code> - Returns -2.0.</li>
      * </ul>
      * 
-     * Single-threaded.<br/>
+     * Multi-threaded.<br/>
      * <br/>
      * 
      * @return The maximum value enclosed in this core, or <code>0</code> if no value was found.
@@ -296,23 +362,22 @@ public class CoreNumber extends CoreObject<Number> {
      * <li><code>$(null, Double.NaN).min(1.0)</code> - Returns 1.0</li>
      * </ul>
      * 
-     * Single-threaded.<br/>
+     * Multi-threaded.<br/>
      * <br/>
      * 
      * @param alternative The alternative to return when the result would otherwise be <code>null</code> /
      * <code>NaN</code>. 
      * @return The minimum value enclosed in this core, or <code>0</code> if no value was found.
      */
-    @SuppressWarnings("boxing")
     public double min(final double alternative) {
-        double value = reduce(new F2ReduceObjects<Number>() {
+        final Number value = reduce(new DoubleReducer() {
             @Override
-            public Number f(Number left, Number right) {
-                return Math.min(left.doubleValue(), right.doubleValue());
+            protected double f(double left, double right) {
+                return Math.min(left, right);
             }
-        }).get(Double.valueOf(alternative)).doubleValue();
+        });
 
-        return Double.isNaN(value) ? alternative : value;
+        return value == null ? alternative : value.doubleValue();
     }
 
     /*
@@ -433,7 +498,7 @@ public class CoreNumber extends CoreObject<Number> {
      * <li><code>$(1, 2, 3).sum()</code> - Returns 6.0.</li>
      * </ul>
      * 
-     * Single-threaded.<br/>>
+     * Multi-threaded.<br/>
      * <br/>
      * 
      * @since 1.0
@@ -441,19 +506,14 @@ public class CoreNumber extends CoreObject<Number> {
      * enclosed, <code>0</code> is returned.
      */
     public double sum() {
-        final int size = size();
-        double sum = 0.0;
-
-        // Compute the average of all values
-        for (int i = 0; i < size; i++) {
-            final Number number = get(i);
-            if (number == null) continue;
-            if (Double.isNaN(number.doubleValue())) continue;
-
-            sum += number.doubleValue();
-        }
+        final Number value = reduce(new DoubleReducer() {
+            @Override
+            protected double f(double left, double right) {
+                return left + right;
+            }
+        });
 
-        return sum;
+        return value == null ? 0.0 : value.doubleValue();
     }
 
     /**
@@ -493,4 +553,56 @@ public class CoreNumber extends CoreObject<Number> {
 
         return rval / cnt;
     }
+
+    /**
+     * Reduces chunks of this core on plain doubles, so only one object is created per chunk, 
+     * not per element. <code>null</code> and <code>NaN</code> elements are skipped, if a chunk 
+     * contains no number at all <code>null</code> is returned for it.
+     */
+    private abstract class DoubleReducer extends Reducer<Number, Number> {
+        DoubleReducer() {
+            super(CoreNumber.this);
+        }
+
+        /**
+         * The associative operation to reduce with.
+         * 
+         * @param left The left value.
+         * @param right The right value.
+         * @return The result.
+         */
+        protected abstract double f(double left, double right);
+
+        /* (non-Javadoc)
+         * @see net.jcores.jre.utils.internal.processing.Reducer#reduce(int, int)
+         */
+        @Override
+        public Number reduce(int from, int to) {
+            boolean any = false;
+            double stack = 0.0;
+
+            for (int i = from; i < to; i++) {
+                final Number number = CoreNumber.this.adapter.get(i);
+                if (number == null) continue;
+
+                final double value = number.doubleValue();
+                if (Double.isNaN(value)) continue;
+
+                stack = any ? f(stack, value) : value;
+                any = true;
+            }
+
+            return any ? Double.valueOf(stack) : null;
+        }
+
+        /* (non-Javadoc)
+         * @see net.jcores.jre.utils.internal.processing.Reducer#combine(java.lang.Object, java.lang.Object)
+         */
+        @Override
+        public Number combine(Number left, Number right) {
+            if (left == null) return right;
+            if (right == null) return left;
+            return Double.valueOf(f(left.doubleValue(), right.doubleValue()));
+        }
+    }
 }
@@ -39,12 +39,21 @@ import java.lang.reflect.Method;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.Comparator;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.ListIterator;
 import java.util.Map;
+import java.util.Map.Entry;
+import java.util.PriorityQueue;
 import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
 import java.util.concurrent.atomic.AtomicReferenceArray;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
@@ -54,8 +63,10 @@ import net.jcores.jre.annotations.SupportsOption;
 import net.jcores.jre.cores.adapter.AbstractAdapter;
 import net.jcores.jre.cores.adapter.ArrayAdapter;
 import net.jcores.jre.cores.adapter.CollectionAdapter;
+import net.jcores.jre.cores.adapter.ConcatAdapter;
 import net.jcores.jre.cores.adapter.EmptyAdapter;
 import net.jcores.jre.cores.adapter.ListAdapter;
+import net.jcores.jre.cores.adapter.ViewAdapter;
 import net.jcores.jre.interfaces.functions.F0;
 import net.jcores.jre.interfaces.functions.F1;
 import net.jcores.jre.interfaces.functions.F1Object2Bool;
@@ -65,20 +76,27 @@ import net.jcores.jre.interfaces.functions.Fn;
 import net.jcores.jre.managers.ManagerDebugGUI;
 import net.jcores.jre.managers.ManagerDeveloperFeedback;
 import net.jcores.jre.options.Args;
+import net.jcores.jre.options.Associative;
+import net.jcores.jre.options.Cancellation;
+import net.jcores.jre.options.Deadline;
+import net.jcores.jre.options.Execution;
 import net.jcores.jre.options.InvertSelection;
 import net.jcores.jre.options.KillSwitch;
 import net.jcores.jre.options.MapType;
 import net.jcores.jre.options.MessageType;
 import net.jcores.jre.options.Option;
+import net.jcores.jre.options.Top;
 import net.jcores.jre.utils.Async;
 import net.jcores.jre.utils.Async.Queue;
 import net.jcores.jre.utils.internal.Objects;
 import net.jcores.jre.utils.internal.Options;
 import net.jcores.jre.utils.internal.Streams;
+import net.jcores.jre.utils.internal.processing.Engine;
 import net.jcores.jre.utils.internal.processing.Folder;
 import net.jcores.jre.utils.internal.processing.Mapper;
-import net.jcores.jre.utils.internal.wrapper.Wrapper;
+import net.jcores.jre.utils.internal.processing.Reducer;
 import net.jcores.jre.utils.map.Compound;
+import net.jcores.jre.utils.map.MapEntry;
 
 /**
  * <i>The</i> base class for all other cores that provides basic functions 
@@ -105,6 +123,15 @@ public class CoreObject<T> extends Core implements Iterable<T> {
     /** */
     private static final long serialVersionUID = -6436821141631907999L;
 
+    /** Up to this number of element pairs set operations compare all pairs instead of hashing (see the SetOperations benchmark). */
+    private static final int NESTED_PAIRS = 32 * 32;
+
+    /** From this number of elements on set operations split their work into hash partitions. */
+    private static final int PARTITION_SIZE = 8 * 1024;
+
+    /** Up to this number of elements sort() does not go parallel. */
+    private static final int SORT_CUTOFF = 8 * 1024;
+
     /** The adapter we work on */
     protected final AbstractAdapter<T> adapter;
 
@@ -205,7 +232,7 @@ public class CoreObject<T> extends Core implements Iterable<T> {
      * <code>c</code>.</li>
      * </ul>
      * 
-     * Single-threaded. <br/>
+     * Single-threaded, copies nothing. <br/>
      * <br/>
      * 
      * @param toAdd The core to add to this core.
@@ -213,21 +240,12 @@ public class CoreObject<T> extends Core implements Iterable<T> {
      * @return A CoreObject containing all objects of this core and the other
      * core.
      */
-    @SuppressWarnings("unchecked")
     public CoreObject<T> add(CoreObject<T> toAdd) {
         if (size() == 0) return toAdd;
         if (toAdd.size() == 0) return this;
 
-        Class<?> clazz = this.adapter.clazz();
-
-        final T[] copy = (T[]) Array.newInstance(clazz, size() + toAdd.size());
-        final Object[] a = this.adapter.array(clazz);
-        final Object[] b = toAdd.adapter.array(clazz);
-
-        System.arraycopy(a, 0, copy, 0, a.length);
-        System.arraycopy(b, 0, copy, a.length, b.length);
-
-        return new CoreObject<T>(this.commonCore, copy);
+        // Both cores are joined without copying their elements
+        return new CoreObject<T>(this.commonCore, ConcatAdapter.concat(this.adapter, toAdd.adapter));
     }
 
     /**
@@ -609,7 +627,7 @@ public class CoreObject<T> extends Core implements Iterable<T> {
      * of <code>3</code>).</li>
      * </ul>
      * 
-     * Single-threaded. <br/>
+     * Multi-threaded. <br/>
      * <br/>
      * 
      * @return A new CoreObject of the same type, with a (probably) reduced size without
@@ -619,15 +637,7 @@ public class CoreObject<T> extends Core implements Iterable<T> {
         // No size == no fun.
         if (size() == 0) return this;
 
-        final T[] tmp = this.adapter.array();
-        int dst = 0;
-
-        for (T element : this) {
-            if (element == null) continue;
-            tmp[dst++] = element;
-        }
-
-        return new CoreObject<T>(this.commonCore, new ArrayAdapter<T>(dst, tmp));
+        return new CoreObject<T>(this.commonCore, select(null, false));
     }
 
     /**
@@ -669,53 +679,123 @@ public class CoreObject<T> extends Core implements Iterable<T> {
      * <li><code>$("aa", "bb", "cc").contains("b")</code> - Returns <b><code>false</code></b>!</li>
      * </ul>
      * 
-     * Single-threaded. <br/>
+     * Multi-threaded. <br/>
      * <br/>
      * 
      * @param object The object to search for.
      * @return True if the object is there, false if not.
      */
     public boolean contains(final T object) {
-        for (T next : this) {
-            if (next != null && next.equals(object)) return true;
-            if (next == null && object == null) return true;
-        }
+        final AtomicBoolean found = new AtomicBoolean();
 
-        return false;
+        // Scan chunks in parallel, chunks started after a hit don't need to look anymore
+        final Boolean rval = reduce(new Reducer<T, Boolean>(this) {
+            @Override
+            public Boolean reduce(int from, int to) {
+                for (int i = from; i < to && !found.get(); i++) {
+                    final T next = CoreObject.this.adapter.get(i);
+                    if ((next != null && next.equals(object)) || (next == null && object == null)) {
+                        found.set(true);
+                    }
+                }
+
+                return Boolean.valueOf(found.get());
+            }
+
+            @Override
+            public Boolean combine(Boolean left, Boolean right) {
+                if (left == null) return right;
+                if (right == null) return left;
+                return Boolean.valueOf(left.booleanValue() || right.booleanValue());
+            }
+        });
+
+        return rval != null && rval.booleanValue();
     }
 
     /**
      * Counts how many times each unique item is contained in this core (i.e., computes a
-     * histogram). <br/>
+     * histogram). Each thread counts its chunks into its own histogram using primitive counters,
+     * the histograms are merged afterwards. If only the most frequent items are of interest, pass
+     * {@link Top}, then the complete histogram is still computed, but only the k most frequent 
+     * items are returned, most frequent first.<br/>
      * <br/>
      * 
      * Examples:
      * <ul>
-     * <li><code>$("a", "a", "b").contains().value("a")</code> - Returns 2.</li>
+     * <li><code>$("a", "a", "b").count().value("a")</code> - Returns 2.</li>
+     * <li><code>$(tokens).count(Top.K(10))</code> - Returns the 10 most frequent tokens, most frequent first.</li>
      * </ul>
      * 
-     * Single-threaded. <br/>
+     * Multi-threaded. <br/>
      * <br/>
      * 
+     * @param options Relevant options: {@link Top}, {@link Execution}.
      * @return A CoreMap with the counts for each unique object.
      */
-    @SuppressWarnings("boxing")
-    public CoreMap<T, Integer> count() {
-        final Map<T, Integer> results = new HashMap<T, Integer>();
+    @SuppressWarnings("unchecked")
+    @SupportsOption(options = { Top.class, Execution.class })
+    public CoreMap<T, Integer> count(Option... options) {
+        final ConcurrentMap<Thread, Map<T, int[]>> partials = new ConcurrentHashMap<Thread, Map<T, int[]>>();
 
-        // Now generate the histogram.
-        for (T e : this) {
-            if (e == null) continue;
+        // Each thread counts into its own histogram, no matter how many chunks it gets
+        reduce(new Reducer<T, Object>(this) {
+            @Override
+            public Object reduce(int from, int to) {
+                Map<T, int[]> histogram = partials.get(Thread.currentThread());
+                if (histogram == null) {
+                    histogram = new HashMap<T, int[]>();
+                    partials.put(Thread.currentThread(), histogram);
+                }
 
-            if (results.containsKey(e)) {
-                results.put(e, results.get(e) + 1);
-            } else {
-                results.put(e, 1);
+                for (int i = from; i < to; i++) {
+                    final T e = CoreObject.this.adapter.get(i);
+                    if (e == null) continue;
+
+                    final int[] counter = histogram.get(e);
+                    if (counter == null) histogram.put(e, new int[] { 1 });
+                    else counter[0]++;
+                }
+
+                return null;
+            }
+
+            @Override
+            public Object combine(Object left, Object right) {
+                return null;
+            }
+        }, options);
+
+        // Merge all histograms into the largest one
+        Map<T, int[]> results = new HashMap<T, int[]>();
+        for (Map<T, int[]> histogram : partials.values()) {
+            if (histogram.size() > results.size()) {
+                final Map<T, int[]> swap = results;
+                results = histogram;
+                histogram = swap;
+            }
+
+            for (Entry<T, int[]> entry : histogram.entrySet()) {
+                final int[] counter = results.get(entry.getKey());
+                if (counter == null) results.put(entry.getKey(), entry.getValue());
+                else counter[0] += entry.getValue()[0];
             }
         }
 
+        // Only keep the k largest counts if requested, sorted even if we keep all of them
+        final Top top = Options.$(this.commonCore, options).top();
+        Collection<Entry<T, int[]>> entries = results.entrySet();
+        if (top != null) entries = top(entries, Math.max(Math.min(top.getK(), results.size()), 0));
+
+        @SuppressWarnings("rawtypes")
+        final MapEntry<T, Integer>[] rval = new MapEntry[entries.size()];
+        int i = 0;
+        for (Entry<T, int[]> entry : entries) {
+            rval[i++] = new MapEntry<T, Integer>(entry.getKey(), Integer.valueOf(entry.getValue()[0]));
+        }
+
         // Eventually return the results
-        return new CoreMap<T, Integer>(this.commonCore, Wrapper.convert(results));
+        return new CoreMap<T, Integer>(this.commonCore, rval);
     }
 
     /**
@@ -765,16 +845,21 @@ public class CoreObject<T> extends Core implements Iterable<T> {
      * 
      * @param delta The delta function, taking two elements and return a result.
      * @param <R> Type of the result.
-     * @param options Relevant options, especiall {@link MapType}.
+     * @param options Relevant options, especiall {@link MapType} and {@link Execution}.
      * 
      * @return A core of size n - 1 containing all deltas.
      */
     @SuppressWarnings("unchecked")
-    @SupportsOption(options = { MapType.class })
+    @SupportsOption(options = { MapType.class, Execution.class })
     public <R> CoreObject<R> delta(final F2DeltaObjects<T, R> delta, Option... options) {
         // Create mapper
         final int size = size();
         final Mapper<T, R> mapper = new Mapper<T, R>(this, options) {
+            @Override
+            public Object function() {
+                return delta;
+            }
+
             @Override
             public void handle(int i) {
                 // We don't handle the last iteration
@@ -1066,24 +1151,17 @@ public class CoreObject<T> extends Core implements Iterable<T> {
      * <br/>
      * 
      * @param f If f returns true the object is kept.
-     * @param options Supports {@link InvertSelection} if the filter logic should be inverted.
+     * @param options Supports {@link InvertSelection} if the filter logic should be inverted, 
+     * {@link Execution}, {@link KillSwitch} and {@link Deadline}.
      * 
      * @return A new CoreObject of our type, containing only kept elements.
      */
-    @SupportsOption(options = { InvertSelection.class })
+    @SupportsOption(options = { InvertSelection.class, Execution.class, KillSwitch.class, Deadline.class })
     public CoreObject<T> filter(final F1Object2Bool<T> f, Option... options) {
-        final boolean invert = Options.$(this.commonCore, options).invert();
-        final CoreObject<T> rval = map(new F1<T, T>() {
-            public T f(T x) {
-                final boolean result = f.f(x);
-
-                if ((!invert && result) || (invert == !result)) return x;
-
-                return null;
-            }
-        });
+        if (size() == 0) return this;
 
-        return rval.compact();
+        final boolean invert = Options.$(this.commonCore, options).invert();
+        return new CoreObject<T>(this.commonCore, select(f, invert, options));
     }
 
     /**
@@ -1202,7 +1280,8 @@ public class CoreObject<T> extends Core implements Iterable<T> {
      * 
      * At present, <code>reduce()</code> is much faster for simple operations and small cores, as it involves much less
      * synchronization overhead, while <code>fold()</code> has advantages especially
-     * with very complex <code>f</code> operators.<br/>
+     * with very complex <code>f</code> operators. If <code>f</code> is declared {@link Associative} both 
+     * use the same, chunk-wise parallel reduction.<br/>
      * <br/>
      * 
      * 
@@ -1216,18 +1295,26 @@ public class CoreObject<T> extends Core implements Iterable<T> {
      * <br/>
      * 
      * @param f The reduce function. Takes two elements, returns one.
-     * @param options Supports {@link MapType}.
+     * @param options Supports {@link MapType}, {@link Associative}, {@link Execution}, {@link KillSwitch} and 
+     * {@link Deadline} (the result then only contains the elements processed in time, see {@link Cancellation}).
      * @return A CoreObject, containing at most a single element.
      */
     @SuppressWarnings({ "rawtypes", "unchecked" })
-    @SupportsOption(options = { MapType.class })
+    @SupportsOption(options = { MapType.class, Associative.class, Execution.class, KillSwitch.class, Deadline.class })
     public CoreObject<T> fold(final F2ReduceObjects<T> f, Option... options) {
 
         // In case we only have zero or one elements, don't do anything
         if (size() <= 1) return this;
 
+        // For associative operators we don't need the shared array, each worker reduces its own chunk
+        if (Options.$(this.commonCore, options).associative()) {
+            final T[] target = (T[]) Array.newInstance(this.adapter.clazz(), 1);
+            target[0] = reduce(reducer(f, options), options);
+            return new CoreObject<T>(this.commonCore, target);
+        }
+
         final AtomicReferenceArray array = new AtomicReferenceArray(this.adapter.array());
-        final Folder<T> folder = new Folder<T>(this) {
+        final Folder<T> folder = new Folder<T>(this, options) {
             @Override
             public void handle(int i, int j, int destination) {
                 // Get the in-value from the source-array
@@ -1609,7 +1696,7 @@ public class CoreObject<T> extends Core implements Iterable<T> {
      * <li><code>$("a", "c", "b").index("c", "b", "a")</code> - Returns a core <code>$(1, 2, 0)</code>.</li>
      * </ul>
      * 
-     * Single-threaded. <br/>
+     * Multi-threaded. <br/>
      * <br/>
      * 
      * @param objects The objects to return the first index for.
@@ -1618,27 +1705,54 @@ public class CoreObject<T> extends Core implements Iterable<T> {
     @SuppressWarnings("boxing")
     public CoreNumber index(T... objects) {
         if (objects == null) return new CoreNumber(this.commonCore, new Number[0]);
-        Integer indices[] = new Integer[objects.length];
+        final Integer indices[] = new Integer[objects.length];
 
-        // Check all objects ...
+        // Give each distinct object a slot, so we only have to look up each element once
+        final Map<T, Integer> slots = new HashMap<T, Integer>();
+        final int[] slot = new int[objects.length];
         for (int i = 0; i < objects.length; i++) {
-            final T obj = objects[i];
+            Integer s = slots.get(objects[i]);
+            if (s == null) {
+                s = slots.size();
+                slots.put(objects[i], s);
+            }
+            slot[i] = s;
+        }
 
-            final ListIterator<T> iterator = iterator();
-            while (iterator.hasNext()) {
-                final int j = iterator.nextIndex();
-                final T next = iterator.next();
+        // Each chunk finds the first index of all objects within its range, the left-most wins
+        final int[] first = reduce(new Reducer<T, int[]>(this) {
+            @Override
+            public int[] reduce(int from, int to) {
+                final int[] rval = new int[slots.size()];
+                int missing = rval.length;
+                Arrays.fill(rval, -1);
 
-                if (obj != null && obj.equals(next)) {
-                    indices[i] = j;
-                    break;
+                for (int i = from; i < to && missing > 0; i++) {
+                    final Integer s = slots.get(CoreObject.this.adapter.get(i));
+                    if (s == null || rval[s] >= 0) continue;
+
+                    rval[s] = i;
+                    missing--;
                 }
 
-                if (obj == null && next == null) {
-                    indices[i] = j;
-                    break;
+                return rval;
+            }
+
+            @Override
+            public int[] combine(int[] left, int[] right) {
+                if (left == null) return right;
+                if (right == null) return left;
+
+                for (int i = 0; i < left.length; i++) {
+                    if (left[i] < 0) left[i] = right[i];
                 }
+
+                return left;
             }
+        });
+
+        for (int i = 0; first != null && i < objects.length; i++) {
+            if (first[slot[i]] >= 0) indices[i] = first[slot[i]];
         }
 
         return new CoreNumber(this.commonCore, indices);
@@ -1653,18 +1767,33 @@ public class CoreObject<T> extends Core implements Iterable<T> {
      * <li><code>$("x", "y", "z").intersect($("y", "z"))</code> - Returns a core <code>$("y", "z")</code>.</li>
      * </ul>
      * 
-     * Single-threaded. <br/>
+     * Multi-threaded. <br/>
      * <br/>
      * 
      * @param other The other core to intersect.
      * @return Returns a core enclosing only objects present in this and the other core.
      */
-    public CoreObject<T> intersect(CoreObject<T> other) {
+    public CoreObject<T> intersect(final CoreObject<T> other) {
         if (size() == 0) return this;
         if (other.size() == 0) return other;
 
         final T[] copy = this.adapter.array();
 
+        // Look up our elements in a hash set of the other elements, one set per partition
+        if (size() * (long) other.size() > NESTED_PAIRS) {
+            partitioned(other, new Partitioned() {
+                @Override
+                public void handle(int[] ours, int[] theirs) {
+                    final Set<T> set = other.set(theirs);
+                    for (int i : ours) {
+                        if (!set.contains(copy[i])) copy[i] = null;
+                    }
+                }
+            });
+
+            return new CoreObject<T>(this.commonCore, copy).compact();
+        }
+
         // Remove every element we in the other core
         for (int i = 0; i < copy.length; i++) {
             final T element = copy[i];
@@ -1710,6 +1839,29 @@ public class CoreObject<T> extends Core implements Iterable<T> {
         return intersect(new CoreObject(this.commonCore, other));
     }
 
+    /**
+     * Returns a lazy view of this core. Subsequent calls like <code>map()</code>, <code>filter()</code>,
+     * <code>cast()</code> or <code>compact()</code> on the view are only recorded and executed in a single
+     * fused pass once a terminal operation (e.g., <code>array()</code>, <code>list()</code>, <code>size()</code>,
+     * <code>join()</code> or <code>reduce()</code>) is called. This avoids the intermediate arrays (and the 
+     * additional passes over them) the eager calls create.<br/>
+     * <br/>
+     * 
+     * Examples:
+     * <ul>
+     * <li><code>$(files).lazy().filter(f).map(g).string().filter(h).list()</code> - Computes the same result as
+     * the eager chain, but without any intermediate core.</li>
+     * </ul>
+     * 
+     * Single-threaded.<br/>
+     * <br/>
+     * 
+     * @return A {@link CoreLazy} view of this core.
+     */
+    public CoreLazy<T> lazy() {
+        return new CoreLazy<T>(this.commonCore, this);
+    }
+
     /**
      * Returns the wrapped collection as a list.<br/>
      * <br/>
@@ -1733,9 +1885,10 @@ public class CoreObject<T> extends Core implements Iterable<T> {
      * most fundamental function of jCores. If the core is of size 0 nothing is done, if it is of size 1 <code>f</code>
      * is executed directly. In all other cases <code>map</code> (at least in the
      * current implementation) will go parallel <i>on demand</i>. It takes a test run for the
-     * first element and measures the time to process it. If the estimated time it takes to
-     * complete the rest of the core is less than the measured time it takes to go parallel (which
-     * has some overhead), no parallelization is being performed.<br/>
+     * first few elements and measures the time to process them. The measurement is blended into
+     * a running estimate kept per class of <code>f</code> (see <code>ManagerExecution.costs()</code>).
+     * If the estimated time it takes to complete the rest of the core is less than the measured 
+     * time it takes to go parallel (which has some overhead), no parallelization is being performed.<br/>
      * <br/>
      * 
      * As a general rule of thumb, <code>map</code> works relatively best on large cores (number of elements) and
@@ -1767,12 +1920,13 @@ public class CoreObject<T> extends Core implements Iterable<T> {
      * 
      * @param <R> Return type.
      * @param f Mapper function, must be thread-safe.
-     * @param _options Relevant options: {@link MapType}.
+     * @param _options Relevant options: {@link MapType}, {@link Execution}, {@link KillSwitch} and {@link Deadline}
+     * (elements not mapped in time stay <code>null</code>, see {@link Cancellation}).
      * 
      * @return A CoreObject containing the mapped elements in a stable order.
      */
     @SuppressWarnings("unchecked")
-    @SupportsOption(options = { MapType.class })
+    @SupportsOption(options = { MapType.class, Execution.class, KillSwitch.class, Deadline.class })
     public <R> CoreObject<R> map(final F1<T, R> f, Option... _options) {
 
         // Map what we got
@@ -1901,20 +2055,28 @@ public class CoreObject<T> extends Core implements Iterable<T> {
 
         if (size == 0) return this;
 
-        // Create a shuffletable
-        final T[] copyOf = this.adapter.array();
+        // Shuffle the indices, only as far as we need them
+        final int[] indices = new int[size];
+        for (int i = 0; i < size; i++) {
+            indices[i] = i;
+        }
 
-        // Shuffle the copy
-        for (int i = copyOf.length - 1; i >= 1; i--) {
-            int j = this.commonCore.random().nextInt(i + 1);
+        final int n = Math.min(Math.max(0, newSize), size);
+        for (int i = 0; i < n; i++) {
+            int j = i + this.commonCore.random().nextInt(size - i);
 
-            T x = copyOf[j];
-            copyOf[j] = copyOf[i];
-            copyOf[i] = x;
+            int x = indices[j];
+            indices[j] = indices[i];
+            indices[i] = x;
         }
 
-        // And return the first newSize elements
-        return new CoreObject<T>(this.commonCore, Arrays.copyOfRange(copyOf, 0, newSize));
+        // And return the first newSize elements, more than we have are null
+        final int[] picked = Arrays.copyOf(indices, Math.max(0, newSize));
+        for (int i = n; i < picked.length; i++) {
+            picked[i] = -1;
+        }
+
+        return new CoreObject<T>(this.commonCore, view().pick(picked));
     }
 
     /**
@@ -1928,25 +2090,34 @@ public class CoreObject<T> extends Core implements Iterable<T> {
      * complex operations.<br/>
      * <br/>
      * 
+     * If <code>f</code> is declared {@link Associative}, chunks of the core are reduced in parallel
+     * and the partial results are combined afterwards, still keeping the left-to-right order of 
+     * the chunks.<br/>
+     * <br/>
+     * 
      * Examples:
      * <ul>
      * <li><code>$("a", "b", null, "c", "d").reduce(fjoin)</code> - When <code>fjoin</code> joins the left and right
      * String the resulting core will be <code>$("abcd")</code>.</li>
      * </ul>
      * 
-     * Single-threaded.<br/>
+     * Single-threaded, multi-threaded if {@link Associative}.<br/>
      * <br/>
      * 
      * @param f The reduce function. Takes two elements, returns one.
-     * @param options Relevant options: {@link MapType}.
+     * @param options Relevant options: {@link MapType}, {@link Associative}, {@link Execution}, and if 
+     * {@link Associative} also {@link KillSwitch} and {@link Deadline}.
      * @return A CoreObject, containing at most a single element.
      */
     @SuppressWarnings("unchecked")
-    @SupportsOption(options = { MapType.class })
+    @SupportsOption(options = { MapType.class, Associative.class, Execution.class, KillSwitch.class, Deadline.class })
     public CoreObject<T> reduce(final F2ReduceObjects<T> f, Option... options) {
         T stack = null;
 
-        for (T current : this) {
+        // Associative operators can be reduced chunk-wise in parallel 
+        if (Options.$(this.commonCore, options).associative()) {
+            stack = reduce(reducer(f, options), options);
+        } else for (T current : this) {
             // Nothing to do for null elements
             if (current == null) continue;
 
@@ -1975,7 +2146,7 @@ public class CoreObject<T> extends Core implements Iterable<T> {
      * <li><code>$("a", "b", "c").reverse()</code> - Returns a core <code>$("c", "b", "a")</code>.</li>
      * </ul>
      * 
-     * Single-threaded.<br/>
+     * Single-threaded, copies nothing if the core is backed by an array.<br/>
      * <br/>
      * 
      * @return A CoreObject with reversed element order.
@@ -1984,12 +2155,7 @@ public class CoreObject<T> extends Core implements Iterable<T> {
         final int size = size();
         if (size == 0) return this;
 
-        final T[] c = this.adapter.array();
-        for (int i = 0; i < size; i++) {
-            c[size - i] = this.adapter.get(i);
-        }
-
-        return new CoreObject<T>(this.commonCore, c);
+        return new CoreObject<T>(this.commonCore, view().reverse());
     }
 
     /**
@@ -2027,7 +2193,7 @@ public class CoreObject<T> extends Core implements Iterable<T> {
      * <li><code>$("a", "b", "c", "d").slice(-2, 2)</code> - Returns <code>$("c", "d")</code>.</li>
      * </ul>
      * 
-     * Single-threaded. <br/>
+     * Single-threaded, copies nothing if the core is backed by an array. <br/>
      * <br/>
      * 
      * @param start The start position.
@@ -2058,6 +2224,10 @@ public class CoreObject<T> extends Core implements Iterable<T> {
             l -= i + l - size();
         }
 
+        // Cores backed by arrays are sliced without copying
+        final ViewAdapter<T> view = ViewAdapter.of(this.adapter);
+        if (view != null) return new CoreObject<T>(this.commonCore, view.window(i, i + l));
+
         // Check if the result of the slice is actually an adapter, in that case, we use it directly.
         final List<T> slice = this.adapter.slice(i, i + l);
         if (slice instanceof AbstractAdapter) { return new CoreObject<T>(this.commonCore, (AbstractAdapter) slice); }
@@ -2099,29 +2269,32 @@ public class CoreObject<T> extends Core implements Iterable<T> {
     }
 
     /**
-     * Returns a new, sorted core using the given {@link Comparator}.<br/>
+     * Returns a new, sorted core using the given {@link Comparator}. The sort is stable, large
+     * cores are sorted in parallel (chunks are sorted on their own and then merged). If only
+     * the first elements are of interest, pass {@link Top}, then only the <code>k</code> smallest
+     * elements are determined, in order, without sorting the whole core.<br/>
      * <br/>
      * 
      * Examples:
      * <ul>
      * <li><code>$(x, y, z).sort(s)</code> - Returns a sorted core with an order specified by <code>s</code>.</li>
+     * <li><code>$(files).sort(bySize, Top.K(10))</code> - Returns the 10 smallest files.</li>
      * </ul>
      * 
-     * Single-threaded. <br/>
+     * Multi-threaded. <br/>
      * <br/>
      * 
      * @param c Comparator to use. Caution, <code>c</code> will be called with <code>null</code> values
      * for non-existing elements, <code>compact()</code> the core before if you don't want
      * this behavior.
+     * @param options Relevant options: {@link Top}, {@link Execution}.
      * @return A CoreObject with sorted entries.
      */
-    public CoreObject<T> sort(Comparator<T> c) {
+    @SupportsOption(options = { Top.class, Execution.class })
+    public CoreObject<T> sort(Comparator<T> c, Option... options) {
         if (size() == 0) return this;
 
-        final T[] copyOf = this.adapter.array();
-        Arrays.sort(copyOf, c);
-
-        return new CoreObject<T>(this.commonCore, copyOf);
+        return new CoreObject<T>(this.commonCore, sorted(this.adapter.array(), c, options));
     }
 
     /**
@@ -2130,33 +2303,37 @@ public class CoreObject<T> extends Core implements Iterable<T> {
      * again.<br/>
      * <br/>
      * 
+     * The sort is stable, large cores are sorted in parallel. If only the first elements are 
+     * of interest, pass {@link Top}.<br/>
+     * <br/>
+     * 
      * Examples:
      * <ul>
      * <li><code>$("c", "a", "b").sort()</code> - Returns <code>$("a", "b", "c")</code>.</li>
+     * <li><code>$("c", "a", "b").sort(Top.K(2))</code> - Returns <code>$("a", "b")</code>.</li>
      * </ul>
      * 
-     * Single-threaded. <br/>
+     * Multi-threaded. <br/>
      * <br/>
      * 
+     * @param options Relevant options: {@link Top}, {@link Execution}.
      * @return A CoreObject with sorted entries.
      */
-    public CoreObject<T> sort() {
+    @SupportsOption(options = { Top.class, Execution.class })
+    public CoreObject<T> sort(Option... options) {
         if (size() == 0) return this;
 
-        // TODO: Can't we be faster if we do the sort on our own?
         final T[] copyOf = this.adapter.array();
 
         try {
-            Arrays.sort(copyOf);
+            return new CoreObject<T>(this.commonCore, sorted(copyOf, null, options));
         } catch (ClassCastException e) {
             this.commonCore.report(MessageType.EXCEPTION, "Unable to sort core, elements not comparable: " + fingerprint(true));
             return this;
         } catch (NullPointerException e) {
             this.commonCore.report(MessageType.PERFORMANCE, "Make sure cores are compact() before sorting them: " + fingerprint(true));
-            return compact().sort();
+            return compact().sort(options);
         }
-
-        return new CoreObject<T>(this.commonCore, copyOf);
     }
 
     /**
@@ -2192,7 +2369,7 @@ public class CoreObject<T> extends Core implements Iterable<T> {
      * <li><code>$("a", "b", "c").subtract($("b"))</code> - Returns <code>$("a", "c")</code>.</li>
      * </ul>
      * 
-     * Single-threaded. <br/>
+     * Multi-threaded. <br/>
      * <br/>
      * 
      * @param toSubtract The core to subtract from this core.
@@ -2200,11 +2377,26 @@ public class CoreObject<T> extends Core implements Iterable<T> {
      * @return A CoreObject containing all objects of this core that are not
      * in the other core.
      */
-    public CoreObject<T> subtract(CoreObject<T> toSubtract) {
+    public CoreObject<T> subtract(final CoreObject<T> toSubtract) {
         if (size() == 0 || toSubtract.size() == 0) return this;
 
         final T[] copy = this.adapter.array();
 
+        // Look up our elements in a hash set of the elements to remove, one set per partition
+        if (size() * (long) toSubtract.size() > NESTED_PAIRS) {
+            partitioned(toSubtract, new Partitioned() {
+                @Override
+                public void handle(int[] ours, int[] theirs) {
+                    final Set<T> set = toSubtract.set(theirs);
+                    for (int i : ours) {
+                        if (set.contains(copy[i])) copy[i] = null;
+                    }
+                }
+            });
+
+            return new CoreObject<T>(this.commonCore, copy);
+        }
+
         // Remove every element we in the other core
         for (int i = 0; i < toSubtract.size(); i++) {
             final T element = toSubtract.get(i);
@@ -2254,7 +2446,7 @@ public class CoreObject<T> extends Core implements Iterable<T> {
      * <li><code>$("a", "c", "a", "b").unique()</code> - Returns <code>$("a", "c", "b")</code>.</li>
      * </ul>
      * 
-     * Single-threaded. <br/>
+     * Multi-threaded. <br/>
      * <br/>
      * 
      * @return A CoreObject containing only unique, non-null objects.
@@ -2264,6 +2456,22 @@ public class CoreObject<T> extends Core implements Iterable<T> {
 
         final T[] copy = this.adapter.array();
 
+        // Equal elements always share a partition, and each partition is scanned in order,
+        // so the first occurrence of each element is the one we keep
+        if (size() * (long) size() > NESTED_PAIRS) {
+            partitioned(null, new Partitioned() {
+                @Override
+                public void handle(int[] ours, int[] theirs) {
+                    final Set<T> seen = new HashSet<T>(ours.length * 4 / 3 + 1);
+                    for (int i : ours) {
+                        if (!seen.add(copy[i])) copy[i] = null;
+                    }
+                }
+            });
+
+            return new CoreObject<T>(this.commonCore, copy).compact();
+        }
+
         // Now check for each element
         for (int i = 1; i < copy.length; i++) {
             // If it is null, no nothing
@@ -2335,6 +2543,18 @@ public class CoreObject<T> extends Core implements Iterable<T> {
         return this.adapter;
     }
 
+    /**
+     * Returns a view on this core's elements. Cores not backed by an array are copied once.
+     * 
+     * @return A view.
+     */
+    protected final ViewAdapter<T> view() {
+        final ViewAdapter<T> rval = ViewAdapter.of(this.adapter);
+        if (rval != null) return rval;
+
+        return new ViewAdapter<T>(this.adapter.array(), 0, size());
+    }
+
     /**
      * Converts an index to an offset.
      * 
@@ -2358,6 +2578,11 @@ public class CoreObject<T> extends Core implements Iterable<T> {
     @SuppressWarnings("rawtypes")
     protected final <R> Mapper mapper(final F1<T, R> f, final Option... options) {
         return new Mapper<T, R>(this, options) {
+            @Override
+            public Object function() {
+                return f;
+            }
+
             @SuppressWarnings("unchecked")
             @Override
             public void handle(int i) {
@@ -2383,6 +2608,528 @@ public class CoreObject<T> extends Core implements Iterable<T> {
         };
     }
 
+    /**
+     * Creates a reducer that reduces ranges of this core with the given function, ignoring 
+     * <code>null</code> elements.
+     * 
+     * @param f The function to reduce with.
+     * @param options Relevant options: {@link Cancellation}.
+     * @return A reducer for this core.
+     */
+    protected final Reducer<T, T> reducer(final F2ReduceObjects<T> f, Option... options) {
+        return new Reducer<T, T>(this, options) {
+            @Override
+            public Object function() {
+                return f;
+            }
+
+            @Override
+            public T reduce(int from, int to) {
+                T stack = null;
+
+                for (int i = from; i < to; i++) {
+                    final T current = CoreObject.this.adapter.get(i);
+
+                    // Nothing to do for null elements, init stack with first element found
+                    if (current == null) continue;
+                    if (stack == null) {
+                        stack = current;
+                        continue;
+                    }
+
+                    stack = f.f(stack, current);
+                }
+
+                return stack;
+            }
+
+            @Override
+            public T combine(T left, T right) {
+                if (left == null) return right;
+                if (right == null) return left;
+                return f.f(left, right);
+            }
+        };
+    }
+
+    /**
+     * Returns the given options, plus {@link Execution}<code>.IO</code> if they do not select an 
+     * engine on their own. Used as default by operations that spend most of their time blocked 
+     * (downloads, file reads, processes).
+     * 
+     * @param options The options of the operation.
+     * @return The options to map with.
+     */
+    protected static Option[] blocking(Option... options) {
+        for (Option option : options) {
+            if (option instanceof Execution) return options;
+        }
+
+        final Option[] rval = Arrays.copyOf(options, options.length + 1);
+        rval[options.length] = Execution.IO;
+        return rval;
+    }
+
+    /**
+     * Returns the non-null elements for which <code>f</code> returns <code>true</code> (or 
+     * <code>false</code> if inverted) in an exactly sized array. A first, parallel pass evaluates 
+     * <code>f</code> and counts the survivors of each chunk, the prefix sums of these counts are 
+     * the positions at which a second pass copies the survivors of each chunk in parallel.
+     * 
+     * @param f The filter, or <code>null</code> to keep all non-null elements.
+     * @param invert If the result of <code>f</code> should be inverted.
+     * @param options Relevant options: {@link Execution}, {@link Cancellation}.
+     * @return The selected elements.
+     */
+    @SuppressWarnings("unchecked")
+    protected final T[] select(final F1Object2Bool<T> f, final boolean invert, Option... options) {
+        // Only filters need to remember their decisions, compact() just checks for null again
+        final boolean[] keep = f == null ? null : new boolean[size()];
+
+        // First pass, each chunk is a triple (from, to, survivors), cancelled chunks are missing
+        final int[] chunks = reduce(new Reducer<T, int[]>(this, options) {
+            @Override
+            public Object function() {
+                return f == null ? this : f;
+            }
+
+            @Override
+            public int[] reduce(int from, int to) {
+                int count = 0;
+
+                for (int i = from; i < to; i++) {
+                    final T x = CoreObject.this.adapter.get(i);
+                    if (x == null) continue;
+
+                    if (keep != null) {
+                        if (f.f(x) == invert) continue;
+                        keep[i] = true;
+                    }
+
+                    count++;
+                }
+
+                return new int[] { from, to, count };
+            }
+
+            @Override
+            public int[] combine(int[] left, int[] right) {
+                if (left == null) return right;
+                if (right == null) return left;
+
+                final int[] rval = Arrays.copyOf(left, left.length + right.length);
+                System.arraycopy(right, 0, rval, left.length, right.length);
+                return rval;
+            }
+        }, options);
+
+        // Prefix sums of the survivors are the chunks' offsets in the result
+        if (chunks == null) return (T[]) Array.newInstance(this.adapter.clazz(), 0);
+        final int[] offsets = new int[chunks.length / 3 + 1];
+        for (int c = 0; c < offsets.length - 1; c++) {
+            offsets[c + 1] = offsets[c] + chunks[c * 3 + 2];
+        }
+
+        final int total = offsets[offsets.length - 1];
+        final T[] rval = (T[]) Array.newInstance(this.adapter.clazz(), total);
+
+        // Second pass, copy the survivors of each chunk to their place
+        final Mapper<T, Object> copy = new Mapper<T, Object>(this) {
+            @Override
+            public void handle(int c) {
+                final int to = chunks[c * 3 + 1];
+                int dst = offsets[c];
+
+                for (int i = chunks[c * 3]; i < to && dst < offsets[c + 1]; i++) {
+                    final T x = CoreObject.this.adapter.get(i);
+                    if (x == null || (keep != null && !keep[i])) continue;
+                    rval[dst++] = x;
+                }
+            }
+        };
+
+        final int numChunks = offsets.length - 1;
+        final Engine engine = this.commonCore.executor().engine(options);
+        final int workers = numChunks <= 2 || total == 0 ? 0 : requestCPUs(engine, numChunks);
+
+        try {
+            if (workers < 2) {
+                for (int c = 0; c < numChunks; c++) {
+                    copy.handle(c);
+                }
+            } else {
+                engine.map(copy, 0, numChunks, workers, 1);
+            }
+        } finally {
+            releaseCPUs(engine, workers);
+        }
+
+        return rval;
+    }
+
+    /**
+     * Splits the non-null elements of this core (and of <code>other</code>, if given) into hash
+     * partitions, so that equal elements always end up in the same partition, and calls the
+     * handler once for each partition. Large cores are split into as many partitions as we
+     * have CPUs, and the partitions are handled in parallel.
+     * 
+     * @param other The other core to partition, or <code>null</code>.
+     * @param handler The handler to call for each partition.
+     */
+    protected final void partitioned(final CoreObject<T> other, final Partitioned handler) {
+        final int largest = Math.max(size(), other == null ? 0 : other.size());
+        final int numCPUs = this.commonCore.profileInformation().numCPUs;
+        final int partitions = largest < PARTITION_SIZE ? 1 : Math.max(numCPUs, 1);
+
+        final int[][] ours = partition(partitions);
+        final int[][] theirs = other == null ? new int[partitions][] : other.partition(partitions);
+
+        final Engine engine = this.commonCore.executor().engine();
+        final int workers = partitions == 1 ? 0 : requestCPUs(engine, partitions);
+
+        try {
+            if (workers < 2) {
+                for (int i = 0; i < partitions; i++) {
+                    handler.handle(ours[i], theirs[i]);
+                }
+                return;
+            }
+
+            engine.map(new Mapper<T, Object>(this) {
+                @Override
+                public void handle(int i) {
+                    handler.handle(ours[i], theirs[i]);
+                }
+            }, 0, partitions, workers, 1);
+        } finally {
+            releaseCPUs(engine, workers);
+        }
+    }
+
+    /**
+     * Returns the indices of all non-null elements, grouped by the hash partition of the
+     * element. Within each partition the indices are ascending.
+     * 
+     * @param partitions The number of partitions.
+     * @return The indices for each partition.
+     */
+    final int[][] partition(final int partitions) {
+        final int size = size();
+
+        // A single partition holds all non-null elements, no need to hash anything
+        if (partitions == 1) {
+            final int[] rval = new int[size];
+            int count = 0;
+            for (int i = 0; i < size; i++) {
+                if (this.adapter.get(i) != null) rval[count++] = i;
+            }
+            return new int[][] { count == size ? rval : Arrays.copyOf(rval, count) };
+        }
+
+        final int[] partition = new int[size];
+
+        // Hash all elements (in parallel, hashing might be expensive)
+        reduce(new Reducer<T, Object>(this) {
+            @Override
+            public Object reduce(int from, int to) {
+                for (int i = from; i < to; i++) {
+                    final T element = CoreObject.this.adapter.get(i);
+                    if (element == null) {
+                        partition[i] = -1;
+                        continue;
+                    }
+
+                    // Spread the hash, so partitions don't depend on the lowest bits only
+                    final int h = element.hashCode();
+                    partition[i] = ((h ^ (h >>> 16)) & 0x7fffffff) % partitions;
+                }
+                return null;
+            }
+
+            @Override
+            public Object combine(Object left, Object right) {
+                return null;
+            }
+        });
+
+        // Count and collect the indices of each partition
+        final int[] counts = new int[partitions];
+        for (int i = 0; i < size; i++) {
+            if (partition[i] >= 0) counts[partition[i]]++;
+        }
+
+        final int[][] rval = new int[partitions][];
+        for (int p = 0; p < partitions; p++) {
+            rval[p] = new int[counts[p]];
+            counts[p] = 0;
+        }
+
+        for (int i = 0; i < size; i++) {
+            final int p = partition[i];
+            if (p >= 0) rval[p][counts[p]++] = i;
+        }
+
+        return rval;
+    }
+
+    /**
+     * Returns a hash set with the elements at the given indices.
+     * 
+     * @param indices The indices of the elements to add.
+     * @return A new set.
+     */
+    final Set<T> set(int[] indices) {
+        final Set<T> rval = new HashSet<T>(indices.length * 4 / 3 + 1);
+        for (int i : indices) {
+            rval.add(this.adapter.get(i));
+        }
+        return rval;
+    }
+
+    /**
+     * Selects the <code>k</code> entries with the largest counts using a bounded heap.
+     * 
+     * @param entries The entries to select from.
+     * @param k The number of entries to keep.
+     * @return The selected entries, largest count first.
+     */
+    private static <X> List<Entry<X, int[]>> top(Collection<Entry<X, int[]>> entries, int k) {
+        final Comparator<Entry<X, int[]>> ascending = new Comparator<Entry<X, int[]>>() {
+            @Override
+            public int compare(Entry<X, int[]> o1, Entry<X, int[]> o2) {
+                return o1.getValue()[0] < o2.getValue()[0] ? -1 : (o1.getValue()[0] == o2.getValue()[0] ? 0 : 1);
+            }
+        };
+
+        // The heap's head is the smallest count we still keep
+        final PriorityQueue<Entry<X, int[]>> heap = new PriorityQueue<Entry<X, int[]>>(k + 1, ascending);
+        for (Entry<X, int[]> entry : entries) {
+            if (k == 0) break;
+            if (heap.size() < k) {
+                heap.add(entry);
+            } else if (ascending.compare(entry, heap.peek()) > 0) {
+                heap.poll();
+                heap.add(entry);
+            }
+        }
+
+        final List<Entry<X, int[]>> rval = new ArrayList<Entry<X, int[]>>(heap);
+        Collections.sort(rval, Collections.reverseOrder(ascending));
+        return rval;
+    }
+
+    /**
+     * Sorts the given array stably, in parallel if it is large enough. Exceptions thrown 
+     * by the comparison are rethrown in the calling thread.
+     * 
+     * @param array The array to sort.
+     * @param c The comparator, or <code>null</code> for the natural order.
+     * @param options Relevant options: {@link Top}, {@link Execution}.
+     * @return The sorted array, or a new array with the <code>k</code> smallest elements if 
+     * {@link Top} was given.
+     */
+    @SuppressWarnings("unchecked")
+    protected final T[] sorted(final T[] array, final Comparator<T> c, Option... options) {
+        final Top top = Options.$(this.commonCore, options).top();
+        final AtomicReference<RuntimeException> failure = new AtomicReference<RuntimeException>();
+
+        // Full sort, small arrays are sorted right away
+        if (top == null) {
+            if (array.length < SORT_CUTOFF) {
+                Arrays.sort(array, c);
+                return array;
+            }
+
+            // Sort chunks on their own, then merge neighbors
+            final Object[] aux = new Object[array.length];
+            reduce(new Reducer<T, int[]>() {
+                @Override
+                public int[] reduce(int from, int to) {
+                    try {
+                        if (failure.get() == null) Arrays.sort(array, from, to, c);
+                    } catch (RuntimeException e) {
+                        failure.compareAndSet(null, e);
+                    }
+                    return new int[] { from, to };
+                }
+
+                @Override
+                public int[] combine(int[] left, int[] right) {
+                    if (left == null) return right;
+                    if (right == null) return left;
+
+                    try {
+                        if (failure.get() == null) merge(array, aux, left[0], left[1], right[1], c);
+                    } catch (RuntimeException e) {
+                        failure.compareAndSet(null, e);
+                    }
+                    return new int[] { left[0], right[1] };
+                }
+            }, array.length, options);
+
+            if (failure.get() != null) throw failure.get();
+            return array;
+        }
+
+        // Partial sort, each chunk keeps its k smallest elements, neighbors are merged keeping k
+        final int k = Math.max(0, Math.min(top.getK(), array.length));
+        final Object[] rval = k == 0 ? null : reduce(new Reducer<T, Object[]>() {
+            @Override
+            public Object[] reduce(int from, int to) {
+                try {
+                    if (failure.get() == null) return smallest(array, from, to, k, c);
+                } catch (RuntimeException e) {
+                    failure.compareAndSet(null, e);
+                }
+                return new Object[0];
+            }
+
+            @Override
+            public Object[] combine(Object[] left, Object[] right) {
+                if (left == null) return right;
+                if (right == null) return left;
+
+                final Object[] merged = new Object[Math.min(k, left.length + right.length)];
+                try {
+                    if (failure.get() == null) merge(left, right, merged, c);
+                } catch (RuntimeException e) {
+                    failure.compareAndSet(null, e);
+                }
+                return merged;
+            }
+        }, array.length, options);
+
+        if (failure.get() != null) throw failure.get();
+
+        final T[] result = Arrays.copyOf(array, k);
+        if (rval != null) System.arraycopy(rval, 0, result, 0, k);
+        return result;
+    }
+
+    /**
+     * Compares two elements with the given comparator, or by their natural order.
+     * 
+     * @param c The comparator or <code>null</code>.
+     * @param a The first element.
+     * @param b The second element.
+     * @return The comparison result.
+     */
+    @SuppressWarnings({ "unchecked", "rawtypes" })
+    private static <X> int compare(Comparator<X> c, Object a, Object b) {
+        if (c != null) return c.compare((X) a, (X) b);
+        return ((Comparable) a).compareTo(b);
+    }
+
+    /**
+     * Stably merges the sorted neighbors <code>[from, mid)</code> and <code>[mid, to)</code> 
+     * of the given array, using the same range of <code>aux</code> as buffer.
+     * 
+     * @param array The array.
+     * @param aux A buffer of the same size as the array.
+     * @param from The start of the left range.
+     * @param mid The start of the right range.
+     * @param to The end of the right range (exclusive).
+     * @param c The comparator or <code>null</code>.
+     */
+    private static <X> void merge(X[] array, Object[] aux, int from, int mid, int to, Comparator<X> c) {
+        // Nothing to do if the two ranges are in order already
+        if (compare(c, array[mid - 1], array[mid]) <= 0) return;
+
+        System.arraycopy(array, from, aux, from, mid - from);
+        merge(aux, from, mid, array, mid, to, array, from, to - from, c);
+    }
+
+    /**
+     * Stably merges two sorted arrays into <code>target</code>, until the target is full.
+     * 
+     * @param left The left array.
+     * @param right The right array.
+     * @param target The target array.
+     * @param c The comparator or <code>null</code>.
+     */
+    private static <X> void merge(Object[] left, Object[] right, Object[] target, Comparator<X> c) {
+        merge(left, 0, left.length, right, 0, right.length, target, 0, target.length, c);
+    }
+
+    /**
+     * Stably merges two sorted ranges into <code>target</code>, taking elements from the left 
+     * range on ties. The target may overlap with the right range, as long as it starts before it.
+     * 
+     * @param left The left array.
+     * @param l The start of the left range.
+     * @param lEnd The end of the left range (exclusive).
+     * @param right The right array.
+     * @param r The start of the right range.
+     * @param rEnd The end of the right range (exclusive).
+     * @param target The target array.
+     * @param dst The start in the target.
+     * @param n The number of elements to merge.
+     * @param c The comparator or <code>null</code>.
+     */
+    private static <X> void merge(Object[] left, int l, int lEnd, Object[] right, int r, int rEnd,
+                                  Object[] target, int dst, int n, Comparator<X> c) {
+        final int end = dst + n;
+        while (dst < end) {
+            if (r >= rEnd || (l < lEnd && compare(c, left[l], right[r]) <= 0)) {
+                target[dst++] = left[l++];
+            } else {
+                target[dst++] = right[r++];
+            }
+        }
+    }
+
+    /**
+     * Returns the <code>k</code> smallest elements of the range <code>[from, to)</code>, in 
+     * stable order, using a bounded heap.
+     * 
+     * @param array The array.
+     * @param from The start of the range.
+     * @param to The end of the range (exclusive).
+     * @param k The number of elements to keep.
+     * @param c The comparator or <code>null</code>.
+     * @return The sorted, smallest elements.
+     */
+    private static <X> Object[] smallest(final X[] array, int from, int to, int k, final Comparator<X> c) {
+        // The head of the heap is the largest element we keep, later elements are larger on ties
+        final PriorityQueue<Integer> heap = new PriorityQueue<Integer>(k + 1, new Comparator<Integer>() {
+            @Override
+            public int compare(Integer o1, Integer o2) {
+                final int rval = CoreObject.compare(c, array[o2.intValue()], array[o1.intValue()]);
+                return rval != 0 ? rval : o2.compareTo(o1);
+            }
+        });
+
+        for (int i = from; i < to; i++) {
+            if (heap.size() < k) {
+                heap.add(Integer.valueOf(i));
+            } else if (compare(c, array[i], array[heap.peek().intValue()]) < 0) {
+                heap.poll();
+                heap.add(Integer.valueOf(i));
+            }
+        }
+
+        final Object[] rval = new Object[heap.size()];
+        for (int i = rval.length - 1; i >= 0; i--) {
+            rval[i] = array[heap.poll().intValue()];
+        }
+
+        return rval;
+    }
+
+    /**
+     * Handles a single hash partition, see <code>partitioned()</code>.
+     */
+    protected interface Partitioned {
+        /**
+         * Handles the partition.
+         * 
+         * @param ours The ascending indices of our elements in this partition.
+         * @param theirs The ascending indices of the other core's elements in this 
+         * partition, or <code>null</code> if there is no other core.
+         */
+        public void handle(int[] ours, int[] theirs);
+    }
+
     /*
      * (non-Javadoc)
      * 
@@ -0,0 +1,257 @@
+/*
+ * CorePrimitive.java
+ * 
+ * Copyright (c) 2010, Ralf Biedert All rights reserved.
+ * 
+ * Redistribution and use in source and binary forms, with or without modification, are
+ * permitted provided that the following conditions are met:
+ * 
+ * Redistributions of source code must retain the above copyright notice, this list of
+ * conditions and the following disclaimer. Redistributions in binary form must reproduce the
+ * above copyright notice, this list of conditions and the following disclaimer in the
+ * documentation and/or other materials provided with the distribution.
+ * 
+ * Neither the name of the author nor the names of its contributors may be used to endorse or
+ * promote products derived from this software without specific prior written permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY EXPRESS
+ * OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE
+ * COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL,
+ * EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION)
+ * HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR
+ * TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE,
+ * EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ * 
+ */
+package net.jcores.jre.cores;
+
+import net.jcores.jre.CommonCore;
+import net.jcores.jre.options.Option;
+import net.jcores.jre.utils.internal.processing.Reducer;
+
+/**
+ * The base class of the cores wrapping primitive arrays ({@link CoreInt}, {@link CoreLong} and 
+ * {@link CoreDouble}). Contains the parallel kernels shared by all of them. In general you 
+ * should not need to bother with this class.
+ * 
+ * @since 1.0
+ * @author Ralf Biedert
+ */
+public abstract class CorePrimitive extends Core {
+
+    /** Used for serialization */
+    private static final long serialVersionUID = 4017458871629837752L;
+
+    /** The number of values we wrap */
+    protected final int size;
+
+    /**
+     * Creates a primitive core of the given size.
+     * 
+     * @param supercore The common core.
+     * @param size The number of wrapped values.
+     */
+    protected CorePrimitive(CommonCore supercore, int size) {
+        super(supercore);
+        this.size = size;
+    }
+
+    /* (non-Javadoc)
+     * @see net.jcores.jre.cores.Core#size()
+     */
+    @Override
+    public int size() {
+        return this.size;
+    }
+
+    /* (non-Javadoc)
+     * @see net.jcores.jre.cores.Core#reduce(net.jcores.jre.utils.internal.processing.Reducer, net.jcores.jre.options.Option[])
+     */
+    @Override
+    protected <O> O reduce(Reducer<?, O> reducer, Option... options) {
+        return reduce(reducer, this.size, options);
+    }
+
+    /**
+     * Converts the given index to a positive index, negative indices are counted from 
+     * the end.
+     * 
+     * @param index The index to convert.
+     * @return The positive index, or <code>-1</code> if the index is out of range.
+     */
+    protected int index(int index) {
+        if (index >= this.size) return -1;
+        if (index < 0) return -index > this.size ? -1 : this.size + index;
+        return index;
+    }
+
+    /**
+     * Sorts the range <code>from &lt;= i &lt; to</code> of the wrapped array.
+     * 
+     * @param from The first index (inclusive).
+     * @param to The last index (exclusive).
+     */
+    protected abstract void sort(int from, int to);
+
+    /**
+     * Merges the two sorted, adjacent ranges <code>[from, mid)</code> and <code>[mid, to)</code>
+     * of the wrapped array.
+     * 
+     * @param from The first index of the left range (inclusive).
+     * @param mid The first index of the right range.
+     * @param to The last index of the right range (exclusive).
+     */
+    protected abstract void merge(int from, int mid, int to);
+
+    /**
+     * Sorts the wrapped array in place. Each worker sorts its own chunks, adjacent sorted 
+     * chunks are then merged in a tree.
+     * 
+     * @param options Relevant options: <code>Execution</code>.
+     */
+    protected void sortInPlace(Option... options) {
+        reduce(new Reducer<Object, int[]>() {
+            @Override
+            public int[] reduce(int from, int to) {
+                sort(from, to);
+                return new int[] { from, to };
+            }
+
+            @Override
+            public int[] combine(int[] left, int[] right) {
+                if (left == null) return right;
+                if (right == null) return left;
+
+                merge(left[0], left[1], right[1]);
+                return new int[] { left[0], right[1] };
+            }
+        }, options);
+    }
+
+    /**
+     * Collects values of a range in a primitive array, linked to the segment of the 
+     * following range. Used to filter values without a shared array.
+     */
+    protected static final class Segment {
+        /** The primitive array with the values */
+        final Object values;
+
+        /** The number of valid values */
+        int size;
+
+        /** The next segment */
+        Segment next;
+
+        /** The last segment of the list starting with this one */
+        Segment last = this;
+
+        /**
+         * @param values The primitive array to collect the values in.
+         */
+        Segment(Object values) {
+            this.values = values;
+        }
+
+        /**
+         * Links two segment lists.
+         * 
+         * @param left The left list, might be <code>null</code>.
+         * @param right The right list, might be <code>null</code>.
+         * @return The combined list.
+         */
+        static Segment combine(Segment left, Segment right) {
+            if (left == null) return right;
+            if (right == null) return left;
+
+            left.last.next = right;
+            left.last = right.last;
+            return left;
+        }
+
+        /**
+         * Returns the number of values in all segments starting from the given one.
+         * 
+         * @param segment The first segment, might be <code>null</code>.
+         * @return The number of values.
+         */
+        static int size(Segment segment) {
+            int rval = 0;
+            for (Segment s = segment; s != null; s = s.next) {
+                rval += s.size;
+            }
+            return rval;
+        }
+
+        /**
+         * Copies all values of the segments starting from the given one into the target.
+         * 
+         * @param segment The first segment, might be <code>null</code>.
+         * @param target The primitive array to copy to, must be large enough.
+         */
+        static void copy(Segment segment, Object target) {
+            int offset = 0;
+            for (Segment s = segment; s != null; s = s.next) {
+                System.arraycopy(s.values, 0, target, offset, s.size);
+                offset += s.size;
+            }
+        }
+    }
+
+    /**
+     * Count, mean and sum of squared deviations of some values, computed in a single
+     * pass and combined pairwise (Chan et al.), so chunks can be processed in parallel.
+     */
+    protected static final class Moments {
+        /** The number of values */
+        long n;
+
+        /** Their mean */
+        double mean;
+
+        /** Sum of squared deviations from the mean */
+        double m2;
+
+        /**
+         * Adds a value.
+         * 
+         * @param x The value to add.
+         */
+        void add(double x) {
+            this.n++;
+            final double delta = x - this.mean;
+            this.mean += delta / this.n;
+            this.m2 += delta * (x - this.mean);
+        }
+
+        /**
+         * Returns the (population) variance.
+         * 
+         * @return The variance, or <code>0</code> if there were no values.
+         */
+        double variance() {
+            return this.n == 0 ? 0 : this.m2 / this.n;
+        }
+
+        /**
+         * Combines two partial moments.
+         * 
+         * @param left The left moments, might be <code>null</code>.
+         * @param right The right moments, might be <code>null</code>.
+         * @return The combined moments.
+         */
+        static Moments combine(Moments left, Moments right) {
+            if (left == null || left.n == 0) return right;
+            if (right == null || right.n == 0) return left;
+
+            final long n = left.n + right.n;
+            final double delta = right.mean - left.mean;
+
+            left.m2 += right.m2 + delta * delta * ((double) left.n * right.n / n);
+            left.mean += delta * right.n / n;
+            left.n = n;
+            return left;
+        }
+    }
+}
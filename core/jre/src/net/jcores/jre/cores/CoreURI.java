@@ -39,6 +39,7 @@ import net.jcores.jre.CoreKeeper;
 import net.jcores.jre.annotations.SupportsOption;
 import net.jcores.jre.cores.adapter.AbstractAdapter;
 import net.jcores.jre.interfaces.functions.F1;
+import net.jcores.jre.options.Execution;
 import net.jcores.jre.options.MessageType;
 import net.jcores.jre.options.OnFailure;
 import net.jcores.jre.options.Option;
@@ -92,11 +93,12 @@ public class CoreURI extends CoreObject<URI> {
      * 
      * Multi-threaded.<br/>
      * <br/>
-     * @param options Optional arguments, especially {@link OnFailure}.
+     * @param options Optional arguments, especially {@link OnFailure}, and {@link Execution} (default 
+     * is <code>Execution.IO</code>).
      * 
      * @return A CoreInputStream object enclosing the opened input streams.
      */
-    @SupportsOption(options = {OnFailure.class})
+    @SupportsOption(options = {OnFailure.class, Execution.class})
     public CoreInputStream input(Option ... options) {
         final Options options$ = Options.$(this.commonCore, options);
 
@@ -114,7 +116,7 @@ public class CoreURI extends CoreObject<URI> {
 
                 return null;
             }
-        }).array(InputStream.class));
+        }, blocking(options)).array(InputStream.class));
     }
     
     /**
@@ -130,9 +132,12 @@ public class CoreURI extends CoreObject<URI> {
      * Multi-threaded.<br/>
      * <br/>
      * 
+     * @param options Relevant options: {@link Execution} (default is <code>Execution.IO</code>).
+     * 
      * @return A CoreFile object enclosing the files of all downloaded URIs.
      */
-    public CoreFile download() {
+    @SupportsOption(options = {Execution.class})
+    public CoreFile download(Option... options) {
         final CommonCore cc = this.commonCore;
 
         return new CoreFile(this.commonCore, map(new F1<URI, File>() {
@@ -155,7 +160,7 @@ public class CoreURI extends CoreObject<URI> {
 
                 return null;
             }
-        }).array(File.class));
+        }, blocking(options)).array(File.class));
     }
 
     /**
@@ -172,10 +177,12 @@ public class CoreURI extends CoreObject<URI> {
      * <br/>
      * 
      * @param path The directory to which the files will be downloaded.
+     * @param options Relevant options: {@link Execution} (default is <code>Execution.IO</code>).
      * 
      * @return A CoreFile object enclosing the files of all downloaded URIs.
      */
-    public CoreFile download(final String path) {
+    @SupportsOption(options = {Execution.class})
+    public CoreFile download(final String path, Option... options) {
         // Create output directory 
         new File(path).mkdirs();
         final CommonCore cc = this.commonCore;
@@ -201,7 +208,7 @@ public class CoreURI extends CoreObject<URI> {
 
                 return null;
             }
-        }).array(File.class));
+        }, blocking(options)).array(File.class));
     }
 
 
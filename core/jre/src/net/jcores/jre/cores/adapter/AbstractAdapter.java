@@ -28,6 +28,7 @@
 package net.jcores.jre.cores.adapter;
 
 import java.io.Serializable;
+import java.util.Arrays;
 import java.util.List;
 import java.util.ListIterator;
 
@@ -136,4 +137,22 @@ public abstract class AbstractAdapter<T> implements Iterable<T>, Serializable {
      * @return The slice.
      */
     public abstract List<T> slice(int start, int end);
+    
+    
+    /**
+     * For adapters made of several parts, returns the part holding the element at position i.
+     * 
+     * @param offsets The index of the first element of each part, plus the size at the end.
+     * @param i The position of the element.
+     * @return The index of the part.
+     */
+    protected static int part(int[] offsets, int i) {
+        final int part = Arrays.binarySearch(offsets, i);
+        if (part < 0) return -part - 2;
+
+        // Empty parts share their offset with the next one
+        int rval = part;
+        while (offsets[rval + 1] == i) rval++;
+        return rval;
+    }
 }
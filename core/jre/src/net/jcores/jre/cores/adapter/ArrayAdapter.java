@@ -196,6 +196,6 @@ public final class ArrayAdapter<T> extends AbstractAdapter<T> {
      */
     @Override
     public List<T> slice(int start, int end) {
-        return Arrays.asList(Arrays.copyOfRange(this.array, start, end));
+        return new ViewAdapter<T>(this.array, start, end - start).unsafelist();
     }
 }
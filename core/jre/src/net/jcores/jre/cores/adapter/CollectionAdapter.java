@@ -37,7 +37,11 @@ import java.util.concurrent.atomic.AtomicReferenceArray;
 import java.util.concurrent.locks.ReentrantLock;
 
 /**
- * Wraps arbitrary collections with on-demand element access and caching.
+ * Wraps arbitrary collections with on-demand element access and caching. The collection's 
+ * iterator is pulled in segments of {@link #SEGMENT} elements, each segment is then converted 
+ * on its own and published at once. Only pulling needs the lock, so parallel workers reading
+ * segments that are already there never wait, and segments are converted in parallel by the 
+ * workers that need them.
  * 
  * @author Ralf Biedert
  * @since 1.0
@@ -48,17 +52,29 @@ public class CollectionAdapter<I, O> extends AbstractAdapter<O> implements List<
     /** */
     private static final long serialVersionUID = 7010286694628298017L;
 
+    /** Bits of an index addressing the element within its segment */
+    static final int SEGMENT_BITS = 10;
+
+    /** How many elements we pull from the iterator at once */
+    public static final int SEGMENT = 1 << SEGMENT_BITS;
+
     /** Our primary collection iterator */
     Iterator<I> iterator;
 
-    /** Our cache array */
-    AtomicReferenceArray<O> array;
+    /** Pulled, but not yet converted segments */
+    AtomicReferenceArray<Object[]> raw;
+
+    /** Converted segments, once set they never change */
+    AtomicReferenceArray<Object[]> segments;
 
-    /** Specifies up to which index we have elements in our array cache */
-    AtomicInteger inCache;
+    /** How many segments we have pulled from the iterator */
+    AtomicInteger pulled;
 
     /** Locks access to the collection's iterator */
     ReentrantLock collectionLock;
+
+    /** The number of elements of the collection when we wrapped it */
+    int length;
     
     /** The inclusive start index which we handle */
     final int start;
@@ -67,12 +83,14 @@ public class CollectionAdapter<I, O> extends AbstractAdapter<O> implements List<
     final int end;
 
     public CollectionAdapter(Collection<I> collection) {
-        this.inCache = new AtomicInteger(-1);
+        this.length = collection.size();
+        this.pulled = new AtomicInteger(0);
         this.collectionLock = new ReentrantLock();
         this.iterator = collection.iterator();
-        this.array = new AtomicReferenceArray<O>(collection.size());
+        this.raw = new AtomicReferenceArray<Object[]>((this.length + SEGMENT - 1) >>> SEGMENT_BITS);
+        this.segments = new AtomicReferenceArray<Object[]>(this.raw.length());
         this.start = 0;
-        this.end = collection.size() - 1;
+        this.end = this.length - 1;
     }
 
     private CollectionAdapter(int start, int end) {
@@ -91,6 +109,17 @@ public class CollectionAdapter<I, O> extends AbstractAdapter<O> implements List<
     protected O converter(I i) {
         return (O) i;
     }
+
+    /**
+     * Returns if {@link #converter(Object)} returns its argument, in which case pulled 
+     * segments are used as they are. Only plain collection adapters are known not to convert, 
+     * subclasses have to override this method to skip the conversion.
+     * 
+     * @return True if we don't convert.
+     */
+    protected boolean identity() {
+        return getClass() == CollectionAdapter.class;
+    }
     
     /*
      * (non-Javadoc)
@@ -109,13 +138,15 @@ public class CollectionAdapter<I, O> extends AbstractAdapter<O> implements List<
      */
     @Override
     public O get(int i) {
-        final int ii = i + this.start;
-        cacheUntil(ii);
-        return _get(ii);
+        return _get(i + this.start);
     }
     
+    @SuppressWarnings("unchecked")
     private final O _get(int i) {
-        return this.array.get(i);
+        final Object[] segment = this.segments.get(i >>> SEGMENT_BITS);
+        if (segment != null) return (O) segment[i & (SEGMENT - 1)];
+
+        return (O) segment(i >>> SEGMENT_BITS)[i & (SEGMENT - 1)];
     }
 
     /*
@@ -135,7 +166,6 @@ public class CollectionAdapter<I, O> extends AbstractAdapter<O> implements List<
 
             @Override
             public O next() {
-                cacheUntil(CollectionAdapter.this.start + this.i);
                 return get(this.i++);
             }
 
@@ -182,11 +212,9 @@ public class CollectionAdapter<I, O> extends AbstractAdapter<O> implements List<
     @SuppressWarnings("unchecked")
     @Override
     public <N> N[] array(Class<N> in) {
-        cacheAll();
-
         final N[] rval = (N[]) Array.newInstance(in, size());
-        for (int i = this.start; i < rval.length; i++) {
-            rval[i] = (N) _get(i);
+        for (int i = 0; i < rval.length; i++) {
+            rval[i] = (N) _get(this.start + i);
         }
 
         return rval;
@@ -209,11 +237,26 @@ public class CollectionAdapter<I, O> extends AbstractAdapter<O> implements List<
      */
     @Override
     public List<O> slice(int a, int b) {
-        final CollectionAdapter<I, O> adapter = new CollectionAdapter<I, O>(this.start + a, this.start + a + (b - a) - 1);
-        adapter.array = this.array;
+        final CollectionAdapter<I, O> adapter = new CollectionAdapter<I, O>(this.start + a, this.start + a + (b - a) - 1) {
+            /** */
+            private static final long serialVersionUID = -2939017453924458212L;
+
+            @Override
+            protected O converter(I i) {
+                return CollectionAdapter.this.converter(i);
+            }
+
+            @Override
+            protected boolean identity() {
+                return CollectionAdapter.this.identity();
+            }
+        };
+        adapter.raw = this.raw;
+        adapter.segments = this.segments;
+        adapter.pulled = this.pulled;
         adapter.collectionLock = this.collectionLock;
-        adapter.inCache = this.inCache;
         adapter.iterator = this.iterator;
+        adapter.length = this.length;
         
         return adapter;
     }
@@ -232,31 +275,85 @@ public class CollectionAdapter<I, O> extends AbstractAdapter<O> implements List<
      * @param request
      */
     protected void cacheUntil(int request) {
-        // When the cached value already exceeds the limit we dont have to do anything
-        if (this.inCache.intValue() >= request) return;
-
-        this.collectionLock.lock();
-        try {
-            //System.out.println(Thread.currentThread() + ": " + this.inCache + " -> " + request);
-            // Iterator might have been gone due to another thread that just exited the lock while we entered
-            if (this.iterator == null) return;
-            
-            while (this.iterator.hasNext()) {
-                int i = this.inCache.get();
-                this.array.set(i + 1, converter(this.iterator.next()));
-                this.inCache.set(i + 1);
-                if (i > request) break;
+        for (int s = this.start >>> SEGMENT_BITS; s <= request >>> SEGMENT_BITS; s++) {
+            segment(s);
+        }
+    }
+
+    /**
+     * Returns the converted segment with the given number, pulling and converting it if 
+     * nobody did so far. Two threads might convert the same segment at the same time, in 
+     * which case the first one wins and both return its elements.
+     * 
+     * @param s The number of the segment.
+     * @return The segment.
+     */
+    private Object[] segment(int s) {
+        Object[] rval = this.segments.get(s);
+        if (rval != null) return rval;
+
+        pull(s);
+
+        // The raw segment is only dropped after its converted segment was set
+        final Object[] raw = this.raw.get(s);
+        if (raw == null) return this.segments.get(s);
+
+        rval = raw;
+        if (!identity()) {
+            rval = new Object[raw.length];
+            for (int i = 0; i < raw.length; i++) {
+                rval[i] = converter(uncheckedCast(raw[i]));
             }
+        }
+
+        this.segments.compareAndSet(s, null, rval);
+        this.raw.set(s, null);
+
+        return this.segments.get(s);
+    }
 
-            // Eventually dump the iterator to free up space
-            if (!this.iterator.hasNext()) {
-                this.iterator = null;
+    /**
+     * Pulls segments from the iterator until the given one is there. The lock is taken once 
+     * per segment, so threads waiting for earlier segments can continue as soon as theirs 
+     * arrived.
+     * 
+     * @param s The number of the segment we need.
+     */
+    private void pull(int s) {
+        while (this.pulled.get() <= s) {
+            this.collectionLock.lock();
+            try {
+                final int next = this.pulled.get();
+                if (next > s) return;
+
+                // If the collection shrank since we wrapped it, the rest stays null
+                final Object[] segment = new Object[Math.min(SEGMENT, this.length - (next << SEGMENT_BITS))];
+                for (int i = 0; i < segment.length && this.iterator != null && this.iterator.hasNext(); i++) {
+                    segment[i] = this.iterator.next();
+                }
+
+                this.raw.set(next, segment);
+                this.pulled.set(next + 1);
+
+                // Eventually dump the iterator to free up space
+                if (next + 1 == this.raw.length()) this.iterator = null;
+            } finally {
+                this.collectionLock.unlock();
             }
-        } finally {
-            this.collectionLock.unlock();
         }
     }
 
+    /**
+     * Casts a pulled element back to the type of the collection.
+     * 
+     * @param object The element.
+     * @return The element.
+     */
+    @SuppressWarnings("unchecked")
+    private I uncheckedCast(Object object) {
+        return (I) object;
+    }
+
     /*
      * (non-Javadoc)
      * 
@@ -288,11 +385,9 @@ public class CollectionAdapter<I, O> extends AbstractAdapter<O> implements List<
      */
     @Override
     public Object[] toArray() {
-        cacheAll();
-
-        final Object[] rval = (Object[]) Array.newInstance(Object.class, size());
-        for (int i = this.start; i < rval.length; i++) {
-            rval[i] = _get(i);
+        final Object[] rval = new Object[size()];
+        for (int i = 0; i < rval.length; i++) {
+            rval[i] = _get(this.start + i);
         }
 
         return rval;
@@ -304,21 +399,19 @@ public class CollectionAdapter<I, O> extends AbstractAdapter<O> implements List<
     @SuppressWarnings({ "unchecked" })
     @Override
     public <T> T[] toArray(T[] a) {
-        cacheAll();
-
         // Our return value array
         T[] rval = null;
 
         // Check if the passed array fits the data
-        if (a.length >= this.array.length()) {
+        if (a.length >= size()) {
             rval = a;
         } else {
             rval = (T[]) Array.newInstance(a.getClass().getComponentType(), size());
         }
 
         // Fill the array
-        for (int i = this.start; i < rval.length; i++) {
-            rval[i] = (T) _get(i);
+        for (int i = 0; i < size(); i++) {
+            rval[i] = (T) _get(this.start + i);
         }
 
         return rval;
@@ -0,0 +1,210 @@
+/*
+ * ConcatAdapter.java
+ * 
+ * Copyright (c) 2011, Ralf Biedert All rights reserved.
+ * 
+ * Redistribution and use in source and binary forms, with or without modification, are
+ * permitted provided that the following conditions are met:
+ * 
+ * Redistributions of source code must retain the above copyright notice, this list of
+ * conditions and the following disclaimer. Redistributions in binary form must reproduce the
+ * above copyright notice, this list of conditions and the following disclaimer in the
+ * documentation and/or other materials provided with the distribution.
+ * 
+ * Neither the name of the author nor the names of its contributors may be used to endorse or
+ * promote products derived from this software without specific prior written permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY EXPRESS
+ * OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE
+ * COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL,
+ * EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION)
+ * HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR
+ * TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE,
+ * EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ * 
+ */
+package net.jcores.jre.cores.adapter;
+
+import java.lang.reflect.Array;
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.ListIterator;
+
+/**
+ * Joins the elements of other adapters without copying them. Joining joined adapters 
+ * flattens them, so there is never more than one level. The first write through 
+ * {@link #unsafelist()} or {@link #unsafearray()} copies all elements into our own array.
+ * 
+ * @author Ralf Biedert
+ * @since 1.0
+ * @param <T> The type of the elements.
+ */
+public final class ConcatAdapter<T> extends AbstractAdapter<T> {
+    /** */
+    private static final long serialVersionUID = 5218702658264427376L;
+
+    /** The joined adapters */
+    final AbstractAdapter<T>[] parts;
+
+    /** The index of the first element of each part, plus our size at the end */
+    final int[] offsets;
+
+    /** Our own copy once somebody may have written */
+    volatile T[] own;
+
+    @SuppressWarnings({ "unchecked", "rawtypes" })
+    private ConcatAdapter(List<AbstractAdapter<T>> parts) {
+        this.parts = parts.toArray(new AbstractAdapter[parts.size()]);
+        this.offsets = new int[this.parts.length + 1];
+
+        for (int i = 0; i < this.parts.length; i++) {
+            this.offsets[i + 1] = this.offsets[i] + this.parts[i].size();
+        }
+    }
+
+    /**
+     * Joins the given adapters.
+     * 
+     * @param left The first elements.
+     * @param right The elements after them.
+     * @param <T> The type of the elements.
+     * @return An adapter with the elements of both.
+     */
+    public static <T> ConcatAdapter<T> concat(AbstractAdapter<T> left, AbstractAdapter<T> right) {
+        final List<AbstractAdapter<T>> parts = new ArrayList<AbstractAdapter<T>>();
+        add(parts, left);
+        add(parts, right);
+        return new ConcatAdapter<T>(parts);
+    }
+
+    /**
+     * Adds the adapter or its parts to the list.
+     * 
+     * @param parts The list.
+     * @param adapter The adapter to add.
+     */
+    private static <T> void add(List<AbstractAdapter<T>> parts, AbstractAdapter<T> adapter) {
+        if (adapter instanceof ConcatAdapter && ((ConcatAdapter<T>) adapter).own == null) {
+            parts.addAll(Arrays.asList(((ConcatAdapter<T>) adapter).parts));
+            return;
+        }
+
+        parts.add(adapter);
+    }
+
+    /* (non-Javadoc)
+     * @see net.jcores.jre.cores.adapter.AbstractAdapter#size()
+     */
+    @Override
+    public int size() {
+        return this.offsets[this.offsets.length - 1];
+    }
+
+    /* (non-Javadoc)
+     * @see net.jcores.jre.cores.adapter.AbstractAdapter#get(int)
+     */
+    @Override
+    public T get(int i) {
+        final T[] own = this.own;
+        if (own != null) return own[i];
+
+        final int part = part(this.offsets, i);
+
+        return this.parts[part].get(i - this.offsets[part]);
+    }
+
+    /* (non-Javadoc)
+     * @see net.jcores.jre.cores.adapter.AbstractAdapter#iterator()
+     */
+    @Override
+    public ListIterator<T> iterator() {
+        return unsafelist().listIterator();
+    }
+
+    /* (non-Javadoc)
+     * @see net.jcores.jre.cores.adapter.AbstractAdapter#clazz()
+     */
+    @Override
+    public Class<?> clazz() {
+        return this.parts[0].clazz();
+    }
+
+    /* (non-Javadoc)
+     * @see net.jcores.jre.cores.adapter.AbstractAdapter#array(java.lang.Class)
+     */
+    @SuppressWarnings("unchecked")
+    @Override
+    public <N> N[] array(Class<N> in) {
+        final T[] own = this.own;
+        if (own != null) return (N[]) Arrays.copyOf(own, own.length, ((N[]) Array.newInstance(in, 0)).getClass());
+
+        final N[] rval = (N[]) Array.newInstance(in, size());
+        for (int i = 0; i < this.parts.length; i++) {
+            final N[] part = this.parts[i].array(in);
+            System.arraycopy(part, 0, rval, this.offsets[i], part.length);
+        }
+
+        return rval;
+    }
+
+    /**
+     * Returns our own array, which callers might change. Copies our elements the first 
+     * time it is called.
+     * 
+     * @return Our array.
+     */
+    @Override
+    public T[] unsafearray() {
+        return detach();
+    }
+
+    /* (non-Javadoc)
+     * @see net.jcores.jre.cores.adapter.AbstractAdapter#unsafelist()
+     */
+    @Override
+    public List<T> unsafelist() {
+        return new AbstractList<T>() {
+            @Override
+            public T get(int index) {
+                return ConcatAdapter.this.get(index);
+            }
+
+            @Override
+            public T set(int index, T element) {
+                final T[] array = detach();
+                final T rval = array[index];
+                array[index] = element;
+                return rval;
+            }
+
+            @Override
+            public int size() {
+                return ConcatAdapter.this.size();
+            }
+        };
+    }
+
+    /* (non-Javadoc)
+     * @see net.jcores.jre.cores.adapter.AbstractAdapter#slice(int, int)
+     */
+    @Override
+    public List<T> slice(int start, int end) {
+        return new ArrayList<T>(unsafelist().subList(start, end));
+    }
+
+    /**
+     * Makes sure we have our own array holding our elements.
+     * 
+     * @return The array.
+     */
+    private T[] detach() {
+        synchronized (this) {
+            if (this.own == null) this.own = array();
+            return this.own;
+        }
+    }
+}
@@ -0,0 +1,386 @@
+/*
+ * LinesAdapter.java
+ * 
+ * Copyright (c) 2011, Ralf Biedert All rights reserved.
+ * 
+ * Redistribution and use in source and binary forms, with or without modification, are
+ * permitted provided that the following conditions are met:
+ * 
+ * Redistributions of source code must retain the above copyright notice, this list of
+ * conditions and the following disclaimer. Redistributions in binary form must reproduce the
+ * above copyright notice, this list of conditions and the following disclaimer in the
+ * documentation and/or other materials provided with the distribution.
+ * 
+ * Neither the name of the author nor the names of its contributors may be used to endorse or
+ * promote products derived from this software without specific prior written permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY EXPRESS
+ * OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE
+ * COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL,
+ * EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION)
+ * HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR
+ * TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE,
+ * EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ * 
+ */
+package net.jcores.jre.cores.adapter;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.Serializable;
+import java.lang.ref.SoftReference;
+import java.lang.reflect.Array;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.ListIterator;
+
+import net.jcores.jre.CommonCore;
+import net.jcores.jre.CoreKeeper;
+import net.jcores.jre.options.MessageType;
+
+/**
+ * The lines of text files. The files are split into {@link Chunk}s of about {@link #CHUNK} 
+ * bytes which end at line breaks, and a chunk is only decoded when one of its lines is 
+ * needed. Parallel workers therefore decode different chunks at the same time. Decoded 
+ * chunks are only softly kept, so the memory needed is bounded by the chunk size rather 
+ * than by the size of the files. Files with lines longer than {@link #STRETCH} times the 
+ * chunk size are therefore rejected.<br/>
+ * <br/>
+ * 
+ * Lines end with <code>\n</code> or <code>\r\n</code>. The charset must encode 
+ * <code>\n</code> as a single byte that appears nowhere else, which holds for UTF-8, 
+ * ISO-8859-* and the other ASCII based charsets.
+ * 
+ * @author Ralf Biedert
+ * @since 1.0
+ */
+public final class LinesAdapter extends AbstractAdapter<String> {
+    /** */
+    private static final long serialVersionUID = -4401582562592478813L;
+
+    /** The size of our chunks in bytes, they end at the next line break after that */
+    public static final int CHUNK = 1 << 20;
+
+    /** How many times larger than requested a chunk may get to end at a line break */
+    public static final int STRETCH = 64;
+
+    /** How much we read at once when searching or counting */
+    static final int BLOCK = 1 << 16;
+
+    /**
+     * A range of a file, ending at a line break or the end of the file.
+     * 
+     * @author Ralf Biedert
+     */
+    public static final class Chunk implements Serializable {
+        /** */
+        private static final long serialVersionUID = 2375130446040744402L;
+
+        /** Our file */
+        final File file;
+
+        /** The name of the charset to decode with */
+        final String charset;
+
+        /** The first byte (inclusive) */
+        final long start;
+
+        /** The last byte (exclusive) */
+        final long end;
+
+        /** If we end where the file ends */
+        final boolean last;
+
+        /** The number of lines in this chunk, once counted */
+        int lines = -1;
+
+        /** The decoded lines, if still there */
+        transient volatile SoftReference<String[]> decoded;
+
+        /** Where we report errors to, the default core after being deserialized */
+        transient CommonCore commonCore;
+
+        Chunk(CommonCore cc, File file, String charset, long start, long end, boolean last) {
+            this.commonCore = cc;
+            this.file = file;
+            this.charset = charset;
+            this.start = start;
+            this.end = end;
+            this.last = last;
+        }
+
+        /**
+         * Splits a file into chunks of about the given size, each ending at a line break
+         * or the end of the file. A chunk may get at most {@link LinesAdapter#STRETCH} times
+         * larger than the given size (and never larger than 2 GB), otherwise the file is 
+         * reported as misuse.
+         * 
+         * @param cc The core to report errors to.
+         * @param file The file to split.
+         * @param charset The charset to decode it with.
+         * @param size The size of the chunks.
+         * @return The chunks, in order, or <code>null</code> if a line was too long.
+         * @throws IOException If the file could not be read.
+         */
+        public static Chunk[] split(CommonCore cc, File file, Charset charset, int size) throws IOException {
+            final List<Chunk> rval = new ArrayList<Chunk>();
+            final FileInputStream input = new FileInputStream(file);
+            final long limit = Math.min((long) size * STRETCH, Integer.MAX_VALUE);
+
+            try {
+                final FileChannel channel = input.getChannel();
+                final long length = channel.size();
+
+                long start = 0;
+                while (start < length) {
+                    long end = length;
+                    if (start + size < length) {
+                        final long lineBreak = next(channel, start + size - 1, start + limit);
+                        if (lineBreak < 0) {
+                            cc.report(MessageType.MISUSE, "Error reading lines() from " + file + ". A line is too long, its chunk would exceed " + limit + " bytes.");
+                            return null;
+                        }
+                        end = lineBreak + 1;
+                    }
+
+                    rval.add(new Chunk(cc, file, charset.name(), start, end, end == length));
+                    start = end;
+                }
+            } finally {
+                input.close();
+            }
+
+            return rval.toArray(new Chunk[rval.size()]);
+        }
+
+        /**
+         * Returns the position of the next line break at or after the given position, or
+         * the last position of the file if there is none.
+         * 
+         * @param channel The channel to search.
+         * @param position Where to start.
+         * @param limit Where to stop searching (exclusive).
+         * @return The position of the line break, or -1 if there is none before the limit.
+         * @throws IOException If the file could not be read.
+         */
+        private static long next(FileChannel channel, long position, long limit) throws IOException {
+            final ByteBuffer buffer = ByteBuffer.allocate(BLOCK);
+
+            long p = position;
+            while (p < limit) {
+                buffer.clear();
+                final int read = channel.read(buffer, p);
+                if (read < 0) return channel.size() - 1;
+
+                for (int i = 0; i < read && p + i < limit; i++) {
+                    if (buffer.get(i) == '\n') return p + i;
+                }
+                p += read;
+            }
+
+            return -1;
+        }
+
+        /**
+         * Counts the lines of this chunk, without decoding them.
+         * 
+         * @return The number of lines.
+         * @throws IOException If the file could not be read.
+         */
+        public int count() throws IOException {
+            final ByteBuffer buffer = ByteBuffer.allocate(BLOCK);
+            final FileInputStream input = new FileInputStream(this.file);
+
+            int rval = 0;
+            byte previous = '\n';
+
+            try {
+                final FileChannel channel = input.getChannel();
+
+                for (long p = this.start; p < this.end;) {
+                    buffer.clear();
+                    buffer.limit((int) Math.min(BLOCK, this.end - p));
+                    final int read = channel.read(buffer, p);
+                    if (read < 0) break;
+
+                    for (int i = 0; i < read; i++) {
+                        if (buffer.get(i) == '\n') rval++;
+                    }
+
+                    if (read > 0) previous = buffer.get(read - 1);
+                    p += read;
+                }
+            } finally {
+                input.close();
+            }
+
+            // The last line of a file does not need a line break
+            if (this.last && previous != '\n') rval++;
+
+            this.lines = rval;
+            return rval;
+        }
+
+        /**
+         * Returns the lines of this chunk, decodes them if nobody did so recently.
+         * 
+         * @return The lines, <code>null</code> for all of them if the file could not be read anymore.
+         */
+        String[] lines() {
+            final SoftReference<String[]> reference = this.decoded;
+            String[] rval = reference != null ? reference.get() : null;
+            if (rval != null) return rval;
+
+            synchronized (this) {
+                rval = this.decoded != null ? this.decoded.get() : null;
+                if (rval != null) return rval;
+
+                rval = decode();
+                this.decoded = new SoftReference<String[]>(rval);
+                return rval;
+            }
+        }
+
+        /**
+         * Reads and decodes our lines.
+         * 
+         * @return The lines.
+         */
+        private String[] decode() {
+            final String[] rval = new String[this.lines];
+
+            try {
+                final ByteBuffer buffer = ByteBuffer.allocate((int) (this.end - this.start));
+                final FileInputStream input = new FileInputStream(this.file);
+                try {
+                    final FileChannel channel = input.getChannel();
+                    while (buffer.hasRemaining()) {
+                        if (channel.read(buffer, this.start + buffer.position()) < 0) break;
+                    }
+                } finally {
+                    input.close();
+                }
+
+                final String text = new String(buffer.array(), 0, buffer.position(), this.charset);
+
+                int from = 0;
+                for (int i = 0; i < rval.length && from <= text.length(); i++) {
+                    int to = text.indexOf('\n', from);
+                    if (to < 0) to = text.length();
+
+                    rval[i] = text.substring(from, to > from && text.charAt(to - 1) == '\r' ? to - 1 : to);
+                    from = to + 1;
+                }
+            } catch (IOException e) {
+                // The file is gone or changed, which we can only report as missing lines
+                final CommonCore cc = this.commonCore != null ? this.commonCore : CoreKeeper.$;
+                cc.report(MessageType.EXCEPTION, "Error reading lines() from " + this.file + ". IOException!");
+            }
+
+            return rval;
+        }
+    }
+
+    /** Our chunks */
+    final Chunk[] chunks;
+
+    /** The index of the first line of each chunk, plus our size at the end */
+    final int[] offsets;
+
+    /**
+     * Creates the adapter for the given chunks, which must be counted already.
+     * 
+     * @param chunks The chunks, in order.
+     */
+    public LinesAdapter(Chunk... chunks) {
+        this.chunks = chunks;
+        this.offsets = new int[chunks.length + 1];
+
+        for (int i = 0; i < chunks.length; i++) {
+            this.offsets[i + 1] = this.offsets[i] + Math.max(0, chunks[i].lines);
+        }
+    }
+
+    /* (non-Javadoc)
+     * @see net.jcores.jre.cores.adapter.AbstractAdapter#size()
+     */
+    @Override
+    public int size() {
+        return this.offsets[this.offsets.length - 1];
+    }
+
+    /* (non-Javadoc)
+     * @see net.jcores.jre.cores.adapter.AbstractAdapter#get(int)
+     */
+    @Override
+    public String get(int i) {
+        final int chunk = part(this.offsets, i);
+
+        return this.chunks[chunk].lines()[i - this.offsets[chunk]];
+    }
+
+    /* (non-Javadoc)
+     * @see net.jcores.jre.cores.adapter.AbstractAdapter#iterator()
+     */
+    @Override
+    public ListIterator<String> iterator() {
+        return unsafelist().listIterator();
+    }
+
+    /* (non-Javadoc)
+     * @see net.jcores.jre.cores.adapter.AbstractAdapter#clazz()
+     */
+    @Override
+    public Class<?> clazz() {
+        return String.class;
+    }
+
+    /* (non-Javadoc)
+     * @see net.jcores.jre.cores.adapter.AbstractAdapter#array(java.lang.Class)
+     */
+    @SuppressWarnings("unchecked")
+    @Override
+    public <N> N[] array(Class<N> in) {
+        final N[] rval = (N[]) Array.newInstance(in, size());
+
+        for (int c = 0; c < this.chunks.length; c++) {
+            final int n = this.offsets[c + 1] - this.offsets[c];
+            if (n > 0) System.arraycopy(this.chunks[c].lines(), 0, rval, this.offsets[c], n);
+        }
+
+        return rval;
+    }
+
+    /* (non-Javadoc)
+     * @see net.jcores.jre.cores.adapter.AbstractAdapter#unsafelist()
+     */
+    @Override
+    public List<String> unsafelist() {
+        return new AbstractList<String>() {
+            @Override
+            public String get(int index) {
+                return LinesAdapter.this.get(index);
+            }
+
+            @Override
+            public int size() {
+                return LinesAdapter.this.size();
+            }
+        };
+    }
+
+    /* (non-Javadoc)
+     * @see net.jcores.jre.cores.adapter.AbstractAdapter#slice(int, int)
+     */
+    @Override
+    public List<String> slice(int start, int end) {
+        return new ArrayList<String>(unsafelist().subList(start, end));
+    }
+}
@@ -0,0 +1,311 @@
+/*
+ * ViewAdapter.java
+ * 
+ * Copyright (c) 2011, Ralf Biedert All rights reserved.
+ * 
+ * Redistribution and use in source and binary forms, with or without modification, are
+ * permitted provided that the following conditions are met:
+ * 
+ * Redistributions of source code must retain the above copyright notice, this list of
+ * conditions and the following disclaimer. Redistributions in binary form must reproduce the
+ * above copyright notice, this list of conditions and the following disclaimer in the
+ * documentation and/or other materials provided with the distribution.
+ * 
+ * Neither the name of the author nor the names of its contributors may be used to endorse or
+ * promote products derived from this software without specific prior written permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY EXPRESS
+ * OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE
+ * COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL,
+ * EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION)
+ * HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR
+ * TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE,
+ * EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ * 
+ */
+package net.jcores.jre.cores.adapter;
+
+import java.io.Serializable;
+import java.lang.reflect.Array;
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.ListIterator;
+
+/**
+ * A window on the array of another adapter: a range of it, possibly reversed, or the 
+ * elements at a list of indices. Views of views still point into the original array, so 
+ * slicing, reversing or sampling a core never copies its elements. The first write through 
+ * {@link #unsafelist()} or {@link #unsafearray()} gives the view its own copy, so the shared 
+ * array is never changed. The array itself must not be changed either while views exist, 
+ * which is the same contract <code>unsafearray()</code> always had.
+ * 
+ * @author Ralf Biedert
+ * @since 1.0
+ * @param <T> The type of the elements.
+ */
+public final class ViewAdapter<T> extends AbstractAdapter<T> {
+    /** */
+    private static final long serialVersionUID = -2148869105718270544L;
+
+    /** Describes which elements of the array we see, never changes once created */
+    static final class Window<T> implements Serializable {
+        /** */
+        private static final long serialVersionUID = 8318826357409941233L;
+
+        /** The shared array */
+        final T[] array;
+
+        /** If set, position p of the window is element <code>indices[p]</code> of the array, -1 being null */
+        final int[] indices;
+
+        /** The first position */
+        final int offset;
+
+        /** The number of elements */
+        final int size;
+
+        /** If the window is read backwards */
+        final boolean reversed;
+
+        /** If the array is our own copy */
+        final boolean owned;
+
+        Window(T[] array, int[] indices, int offset, int size, boolean reversed, boolean owned) {
+            this.array = array;
+            this.indices = indices;
+            this.offset = offset;
+            this.size = size;
+            this.reversed = reversed;
+            this.owned = owned;
+        }
+
+        /**
+         * Returns the array index of element i, -1 for null.
+         * 
+         * @param i The element.
+         * @return The index.
+         */
+        int index(int i) {
+            final int p = this.reversed ? this.offset + this.size - 1 - i : this.offset + i;
+            return this.indices == null ? p : this.indices[p];
+        }
+
+        /**
+         * Returns element i.
+         * 
+         * @param i The element.
+         * @return The element.
+         */
+        T get(int i) {
+            final int index = index(i);
+            return index < 0 ? null : this.array[index];
+        }
+
+        /**
+         * Returns if the window is a plain range of the array.
+         * 
+         * @return True if it is.
+         */
+        boolean range() {
+            return this.indices == null && !this.reversed;
+        }
+    }
+
+    /** What we see */
+    volatile Window<T> window;
+
+    /**
+     * Creates a view on a range of the array.
+     * 
+     * @param array The array to view.
+     * @param offset The first element.
+     * @param size The number of elements.
+     */
+    public ViewAdapter(T[] array, int offset, int size) {
+        this(new Window<T>(array, null, offset, size, false, false));
+    }
+
+    private ViewAdapter(Window<T> window) {
+        this.window = window;
+    }
+
+    /**
+     * Returns a view on all elements of the given adapter if it is backed by an array.
+     * 
+     * @param adapter The adapter.
+     * @param <T> The type of the elements.
+     * @return A view, or <code>null</code> if the adapter is not backed by an array.
+     */
+    public static <T> ViewAdapter<T> of(AbstractAdapter<T> adapter) {
+        if (adapter instanceof ViewAdapter) return (ViewAdapter<T>) adapter;
+        if (adapter instanceof ArrayAdapter) {
+            final ArrayAdapter<T> a = (ArrayAdapter<T>) adapter;
+            if (a.array == null) return null;
+            return new ViewAdapter<T>(a.array, 0, a.size);
+        }
+
+        return null;
+    }
+
+    /**
+     * Returns a view on a range of this view.
+     * 
+     * @param start The first element (inclusive).
+     * @param end The last element (exclusive).
+     * @return The view.
+     */
+    public ViewAdapter<T> window(int start, int end) {
+        final Window<T> w = this.window;
+        final int offset = w.reversed ? w.offset + w.size - end : w.offset + start;
+        return new ViewAdapter<T>(new Window<T>(w.array, w.indices, offset, end - start, w.reversed, false));
+    }
+
+    /**
+     * Returns this view backwards.
+     * 
+     * @return The view.
+     */
+    public ViewAdapter<T> reverse() {
+        final Window<T> w = this.window;
+        return new ViewAdapter<T>(new Window<T>(w.array, w.indices, w.offset, w.size, !w.reversed, false));
+    }
+
+    /**
+     * Returns a view on the elements at the given indices of this view. The array is 
+     * taken over and changed.
+     * 
+     * @param indices The indices, -1 for <code>null</code>.
+     * @return The view.
+     */
+    public ViewAdapter<T> pick(int[] indices) {
+        final Window<T> w = this.window;
+        for (int i = 0; i < indices.length; i++) {
+            if (indices[i] >= 0) indices[i] = w.index(indices[i]);
+        }
+
+        return new ViewAdapter<T>(new Window<T>(w.array, indices, 0, indices.length, false, false));
+    }
+
+    /* (non-Javadoc)
+     * @see net.jcores.jre.cores.adapter.AbstractAdapter#size()
+     */
+    @Override
+    public int size() {
+        return this.window.size;
+    }
+
+    /* (non-Javadoc)
+     * @see net.jcores.jre.cores.adapter.AbstractAdapter#get(int)
+     */
+    @Override
+    public T get(int i) {
+        return this.window.get(i);
+    }
+
+    /* (non-Javadoc)
+     * @see net.jcores.jre.cores.adapter.AbstractAdapter#iterator()
+     */
+    @Override
+    public ListIterator<T> iterator() {
+        return unsafelist().listIterator();
+    }
+
+    /* (non-Javadoc)
+     * @see net.jcores.jre.cores.adapter.AbstractAdapter#clazz()
+     */
+    @Override
+    public Class<?> clazz() {
+        return this.window.array.getClass().getComponentType();
+    }
+
+    /* (non-Javadoc)
+     * @see net.jcores.jre.cores.adapter.AbstractAdapter#array(java.lang.Class)
+     */
+    @SuppressWarnings("unchecked")
+    @Override
+    public <N> N[] array(Class<N> in) {
+        final Window<T> w = this.window;
+        final N[] n = (N[]) Array.newInstance(in, 0);
+
+        if (w.range()) return (N[]) Arrays.copyOfRange(w.array, w.offset, w.offset + w.size, n.getClass());
+
+        final Object[] rval = (Object[]) Array.newInstance(in, w.size);
+        for (int i = 0; i < rval.length; i++) {
+            rval[i] = w.get(i);
+        }
+
+        return (N[]) rval;
+    }
+
+    /* (non-Javadoc)
+     * @see net.jcores.jre.cores.adapter.AbstractAdapter#array()
+     */
+    @SuppressWarnings("unchecked")
+    @Override
+    public T[] array() {
+        return (T[]) array(clazz());
+    }
+
+    /**
+     * Returns our own array, which callers might change. Copies our elements the first 
+     * time it is called.
+     * 
+     * @return Our array.
+     */
+    @Override
+    public T[] unsafearray() {
+        return detach();
+    }
+
+    /* (non-Javadoc)
+     * @see net.jcores.jre.cores.adapter.AbstractAdapter#unsafelist()
+     */
+    @Override
+    public List<T> unsafelist() {
+        return new AbstractList<T>() {
+            @Override
+            public T get(int index) {
+                return ViewAdapter.this.get(index);
+            }
+
+            @Override
+            public T set(int index, T element) {
+                final T[] array = detach();
+                final T rval = array[index];
+                array[index] = element;
+                return rval;
+            }
+
+            @Override
+            public int size() {
+                return ViewAdapter.this.size();
+            }
+        };
+    }
+
+    /* (non-Javadoc)
+     * @see net.jcores.jre.cores.adapter.AbstractAdapter#slice(int, int)
+     */
+    @Override
+    public List<T> slice(int start, int end) {
+        return window(start, end).unsafelist();
+    }
+
+    /**
+     * Makes sure we have our own array holding exactly our elements.
+     * 
+     * @return The array.
+     */
+    private T[] detach() {
+        synchronized (this) {
+            final Window<T> w = this.window;
+            if (w.owned) return w.array;
+
+            this.window = new Window<T>(array(), null, 0, w.size, false, true);
+            return this.window.array;
+        }
+    }
+}
@@ -27,14 +27,44 @@
  */
 package net.jcores.jre.managers;
 
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.lang.management.ManagementFactory;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.WeakHashMap;
 import java.util.concurrent.BrokenBarrierException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.CyclicBarrier;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
 import java.util.concurrent.ThreadFactory;
 
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
 import net.jcores.jre.interfaces.functions.F0;
+import net.jcores.jre.options.Execution;
+import net.jcores.jre.options.Option;
+import net.jcores.jre.utils.internal.processing.BarrierEngine;
+import net.jcores.jre.utils.internal.processing.Engine;
+import net.jcores.jre.utils.internal.processing.ForkJoinEngine;
+import net.jcores.jre.utils.internal.processing.IOEngine;
+import net.jcores.jre.utils.internal.structures.CostEstimate;
+import net.jcores.jre.utils.internal.structures.OperationMetrics;
 import net.jcores.jre.utils.internal.structures.ProfileInformation;
+import net.jcores.jre.utils.internal.structures.Trace;
 
 /**
  * Manages the execution of threads.
@@ -43,11 +73,65 @@ import net.jcores.jre.utils.internal.structures.ProfileInformation;
  * @author Ralf Biedert
  */
 public class ManagerExecution extends Manager {
+    /** How long (in ns) a single chunk should at least take, so its scheduling is amortized */
+    private static final long CHUNK_TIME = 20000;
+
+    /** How many chunks per worker we want at least, so stealing can balance uneven costs */
+    private static final int CHUNKS_PER_WORKER = 8;
+
+    /** How many elements blocking operations process at the same time by default */
+    private static final int IO_LIMIT = 256;
+
+    /** How many recent traces we keep */
+    private static final int RECENT_TRACES = 64;
+
+    /** The JMX domain our beans are registered in */
+    private static final String JMX_DOMAIN = "net.jcores";
+
+    /** The system property naming the file calibrations are cached in */
+    public static final String PROFILE_CACHE = "jcores.profile.cache";
+
+    /** Traced operations are named after the outermost method of this package */
+    private static final String CORES = "net.jcores.jre.cores.";
+
     /** The executor with which we execute tasks. */
     ExecutorService executor;
+
+    /** The shared work-stealing pool for parallel operations. */
+    ForkJoinPool pool;
+
+    /** The executor for blocking operations, virtual threads if the VM has them. */
+    ExecutorService blockingExecutor;
+
+    /** All engines we know, by their name */
+    final ConcurrentMap<String, Engine> engines = new ConcurrentHashMap<String, Engine>();
+
+    /** The engine used when no engine was requested explicitly */
+    volatile Engine engine;
     
-    /** Our profile information so we know how long new tasks took */
-    ProfileInformation profile;
+    /** Our profile information so we know how long new tasks took, calibrated on first use */
+    volatile ProfileInformation profile;
+
+    /** The file calibrations are cached in, or <code>null</code> */
+    volatile File profileCache;
+
+    /** Cost estimates per function class (weak, so we don't keep classes and their loaders alive) */
+    final Map<Class<?>, CostEstimate> costs = Collections.synchronizedMap(new WeakHashMap<Class<?>, CostEstimate>());
+
+    /** Cost estimates of fused pipelines, weakly keyed by the class of their first function */
+    final Map<Class<?>, Map<List<Class<?>>, CostEstimate>> pipelines = Collections.synchronizedMap(new WeakHashMap<Class<?>, Map<List<Class<?>>, CostEstimate>>());
+
+    /** The weight of a new observation in the cost estimates */
+    volatile double costDecay = 0.3;
+
+    /** If operations should be traced, off by default */
+    volatile boolean metrics;
+
+    /** The aggregated traces per operation */
+    final ConcurrentMap<String, OperationMetrics> operations = new ConcurrentHashMap<String, OperationMetrics>();
+
+    /** The most recent traces, oldest first */
+    final LinkedList<Trace> recent = new LinkedList<Trace>();
 
     /** Creates our execution manager. */
     public ManagerExecution() {
@@ -59,8 +143,23 @@ public class ManagerExecution extends Manager {
                 return t;
             }
         });
-        
-        this.profile = profile();
+
+        // The pool's threads are daemons already, so they don't prevent us from quitting either.
+        this.pool = new ForkJoinPool(Runtime.getRuntime().availableProcessors());
+
+        // Blocking operations run on virtual threads if we have them, on our own threads otherwise.
+        this.blockingExecutor = virtualExecutor();
+        if (this.blockingExecutor == null) this.blockingExecutor = this.executor;
+
+        // Register the engines we know, fork/join is our default.
+        engine(new BarrierEngine(this.executor));
+        engine(new ForkJoinEngine(this.pool));
+        engine(new IOEngine(this.blockingExecutor, IO_LIMIT));
+        this.engine = this.engines.get(Execution.FORKJOIN.getEngine());
+
+        // The VM is calibrated lazily, see getProfile()
+        final String cache = System.getProperty(PROFILE_CACHE);
+        if (cache != null && cache.length() > 0) this.profileCache = new File(cache);
     }
 
     
@@ -74,12 +173,470 @@ public class ManagerExecution extends Manager {
     }
     
     /**
-     * Benchmark the VM. Dirty, but should give us some rough estimates
+     * Returns the default engine for parallel operations.
+     * 
+     * @return The default engine.
+     */
+    public Engine engine() {
+        return this.engine;
+    }
+
+    /**
+     * Returns the engine requested by the given options. If the options contain no
+     * {@link Execution} option, or if the requested engine is unknown, the default
+     * engine is returned.
+     * 
+     * @param options The options to check.
+     * @return The engine to use.
+     */
+    public Engine engine(Option... options) {
+        if (options == null) return this.engine;
+
+        for (Option option : options) {
+            if (!(option instanceof Execution)) continue;
+
+            final Execution execution = (Execution) option;
+            final Engine rval = this.engines.get(execution.getEngine());
+            if (rval == null) continue;
+
+            // Only the I/O engine has a per-call limit
+            if (rval instanceof IOEngine && execution.getLimit() > 0) return ((IOEngine) rval).limit(execution.getLimit());
+            return rval;
+        }
+
+        return this.engine;
+    }
+
+    /**
+     * Returns the executor for blocking operations. On VMs with virtual threads this is a
+     * virtual thread per task executor, otherwise the same as <code>getExecutor()</code>.
+     * 
+     * @return The executor for blocking operations.
+     */
+    public ExecutorService getBlockingExecutor() {
+        return this.blockingExecutor;
+    }
+
+    /**
+     * Creates a virtual thread per task executor if the VM supports it. We are compiled
+     * for older VMs, so we have to look it up.
+     * 
+     * @return The executor, or <code>null</code> if there are no virtual threads.
+     */
+    private static ExecutorService virtualExecutor() {
+        try {
+            final Method method = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+            return (ExecutorService) method.invoke(null);
+        } catch (Exception e) {
+            return null;
+        }
+    }
+
+    /**
+     * Registers an engine under its name, replacing any engine with the same name. Registered
+     * engines can then be requested with {@link Execution}<code>.ENGINE(name)</code>.
+     * 
+     * @param engine The engine to register.
+     */
+    public void engine(Engine engine) {
+        this.engines.put(engine.name(), engine);
+    }
+
+    /**
+     * Sets the default engine for all subsequent parallel operations. The engine is registered
+     * as well if it was not known before.
+     * 
+     * @param engine The new default engine.
+     */
+    public void defaultEngine(Engine engine) {
+        engine(engine);
+        this.engine = engine;
+    }
+
+    /**
+     * Returns the cost estimate for the given function class, creating an empty one if
+     * the function has not been seen before.
+     * 
+     * @param function The class of the function.
+     * @return The cost estimate for the function.
+     */
+    public CostEstimate cost(Class<?> function) {
+        synchronized (this.costs) {
+            CostEstimate rval = this.costs.get(function);
+            if (rval == null) {
+                rval = new CostEstimate();
+                this.costs.put(function, rval);
+            }
+            return rval;
+        }
+    }
+
+    /**
+     * Returns the cost estimate for a pipeline of functions that run fused, one after the 
+     * other on each element (e.g., the stages of a lazy core). Pipelines of different 
+     * functions get different estimates, even if they share some of them.
+     * 
+     * @param functions The classes of the functions, in order, at least one.
+     * @return The cost estimate for the pipeline.
+     */
+    public CostEstimate cost(List<Class<?>> functions) {
+        synchronized (this.pipelines) {
+            Map<List<Class<?>>, CostEstimate> map = this.pipelines.get(functions.get(0));
+            if (map == null) {
+                map = new HashMap<List<Class<?>>, CostEstimate>();
+                this.pipelines.put(functions.get(0), map);
+            }
+
+            CostEstimate rval = map.get(functions);
+            if (rval == null) {
+                rval = new CostEstimate();
+                map.put(new ArrayList<Class<?>>(functions), rval);
+            }
+            return rval;
+        }
+    }
+
+    /**
+     * Returns a snapshot of all cost estimates of single functions we currently have, useful 
+     * to tune functions and to understand the decisions of the parallel operations.
+     * 
+     * @return A map from function class to estimate.
+     */
+    public Map<Class<?>, CostEstimate> costs() {
+        synchronized (this.costs) {
+            return new HashMap<Class<?>, CostEstimate>(this.costs);
+        }
+    }
+
+    /**
+     * Forgets all cost estimates.
+     */
+    public void resetCosts() {
+        this.costs.clear();
+        this.pipelines.clear();
+    }
+
+    /**
+     * Returns the weight new observations have in the cost estimates.
+     * 
+     * @return The decay.
+     */
+    public double costDecay() {
+        return this.costDecay;
+    }
+
+    /**
+     * Sets the weight new observations have in the cost estimates. Larger values react 
+     * faster to changes, smaller values are more robust against outliers. 
+     * 
+     * @param decay The new weight, 0 &lt; decay &lt;= 1.
+     */
+    public void costDecay(double decay) {
+        this.costDecay = Math.max(Double.MIN_VALUE, Math.min(1.0, decay));
+    }
+
+    /**
+     * Computes the suggested chunk size for a parallel operation. Chunks are made small
+     * enough that each worker gets several of them (so uneven costs can be balanced), but 
+     * not smaller than needed to amortize their scheduling.
+     * 
+     * @param nanos The estimated time per element in ns (NaN if unknown).
+     * @param elements The number of elements to process.
+     * @param workers The number of workers.
+     * @return The suggested number of elements per chunk.
+     */
+    public int grain(double nanos, int elements, int workers) {
+        final int balanced = Math.max(1, elements / (Math.max(1, workers) * CHUNKS_PER_WORKER));
+        if (Double.isNaN(nanos) || nanos <= 0) return balanced;
+
+        final double amortized = Math.ceil(CHUNK_TIME / nanos);
+        return (int) Math.max(1, Math.min(balanced, amortized));
+    }
+
+    /**
+     * Enables or disables the recording of metrics. While enabled, each parallel operation
+     * is traced (see {@link Trace}) and aggregated per operation, and the aggregates as well as 
+     * the profile information are exported as JMX beans in the <code>net.jcores</code> domain.
+     * While disabled, operations only check this flag.
+     * 
+     * @param enabled True if metrics should be recorded.
+     */
+    public void metrics(boolean enabled) {
+        this.metrics = enabled;
+        if (enabled) register("type=Profile", getProfile());
+    }
+
+    /**
+     * Returns if metrics are recorded.
+     * 
+     * @return True if enabled.
+     */
+    public boolean metricsEnabled() {
+        return this.metrics;
+    }
+
+    /**
+     * Returns a snapshot of the metrics recorded so far, by operation.
      * 
-     * @return
+     * @return A map from operation name to a copy of its metrics.
      */
-    private ProfileInformation profile() {
+    public Map<String, OperationMetrics> metrics() {
+        final Map<String, OperationMetrics> rval = new HashMap<String, OperationMetrics>();
+        for (OperationMetrics m : this.operations.values()) {
+            rval.put(m.getMethod(), m.copy());
+        }
+        return rval;
+    }
+
+    /**
+     * Returns the most recent traces, oldest first.
+     * 
+     * @return A list of finished traces.
+     */
+    public List<Trace> traces() {
+        synchronized (this.recent) {
+            return new ArrayList<Trace>(this.recent);
+        }
+    }
+
+    /**
+     * Forgets all recorded metrics and traces.
+     */
+    public void resetMetrics() {
+        for (String method : this.operations.keySet()) {
+            unregister("type=Operation,name=" + method);
+        }
+
+        this.operations.clear();
+        synchronized (this.recent) {
+            this.recent.clear();
+        }
+    }
+
+    /**
+     * Starts tracing an operation of the given size, if metrics are enabled. The operation is 
+     * named after the core method the user called, found by walking up the stack.
+     * 
+     * @param elements The number of elements the operation has.
+     * @return The trace, or <code>null</code> if metrics are disabled.
+     */
+    public Trace trace(int elements) {
+        if (!this.metrics) return null;
+
+        String method = "unknown";
+        boolean inside = false;
+        for (StackTraceElement element : new Throwable().getStackTrace()) {
+            final boolean cores = element.getClassName().startsWith(CORES);
+            if (cores) {
+                method = element.getMethodName();
+                inside = true;
+            } else if (inside) break;
+        }
+
+        return new Trace(method, elements);
+    }
+
+    /**
+     * Finishes the given trace and adds it to the metrics.
+     * 
+     * @param trace The trace, may be <code>null</code>.
+     * @param workers The number of workers used, <code>1</code> if the operation ran serially.
+     */
+    public void record(Trace trace, int workers) {
+        if (trace == null) return;
+
+        trace.finish(workers);
+
+        OperationMetrics metrics = this.operations.get(trace.method());
+        if (metrics == null) {
+            final OperationMetrics created = new OperationMetrics(trace.method());
+            metrics = this.operations.putIfAbsent(trace.method(), created);
+            if (metrics == null) {
+                metrics = created;
+                register("type=Operation,name=" + trace.method(), created);
+            }
+        }
+
+        metrics.update(trace);
+
+        synchronized (this.recent) {
+            this.recent.addLast(trace);
+            if (this.recent.size() > RECENT_TRACES) this.recent.removeFirst();
+        }
+    }
+
+    /**
+     * Registers a bean with the platform's MBean server, replacing any previous bean
+     * of the same name.
+     * 
+     * @param name The key properties of the name.
+     * @param bean The bean.
+     */
+    private static void register(String name, Object bean) {
+        try {
+            final MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            final ObjectName objectName = new ObjectName(JMX_DOMAIN + ":" + name);
+            if (server.isRegistered(objectName)) server.unregisterMBean(objectName);
+            server.registerMBean(bean, objectName);
+        } catch (Exception e) {
+            // JMX is only a view, the metrics themselves still work
+        }
+    }
+
+    /**
+     * Unregisters a bean from the platform's MBean server.
+     * 
+     * @param name The key properties of the name.
+     */
+    private static void unregister(String name) {
+        try {
+            final MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            final ObjectName objectName = new ObjectName(JMX_DOMAIN + ":" + name);
+            if (server.isRegistered(objectName)) server.unregisterMBean(objectName);
+        } catch (Exception e) {
+            // Nothing we can do
+        }
+    }
+
+    /**
+     * Returns the shared work-stealing pool.
+     * 
+     * @return The fork/join pool.
+     */
+    public ForkJoinPool getPool() {
+        return this.pool;
+    }
+    
+    /**
+     * Sets the file in which calibrations are cached, so later VMs on this host can start
+     * with the fork time measured before (and refresh it in the background). Can also be set 
+     * with the system property <code>jcores.profile.cache</code>. Calibrations are kept per host,
+     * VM and number of CPUs, so a single file may be shared.
+     * 
+     * @param file The cache file, or <code>null</code> to disable caching.
+     */
+    public void profileCache(File file) {
+        this.profileCache = file;
+    }
+
+    /**
+     * Calibrates the VM. If a cached calibration exists it is used right away, and a fresh 
+     * measurement replaces it in the background. Otherwise we measure now. 
+     * 
+     * @return The profile information.
+     */
+    private ProfileInformation calibrate() {
         final ProfileInformation p = new ProfileInformation();
+        p.numCPUs = Runtime.getRuntime().availableProcessors();
+
+        final long cached = loadForkTime(p.numCPUs);
+        if (cached <= 0) {
+            p.forkTime = measureForkTime();
+            storeForkTime(p.numCPUs, p.forkTime);
+            return p;
+        }
+
+        p.forkTime = cached;
+        this.executor.execute(new Runnable() {
+            @Override
+            public void run() {
+                p.forkTime = measureForkTime();
+                storeForkTime(p.numCPUs, p.forkTime);
+            }
+        });
+
+        return p;
+    }
+
+    /**
+     * Returns the key under which the calibration of this VM is cached.
+     * 
+     * @param numCPUs The number of CPUs.
+     * @return The key.
+     */
+    private static String profileKey(int numCPUs) {
+        String host = System.getenv("HOSTNAME");
+        if (host == null) host = System.getenv("COMPUTERNAME");
+        if (host == null) host = "localhost";
+
+        final String key = host + "/" + System.getProperty("java.vm.name") + "/" + System.getProperty("java.vm.version") + 
+                           "/" + System.getProperty("os.arch") + "/" + numCPUs;
+        return "forktime." + key.replaceAll("[^A-Za-z0-9./_-]", "_");
+    }
+
+    /**
+     * Loads the cached fork time of this VM.
+     * 
+     * @param numCPUs The number of CPUs.
+     * @return The fork time in ns, or <code>0</code> if nothing was cached.
+     */
+    private long loadForkTime(int numCPUs) {
+        final File file = this.profileCache;
+        if (file == null || !file.exists()) return 0;
+
+        try {
+            final String value = load(file).getProperty(profileKey(numCPUs));
+            return value == null ? 0 : Long.parseLong(value);
+        } catch (Exception e) {
+            return 0;
+        }
+    }
+
+    /**
+     * Stores the fork time of this VM in the cache, if we have one.
+     * 
+     * @param numCPUs The number of CPUs.
+     * @param forkTime The measured fork time in ns.
+     */
+    private void storeForkTime(int numCPUs, long forkTime) {
+        final File file = this.profileCache;
+        if (file == null) return;
+
+        // Other VMs might write at the same time, in the worst case we lose one calibration
+        synchronized (ManagerExecution.class) {
+            try {
+                final Properties properties = file.exists() ? load(file) : new Properties();
+                properties.setProperty(profileKey(numCPUs), Long.toString(forkTime));
+
+                final File parent = file.getAbsoluteFile().getParentFile();
+                if (parent != null) parent.mkdirs();
+
+                final OutputStream out = new FileOutputStream(file);
+                try {
+                    properties.store(out, "jCores calibration");
+                } finally {
+                    out.close();
+                }
+            } catch (Exception e) {
+                // The cache is optional
+            }
+        }
+    }
+
+    /**
+     * Loads the given properties file.
+     * 
+     * @param file The file to load.
+     * @return The properties.
+     * @throws Exception If the file could not be read.
+     */
+    private static Properties load(File file) throws Exception {
+        final Properties rval = new Properties();
+        final InputStream in = new FileInputStream(file);
+        try {
+            rval.load(in);
+        } finally {
+            in.close();
+        }
+        return rval;
+    }
+
+    /**
+     * Benchmark the VM. Dirty, but should give us some rough estimates
+     * 
+     * @return The time in ns it takes to fork a thread and wait for it.
+     */
+    private long measureForkTime() {
         final int RUNS = 10;
         final int N = 5;
 
@@ -118,14 +675,12 @@ public class ManagerExecution extends Manager {
         }
 
         // Now take the average
+        long rval = 0;
         for (int i = RUNS - N; i < times.length; i++) {
-            p.forkTime += times[i];
+            rval += times[i];
         }
 
-        p.forkTime /= N;
-        p.numCPUs = Runtime.getRuntime().availableProcessors();
-
-        return p;
+        return rval / N;
     }
 
 
@@ -144,11 +699,18 @@ public class ManagerExecution extends Manager {
     }
     
     /**
-     * Returns the profile information we generated.
+     * Returns the profile information. The VM is calibrated when this is called first, so
+     * creating the manager stays cheap.
      * 
      * @return The profile information.
      */
     public ProfileInformation getProfile() {
-        return this.profile;
+        final ProfileInformation rval = this.profile;
+        if (rval != null) return rval;
+
+        synchronized (this) {
+            if (this.profile == null) this.profile = calibrate();
+            return this.profile;
+        }
     }
 }
@@ -0,0 +1,192 @@
+/*
+ * OptionDummy.java
+ * 
+ * Copyright (c) 2010, Ralf Biedert All rights reserved.
+ * 
+ * Redistribution and use in source and binary forms, with or without modification, are
+ * permitted provided that the following conditions are met:
+ * 
+ * Redistributions of source code must retain the above copyright notice, this list of
+ * conditions and the following disclaimer. Redistributions in binary form must reproduce the
+ * above copyright notice, this list of conditions and the following disclaimer in the
+ * documentation and/or other materials provided with the distribution.
+ * 
+ * Neither the name of the author nor the names of its contributors may be used to endorse or
+ * promote products derived from this software without specific prior written permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY EXPRESS
+ * OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE
+ * COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL,
+ * EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION)
+ * HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR
+ * TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE,
+ * EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ * 
+ */
+package net.jcores.jre.options;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Base class of options that stop a parallel operation before it is complete. The engines
+ * check them between chunks, chunks that were not started anymore are skipped and remembered, 
+ * so the (partial) result of an operation can be told apart from a complete one. The skipped 
+ * elements are kept per {@link Operation}, so one cancellation can be shared by several 
+ * operations running at the same time.
+ * 
+ * @author Ralf Biedert
+ * @since 1.0
+ */
+public abstract class Cancellation extends Option {
+    /**
+     * The elements one operation skipped, created by <code>begin()</code> when the operation starts.
+     * 
+     * @author Ralf Biedert
+     * @since 1.0
+     */
+    public static class Operation {
+        /** The ranges <code>[from, to)</code> of elements that were skipped */
+        private final List<int[]> skipped = new ArrayList<int[]>();
+
+        /** Only cancellations create operations */
+        Operation() {}
+
+        /**
+         * Returns if the operation was stopped before it processed all elements.
+         * 
+         * @since 1.0
+         * @return True if the result of the operation is partial.
+         */
+        public boolean partial() {
+            synchronized (this.skipped) {
+                return !this.skipped.isEmpty();
+            }
+        }
+
+        /**
+         * Returns the indices of all elements the operation did not process, in ascending order.
+         * 
+         * @since 1.0
+         * @return The indices of all unprocessed elements.
+         */
+        public int[] unprocessed() {
+            final int[][] ranges;
+            synchronized (this.skipped) {
+                ranges = this.skipped.toArray(new int[this.skipped.size()][]);
+            }
+
+            // Ranges can be reported in any order and might overlap (e.g., for fold())
+            Arrays.sort(ranges, new Comparator<int[]>() {
+                @Override
+                public int compare(int[] o1, int[] o2) {
+                    return o1[0] < o2[0] ? -1 : o1[0] == o2[0] ? 0 : 1;
+                }
+            });
+
+            int size = 0, end = Integer.MIN_VALUE;
+            for (int[] range : ranges) {
+                size += Math.max(0, range[1] - Math.max(range[0], end));
+                end = Math.max(end, range[1]);
+            }
+
+            final int[] rval = new int[size];
+            int count = 0;
+            end = Integer.MIN_VALUE;
+            for (int[] range : ranges) {
+                for (int i = Math.max(range[0], end); i < range[1]; i++) {
+                    rval[count++] = i;
+                }
+                end = Math.max(end, range[1]);
+            }
+
+            return rval;
+        }
+
+        /**
+         * Called by the engines when they skip the elements <code>[from, to)</code>.
+         * 
+         * @param from The first skipped element (inclusive).
+         * @param to The last skipped element (exclusive).
+         */
+        public void skipped(int from, int to) {
+            if (from >= to) return;
+
+            synchronized (this.skipped) {
+                this.skipped.add(new int[] { from, to });
+            }
+        }
+    }
+
+    /** The operation most recently started by each thread */
+    private final ThreadLocal<Operation> local = new ThreadLocal<Operation>();
+
+    /** The operation most recently started by any thread */
+    private volatile Operation latest = new Operation();
+
+    /**
+     * Returns if the operation should stop.
+     * 
+     * @since 1.0
+     * @return True if no further chunks should be processed.
+     */
+    public abstract boolean cancelled();
+
+    /**
+     * Called when a new operation starts with this option on the current thread.
+     * 
+     * @since 1.0
+     * @return The record of the new operation's skipped elements.
+     */
+    public Operation begin() {
+        final Operation rval = new Operation();
+        this.local.set(rval);
+        this.latest = rval;
+        return rval;
+    }
+
+    /**
+     * Returns the last operation the current thread passed this option to or, if it 
+     * never did, the last operation of any thread.
+     * 
+     * @since 1.0
+     * @return The operation.
+     */
+    public Operation operation() {
+        final Operation rval = this.local.get();
+        return rval == null ? this.latest : rval;
+    }
+
+    /**
+     * Returns if the last operation this option was passed to was stopped before it 
+     * processed all elements, see <code>operation()</code>.
+     * 
+     * @since 1.0
+     * @return True if the result of the last operation is partial.
+     */
+    public boolean partial() {
+        return operation().partial();
+    }
+
+    /**
+     * Returns the indices of all elements the last operation this option was passed to 
+     * did not process, in ascending order, see <code>operation()</code>.<br/>
+     * <br/>
+     * 
+     * Examples:
+     * <ul>
+     * <li><code>$(requests).map(f, deadline).compact()</code> - Afterwards <code>deadline.unprocessed()</code> returns
+     * the indices of all requests that could not be handled in time.</li>
+     * </ul>
+     * 
+     * @since 1.0
+     * @return The indices of all unprocessed elements.
+     */
+    public int[] unprocessed() {
+        return operation().unprocessed();
+    }
+}
@@ -0,0 +1,95 @@
+/*
+ * OptionDummy.java
+ * 
+ * Copyright (c) 2010, Ralf Biedert All rights reserved.
+ * 
+ * Redistribution and use in source and binary forms, with or without modification, are
+ * permitted provided that the following conditions are met:
+ * 
+ * Redistributions of source code must retain the above copyright notice, this list of
+ * conditions and the following disclaimer. Redistributions in binary form must reproduce the
+ * above copyright notice, this list of conditions and the following disclaimer in the
+ * documentation and/or other materials provided with the distribution.
+ * 
+ * Neither the name of the author nor the names of its contributors may be used to endorse or
+ * promote products derived from this software without specific prior written permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY EXPRESS
+ * OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE
+ * COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL,
+ * EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION)
+ * HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR
+ * TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE,
+ * EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ * 
+ */
+package net.jcores.jre.options;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Bounds the time a parallel operation may take. Once the deadline has passed no further 
+ * chunks are started, the operation returns a partial result, and the skipped elements 
+ * can be queried with <code>unprocessed()</code>. In contrast to <code>KillSwitch.TIMED()</code>
+ * no timer is involved, the deadline is simply checked between chunks.
+ * 
+ * @author Ralf Biedert
+ * @since 1.0
+ */
+public class Deadline extends Cancellation {
+    /**
+     * Creates a deadline that passes the given number of milliseconds from now.
+     * 
+     * @since 1.0
+     * @param delay The delay in ms.
+     * @return The new {@link Deadline}.
+     */
+    public static final Deadline IN(long delay) {
+        return IN(delay, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Creates a deadline that passes the given time from now.
+     * 
+     * @since 1.0
+     * @param delay The delay.
+     * @param unit The unit of the delay.
+     * @return The new {@link Deadline}.
+     */
+    public static final Deadline IN(long delay, TimeUnit unit) {
+        return new Deadline(System.nanoTime() + unit.toNanos(delay));
+    }
+
+    /** When the deadline passes, in terms of <code>System.nanoTime()</code> */
+    private final long deadline;
+
+    /**
+     * Creates a new deadline.
+     * 
+     * @param deadline When the deadline passes.
+     */
+    private Deadline(long deadline) {
+        this.deadline = deadline;
+    }
+
+    /* (non-Javadoc)
+     * @see net.jcores.jre.options.Cancellation#cancelled()
+     */
+    @Override
+    public boolean cancelled() {
+        return System.nanoTime() - this.deadline >= 0;
+    }
+
+    /**
+     * Returns how much time is left until the deadline passes.
+     * 
+     * @since 1.0
+     * @param unit The unit to return.
+     * @return The remaining time, or <code>0</code> if the deadline has passed.
+     */
+    public long remaining(TimeUnit unit) {
+        return unit.convert(Math.max(0, this.deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+    }
+}
@@ -0,0 +1,115 @@
+/*
+ * Execution.java
+ * 
+ * Copyright (c) 2011, Ralf Biedert All rights reserved.
+ * 
+ * Redistribution and use in source and binary forms, with or without modification, are
+ * permitted provided that the following conditions are met:
+ * 
+ * Redistributions of source code must retain the above copyright notice, this list of
+ * conditions and the following disclaimer. Redistributions in binary form must reproduce the
+ * above copyright notice, this list of conditions and the following disclaimer in the
+ * documentation and/or other materials provided with the distribution.
+ * 
+ * Neither the name of the author nor the names of its contributors may be used to endorse or
+ * promote products derived from this software without specific prior written permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY EXPRESS
+ * OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE
+ * COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL,
+ * EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION)
+ * HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR
+ * TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE,
+ * EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ * 
+ */
+package net.jcores.jre.options;
+
+/**
+ * Selects the engine with which parallel operations like <code>map()</code>, <code>fold()</code> 
+ * or <code>delta()</code> are being executed. If no engine is specified the default engine of 
+ * the <code>ManagerExecution</code> is used.
+ * 
+ * @author Ralf Biedert
+ * @since 1.0
+ */
+public class Execution extends Option {
+    /** Use the shared, work-stealing fork/join pool (default). */
+    public final static Execution FORKJOIN = new Execution("forkjoin");
+
+    /** Use the old barrier engine, which spawns runners for each call. */
+    public final static Execution BARRIER = new Execution("barrier");
+
+    /**
+     * Use the engine for blocking operations, which processes many elements at once on (virtual) 
+     * threads, instead of one chunk per CPU. Default for operations like <code>download()</code>.
+     */
+    public final static Execution IO = new Execution("io");
+
+    /**
+     * Use the engine for blocking operations, processing at most <code>limit</code> elements at 
+     * the same time.
+     * 
+     * @param limit The maximal number of elements processed at the same time.
+     * @return An option for the I/O engine with the given limit.
+     */
+    public final static Execution IO(int limit) {
+        return new Execution("io", limit);
+    }
+
+    /**
+     * Selects a custom engine that has been registered with the <code>ManagerExecution</code>.
+     * 
+     * @param name The name of the engine.
+     * @return An option for the given engine.
+     */
+    public final static Execution ENGINE(String name) {
+        return new Execution(name);
+    }
+
+    /** The name of the engine to use */
+    private final String engine;
+
+    /** The maximal number of workers, or <code>0</code> if the engine decides */
+    private final int limit;
+
+    /**
+     * Creates a new execution option.
+     * 
+     * @param engine The engine to use.
+     */
+    private Execution(String engine) {
+        this(engine, 0);
+    }
+
+    /**
+     * Creates a new execution option.
+     * 
+     * @param engine The engine to use.
+     * @param limit The maximal number of workers, or <code>0</code>.
+     */
+    private Execution(String engine, int limit) {
+        this.engine = engine;
+        this.limit = limit;
+    }
+
+    /**
+     * Returns the name of the engine to use.
+     * 
+     * @return The engine name.
+     */
+    public String getEngine() {
+        return this.engine;
+    }
+
+    /**
+     * Returns the maximal number of workers requested.
+     * 
+     * @return The limit, or <code>0</code> if the engine should decide.
+     */
+    public int getLimit() {
+        return this.limit;
+    }
+}
@@ -39,11 +39,12 @@ import net.jcores.jre.interfaces.functions.F0;
 
 /**
  * When the kill switch is activated the asynchronous operation to which
- * it is passed will be terminated. 
+ * it is passed will be terminated. Parallel operations like <code>map()</code> stop 
+ * after their current chunks and return a partial result, see {@link Cancellation}.
  * 
  * @author Ralf Biedert
  */
-public class KillSwitch extends Option {
+public class KillSwitch extends Cancellation {
     /**
      * Constructs a new {@link KillSwitch}.
      * 
@@ -114,4 +115,12 @@ public class KillSwitch extends Option {
     public boolean terminated() {
         return this.terminated.get();
     }
+
+    /* (non-Javadoc)
+     * @see net.jcores.jre.options.Cancellation#cancelled()
+     */
+    @Override
+    public boolean cancelled() {
+        return this.terminated.get();
+    }
 }
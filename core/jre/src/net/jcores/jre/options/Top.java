@@ -0,0 +1,68 @@
+/*
+ * OptionDummy.java
+ * 
+ * Copyright (c) 2010, Ralf Biedert All rights reserved.
+ * 
+ * Redistribution and use in source and binary forms, with or without modification, are
+ * permitted provided that the following conditions are met:
+ * 
+ * Redistributions of source code must retain the above copyright notice, this list of
+ * conditions and the following disclaimer. Redistributions in binary form must reproduce the
+ * above copyright notice, this list of conditions and the following disclaimer in the
+ * documentation and/or other materials provided with the distribution.
+ * 
+ * Neither the name of the author nor the names of its contributors may be used to endorse or
+ * promote products derived from this software without specific prior written permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY EXPRESS
+ * OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE
+ * COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL,
+ * EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION)
+ * HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR
+ * TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE,
+ * EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ * 
+ */
+package net.jcores.jre.options;
+
+/**
+ * Specifies that only the top <code>k</code> results of an operation are of interest, 
+ * for example the <code>k</code> most frequent elements of <code>count()</code>.
+ * 
+ * @author Ralf Biedert
+ * @since 1.0
+ */
+public class Top extends Option {
+    /**
+     * Specifies that only the top <code>k</code> results should be returned.
+     * 
+     * @param k The number of results to keep.
+     * @return An option for the given <code>k</code>.
+     */
+    public final static Top K(int k) {
+        return new Top(k);
+    }
+
+    /** The number of results to keep */
+    private final int k;
+
+    /**
+     * Creates a new Top option.
+     * 
+     * @param k The number of results to keep.
+     */
+    private Top(int k) {
+        this.k = k;
+    }
+
+    /**
+     * Returns the number of results to keep.
+     * 
+     * @return The number of results.
+     */
+    public int getK() {
+        return this.k;
+    }
+}
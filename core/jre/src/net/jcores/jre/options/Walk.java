@@ -0,0 +1,124 @@
+/*
+ * OptionDummy.java
+ * 
+ * Copyright (c) 2010, Ralf Biedert All rights reserved.
+ * 
+ * Redistribution and use in source and binary forms, with or without modification, are
+ * permitted provided that the following conditions are met:
+ * 
+ * Redistributions of source code must retain the above copyright notice, this list of
+ * conditions and the following disclaimer. Redistributions in binary form must reproduce the
+ * above copyright notice, this list of conditions and the following disclaimer in the
+ * documentation and/or other materials provided with the distribution.
+ * 
+ * Neither the name of the author nor the names of its contributors may be used to endorse or
+ * promote products derived from this software without specific prior written permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY EXPRESS
+ * OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE
+ * COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL,
+ * EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION)
+ * HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR
+ * TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE,
+ * EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ * 
+ */
+package net.jcores.jre.options;
+
+import java.util.regex.Pattern;
+
+/**
+ * Restricts the walk of <code>dir()</code> and <code>walk()</code> while it runs, so large trees 
+ * do not have to be listed completely before they are filtered. Like <code>filter()</code>, 
+ * patterns are matched against absolute paths. Several walk options can be combined, entries 
+ * then have to match all <code>MATCH</code> patterns and directories are skipped if any 
+ * <code>PRUNE</code> pattern matches.
+ * 
+ * @author Ralf Biedert
+ * @since 1.0
+ */
+public class Walk extends Option {
+    /**
+     * Only returns entries whose absolute path matches the given regular expression. Directories 
+     * are still entered if they don't match.
+     * 
+     * @param regex The regular expression to match.
+     * @return An option for the given pattern.
+     */
+    public final static Walk MATCH(String regex) {
+        return new Walk(Pattern.compile(regex), null, Integer.MAX_VALUE);
+    }
+
+    /**
+     * Neither enters nor returns directories whose absolute path matches the given regular 
+     * expression, for example <code>".*\\.git"</code>.
+     * 
+     * @param regex The regular expression of directories to skip.
+     * @return An option for the given pattern.
+     */
+    public final static Walk PRUNE(String regex) {
+        return new Walk(null, Pattern.compile(regex), Integer.MAX_VALUE);
+    }
+
+    /**
+     * Only descends the given number of levels. With a depth of <code>1</code> only the 
+     * entries of the enclosed directories themselves are returned.
+     * 
+     * @param depth The maximal depth.
+     * @return An option for the given depth.
+     */
+    public final static Walk DEPTH(int depth) {
+        return new Walk(null, null, depth);
+    }
+
+    /** Pattern of entries to return, or <code>null</code> */
+    private final Pattern match;
+
+    /** Pattern of directories to skip, or <code>null</code> */
+    private final Pattern prune;
+
+    /** The maximal depth */
+    private final int depth;
+
+    /**
+     * Creates a new walk option.
+     * 
+     * @param match Pattern of entries to return.
+     * @param prune Pattern of directories to skip.
+     * @param depth The maximal depth.
+     */
+    private Walk(Pattern match, Pattern prune, int depth) {
+        this.match = match;
+        this.prune = prune;
+        this.depth = depth;
+    }
+
+    /**
+     * Returns the pattern of entries to return.
+     * 
+     * @return The pattern, or <code>null</code>.
+     */
+    public Pattern getMatch() {
+        return this.match;
+    }
+
+    /**
+     * Returns the pattern of directories to skip.
+     * 
+     * @return The pattern, or <code>null</code>.
+     */
+    public Pattern getPrune() {
+        return this.prune;
+    }
+
+    /**
+     * Returns the maximal depth.
+     * 
+     * @return The depth.
+     */
+    public int getDepth() {
+        return this.depth;
+    }
+}
@@ -38,19 +38,24 @@ import java.security.NoSuchAlgorithmException;
  */
 public class Bytes {
     /**
-     * Hashes the given data.
+     * Hashes the given data, from the position to the limit of each buffer, as if the 
+     * buffers were one.
      * 
-     * @param data Data to use.
      * @param method Method to use.
      * @param options$ 
+     * @param data Data to use.
      * @return A string with the hash.
      */
     @SuppressWarnings("boxing")
-    public static String generateHash(ByteBuffer data, String method, Options options$) {
+    public static String generateHash(String method, Options options$, ByteBuffer... data) {
         // Try to generate hash
         try {
             final MessageDigest digest = java.security.MessageDigest.getInstance(method);
-            digest.update(data.array(), 0, data.limit());
+
+            // Mapped and direct buffers have no array, the digest reads them in place
+            for (ByteBuffer buffer : data) {
+                digest.update(buffer.duplicate());
+            }
 
             final byte[] hash = digest.digest();
 
@@ -28,12 +28,15 @@
 package net.jcores.jre.utils.internal;
 
 import java.io.BufferedReader;
+import java.io.Closeable;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.FileNotFoundException;
 import java.io.FileOutputStream;
 import java.io.FileReader;
 import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
@@ -46,11 +49,21 @@ import java.util.zip.ZipOutputStream;
 import net.jcores.jre.CommonCore;
 import net.jcores.jre.CoreKeeper;
 import net.jcores.jre.options.MessageType;
+import net.jcores.jre.utils.internal.structures.BufferPool;
 
 /**
  * @author Ralf Biedert
  */
 public class Files {
+    /** The size of the segments we map large files in */
+    public static final long SEGMENT = 1L << 30;
+
+    /** The size of the buffer we copy files with */
+    private static final int COPY_BUFFER = 64 * 1024;
+
+    /** The size of the buffer we zip and jar files with */
+    private static final int ZIP_BUFFER = 32 * 1024;
+
     /**
      * Reads the content of file as text.
      * 
@@ -86,6 +99,103 @@ public class Files {
         return null;
     }
 
+    /**
+     * Reads the content of a file into a heap buffer. Files of more than 2 GB can't be 
+     * read this way.
+     * 
+     * @param cc
+     * @param file
+     * @return The data, or <code>null</code> on errors.
+     */
+    public static ByteBuffer readData(CommonCore cc, File file) {
+        FileInputStream input = null;
+        try {
+            input = new FileInputStream(file);
+            final FileChannel channel = input.getChannel();
+            final long size = channel.size();
+
+            if (size > Integer.MAX_VALUE) {
+                cc.report(MessageType.MISUSE, "Error reading data() from " + file + ". Too large for the heap, use Mapped.DO.");
+                return null;
+            }
+
+            // A single read() might return less than we asked for
+            final ByteBuffer buffer = ByteBuffer.allocate((int) size);
+            while (buffer.hasRemaining()) {
+                if (channel.read(buffer) < 0) break;
+            }
+
+            if (buffer.hasRemaining()) {
+                cc.report(MessageType.EXCEPTION, "Error reading data() from " + file + ". Size mismatch (" + buffer.position() + " != " + size + ")");
+                return null;
+            }
+
+            buffer.flip();
+            return buffer;
+        } catch (FileNotFoundException e) {
+            cc.report(MessageType.EXCEPTION, "Error reading data() from " + file + ". File not found!");
+        } catch (IOException e) {
+            cc.report(MessageType.EXCEPTION, "Error reading data() from " + file + ". IOException!");
+        } finally {
+            close(cc, input, file);
+        }
+
+        return null;
+    }
+
+    /**
+     * Maps a file read-only into memory. Files of up to 2 GB are mapped as a single buffer, 
+     * larger files as consecutive segments of {@link #SEGMENT} bytes. The channel is closed 
+     * before we return, the mappings stay valid.
+     * 
+     * @param cc
+     * @param file
+     * @return The segments, or <code>null</code> on errors.
+     */
+    public static ByteBuffer[] mapData(CommonCore cc, File file) {
+        FileInputStream input = null;
+        try {
+            input = new FileInputStream(file);
+            final FileChannel channel = input.getChannel();
+            final long size = channel.size();
+
+            final long segment = size <= Integer.MAX_VALUE ? Math.max(size, 1) : SEGMENT;
+            final ByteBuffer[] rval = new ByteBuffer[(int) Math.max(1, (size + segment - 1) / segment)];
+
+            for (int i = 0; i < rval.length; i++) {
+                final long position = i * segment;
+                rval[i] = channel.map(FileChannel.MapMode.READ_ONLY, position, Math.min(segment, size - position));
+            }
+
+            return rval;
+        } catch (FileNotFoundException e) {
+            cc.report(MessageType.EXCEPTION, "Error mapping data() from " + file + ". File not found!");
+        } catch (IOException e) {
+            cc.report(MessageType.EXCEPTION, "Error mapping data() from " + file + ". IOException!");
+        } finally {
+            close(cc, input, file);
+        }
+
+        return null;
+    }
+
+    /**
+     * Closes the stream, if there is any.
+     * 
+     * @param cc
+     * @param closeable
+     * @param file The file the stream belongs to.
+     */
+    private static void close(CommonCore cc, Closeable closeable, File file) {
+        if (closeable == null) return;
+
+        try {
+            closeable.close();
+        } catch (IOException e) {
+            cc.report(MessageType.EXCEPTION, "Error closing file " + file);
+        }
+    }
+
     /**
      * Lists all elements under the given root.
      * 
@@ -130,66 +240,113 @@ public class Files {
     }
 
     /**
-     * Copies a file .
+     * Copies a file or directory, see {@link #plan(File, File)} and {@link #copyFile(CommonCore, File, File)}.
      * 
      * @param cc
      * @param from
      * @param to
-     * @return .
+     * @return The created files.
      */
     public static File[] copy(CommonCore cc, File from, File to) {
+        final File[][] plan = plan(from, to);
+        final File[] rval = new File[plan.length];
+
+        for (int i = 0; i < plan.length; i++) {
+            rval[i] = copyFile(cc, plan[i][0], plan[i][1]);
+        }
 
-        // Create directory if they don't exist
+        return rval;
+    }
+
+    /**
+     * Computes which files have to be copied where when copying <code>from</code> to <code>to</code>. 
+     * A directory is copied by its content, each file ending up relative to <code>to</code>. A file is 
+     * copied into <code>to</code> if that is a directory (or ends with a slash), otherwise it 
+     * becomes <code>to</code>.
+     * 
+     * @param from The file or directory to copy.
+     * @param to The destination.
+     * @return Pairs of source and target file.
+     */
+    public static File[][] plan(File from, File to) {
         final boolean todir = to.getAbsolutePath().endsWith("/") || to.isDirectory();
         final boolean fromdir = from.getAbsolutePath().endsWith("/") || from.isDirectory();
 
         // If we had a source dir
         if (fromdir) {
             final File[] elements = dir(from, false);
-            final List<File> files = new ArrayList<File>();
+            if (elements == null) return new File[0][];
+
+            final List<File[]> rval = new ArrayList<File[]>();
             for (File file : elements) {
                 final String subname = file.getAbsolutePath().replace(from.getAbsolutePath(), "");
-                files.addAll(Arrays.asList(copy(cc, file, new File(to + "/" + subname))));
+                rval.addAll(Arrays.asList(plan(file, new File(to + "/" + subname))));
             }
 
-            return files.toArray(new File[0]);
-        }
-
-        // If its a dir, create the dir, if its a file, create its parent
-        if (todir) to.mkdirs();
-        else {
-            if (!to.getParentFile().mkdirs())
-                cc.report(MessageType.EXCEPTION, "Unable to create directory " + to.getParentFile());
+            return rval.toArray(new File[0][]);
         }
 
         final File realTo = todir ? new File(to.getAbsoluteFile() + "/" + from.getName()) : to;
+        return new File[][] { { from, realTo } };
+    }
+
+    /**
+     * Copies a single file, creating the target's directory if needed. The data is moved 
+     * with {@link FileChannel#transferTo(long, long, java.nio.channels.WritableByteChannel)} so 
+     * the kernel can copy it directly. Whatever the transfer leaves (e.g., of files not 
+     * reporting their size) is copied through a pooled direct buffer.
+     * 
+     * @param cc
+     * @param from The file to copy.
+     * @param to The file to create.
+     * @return The created file.
+     */
+    public static File copyFile(CommonCore cc, File from, File to) {
+        final File parent = to.getAbsoluteFile().getParentFile();
+        if (!parent.mkdirs() && !parent.isDirectory())
+            cc.report(MessageType.EXCEPTION, "Unable to create directory " + parent);
 
         // Streams for input and output
         FileInputStream fis = null;
         FileOutputStream fos = null;
 
-        // Now copy the actual files. TODO: Also copy from when it is a directory!
         try {
             fis = new FileInputStream(from);
-            fos = new FileOutputStream(realTo);
+            fos = new FileOutputStream(to);
+
+            final FileChannel in = fis.getChannel();
+            final FileChannel out = fos.getChannel();
+
+            // Let the kernel copy as much as it wants to ...
+            final long size = in.size();
+            long position = 0;
+            while (position < size) {
+                final long transferred = in.transferTo(position, size - position, out);
+                if (transferred <= 0) break;
+                position += transferred;
+            }
 
-            byte[] buf = new byte[64 * 1024];
-            int i = 0;
-            while ((i = fis.read(buf)) != -1) {
-                fos.write(buf, 0, i);
+            // ... and copy the rest ourselves
+            in.position(position);
+            final ByteBuffer buf = BufferPool.shared().direct(COPY_BUFFER);
+            try {
+                while (in.read(buf) != -1) {
+                    buf.flip();
+                    while (buf.hasRemaining())
+                        out.write(buf);
+                    buf.clear();
+                }
+            } finally {
+                BufferPool.shared().release(buf);
             }
         } catch (Exception e) {
             cc.report(MessageType.EXCEPTION, "Error copying file " + from + " " + to + " due to a " + e.getMessage());
         } finally {
-            if (fis != null) try {
-                fis.close();
-            } catch (IOException e) {}
-            if (fos != null) try {
-                fos.close();
-            } catch (IOException e) {}
+            close(cc, fis, from);
+            close(cc, fos, to);
         }
 
-        return new File[] { realTo };
+        return to;
     }
 
     /**
@@ -199,7 +356,7 @@ public class Files {
      * @param t
      */
     public static void zipFiles(File target, File[] t) {
-        final byte[] buffer = new byte[32 * 1024]; // Create a buffer for copying
+        final byte[] buffer = BufferPool.shared().array(ZIP_BUFFER); // Get a buffer for copying
         int bytesRead;
 
         try {
@@ -247,6 +404,8 @@ public class Files {
             e.printStackTrace();
         } catch (IOException e) {
             e.printStackTrace();
+        } finally {
+            BufferPool.shared().release(buffer);
         }
     }
 
@@ -259,7 +418,7 @@ public class Files {
      * @param t
      */
     public static void jarFiles(File target, Manifest manifest, File[] t) {
-        final byte[] buffer = new byte[32 * 1024]; // Create a buffer for copying
+        final byte[] buffer = BufferPool.shared().array(ZIP_BUFFER); // Get a buffer for copying
         int bytesRead;
 
         try {
@@ -312,6 +471,8 @@ public class Files {
             e.printStackTrace();
         } catch (IOException e) {
             e.printStackTrace();
+        } finally {
+            BufferPool.shared().release(buffer);
         }
     }
 }
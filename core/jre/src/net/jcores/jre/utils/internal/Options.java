@@ -33,13 +33,17 @@ import java.util.LinkedList;
 import net.jcores.jre.CommonCore;
 import net.jcores.jre.CoreKeeper;
 import net.jcores.jre.options.Args;
+import net.jcores.jre.options.Associative;
 import net.jcores.jre.options.Debug;
 import net.jcores.jre.options.ID;
 import net.jcores.jre.options.InvertSelection;
 import net.jcores.jre.options.KillSwitch;
+import net.jcores.jre.options.Mapped;
 import net.jcores.jre.options.MessageType;
 import net.jcores.jre.options.OnFailure;
 import net.jcores.jre.options.Option;
+import net.jcores.jre.options.Top;
+import net.jcores.jre.options.Walk;
 
 /**
  * Convenience class to process options.
@@ -70,10 +74,22 @@ public class Options {
     
     /** If inverted was given */
     boolean invert = false;
+
+    /** If the operator was declared associative */
+    boolean associative = false;
+
+    /** If files should be mapped */
+    boolean mapped = false;
     
     /** The specified ID */
     ID id = null;
 
+    /** The number of top results to keep, if specified */
+    Top top = null;
+
+    /** Restrictions of directory walks */
+    Collection<Walk> walks;
+
     /** Arguments we got */
     Object[] args;
     
@@ -104,10 +120,27 @@ public class Options {
                     this.invert = !this.invert;
                 }
                 
+                if (option instanceof Associative) {
+                    this.associative = true;
+                }
+                
+                if (option instanceof Mapped) {
+                    this.mapped = true;
+                }
+                
                 if (option instanceof KillSwitch) {
                     this.killswitch = (KillSwitch) option;
                 }
                 
+                if (option instanceof Top) {
+                    this.top = (Top) option;
+                }
+                
+                if (option instanceof Walk) {
+                    if (this.walks == null) this.walks = new LinkedList<Walk>();
+                    this.walks.add((Walk) option);
+                }
+                
                 if (option instanceof ID) {
                     this.id = (ID) option;
                 }
@@ -151,6 +184,26 @@ public class Options {
         return this.invert;
     }
 
+    /**
+     * If the operator was declared {@link Associative}.
+     * 
+     * @since 1.0
+     * @return True if it was.
+     */
+    public boolean associative() {
+        return this.associative;
+    }
+
+    /**
+     * If files should be {@link Mapped}.
+     * 
+     * @since 1.0
+     * @return True if they should.
+     */
+    public boolean mapped() {
+        return this.mapped;
+    }
+
     /**
      * Returns the killswitch if there was any.
      * 
@@ -171,6 +224,26 @@ public class Options {
         return this.id;
     }
 
+    /**
+     * Returns the {@link Top} option if there was any.
+     * 
+     * @since 1.0
+     * @return The top option.
+     */
+    public Top top() {
+        return this.top;
+    }
+
+    /**
+     * Returns all {@link Walk} options that were given.
+     * 
+     * @since 1.0
+     * @return The walk options, or <code>null</code> if there were none.
+     */
+    public Collection<Walk> walks() {
+        return this.walks;
+    }
+
     /**
      * Returns the passed {@link Args} object.
      * 
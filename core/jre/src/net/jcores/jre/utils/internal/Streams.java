@@ -53,6 +53,7 @@ import net.jcores.jre.CommonCore;
 import net.jcores.jre.cores.Core;
 import net.jcores.jre.cores.CoreObject;
 import net.jcores.jre.options.MessageType;
+import net.jcores.jre.utils.internal.structures.BufferPool;
 
 /**
  * @author Ralf Biedert
@@ -99,18 +100,22 @@ public class Streams {
                     final BufferedInputStream is = new BufferedInputStream(zipFile);
                     int currentByte;
                     // establish buffer for writing file
-                    byte data[] = new byte[BUFFER];
+                    final byte data[] = BufferPool.shared().array(BUFFER);
 
                     // write the current file to disk
                     final FileOutputStream fos = new FileOutputStream(destFile);
                     final BufferedOutputStream dest = new BufferedOutputStream(fos, BUFFER);
 
                     // read and write until last byte is encountered
-                    while ((currentByte = is.read(data, 0, BUFFER)) != -1) {
-                        dest.write(data, 0, currentByte);
+                    try {
+                        while ((currentByte = is.read(data, 0, BUFFER)) != -1) {
+                            dest.write(data, 0, currentByte);
+                        }
+                        dest.flush();
+                    } finally {
+                        BufferPool.shared().release(data);
+                        dest.close();
                     }
-                    dest.flush();
-                    dest.close();
                 }
             } catch (IOException ioe) {
                 ioe.printStackTrace();
@@ -211,18 +216,20 @@ public class Streams {
             final MessageDigest digest = java.security.MessageDigest.getInstance(method);
 
             // Read Data
-            final byte[] data = new byte[1024 * 1024];
-            int avail = fis.available();
-
-            // Update hash
-            while (avail > 0) {
-                avail = Math.min(avail, data.length);
+            final byte[] data = BufferPool.shared().array(BufferPool.MAX);
+            try {
+                int avail = fis.available();
 
-                // TODO: Mmhm, do we need to consider the return value of this (FindBugs report)
-                fis.read(data, 0, avail);
+                // Update hash
+                while (avail > 0) {
+                    avail = fis.read(data, 0, Math.min(avail, data.length));
+                    if (avail <= 0) break;
 
-                digest.update(data, 0, avail);
-                avail = fis.available();
+                    digest.update(data, 0, avail);
+                    avail = fis.available();
+                }
+            } finally {
+                BufferPool.shared().release(data);
             }
 
             final byte[] hash = digest.digest();
@@ -263,26 +270,30 @@ public class Streams {
         } catch (FileNotFoundException e1) {
             return;
         }
-        final byte[] data = new byte[1024 * 1024];
+        final byte[] data = BufferPool.shared().array(BufferPool.MAX);
         int lastRead = 1;
 
         // Update hash
-        while (lastRead > 0) {
+        try {
+            while (lastRead > 0) {
+                try {
+                    lastRead = openStream.read(data, 0, data.length);
+                    if (lastRead <= 0) break;
+                    fos.write(data, 0, lastRead);
+                } catch (IOException e) {
+                    //
+                    lastRead = 0;
+                }
+            }
+        } finally {
+            BufferPool.shared().release(data);
+
             try {
-                lastRead = openStream.read(data, 0, data.length);
-                if (lastRead <= 0) break;
-                fos.write(data, 0, lastRead);
+                fos.close();
             } catch (IOException e) {
                 //
-                lastRead = 0;
             }
         }
-
-        try {
-            fos.close();
-        } catch (IOException e) {
-            //
-        }
     }
 
     /**
@@ -293,8 +304,9 @@ public class Streams {
      * @return ByteBuffer w. data.
      */
     public static ByteBuffer getByteData(InputStream x) {
-        byte globaldata[] = new byte[1024 * 1024];
-        byte localdata[] = new byte[1024 * 1024];
+        // Only the read buffer is pooled, the result is handed out and sized by what we get
+        final byte localdata[] = BufferPool.shared().array(BufferPool.MAX);
+        byte globaldata[] = new byte[0];
 
         try {
             int total = 0;
@@ -304,13 +316,14 @@ public class Streams {
 
                 // Expand array if it does not fit
                 if (total + lastread > globaldata.length) {
-                    final byte newglobal[] = new byte[total + 1024 * 1024];
+                    final int size = Math.max(2 * globaldata.length, total + lastread + x.available());
+                    final byte newglobal[] = new byte[size];
                     System.arraycopy(globaldata, 0, newglobal, 0, total);
                     globaldata = newglobal;
                 }
 
                 // Append new data
-                System.arraycopy(globaldata, total, localdata, 0, lastread);
+                System.arraycopy(localdata, 0, globaldata, total, lastread);
 
                 total += lastread;
                 lastread = x.read(localdata);
@@ -319,6 +332,8 @@ public class Streams {
             return ByteBuffer.wrap(globaldata, 0, total);
         } catch (IOException e) {
             //
+        } finally {
+            BufferPool.shared().release(localdata);
         }
 
         return null;
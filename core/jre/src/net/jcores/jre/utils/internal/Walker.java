@@ -0,0 +1,281 @@
+/*
+ * Walker.java
+ * 
+ * Copyright (c) 2010, Ralf Biedert All rights reserved.
+ * 
+ * Redistribution and use in source and binary forms, with or without modification, are
+ * permitted provided that the following conditions are met:
+ * 
+ * Redistributions of source code must retain the above copyright notice, this list of
+ * conditions and the following disclaimer. Redistributions in binary form must reproduce the
+ * above copyright notice, this list of conditions and the following disclaimer in the
+ * documentation and/or other materials provided with the distribution.
+ * 
+ * Neither the name of the author nor the names of its contributors may be used to endorse or
+ * promote products derived from this software without specific prior written permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY EXPRESS
+ * OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE
+ * COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL,
+ * EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION)
+ * HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR
+ * TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE,
+ * EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ * 
+ */
+package net.jcores.jre.utils.internal;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Pattern;
+
+import net.jcores.jre.CommonCore;
+import net.jcores.jre.options.Execution;
+import net.jcores.jre.options.KillSwitch;
+import net.jcores.jre.options.MessageType;
+import net.jcores.jre.options.Option;
+import net.jcores.jre.options.Walk;
+import net.jcores.jre.utils.Async;
+import net.jcores.jre.utils.Async.Queue;
+
+/**
+ * Walks directory trees in parallel. Each directory is listed by one of up to 
+ * {@link #LIMIT} workers on the blocking executor, so slow file systems are 
+ * listed many directories at a time. {@link Walk} options are applied while walking, 
+ * pruned directories are never listed. Entries are put into the queue as they are found, 
+ * in no particular order.
+ * 
+ * @author Ralf Biedert
+ */
+public class Walker {
+    /** How many directories we list at the same time by default */
+    public static final int LIMIT = 32;
+
+    /** A directory still to list */
+    private static class Level {
+        /** The directory */
+        final File dir;
+
+        /** The depth of its entries, <code>1</code> for the entries of a root */
+        final int depth;
+
+        /**
+         * @param dir
+         * @param depth
+         */
+        Level(File dir, int depth) {
+            this.dir = dir;
+            this.depth = depth;
+        }
+    }
+
+    /** Our common core */
+    private final CommonCore commonCore;
+
+    /** The executor our workers run on */
+    private final Executor executor;
+
+    /** How many workers we run at most */
+    private final int limit;
+
+    /** If directories should be returned as well */
+    private final boolean listDirs;
+
+    /** Patterns entries must match to be returned */
+    private final List<Pattern> match = new ArrayList<Pattern>();
+
+    /** Patterns of directories to skip */
+    private final List<Pattern> prune = new ArrayList<Pattern>();
+
+    /** The maximal depth */
+    private int depth = Integer.MAX_VALUE;
+
+    /** Stops the walk if set */
+    private final KillSwitch killswitch;
+
+    /** Directories still to list */
+    private final ConcurrentLinkedQueue<Level> todo = new ConcurrentLinkedQueue<Level>();
+
+    /** Directories queued or being listed */
+    private final AtomicInteger pending = new AtomicInteger();
+
+    /** Workers running */
+    private final AtomicInteger active = new AtomicInteger();
+
+    /** Where we put what we found */
+    private final Queue<File> results = Async.Queue();
+
+    /**
+     * Creates a walker.
+     * 
+     * @param cc The common core.
+     * @param listDirs If directories should be returned as well.
+     * @param options Accepts {@link Walk}, {@link KillSwitch} and {@link Execution} (to change the limit).
+     */
+    public Walker(CommonCore cc, boolean listDirs, Option... options) {
+        final Options options$ = Options.$(cc, options);
+
+        this.commonCore = cc;
+        this.executor = cc.executor().getBlockingExecutor();
+        this.listDirs = listDirs;
+        this.killswitch = options$.killswitch();
+
+        int l = LIMIT;
+        for (Option option : options) {
+            if (option instanceof Execution && ((Execution) option).getLimit() > 0)
+                l = ((Execution) option).getLimit();
+        }
+        this.limit = l;
+
+        final Collection<Walk> walks = options$.walks();
+        if (walks == null) return;
+
+        for (Walk walk : walks) {
+            if (walk.getMatch() != null) this.match.add(walk.getMatch());
+            if (walk.getPrune() != null) this.prune.add(walk.getPrune());
+            this.depth = Math.min(this.depth, walk.getDepth());
+        }
+    }
+
+    /**
+     * Starts walking below the given roots and returns immediately. Roots which are not 
+     * directories are ignored, the roots themselves are not returned. A walker can only walk once.
+     * 
+     * @param roots The directories to walk.
+     * @return An {@link Async} receiving the entries found.
+     */
+    public Async<File> walk(File... roots) {
+        final Async<File> rval = new Async<File>(this.commonCore, this.results);
+
+        // Count all roots first, so no early finisher closes the queue
+        final List<Level> levels = new ArrayList<Level>();
+        for (File root : roots) {
+            if (root != null && root.isDirectory() && this.depth > 0) levels.add(new Level(root, 1));
+        }
+
+        if (levels.isEmpty()) {
+            this.results.close();
+            return rval;
+        }
+
+        this.pending.addAndGet(levels.size());
+        for (Level level : levels) {
+            queue(level);
+        }
+
+        return rval;
+    }
+
+    /**
+     * Queues a directory and starts a worker if we may.
+     * 
+     * @param level The directory to list.
+     */
+    private void queue(Level level) {
+        this.todo.add(level);
+        if (claim()) this.executor.execute(worker());
+    }
+
+    /**
+     * Takes a worker slot if one is free.
+     * 
+     * @return True if a slot was taken.
+     */
+    private boolean claim() {
+        while (true) {
+            final int current = this.active.get();
+            if (current >= this.limit) return false;
+            if (this.active.compareAndSet(current, current + 1)) return true;
+        }
+    }
+
+    /**
+     * Creates a worker listing directories until there are none left.
+     * 
+     * @return The worker.
+     */
+    private Runnable worker() {
+        return new Runnable() {
+            public void run() {
+                while (true) {
+                    final Level next = Walker.this.todo.poll();
+
+                    // Leave, unless someone queued work after our poll but found all slots taken
+                    if (next == null) {
+                        Walker.this.active.decrementAndGet();
+                        if (Walker.this.todo.isEmpty() || !claim()) return;
+                        continue;
+                    }
+
+                    try {
+                        list(next);
+                    } catch (Exception e) {
+                        Walker.this.commonCore.report(MessageType.EXCEPTION, "Error listing " + next.dir + " due to a " + e.getMessage());
+                    } finally {
+                        if (Walker.this.pending.decrementAndGet() == 0) Walker.this.results.close();
+                    }
+                }
+            }
+        };
+    }
+
+    /**
+     * Lists a directory, returning its entries and queueing its sub directories.
+     * 
+     * @param level The directory to list.
+     */
+    void list(Level level) {
+        if (this.killswitch != null && this.killswitch.cancelled()) return;
+
+        final File[] listed = level.dir.listFiles();
+        if (listed == null) return;
+
+        for (File file : listed) {
+            final boolean dir = file.isDirectory();
+            final String path = this.match.isEmpty() && this.prune.isEmpty() ? null : file.getAbsolutePath();
+
+            if (dir && pruned(path)) continue;
+            if ((!dir || this.listDirs) && matches(path)) this.results.add(Async.QEntry(file));
+
+            if (dir && level.depth < this.depth) {
+                this.pending.incrementAndGet();
+                queue(new Level(file, level.depth + 1));
+            }
+        }
+    }
+
+    /**
+     * Checks if an entry should be returned.
+     * 
+     * @param path The absolute path of the entry.
+     * @return True if all match patterns match.
+     */
+    private boolean matches(String path) {
+        for (Pattern pattern : this.match) {
+            if (!pattern.matcher(path).matches()) return false;
+        }
+
+        return true;
+    }
+
+    /**
+     * Checks if a directory should be skipped.
+     * 
+     * @param path The absolute path of the directory.
+     * @return True if any prune pattern matches.
+     */
+    private boolean pruned(String path) {
+        for (Pattern pattern : this.prune) {
+            if (pattern.matcher(path).matches()) return true;
+        }
+
+        return false;
+    }
+}
@@ -0,0 +1,374 @@
+/*
+ * BarrierEngine.java
+ * 
+ * Copyright (c) 2011, Ralf Biedert All rights reserved.
+ * 
+ * Redistribution and use in source and binary forms, with or without modification, are
+ * permitted provided that the following conditions are met:
+ * 
+ * Redistributions of source code must retain the above copyright notice, this list of
+ * conditions and the following disclaimer. Redistributions in binary form must reproduce the
+ * above copyright notice, this list of conditions and the following disclaimer in the
+ * documentation and/or other materials provided with the distribution.
+ * 
+ * Neither the name of the author nor the names of its contributors may be used to endorse or
+ * promote products derived from this software without specific prior written permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY EXPRESS
+ * OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE
+ * COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL,
+ * EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION)
+ * HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR
+ * TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE,
+ * EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ * 
+ */
+package net.jcores.jre.utils.internal.processing;
+
+import java.util.concurrent.BrokenBarrierException;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * The original jCores engine. Spawns one runner per worker on a (cached) executor, lets
+ * them pick fixed-size steps of the array and joins them with a {@link CyclicBarrier}.
+ * Mainly kept for comparison with the {@link ForkJoinEngine}.
+ * 
+ * @author Ralf Biedert
+ * @since 1.0
+ */
+public class BarrierEngine extends Engine {
+    /** The executor our runners are executed with */
+    private final ExecutorService executor;
+
+    /**
+     * Creates a barrier engine working on the given executor.
+     * 
+     * @param executor The executor to use.
+     */
+    public BarrierEngine(ExecutorService executor) {
+        this.executor = executor;
+    }
+
+    /* (non-Javadoc)
+     * @see net.jcores.jre.utils.internal.processing.Engine#name()
+     */
+    @Override
+    public String name() {
+        return "barrier";
+    }
+
+    /* (non-Javadoc)
+     * @see net.jcores.jre.utils.internal.processing.Engine#map(net.jcores.jre.utils.internal.processing.Mapper, int, int, int, int)
+     */
+    @Override
+    public void map(final Mapper<?, ?> mapper, final int from, final int to, final int workers, final int grain) {
+        // We keep our original step size and ignore the grain, otherwise we would not compare
+        // against the old behavior anymore. TODO: Get proper value for step size
+        final int STEP_SIZE = Math.max(to / 10, 1);
+
+        // Setup the barrier and spawn threads for all our processors so that we process the array.
+        final CyclicBarrier barrier = new CyclicBarrier(workers + 1);
+        final AtomicInteger baseCount = new AtomicInteger();
+
+        final Runnable runner = new Runnable() {
+            public void run() {
+                int bc = baseCount.getAndIncrement() * STEP_SIZE;
+                int lower = Math.max(from, bc);
+
+                // Get new basecount for every pass ...
+                while (lower < to) {
+                    final int max = Math.min(Math.min(lower + STEP_SIZE, to), bc + STEP_SIZE);
+
+                    // Pass over all elements, unless we were cancelled
+                    if (mapper.cancelled()) {
+                        mapper.skipped(lower, max);
+                    } else {
+                        final long[] stamp = mapper.begin();
+                        for (int i = lower; i < max; i++) {
+                            mapper.handle(i);
+                        }
+                        mapper.end(stamp);
+                    }
+
+                    bc = baseCount.getAndIncrement() * STEP_SIZE;
+                    lower = bc;
+                }
+
+                // Signal finish
+                await(barrier);
+            }
+        };
+
+        // Execute all our runnables.
+        for (int i = 0; i < workers; i++) {
+            this.executor.execute(worker(runner));
+        }
+
+        // Wait for all threads to finish ...
+        await(barrier);
+    }
+
+    /* (non-Javadoc)
+     * @see net.jcores.jre.utils.internal.processing.Engine#fold(net.jcores.jre.utils.internal.processing.Folder, int, int)
+     */
+    @Override
+    public void fold(final Folder<?> folder, final int size, final int workers) {
+        // Indicates which level (in the folding hierarchy) we are and where the next
+        // thread should proceed. The base count indicates where which element should be
+        // selected next by the thread, the level indicates how many times we already passed
+        // through the whole array.
+        final AtomicInteger baseCount = new AtomicInteger();
+        final AtomicInteger round = new AtomicInteger();
+
+        // Synchronizes threads. Each thread waits at the level-barrier when it finished the last level,
+        // and waits the the global barrier when it is completely done. The main thread will also
+        // wait at the global barrier (thus +1) for all spawned threads.
+        final CyclicBarrier levelbarrier = new CyclicBarrier(workers);
+        final CyclicBarrier barrier = new CyclicBarrier(workers + 1);
+
+        // If we can be cancelled we have to know which elements a slot already contains, so
+        // that we can tell which elements are lost when a pair is skipped. Slot i contains 
+        // (at most) the elements [i, end[i]).
+        final int[] end = folder.cancellable() ? new int[size] : null;
+        for (int i = 0; end != null && i < size; i++) {
+            end[i] = i + 1;
+        }
+
+        // Algorithm example for 10 elements and 4 CPUs :
+        // Content: a b c d e f g h i j
+        // Array:   _ _ _ _ _ _ _ _ _ _
+        // Index:   0 1 2 3 4 5 6 7 8 9
+
+        // In general, we process in levels, in parallel. In each level, each thread
+        // takes the next two elements, merges them, and stores them in the position of 
+        // the first element. This means, after each level the number of elements we need to 
+        // consider halves.
+
+        // 1) We create 4 runner threads
+        // 2) Each runner starts by picking / computing
+        //    2.1) The current level (0 in the beginning) - lvl
+        //    2.2) The distance of between X and Y for the fold operation in this level 2^0 = 1
+        // 3) Each level, we check if the distance is bigger than the actual size (10 in this 
+        //    case) of the array. If it is, we know we have finished.
+        // 4) The upper bound for each run is the size of the array minus the stepping distance
+        //    (10 - 1) = 9
+        // 5) The index X for this operation is the base count (0 * 1) = 0
+        // 6) The index Y is X + dist (0 + 1) = 1
+        // 7) Until we reached the upper bound:
+        //    7.1) handle the two elements
+        //    7.2) Take the next available elements (X, Y)
+        // ...
+
+        // Given fold = max
+
+        // Level 0, dist = 1
+        // 0 x 1 -> 0
+        // Content: b b c d e f g h i j
+        // 2 x 3 -> 2
+        // Content: b b d d e f g h i j
+        // 4 x 5 -> 4
+        // Content: b b d d f f g h i j
+        // 6 x 7 -> 6
+        // Content: b b d d f f h h i j
+        // 8 x 9 -> 8
+        // Content: b b d d f f h h i i
+
+        // Level 1, dist = 2
+        // 0 x 2 -> 0
+        // Content: d b d d f f h h i i
+        // 4 x 6 -> 4
+        // Content: d b d d h f h h i i
+        // 4 x 8 -> 4
+        // Content: d b d d h i h h i i
+
+        // Level 2, dist = 4
+        // 0 x 4 -> 4
+        // Content: i b d d h i h h i i
+
+        // Return index[0]
+
+        final Runnable runner = new Runnable() {
+            public void run() {
+                int rnd = round.get();
+                int elementDistance = (int) Math.pow(2, rnd);
+
+                // Each thread processes as long as the distance between elements is smaller
+                // than the size
+                while (elementDistance < size) {
+                    // Each round the upper bound gets lower as we don't have to consider
+                    // the last elements
+                    final int upperBound = size - elementDistance;
+
+                    // Now we take a next element pair, all pairs of a level count as one chunk
+                    final long[] stamp = folder.begin();
+                    int lastHandledI = -1;
+                    int i = baseCount.getAndAdd(2) * elementDistance;
+                    int j = i + elementDistance;
+
+                    // And each thread loop in here, until the right element
+                    // has left the righter bound
+                    while (j <= upperBound) {
+                        // Process two elements and store them
+                        pair(folder, end, i, j);
+
+                        // Remember what we processed last
+                        lastHandledI = i;
+
+                        // Take the next available element pairs
+                        i = baseCount.getAndAdd(2) * elementDistance;
+                        j = i + elementDistance;
+                    }
+
+                    // Ideally, at this point, we are through the array. However, it might be the case 
+                    // that an uneven number of elements was in that loop run
+                    // 10 -> 5 pairs
+                    // 11 -> 5 pairs, one left
+
+                    // So we check now if we were the thread processing the last element pair
+                    // in that turn, and if there was a sole element left
+
+                    // This is the case when we processed something (lastHandledI > 0)
+                    // and when element 2nd element to the right (the next one) exists
+                    // but its pair (the 3rd one) does not. 
+
+                    // In that case we connect this element wit the next one 
+                    if (lastHandledI + 2 * elementDistance <= upperBound &&
+                        lastHandledI + 3 * elementDistance > upperBound &&
+                        lastHandledI >= 0) {
+                        pair(folder, end, lastHandledI, lastHandledI + 2 * elementDistance);
+                    }
+
+                    folder.end(stamp);
+
+                    // At this point we finished the round
+                    await(levelbarrier);
+
+                    // If we were the one who changed the level, we also change the baseCount 
+                    // back to 0
+                    if (round.compareAndSet(rnd, rnd + 1)) {
+                        baseCount.set(0);
+                    }
+
+                    // We first have to wait twice, as otherwise an other thread
+                    // might be quicker than us in returning up to the loop again and use the
+                    // old level value 
+
+                    // Now we all wait that the level has been updated
+                    await(levelbarrier);
+
+                    // And get new parameters
+                    rnd = round.get();
+                    elementDistance = (int) Math.pow(2, rnd);
+                }
+
+                await(barrier);
+            }
+        };
+
+        // Execute all our runnables.
+        for (int i = 0; i < workers; i++) {
+            this.executor.execute(worker(runner));
+        }
+
+        // Wait for all threads to finish ...
+        await(barrier);
+    }
+
+    /* (non-Javadoc)
+     * @see net.jcores.jre.utils.internal.processing.Engine#reduce(net.jcores.jre.utils.internal.processing.Reducer, int, int, int, int)
+     */
+    @Override
+    public <O> O reduce(final Reducer<?, O> reducer, final int from, final int to, final int workers, final int grain) {
+        if (to <= from) return null;
+
+        // Each runner reduces whole steps into their own slot, nobody shares anything but the step counter
+        final int STEP_SIZE = Math.max((to - from) / (workers * 4), 1);
+        final int steps = (to - from + STEP_SIZE - 1) / STEP_SIZE;
+        final AtomicReferenceArray<O> partials = new AtomicReferenceArray<O>(steps);
+        final AtomicInteger nextStep = new AtomicInteger();
+        final CyclicBarrier barrier = new CyclicBarrier(workers + 1);
+
+        final Runnable runner = new Runnable() {
+            public void run() {
+                int step = nextStep.getAndIncrement();
+                while (step < steps) {
+                    final int lower = from + step * STEP_SIZE;
+                    final int upper = Math.min(lower + STEP_SIZE, to);
+
+                    // Skipped steps stay null
+                    if (reducer.cancelled()) {
+                        reducer.skipped(lower, upper);
+                    } else {
+                        final long[] stamp = reducer.begin();
+                        partials.set(step, reducer.reduce(lower, upper));
+                        reducer.end(stamp);
+                    }
+
+                    step = nextStep.getAndIncrement();
+                }
+
+                // Signal finish
+                await(barrier);
+            }
+        };
+
+        // Execute all our runnables and wait for them.
+        for (int i = 0; i < workers; i++) {
+            this.executor.execute(worker(runner));
+        }
+
+        await(barrier);
+
+        // Now combine the partials in a tree, pairing neighbors in each level
+        for (int distance = 1; distance < steps; distance *= 2) {
+            for (int i = 0; i + distance < steps; i += 2 * distance) {
+                partials.set(i, reducer.combine(partials.get(i), partials.get(i + distance)));
+            }
+        }
+
+        return partials.get(0);
+    }
+
+    /**
+     * Folds slot <code>j</code> into slot <code>i</code>, unless the folder was cancelled.
+     * 
+     * @param folder The folder.
+     * @param end The end of the elements each slot contains, or <code>null</code>.
+     * @param i The left slot, also the destination.
+     * @param j The right slot.
+     */
+    private static void pair(Folder<?> folder, int[] end, int i, int j) {
+        if (end == null) {
+            folder.handle(i, j, i);
+            return;
+        }
+
+        if (folder.cancelled()) {
+            folder.skipped(j, end[j]);
+            return;
+        }
+
+        folder.handle(i, j, i);
+        end[i] = end[j];
+    }
+
+    /**
+     * Waits at the given barrier.
+     * 
+     * @param barrier The barrier to wait for.
+     */
+    private static void await(CyclicBarrier barrier) {
+        try {
+            barrier.await();
+        } catch (InterruptedException e) {
+            e.printStackTrace();
+        } catch (BrokenBarrierException e) {
+            e.printStackTrace();
+        }
+    }
+}
@@ -0,0 +1,146 @@
+/*
+ * Engine.java
+ * 
+ * Copyright (c) 2011, Ralf Biedert All rights reserved.
+ * 
+ * Redistribution and use in source and binary forms, with or without modification, are
+ * permitted provided that the following conditions are met:
+ * 
+ * Redistributions of source code must retain the above copyright notice, this list of
+ * conditions and the following disclaimer. Redistributions in binary form must reproduce the
+ * above copyright notice, this list of conditions and the following disclaimer in the
+ * documentation and/or other materials provided with the distribution.
+ * 
+ * Neither the name of the author nor the names of its contributors may be used to endorse or
+ * promote products derived from this software without specific prior written permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY EXPRESS
+ * OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE
+ * COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL,
+ * EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION)
+ * HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR
+ * TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE,
+ * EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ * 
+ */
+package net.jcores.jre.utils.internal.processing;
+
+/**
+ * Base class of all execution engines. An engine takes a {@link Mapper} or a
+ * {@link Folder} and drives its <code>handle()</code> methods over a range of element
+ * indices, usually with several threads. The decision <i>if</i> something should run in
+ * parallel is made by the core, the engine only decides <i>how</i>. Before an engine starts a
+ * chunk it checks if the handler was <code>cancelled()</code>, in which case the chunk is 
+ * reported as <code>skipped()</code> instead.
+ * 
+ * @author Ralf Biedert
+ * @since 1.0
+ */
+public abstract class Engine {
+    /** Set while the current thread works for an engine */
+    private static final ThreadLocal<Boolean> working = new ThreadLocal<Boolean>();
+
+    /**
+     * Returns if the current thread already works for a parallel operation of ours (e.g., a 
+     * <code>map()</code> inside a <code>map()</code>). Such nested operations should run 
+     * inline, the outer operation already keeps the CPUs busy. Threads of foreign pools 
+     * (e.g., the common pool or a parallel stream) are not nested.
+     * 
+     * @return True if we are inside a parallel operation.
+     */
+    public boolean nested() {
+        return working.get() != null;
+    }
+
+    /**
+     * Wraps the given runner, so that <code>nested()</code> is true while it runs. Engines 
+     * that run on their own threads must wrap their runners with this method.
+     * 
+     * @param runner The runner to wrap.
+     * @return The wrapped runner.
+     */
+    protected static Runnable worker(final Runnable runner) {
+        return new Runnable() {
+            @Override
+            public void run() {
+                working.set(Boolean.TRUE);
+                try {
+                    runner.run();
+                } finally {
+                    working.remove();
+                }
+            }
+        };
+    }
+
+    /**
+     * Returns the name of this engine, as used by the <code>Execution</code> option.
+     * 
+     * @return The name of this engine.
+     */
+    public abstract String name();
+
+    /**
+     * Returns how many workers this engine wants to use for the given number of elements. 
+     * By default engines are sized by the number of CPUs.
+     * 
+     * @param elements The number of elements to process.
+     * @param cpus The number of CPUs available.
+     * @return The number of workers.
+     */
+    public int workers(int elements, int cpus) {
+        return Math.min(elements, cpus);
+    }
+
+    /**
+     * Returns if the workers of this engine mostly wait instead of computing. Such engines
+     * do not take part in the CPU budget.
+     * 
+     * @return True if the engine is meant for blocking operations.
+     */
+    public boolean blocking() {
+        return false;
+    }
+
+    /**
+     * Calls <code>mapper.handle(i)</code> for each <code>from &lt;= i &lt; to</code>. The
+     * method must only return when all elements have been handled.
+     * 
+     * @param mapper The mapper to drive.
+     * @param from The first index to handle (inclusive).
+     * @param to The last index to handle (exclusive).
+     * @param workers The maximal number of threads that should be used.
+     * @param grain The suggested number of elements a single chunk should have. Engines
+     * may ignore this value.
+     */
+    public abstract void map(Mapper<?, ?> mapper, int from, int to, int workers, int grain);
+
+    /**
+     * Folds all <code>size</code> elements of the folder into the element at position
+     * <code>0</code> by calling <code>folder.handle(i, j, destination)</code>. The method
+     * must only return when the fold is complete.
+     * 
+     * @param folder The folder to drive.
+     * @param size The number of elements to fold.
+     * @param workers The maximal number of threads that should be used.
+     */
+    public abstract void fold(Folder<?> folder, int size, int workers);
+
+    /**
+     * Reduces all elements <code>from &lt;= i &lt; to</code> with the given reducer. Each worker
+     * reduces whole chunks on its own, the partial results are combined afterwards, keeping
+     * their order.
+     * 
+     * @param <O> The type of the result.
+     * @param reducer The reducer to drive.
+     * @param from The first index to reduce (inclusive).
+     * @param to The last index to reduce (exclusive).
+     * @param workers The maximal number of threads that should be used.
+     * @param grain The suggested number of elements a single chunk should have. Engines
+     * may ignore this value.
+     * @return The reduced value.
+     */
+    public abstract <O> O reduce(Reducer<?, O> reducer, int from, int to, int workers, int grain);
+}
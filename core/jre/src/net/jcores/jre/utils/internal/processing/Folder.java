@@ -28,6 +28,7 @@
 package net.jcores.jre.utils.internal.processing;
 
 import net.jcores.jre.cores.CoreObject;
+import net.jcores.jre.options.Option;
 
 /**
  * Used by the cores when calling the inner core's mapping function. You do not need this.
@@ -46,6 +47,16 @@ public abstract class Folder<I> extends Handler<I, I> {
         super(core);
     }
 
+    /**
+     * Creates a folder that can be cancelled by the given options.
+     * 
+     * @param core
+     * @param options The options of the operation.
+     */
+    public Folder(CoreObject<I> core, Option... options) {
+        super(core, options);
+    }
+
     /**
      * Overwrite this method and handle element number i.
      * 
@@ -0,0 +1,288 @@
+/*
+ * ForkJoinEngine.java
+ * 
+ * Copyright (c) 2011, Ralf Biedert All rights reserved.
+ * 
+ * Redistribution and use in source and binary forms, with or without modification, are
+ * permitted provided that the following conditions are met:
+ * 
+ * Redistributions of source code must retain the above copyright notice, this list of
+ * conditions and the following disclaimer. Redistributions in binary form must reproduce the
+ * above copyright notice, this list of conditions and the following disclaimer in the
+ * documentation and/or other materials provided with the distribution.
+ * 
+ * Neither the name of the author nor the names of its contributors may be used to endorse or
+ * promote products derived from this software without specific prior written permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY EXPRESS
+ * OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE
+ * COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL,
+ * EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION)
+ * HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR
+ * TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE,
+ * EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ * 
+ */
+package net.jcores.jre.utils.internal.processing;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Engine based on a shared, work-stealing {@link ForkJoinPool}. Ranges are split recursively
+ * until they are small enough, idle workers steal the remaining halves from busy ones. In
+ * contrast to the {@link BarrierEngine} no threads are spawned per call, and calls that
+ * are issued from within the pool (e.g., a <code>map()</code> inside a <code>map()</code>)
+ * just continue on the current worker.
+ * 
+ * @author Ralf Biedert
+ * @since 1.0
+ */
+public class ForkJoinEngine extends Engine {
+    /** How many leaf tasks we create per worker, more leafs balance better but cost more */
+    private static final int LEAFS_PER_WORKER = 8;
+
+    /** The shared pool we run on */
+    private final ForkJoinPool pool;
+
+    /**
+     * Creates a fork/join engine working on the given pool.
+     * 
+     * @param pool The pool to use.
+     */
+    public ForkJoinEngine(ForkJoinPool pool) {
+        this.pool = pool;
+    }
+
+    /* (non-Javadoc)
+     * @see net.jcores.jre.utils.internal.processing.Engine#name()
+     */
+    @Override
+    public String name() {
+        return "forkjoin";
+    }
+
+    /* (non-Javadoc)
+     * @see net.jcores.jre.utils.internal.processing.Engine#nested()
+     */
+    @Override
+    public boolean nested() {
+        return super.nested() || ForkJoinTask.getPool() == this.pool;
+    }
+
+    /**
+     * Returns the pool this engine works on.
+     * 
+     * @return The pool.
+     */
+    public ForkJoinPool pool() {
+        return this.pool;
+    }
+
+    /* (non-Javadoc)
+     * @see net.jcores.jre.utils.internal.processing.Engine#map(net.jcores.jre.utils.internal.processing.Mapper, int, int, int, int)
+     */
+    @Override
+    public void map(final Mapper<?, ?> mapper, final int from, final int to, final int workers, final int grain) {
+        execute(new MapTask(mapper, from, to, grain > 0 ? grain : grain(to - from, workers)));
+    }
+
+    /* (non-Javadoc)
+     * @see net.jcores.jre.utils.internal.processing.Engine#fold(net.jcores.jre.utils.internal.processing.Folder, int, int)
+     */
+    @Override
+    public void fold(final Folder<?> folder, final int size, final int workers) {
+        execute(new FoldTask(folder, 0, size, grain(size, workers)));
+    }
+
+    /* (non-Javadoc)
+     * @see net.jcores.jre.utils.internal.processing.Engine#reduce(net.jcores.jre.utils.internal.processing.Reducer, int, int, int, int)
+     */
+    @Override
+    public <O> O reduce(final Reducer<?, O> reducer, final int from, final int to, final int workers, final int grain) {
+        return execute(new ReduceTask<O>(reducer, from, to, grain > 0 ? grain : grain(to - from, workers)));
+    }
+
+    /**
+     * Executes the given task, either in the pool or, if we are already a worker
+     * of our pool, directly. Workers of other pools hand the task over to ours.
+     * 
+     * @param <R> The type of the result.
+     * @param task The task to execute.
+     * @return The result of the task.
+     */
+    private <R> R execute(ForkJoinTask<R> task) {
+        if (ForkJoinTask.getPool() == this.pool) return task.invoke();
+        return this.pool.invoke(task);
+    }
+
+    /**
+     * Computes the size below which a range will not be split anymore.
+     * 
+     * @param size The size of the whole range.
+     * @param workers The number of workers we should use.
+     * @return The grain size.
+     */
+    private static int grain(int size, int workers) {
+        return Math.max(1, size / (Math.max(1, workers) * LEAFS_PER_WORKER));
+    }
+
+    /**
+     * Handles a range of elements of a mapper.
+     */
+    private static final class MapTask extends RecursiveAction {
+        /** */
+        private static final long serialVersionUID = -2245396733498123787L;
+
+        /** The mapper to call */
+        private final Mapper<?, ?> mapper;
+
+        /** The range to handle */
+        private final int from, to, grain;
+
+        MapTask(Mapper<?, ?> mapper, int from, int to, int grain) {
+            this.mapper = mapper;
+            this.from = from;
+            this.to = to;
+            this.grain = grain;
+        }
+
+        /* (non-Javadoc)
+         * @see java.util.concurrent.RecursiveAction#compute()
+         */
+        @Override
+        protected void compute() {
+            // Don't start anything once we were cancelled
+            if (this.mapper.cancelled()) {
+                this.mapper.skipped(this.from, this.to);
+                return;
+            }
+
+            // Small enough, handle the range directly
+            if (this.to - this.from <= this.grain) {
+                final long[] stamp = this.mapper.begin();
+                for (int i = this.from; i < this.to; i++) {
+                    this.mapper.handle(i);
+                }
+                this.mapper.end(stamp);
+                return;
+            }
+
+            // Otherwise split it, and let someone else steal the other half
+            final int mid = (this.from + this.to) >>> 1;
+            invokeAll(new MapTask(this.mapper, this.from, mid, this.grain),
+                      new MapTask(this.mapper, mid, this.to, this.grain));
+        }
+    }
+
+    /**
+     * Reduces a range of elements into a local value.
+     * 
+     * @param <I> The type of the result.
+     */
+    private static final class ReduceTask<I> extends RecursiveTask<I> {
+        /** */
+        private static final long serialVersionUID = -6153416009328946124L;
+
+        /** The reducer to call */
+        private final Reducer<?, I> reducer;
+
+        /** The range to handle */
+        private final int from, to, grain;
+
+        ReduceTask(Reducer<?, I> reducer, int from, int to, int grain) {
+            this.reducer = reducer;
+            this.from = from;
+            this.to = to;
+            this.grain = grain;
+        }
+
+        /* (non-Javadoc)
+         * @see java.util.concurrent.RecursiveTask#compute()
+         */
+        @Override
+        protected I compute() {
+            // Don't start anything once we were cancelled
+            if (this.reducer.cancelled()) {
+                this.reducer.skipped(this.from, this.to);
+                return null;
+            }
+
+            // Small enough, reduce the range on our own
+            if (this.to - this.from <= this.grain) {
+                final long[] stamp = this.reducer.begin();
+                final I rval = this.reducer.reduce(this.from, this.to);
+                this.reducer.end(stamp);
+                return rval;
+            }
+
+            // Otherwise offer the right half for stealing, reduce the left one, and combine both
+            final int mid = (this.from + this.to) >>> 1;
+            final ReduceTask<I> right = new ReduceTask<I>(this.reducer, mid, this.to, this.grain);
+            right.fork();
+
+            final I left = new ReduceTask<I>(this.reducer, this.from, mid, this.grain).compute();
+            return this.reducer.combine(left, right.join());
+        }
+    }
+
+    /**
+     * Folds a range of elements into its first position.
+     */
+    private static final class FoldTask extends RecursiveAction {
+        /** */
+        private static final long serialVersionUID = 7412076003386418473L;
+
+        /** The folder to call */
+        private final Folder<?> folder;
+
+        /** The range to handle */
+        private final int from, to, grain;
+
+        FoldTask(Folder<?> folder, int from, int to, int grain) {
+            this.folder = folder;
+            this.from = from;
+            this.to = to;
+            this.grain = grain;
+        }
+
+        /* (non-Javadoc)
+         * @see java.util.concurrent.RecursiveAction#compute()
+         */
+        @Override
+        protected void compute() {
+            // Don't start anything once we were cancelled, the first element will still be folded by our parent
+            if (this.folder.cancelled()) {
+                this.folder.skipped(this.from + 1, this.to);
+                return;
+            }
+
+            // Small enough, fold everything into the first slot
+            if (this.to - this.from <= this.grain) {
+                final long[] stamp = this.folder.begin();
+                for (int i = this.from + 1; i < this.to; i++) {
+                    this.folder.handle(this.from, i, this.from);
+                }
+                this.folder.end(stamp);
+                return;
+            }
+
+            // Otherwise fold both halves in parallel and combine them afterwards
+            final int mid = (this.from + this.to) >>> 1;
+            invokeAll(new FoldTask(this.folder, this.from, mid, this.grain),
+                      new FoldTask(this.folder, mid, this.to, this.grain));
+
+            // When cancelled in the meantime the right half is dropped as a whole
+            if (this.folder.cancelled()) {
+                this.folder.skipped(mid, this.to);
+                return;
+            }
+
+            this.folder.handle(this.from, mid, this.from);
+        }
+    }
+}
@@ -28,9 +28,16 @@
 package net.jcores.jre.utils.internal.processing;
 
 import java.lang.reflect.Array;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.concurrent.atomic.AtomicReference;
 
 import net.jcores.jre.cores.CoreObject;
+import net.jcores.jre.managers.ManagerExecution;
+import net.jcores.jre.options.Cancellation;
+import net.jcores.jre.options.Option;
+import net.jcores.jre.utils.internal.structures.CostEstimate;
+import net.jcores.jre.utils.internal.structures.Trace;
 
 /**
  * Handles parallel tasks. You do not need this.
@@ -46,13 +53,44 @@ public abstract class Handler<I, O> {
     /** The reference to our return array (atomic, since it will be accessed from many threads). */
     protected final AtomicReference<O[]> returnArray = new AtomicReference<O[]>();
 
+    /** The cancellations the engines check between chunks (usually none) */
+    private final Cancellation[] cancellations;
+
+    /** Where we record the skipped elements, one per cancellation */
+    private final Cancellation.Operation[] operations;
+
+    /** The trace of the operation, <code>null</code> unless metrics are enabled */
+    private Trace trace;
+
     /**
      * Creates a handler for the given core.
      * 
      * @param core
      */
     public Handler(CoreObject<I> core) {
+        this(core, new Option[0]);
+    }
+
+    /**
+     * Creates a handler for the given core that can be cancelled by the {@link Cancellation}
+     * options (e.g., <code>KillSwitch</code> or <code>Deadline</code>) among the given options.
+     * 
+     * @param core
+     * @param options The options of the operation.
+     */
+    public Handler(CoreObject<I> core, Option... options) {
         this.core = core;
+
+        final List<Cancellation> list = new ArrayList<Cancellation>();
+        for (Option option : options) {
+            if (option instanceof Cancellation) list.add((Cancellation) option);
+        }
+
+        this.cancellations = list.toArray(new Cancellation[list.size()]);
+        this.operations = new Cancellation.Operation[this.cancellations.length];
+        for (int i = 0; i < this.cancellations.length; i++) {
+            this.operations[i] = this.cancellations[i].begin();
+        }
     }
 
     /**
@@ -64,6 +102,92 @@ public abstract class Handler<I, O> {
         return this.core;
     }
 
+    /**
+     * Returns the function this handler applies to the elements. The class of the returned
+     * object identifies the operation's cost estimate in the <code>ManagerExecution</code>. By
+     * default the handler itself is returned.
+     * 
+     * @return The function applied by this handler.
+     */
+    public Object function() {
+        return this;
+    }
+
+    /**
+     * Returns the cost estimate the core decides with if this handler runs in parallel. By 
+     * default this is the estimate of the class of <code>function()</code>.
+     * 
+     * @param executor The execution manager keeping the estimates.
+     * @return The cost estimate.
+     */
+    public CostEstimate cost(ManagerExecution executor) {
+        return executor.cost(function().getClass());
+    }
+
+    /**
+     * Returns if this handler can be cancelled at all.
+     * 
+     * @return True if cancellations were given.
+     */
+    public boolean cancellable() {
+        return this.cancellations.length > 0;
+    }
+
+    /**
+     * Returns if the operation was cancelled. Engines check this before they start
+     * a chunk.
+     * 
+     * @return True if no further chunks should be started.
+     */
+    public boolean cancelled() {
+        for (Cancellation cancellation : this.cancellations) {
+            if (cancellation.cancelled()) return true;
+        }
+
+        return false;
+    }
+
+    /**
+     * Called by the engines when they skip the elements <code>[from, to)</code> because the 
+     * operation was cancelled.
+     * 
+     * @param from The first skipped element (inclusive).
+     * @param to The last skipped element (exclusive).
+     */
+    public void skipped(int from, int to) {
+        for (Cancellation.Operation operation : this.operations) {
+            operation.skipped(from, to);
+        }
+    }
+
+    /**
+     * Sets the trace the engines report their chunks to. Must be set before the handler
+     * is passed to an engine.
+     * 
+     * @param trace The trace, or <code>null</code> if nothing should be traced.
+     */
+    public void trace(Trace trace) {
+        this.trace = trace;
+    }
+
+    /**
+     * Called by the engines before they process a chunk.
+     * 
+     * @return A stamp to pass to <code>end()</code>, <code>null</code> if we are not traced.
+     */
+    public long[] begin() {
+        return this.trace == null ? null : this.trace.begin();
+    }
+
+    /**
+     * Called by the engines after they processed a chunk.
+     * 
+     * @param stamp The stamp returned by <code>begin()</code>.
+     */
+    public void end(long[] stamp) {
+        if (stamp != null) this.trace.end(stamp);
+    }
+
     /**
      * Tries to update the array and returns the most recent result.
      * 
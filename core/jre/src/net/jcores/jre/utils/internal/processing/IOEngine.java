@@ -0,0 +1,148 @@
+/*
+ * IOEngine.java
+ * 
+ * Copyright (c) 2011, Ralf Biedert All rights reserved.
+ * 
+ * Redistribution and use in source and binary forms, with or without modification, are
+ * permitted provided that the following conditions are met:
+ * 
+ * Redistributions of source code must retain the above copyright notice, this list of
+ * conditions and the following disclaimer. Redistributions in binary form must reproduce the
+ * above copyright notice, this list of conditions and the following disclaimer in the
+ * documentation and/or other materials provided with the distribution.
+ * 
+ * Neither the name of the author nor the names of its contributors may be used to endorse or
+ * promote products derived from this software without specific prior written permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY EXPRESS
+ * OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE
+ * COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL,
+ * EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION)
+ * HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR
+ * TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE,
+ * EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ * 
+ */
+package net.jcores.jre.utils.internal.processing;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Engine for blocking operations (downloads, file reads, processes). Instead of one worker 
+ * per CPU it runs up to <code>limit</code> workers, each of which picks one element at a 
+ * time, so slow elements never hold back a whole chunk. Works best on an executor of virtual 
+ * threads, where blocked workers are cheap, but any executor that grows on demand will do.<br/>
+ * <br/>
+ * 
+ * Folds and reductions are inherited from the {@link BarrierEngine}, using the same 
+ * number of workers.
+ * 
+ * @author Ralf Biedert
+ * @since 1.0
+ */
+public class IOEngine extends BarrierEngine {
+    /** The executor our workers are executed with */
+    private final ExecutorService executor;
+
+    /** How many elements we process at most at the same time */
+    private final int limit;
+
+    /**
+     * Creates an I/O engine working on the given executor.
+     * 
+     * @param executor The executor to use, it must be able to run <code>limit</code> tasks at once.
+     * @param limit The maximal number of elements processed at the same time.
+     */
+    public IOEngine(ExecutorService executor, int limit) {
+        super(executor);
+
+        this.executor = executor;
+        this.limit = Math.max(1, limit);
+    }
+
+    /* (non-Javadoc)
+     * @see net.jcores.jre.utils.internal.processing.BarrierEngine#name()
+     */
+    @Override
+    public String name() {
+        return "io";
+    }
+
+    /**
+     * Returns an engine on the same executor with a different limit.
+     * 
+     * @param newLimit The maximal number of elements processed at the same time.
+     * @return The new engine.
+     */
+    public IOEngine limit(int newLimit) {
+        return newLimit == this.limit ? this : new IOEngine(this.executor, newLimit);
+    }
+
+    /* (non-Javadoc)
+     * @see net.jcores.jre.utils.internal.processing.Engine#workers(int, int)
+     */
+    @Override
+    public int workers(int elements, int cpus) {
+        return Math.min(elements, this.limit);
+    }
+
+    /* (non-Javadoc)
+     * @see net.jcores.jre.utils.internal.processing.Engine#blocking()
+     */
+    @Override
+    public boolean blocking() {
+        return true;
+    }
+
+    /* (non-Javadoc)
+     * @see net.jcores.jre.utils.internal.processing.BarrierEngine#map(net.jcores.jre.utils.internal.processing.Mapper, int, int, int, int)
+     */
+    @Override
+    public void map(final Mapper<?, ?> mapper, final int from, final int to, final int workers, final int grain) {
+        final AtomicInteger next = new AtomicInteger(from);
+        final CountDownLatch done = new CountDownLatch(workers);
+
+        final Runnable runner = new Runnable() {
+            public void run() {
+                try {
+                    for (int i = next.getAndIncrement(); i < to; i = next.getAndIncrement()) {
+                        // When cancelled, we claim and skip everything that's left
+                        if (mapper.cancelled()) {
+                            mapper.skipped(i, i + 1);
+                            final int rest = next.getAndSet(to);
+                            if (rest < to) mapper.skipped(rest, to);
+                            return;
+                        }
+
+                        final long[] stamp = mapper.begin();
+                        mapper.handle(i);
+                        mapper.end(stamp);
+                    }
+                } finally {
+                    done.countDown();
+                }
+            }
+        };
+
+        // Execute all our runnables and wait for them.
+        for (int i = 0; i < workers; i++) {
+            this.executor.execute(worker(runner));
+        }
+
+        boolean interrupted = false;
+        while (true) {
+            try {
+                done.await();
+                break;
+            } catch (InterruptedException e) {
+                interrupted = true;
+            }
+        }
+
+        if (interrupted) Thread.currentThread().interrupt();
+    }
+}
@@ -94,7 +94,7 @@ public abstract class Mapper<I, O> extends Handler<I, O> {
      */
     @SuppressWarnings("unchecked")
     public Mapper(CoreObject<I> core, Option... options) {
-        super(core);
+        super(core, options);
 
         this.options = new MapOptions(options);
 
@@ -0,0 +1,93 @@
+/*
+ * Reducer.java
+ * 
+ * Copyright (c) 2011, Ralf Biedert All rights reserved.
+ * 
+ * Redistribution and use in source and binary forms, with or without modification, are
+ * permitted provided that the following conditions are met:
+ * 
+ * Redistributions of source code must retain the above copyright notice, this list of
+ * conditions and the following disclaimer. Redistributions in binary form must reproduce the
+ * above copyright notice, this list of conditions and the following disclaimer in the
+ * documentation and/or other materials provided with the distribution.
+ * 
+ * Neither the name of the author nor the names of its contributors may be used to endorse or
+ * promote products derived from this software without specific prior written permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY EXPRESS
+ * OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE
+ * COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL,
+ * EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION)
+ * HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR
+ * TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE,
+ * EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ * 
+ */
+package net.jcores.jre.utils.internal.processing;
+
+import net.jcores.jre.cores.CoreObject;
+import net.jcores.jre.options.Option;
+
+/**
+ * Reduces ranges of a core into partial results and combines partial results. In contrast
+ * to the {@link Folder} no shared array is involved, each worker reduces its own range 
+ * into a local value, the partials are then combined in a tree. The engines always 
+ * combine adjacent ranges and keep their order, so the reduction is correct for all 
+ * associative operations.
+ * 
+ * @author Ralf Biedert
+ * @since 1.0
+ * @param <I> The type of the elements.
+ * @param <O> The type of the (partial) results.
+ */
+public abstract class Reducer<I, O> extends Handler<I, O> {
+
+    /**
+     * Creates a reducer for the given core.
+     * 
+     * @param core The core to reduce.
+     */
+    public Reducer(CoreObject<I> core) {
+        super(core);
+    }
+
+    /**
+     * Creates a reducer for the given core that can be cancelled by the given options. Ranges 
+     * skipped due to a cancellation are combined as <code>null</code>.
+     * 
+     * @param core The core to reduce.
+     * @param options The options of the operation.
+     */
+    public Reducer(CoreObject<I> core, Option... options) {
+        super(core, options);
+    }
+
+    /**
+     * Creates a reducer not bound to any core, the number of elements has to be passed
+     * when the reduction is started.
+     */
+    public Reducer() {
+        super(null);
+    }
+
+    /**
+     * Reduces all elements <code>from &lt;= i &lt; to</code> from left to right. This method 
+     * is called highly parallelized, but never twice for the same range.
+     * 
+     * @param from The first index (inclusive).
+     * @param to The last index (exclusive).
+     * @return The reduced value, or <code>null</code> if the range did not contain anything.
+     */
+    public abstract O reduce(int from, int to);
+
+    /**
+     * Combines two partial results, <code>left</code> stems from the range before <code>right</code>. 
+     * 
+     * @param left The left partial, might be <code>null</code>.
+     * @param right The right partial, might be <code>null</code>.
+     * @return The combined value.
+     */
+    public abstract O combine(O left, O right);
+}
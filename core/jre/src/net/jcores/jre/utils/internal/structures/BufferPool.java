@@ -0,0 +1,338 @@
+/*
+ * BufferPool.java
+ * 
+ * Copyright (c) 2011, Ralf Biedert All rights reserved.
+ * 
+ * Redistribution and use in source and binary forms, with or without modification, are
+ * permitted provided that the following conditions are met:
+ * 
+ * Redistributions of source code must retain the above copyright notice, this list of
+ * conditions and the following disclaimer. Redistributions in binary form must reproduce the
+ * above copyright notice, this list of conditions and the following disclaimer in the
+ * documentation and/or other materials provided with the distribution.
+ * 
+ * Neither the name of the author nor the names of its contributors may be used to endorse or
+ * promote products derived from this software without specific prior written permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY EXPRESS
+ * OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE
+ * COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL,
+ * EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION)
+ * HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR
+ * TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE,
+ * EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ * 
+ */
+package net.jcores.jre.utils.internal.structures;
+
+import java.lang.management.ManagementFactory;
+import java.nio.ByteBuffer;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+/**
+ * A thread-safe pool of reusable heap and direct buffers for the copy, hash, zip and download 
+ * paths in <code>Streams</code> and <code>Files</code>. Buffers come in power-of-two classes 
+ * from {@link #MIN} to {@link #MAX} bytes; larger requests are allocated as usual and never 
+ * pooled. Each class keeps at most a few buffers per CPU, everything beyond that is left to 
+ * the GC.<br/><br/>
+ * 
+ * A buffer must be released exactly once and must not be used afterwards, so callers should 
+ * release it in a <code>finally</code> block.
+ * 
+ * @author Ralf Biedert
+ */
+public class BufferPool implements BufferPoolMBean {
+    /** The smallest buffer we pool (4 KB) */
+    public static final int MIN = 1 << 12;
+
+    /** The largest buffer we pool (1 MB) */
+    public static final int MAX = 1 << 20;
+
+    /** The number of size classes */
+    private static final int CLASSES = Integer.numberOfTrailingZeros(MAX) - Integer.numberOfTrailingZeros(MIN) + 1;
+
+    /** The pool shared by all cores */
+    private static final BufferPool SHARED = new BufferPool(Math.max(4, 2 * Runtime.getRuntime().availableProcessors()));
+
+    static {
+        try {
+            final MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            final ObjectName name = new ObjectName("net.jcores:type=BufferPool");
+            if (!server.isRegistered(name)) server.registerMBean(SHARED, name);
+        } catch (Exception e) {
+            // JMX is only a view, the pool itself still works
+        }
+    }
+
+    /** How many buffers each class keeps at most */
+    private final int limit;
+
+    /** Pooled heap buffers by class */
+    private final Queue<byte[]>[] heap;
+
+    /** Pooled direct buffers by class */
+    private final Queue<ByteBuffer>[] direct;
+
+    /** Number of pooled buffers by class, heap and direct counted separately */
+    private final AtomicInteger heapCount[], directCount[];
+
+    /** Statistics */
+    private final AtomicLong acquired = new AtomicLong(), reused = new AtomicLong(), allocated = new AtomicLong(),
+            released = new AtomicLong(), discarded = new AtomicLong();
+
+    /**
+     * Returns the pool shared by all cores.
+     * 
+     * @return The shared pool.
+     */
+    public static BufferPool shared() {
+        return SHARED;
+    }
+
+    /**
+     * Creates a new pool.
+     * 
+     * @param limit How many buffers each size class keeps at most, for heap and direct buffers each.
+     */
+    @SuppressWarnings({ "unchecked", "rawtypes" })
+    public BufferPool(int limit) {
+        this.limit = limit;
+        this.heap = new Queue[CLASSES];
+        this.direct = new Queue[CLASSES];
+        this.heapCount = new AtomicInteger[CLASSES];
+        this.directCount = new AtomicInteger[CLASSES];
+
+        for (int i = 0; i < CLASSES; i++) {
+            this.heap[i] = new ConcurrentLinkedQueue<byte[]>();
+            this.direct[i] = new ConcurrentLinkedQueue<ByteBuffer>();
+            this.heapCount[i] = new AtomicInteger();
+            this.directCount[i] = new AtomicInteger();
+        }
+    }
+
+    /**
+     * Returns a heap array of at least the given size. Its content is undefined.
+     * 
+     * @param size The minimal size.
+     * @return An array, pooled if possible.
+     */
+    public byte[] array(int size) {
+        this.acquired.incrementAndGet();
+
+        final int c = clazz(size);
+        if (c < 0) {
+            this.allocated.incrementAndGet();
+            return new byte[size];
+        }
+
+        final byte[] rval = this.heap[c].poll();
+        if (rval == null) {
+            this.allocated.incrementAndGet();
+            return new byte[MIN << c];
+        }
+
+        this.heapCount[c].decrementAndGet();
+        this.reused.incrementAndGet();
+        return rval;
+    }
+
+    /**
+     * Returns a cleared direct buffer with a capacity of at least the given size. Its 
+     * content is undefined.
+     * 
+     * @param size The minimal size.
+     * @return A direct buffer, pooled if possible.
+     */
+    public ByteBuffer direct(int size) {
+        this.acquired.incrementAndGet();
+
+        final int c = clazz(size);
+        if (c < 0) {
+            this.allocated.incrementAndGet();
+            return ByteBuffer.allocateDirect(size);
+        }
+
+        final ByteBuffer rval = this.direct[c].poll();
+        if (rval == null) {
+            this.allocated.incrementAndGet();
+            return ByteBuffer.allocateDirect(MIN << c);
+        }
+
+        this.directCount[c].decrementAndGet();
+        this.reused.incrementAndGet();
+        rval.clear();
+        return rval;
+    }
+
+    /**
+     * Hands a heap array back to the pool.
+     * 
+     * @param array The array, may be <code>null</code>.
+     */
+    public void release(byte[] array) {
+        if (array == null) return;
+
+        this.released.incrementAndGet();
+
+        final int c = exact(array.length);
+        if (c < 0 || !reserve(this.heapCount[c])) {
+            this.discarded.incrementAndGet();
+            return;
+        }
+
+        this.heap[c].offer(array);
+    }
+
+    /**
+     * Hands a direct buffer back to the pool. Heap buffers are ignored.
+     * 
+     * @param buffer The buffer, may be <code>null</code>.
+     */
+    public void release(ByteBuffer buffer) {
+        if (buffer == null) return;
+
+        this.released.incrementAndGet();
+
+        final int c = buffer.isDirect() && !buffer.isReadOnly() ? exact(buffer.capacity()) : -1;
+        if (c < 0 || !reserve(this.directCount[c])) {
+            this.discarded.incrementAndGet();
+            return;
+        }
+
+        this.direct[c].offer(buffer);
+    }
+
+    /**
+     * Takes a slot of a class if it is not full.
+     * 
+     * @param count The counter of the class.
+     * @return True if a slot was taken.
+     */
+    private boolean reserve(AtomicInteger count) {
+        while (true) {
+            final int current = count.get();
+            if (current >= this.limit) return false;
+            if (count.compareAndSet(current, current + 1)) return true;
+        }
+    }
+
+    /**
+     * Returns the smallest class holding the given size.
+     * 
+     * @param size The size.
+     * @return The class, or <code>-1</code> if the size is not pooled.
+     */
+    private static int clazz(int size) {
+        if (size > MAX) return -1;
+        if (size <= MIN) return 0;
+        return 32 - Integer.numberOfLeadingZeros(size - 1) - Integer.numberOfTrailingZeros(MIN);
+    }
+
+    /**
+     * Returns the class of exactly the given size.
+     * 
+     * @param size The size.
+     * @return The class, or <code>-1</code> if no class has this size.
+     */
+    private static int exact(int size) {
+        final int c = clazz(size);
+        return c >= 0 && (MIN << c) == size ? c : -1;
+    }
+
+    /* (non-Javadoc)
+     * @see net.jcores.jre.utils.internal.structures.BufferPoolMBean#getAcquired()
+     */
+    @Override
+    public long getAcquired() {
+        return this.acquired.get();
+    }
+
+    /* (non-Javadoc)
+     * @see net.jcores.jre.utils.internal.structures.BufferPoolMBean#getReused()
+     */
+    @Override
+    public long getReused() {
+        return this.reused.get();
+    }
+
+    /* (non-Javadoc)
+     * @see net.jcores.jre.utils.internal.structures.BufferPoolMBean#getAllocated()
+     */
+    @Override
+    public long getAllocated() {
+        return this.allocated.get();
+    }
+
+    /* (non-Javadoc)
+     * @see net.jcores.jre.utils.internal.structures.BufferPoolMBean#getReleased()
+     */
+    @Override
+    public long getReleased() {
+        return this.released.get();
+    }
+
+    /* (non-Javadoc)
+     * @see net.jcores.jre.utils.internal.structures.BufferPoolMBean#getDiscarded()
+     */
+    @Override
+    public long getDiscarded() {
+        return this.discarded.get();
+    }
+
+    /* (non-Javadoc)
+     * @see net.jcores.jre.utils.internal.structures.BufferPoolMBean#getPooledBuffers()
+     */
+    @Override
+    public int getPooledBuffers() {
+        int rval = 0;
+        for (int i = 0; i < CLASSES; i++) {
+            rval += this.heapCount[i].get() + this.directCount[i].get();
+        }
+        return rval;
+    }
+
+    /* (non-Javadoc)
+     * @see net.jcores.jre.utils.internal.structures.BufferPoolMBean#getPooledHeapBytes()
+     */
+    @Override
+    public long getPooledHeapBytes() {
+        long rval = 0;
+        for (int i = 0; i < CLASSES; i++) {
+            rval += (long) this.heapCount[i].get() * (MIN << i);
+        }
+        return rval;
+    }
+
+    /* (non-Javadoc)
+     * @see net.jcores.jre.utils.internal.structures.BufferPoolMBean#getPooledDirectBytes()
+     */
+    @Override
+    public long getPooledDirectBytes() {
+        long rval = 0;
+        for (int i = 0; i < CLASSES; i++) {
+            rval += (long) this.directCount[i].get() * (MIN << i);
+        }
+        return rval;
+    }
+
+    /* (non-Javadoc)
+     * @see net.jcores.jre.utils.internal.structures.BufferPoolMBean#clear()
+     */
+    @Override
+    public void clear() {
+        for (int i = 0; i < CLASSES; i++) {
+            while (this.heap[i].poll() != null)
+                this.heapCount[i].decrementAndGet();
+            while (this.direct[i].poll() != null)
+                this.directCount[i].decrementAndGet();
+        }
+    }
+}
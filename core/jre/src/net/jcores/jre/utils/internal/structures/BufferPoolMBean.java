@@ -0,0 +1,82 @@
+/*
+ * BufferPoolMBean.java
+ * 
+ * Copyright (c) 2011, Ralf Biedert All rights reserved.
+ * 
+ * Redistribution and use in source and binary forms, with or without modification, are
+ * permitted provided that the following conditions are met:
+ * 
+ * Redistributions of source code must retain the above copyright notice, this list of
+ * conditions and the following disclaimer. Redistributions in binary form must reproduce the
+ * above copyright notice, this list of conditions and the following disclaimer in the
+ * documentation and/or other materials provided with the distribution.
+ * 
+ * Neither the name of the author nor the names of its contributors may be used to endorse or
+ * promote products derived from this software without specific prior written permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY EXPRESS
+ * OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE
+ * COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL,
+ * EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION)
+ * HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR
+ * TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE,
+ * EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ * 
+ */
+package net.jcores.jre.utils.internal.structures;
+
+/**
+ * The JMX view of the shared {@link BufferPool}, registered as 
+ * <code>net.jcores:type=BufferPool</code>.
+ * 
+ * @author Ralf Biedert
+ */
+public interface BufferPoolMBean {
+    /**
+     * @return How many buffers were requested.
+     */
+    public long getAcquired();
+
+    /**
+     * @return How many requests were served with a pooled buffer.
+     */
+    public long getReused();
+
+    /**
+     * @return How many requests had to allocate a new buffer.
+     */
+    public long getAllocated();
+
+    /**
+     * @return How many buffers were handed back.
+     */
+    public long getReleased();
+
+    /**
+     * @return How many handed back buffers were dropped because their class was full or
+     * they did not fit any class.
+     */
+    public long getDiscarded();
+
+    /**
+     * @return The number of buffers currently held by the pool.
+     */
+    public int getPooledBuffers();
+
+    /**
+     * @return The number of heap bytes currently held by the pool.
+     */
+    public long getPooledHeapBytes();
+
+    /**
+     * @return The number of direct bytes currently held by the pool.
+     */
+    public long getPooledDirectBytes();
+
+    /**
+     * Drops all pooled buffers.
+     */
+    public void clear();
+}
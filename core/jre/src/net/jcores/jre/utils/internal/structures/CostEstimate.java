@@ -0,0 +1,100 @@
+/*
+ * CostEstimate.java
+ * 
+ * Copyright (c) 2011, Ralf Biedert All rights reserved.
+ * 
+ * Redistribution and use in source and binary forms, with or without modification, are
+ * permitted provided that the following conditions are met:
+ * 
+ * Redistributions of source code must retain the above copyright notice, this list of
+ * conditions and the following disclaimer. Redistributions in binary form must reproduce the
+ * above copyright notice, this list of conditions and the following disclaimer in the
+ * documentation and/or other materials provided with the distribution.
+ * 
+ * Neither the name of the author nor the names of its contributors may be used to endorse or
+ * promote products derived from this software without specific prior written permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY EXPRESS
+ * OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE
+ * COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL,
+ * EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION)
+ * HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR
+ * TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE,
+ * EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ * 
+ */
+package net.jcores.jre.utils.internal.structures;
+
+/**
+ * A running estimate of how long a function takes per element. Each observation is blended
+ * into the estimate with an exponential decay, so single outliers (class loading, JIT warm-up,
+ * cache misses) don't dominate the estimate, while real changes of the cost are still picked
+ * up after a few calls.
+ * 
+ * @author Ralf Biedert
+ */
+public class CostEstimate {
+    /** The estimated time in ns it takes to process one element, NaN if unknown */
+    private double nanos = Double.NaN;
+
+    /** How many elements we observed in total */
+    private long samples;
+
+    /** How many observations have been blended in */
+    private long updates;
+
+    /**
+     * Blends a new observation into the estimate.
+     * 
+     * @param time The time in ns it took to process the elements.
+     * @param n The number of elements processed in that time.
+     * @param decay The weight (0 &lt; decay &lt;= 1) of the new observation.
+     */
+    public synchronized void update(long time, int n, double decay) {
+        if (n <= 0) return;
+
+        final double observed = (double) time / n;
+
+        // The first observation is taken as it is, all others are blended in
+        this.nanos = Double.isNaN(this.nanos) ? observed : (1.0 - decay) * this.nanos + decay * observed;
+        this.samples += n;
+        this.updates++;
+    }
+
+    /**
+     * Returns the estimated time per element.
+     * 
+     * @return The time in ns, or NaN if nothing has been observed yet.
+     */
+    public synchronized double nanos() {
+        return this.nanos;
+    }
+
+    /**
+     * Returns the number of elements observed so far.
+     * 
+     * @return The number of samples.
+     */
+    public synchronized long samples() {
+        return this.samples;
+    }
+
+    /**
+     * Returns the number of observations blended into this estimate.
+     * 
+     * @return The number of updates.
+     */
+    public synchronized long updates() {
+        return this.updates;
+    }
+
+    /* (non-Javadoc)
+     * @see java.lang.Object#toString()
+     */
+    @Override
+    public synchronized String toString() {
+        return String.format("%.1fns/element (%d samples, %d updates)", Double.valueOf(this.nanos), Long.valueOf(this.samples), Long.valueOf(this.updates));
+    }
+}
@@ -0,0 +1,183 @@
+/*
+ * OperationMetrics.java
+ * 
+ * Copyright (c) 2011, Ralf Biedert All rights reserved.
+ * 
+ * Redistribution and use in source and binary forms, with or without modification, are
+ * permitted provided that the following conditions are met:
+ * 
+ * Redistributions of source code must retain the above copyright notice, this list of
+ * conditions and the following disclaimer. Redistributions in binary form must reproduce the
+ * above copyright notice, this list of conditions and the following disclaimer in the
+ * documentation and/or other materials provided with the distribution.
+ * 
+ * Neither the name of the author nor the names of its contributors may be used to endorse or
+ * promote products derived from this software without specific prior written permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY EXPRESS
+ * OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE
+ * COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL,
+ * EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION)
+ * HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR
+ * TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE,
+ * EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ * 
+ */
+package net.jcores.jre.utils.internal.structures;
+
+/**
+ * Aggregated {@link Trace}s of all calls of one operation (e.g., all <code>map()</code> calls),
+ * kept by the <code>ManagerExecution</code> while metrics are enabled.
+ * 
+ * @author Ralf Biedert
+ */
+public class OperationMetrics implements OperationMetricsMBean {
+    /** The name of the operation */
+    private final String method;
+
+    /** Call counters */
+    private long calls, parallelCalls;
+
+    /** Sums over all calls */
+    private long elements, workers, wallNanos, cpuNanos;
+
+    /** Sum and number of the imbalances of parallel calls */
+    private double imbalance;
+
+    /** How many parallel calls had chunks to measure */
+    private long imbalanced;
+
+    /**
+     * Creates empty metrics for the given operation.
+     * 
+     * @param method The name of the operation.
+     */
+    public OperationMetrics(String method) {
+        this.method = method;
+    }
+
+    /**
+     * Adds a finished trace.
+     * 
+     * @param trace The trace to add.
+     */
+    public synchronized void update(Trace trace) {
+        this.calls++;
+        this.elements += trace.elements();
+        this.wallNanos += trace.wallNanos();
+        this.cpuNanos += trace.cpuNanos();
+
+        if (!trace.parallel()) return;
+
+        this.parallelCalls++;
+        this.workers += trace.workers();
+
+        final double i = trace.imbalance();
+        if (Double.isNaN(i)) return;
+
+        this.imbalance += i;
+        this.imbalanced++;
+    }
+
+    /**
+     * Returns a copy of the current values.
+     * 
+     * @return The copy.
+     */
+    public synchronized OperationMetrics copy() {
+        final OperationMetrics rval = new OperationMetrics(this.method);
+        rval.calls = this.calls;
+        rval.parallelCalls = this.parallelCalls;
+        rval.elements = this.elements;
+        rval.workers = this.workers;
+        rval.wallNanos = this.wallNanos;
+        rval.cpuNanos = this.cpuNanos;
+        rval.imbalance = this.imbalance;
+        rval.imbalanced = this.imbalanced;
+        return rval;
+    }
+
+    /* (non-Javadoc)
+     * @see net.jcores.jre.utils.internal.structures.OperationMetricsMBean#getMethod()
+     */
+    @Override
+    public String getMethod() {
+        return this.method;
+    }
+
+    /* (non-Javadoc)
+     * @see net.jcores.jre.utils.internal.structures.OperationMetricsMBean#getCalls()
+     */
+    @Override
+    public synchronized long getCalls() {
+        return this.calls;
+    }
+
+    /* (non-Javadoc)
+     * @see net.jcores.jre.utils.internal.structures.OperationMetricsMBean#getSerialCalls()
+     */
+    @Override
+    public synchronized long getSerialCalls() {
+        return this.calls - this.parallelCalls;
+    }
+
+    /* (non-Javadoc)
+     * @see net.jcores.jre.utils.internal.structures.OperationMetricsMBean#getParallelCalls()
+     */
+    @Override
+    public synchronized long getParallelCalls() {
+        return this.parallelCalls;
+    }
+
+    /* (non-Javadoc)
+     * @see net.jcores.jre.utils.internal.structures.OperationMetricsMBean#getElements()
+     */
+    @Override
+    public synchronized long getElements() {
+        return this.elements;
+    }
+
+    /* (non-Javadoc)
+     * @see net.jcores.jre.utils.internal.structures.OperationMetricsMBean#getAverageWorkers()
+     */
+    @Override
+    public synchronized double getAverageWorkers() {
+        return this.parallelCalls == 0 ? Double.NaN : (double) this.workers / this.parallelCalls;
+    }
+
+    /* (non-Javadoc)
+     * @see net.jcores.jre.utils.internal.structures.OperationMetricsMBean#getWallNanos()
+     */
+    @Override
+    public synchronized long getWallNanos() {
+        return this.wallNanos;
+    }
+
+    /* (non-Javadoc)
+     * @see net.jcores.jre.utils.internal.structures.OperationMetricsMBean#getCPUNanos()
+     */
+    @Override
+    public synchronized long getCPUNanos() {
+        return this.cpuNanos;
+    }
+
+    /* (non-Javadoc)
+     * @see net.jcores.jre.utils.internal.structures.OperationMetricsMBean#getImbalance()
+     */
+    @Override
+    public synchronized double getImbalance() {
+        return this.imbalanced == 0 ? Double.NaN : this.imbalance / this.imbalanced;
+    }
+
+    /* (non-Javadoc)
+     * @see java.lang.Object#toString()
+     */
+    @Override
+    public synchronized String toString() {
+        return String.format("%s(%d calls, %d parallel, %d elements, %.3fms wall, %.3fms cpu, %.2f imbalance)", this.method, 
+                             Long.valueOf(this.calls), Long.valueOf(this.parallelCalls), Long.valueOf(this.elements), 
+                             Double.valueOf(this.wallNanos / 1e6), Double.valueOf(this.cpuNanos / 1e6), Double.valueOf(getImbalance()));
+    }
+}
@@ -0,0 +1,81 @@
+/*
+ * OperationMetricsMBean.java
+ * 
+ * Copyright (c) 2011, Ralf Biedert All rights reserved.
+ * 
+ * Redistribution and use in source and binary forms, with or without modification, are
+ * permitted provided that the following conditions are met:
+ * 
+ * Redistributions of source code must retain the above copyright notice, this list of
+ * conditions and the following disclaimer. Redistributions in binary form must reproduce the
+ * above copyright notice, this list of conditions and the following disclaimer in the
+ * documentation and/or other materials provided with the distribution.
+ * 
+ * Neither the name of the author nor the names of its contributors may be used to endorse or
+ * promote products derived from this software without specific prior written permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY EXPRESS
+ * OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE
+ * COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL,
+ * EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION)
+ * HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR
+ * TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE,
+ * EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ * 
+ */
+package net.jcores.jre.utils.internal.structures;
+
+/**
+ * The JMX view of {@link OperationMetrics}, registered as 
+ * <code>net.jcores:type=Operation,name=&lt;method&gt;</code> once metrics are enabled.
+ * 
+ * @author Ralf Biedert
+ */
+public interface OperationMetricsMBean {
+    /**
+     * @return The name of the operation.
+     */
+    public String getMethod();
+
+    /**
+     * @return How often the operation was called.
+     */
+    public long getCalls();
+
+    /**
+     * @return How often the operation ran serially.
+     */
+    public long getSerialCalls();
+
+    /**
+     * @return How often the operation ran in parallel.
+     */
+    public long getParallelCalls();
+
+    /**
+     * @return The number of elements processed in total.
+     */
+    public long getElements();
+
+    /**
+     * @return The average number of workers of parallel calls.
+     */
+    public double getAverageWorkers();
+
+    /**
+     * @return The wall time of all calls in ns.
+     */
+    public long getWallNanos();
+
+    /**
+     * @return The CPU time of all calls in ns.
+     */
+    public long getCPUNanos();
+
+    /**
+     * @return The average chunk imbalance of parallel calls.
+     */
+    public double getImbalance();
+}
@@ -32,10 +32,26 @@ package net.jcores.jre.utils.internal.structures;
  * 
  * @author Ralf Biedert
  */
-public class ProfileInformation {
-    /** The time it takes to <i>fork</i> a thread and wait for it to return. */
-    public long forkTime;
+public class ProfileInformation implements ProfileInformationMBean {
+    /** The time it takes to <i>fork</i> a thread and wait for it to return (refreshed in the background when cached). */
+    public volatile long forkTime;
     
     /** How many CPUs we use when we can */
     public int numCPUs;
+
+    /* (non-Javadoc)
+     * @see net.jcores.jre.utils.internal.structures.ProfileInformationMBean#getForkTime()
+     */
+    @Override
+    public long getForkTime() {
+        return this.forkTime;
+    }
+
+    /* (non-Javadoc)
+     * @see net.jcores.jre.utils.internal.structures.ProfileInformationMBean#getNumCPUs()
+     */
+    @Override
+    public int getNumCPUs() {
+        return this.numCPUs;
+    }
 }
@@ -0,0 +1,219 @@
+/*
+ * Trace.java
+ * 
+ * Copyright (c) 2011, Ralf Biedert All rights reserved.
+ * 
+ * Redistribution and use in source and binary forms, with or without modification, are
+ * permitted provided that the following conditions are met:
+ * 
+ * Redistributions of source code must retain the above copyright notice, this list of
+ * conditions and the following disclaimer. Redistributions in binary form must reproduce the
+ * above copyright notice, this list of conditions and the following disclaimer in the
+ * documentation and/or other materials provided with the distribution.
+ * 
+ * Neither the name of the author nor the names of its contributors may be used to endorse or
+ * promote products derived from this software without specific prior written permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY EXPRESS
+ * OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE
+ * COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL,
+ * EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION)
+ * HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR
+ * TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE,
+ * EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ * 
+ */
+package net.jcores.jre.utils.internal.structures;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Records what a single parallel operation did: how many elements it had, whether it 
+ * went parallel and with how many workers, how long it took and how evenly its chunks were
+ * balanced. Traces are only created when metrics are enabled in the <code>ManagerExecution</code>,
+ * the engines then time each chunk they process.
+ * 
+ * @author Ralf Biedert
+ */
+public class Trace {
+    /** Used to measure CPU times */
+    private static final ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+
+    /** The operation (the core method) that was traced */
+    private final String method;
+
+    /** The number of elements of the operation */
+    private final int elements;
+
+    /** The thread that started the operation */
+    private final Thread caller;
+
+    /** When the operation started (wall and CPU time of the caller) */
+    private final long start, cpuStart;
+
+    /** Chunk statistics, updated by the workers */
+    private final AtomicLong chunks = new AtomicLong(), chunkNanos = new AtomicLong(), maxChunk = new AtomicLong(), workerCPU = new AtomicLong();
+
+    /** Set when the operation finished */
+    private volatile long wall, cpu;
+
+    /** The number of workers, 1 if the operation ran serially */
+    private volatile int workers;
+
+    /**
+     * Starts tracing an operation in the current thread.
+     * 
+     * @param method The name of the operation.
+     * @param elements The number of elements it processes.
+     */
+    public Trace(String method, int elements) {
+        this.method = method;
+        this.elements = elements;
+        this.caller = Thread.currentThread();
+        this.cpuStart = cpu();
+        this.start = System.nanoTime();
+    }
+
+    /**
+     * Called by the engines before they process a chunk.
+     * 
+     * @return The stamp to pass to <code>end()</code>.
+     */
+    public long[] begin() {
+        return new long[] { System.nanoTime(), cpu() };
+    }
+
+    /**
+     * Called by the engines after they processed a chunk.
+     * 
+     * @param stamp The stamp returned by <code>begin()</code>.
+     */
+    public void end(long[] stamp) {
+        final long nanos = System.nanoTime() - stamp[0];
+
+        this.chunks.incrementAndGet();
+        this.chunkNanos.addAndGet(nanos);
+
+        // The caller's own CPU time is measured as a whole in finish()
+        if (Thread.currentThread() != this.caller) this.workerCPU.addAndGet(cpu() - stamp[1]);
+
+        long max = this.maxChunk.get();
+        while (nanos > max && !this.maxChunk.compareAndSet(max, nanos)) {
+            max = this.maxChunk.get();
+        }
+    }
+
+    /**
+     * Finishes the trace. Must be called by the thread that created it.
+     * 
+     * @param numWorkers The number of workers used, <code>1</code> if the operation ran serially.
+     */
+    public void finish(int numWorkers) {
+        this.wall = System.nanoTime() - this.start;
+        this.cpu = cpu() - this.cpuStart + this.workerCPU.get();
+        this.workers = Math.max(1, numWorkers);
+    }
+
+    /**
+     * Returns the name of the traced operation.
+     * 
+     * @return The method name.
+     */
+    public String method() {
+        return this.method;
+    }
+
+    /**
+     * Returns the number of elements of the operation.
+     * 
+     * @return The number of elements.
+     */
+    public int elements() {
+        return this.elements;
+    }
+
+    /**
+     * Returns the number of workers the operation used.
+     * 
+     * @return The number of workers, <code>1</code> for serial operations.
+     */
+    public int workers() {
+        return this.workers;
+    }
+
+    /**
+     * Returns if the operation was handed to an engine.
+     * 
+     * @return True if it ran in parallel.
+     */
+    public boolean parallel() {
+        return this.workers > 1;
+    }
+
+    /**
+     * Returns how long the operation took.
+     * 
+     * @return The wall time in ns.
+     */
+    public long wallNanos() {
+        return this.wall;
+    }
+
+    /**
+     * Returns how much CPU time the operation consumed, on the calling thread and on all workers.
+     * 
+     * @return The CPU time in ns, <code>0</code> if the VM can't measure it.
+     */
+    public long cpuNanos() {
+        return this.cpu;
+    }
+
+    /**
+     * Returns the number of chunks the engine processed.
+     * 
+     * @return The number of chunks.
+     */
+    public long chunks() {
+        return this.chunks.get();
+    }
+
+    /**
+     * Returns how unevenly the chunks were balanced, that is, the time of the slowest chunk
+     * divided by the average chunk time. 
+     * 
+     * @return The imbalance, <code>1.0</code> if all chunks took equally long, NaN if there were no chunks.
+     */
+    public double imbalance() {
+        final long n = this.chunks.get();
+        final long sum = this.chunkNanos.get();
+        if (n == 0 || sum == 0) return Double.NaN;
+
+        return (double) this.maxChunk.get() * n / sum;
+    }
+
+    /**
+     * Returns the CPU time of the current thread.
+     * 
+     * @return The time in ns, or <code>0</code> if not supported.
+     */
+    private static long cpu() {
+        if (!threads.isCurrentThreadCpuTimeSupported()) return 0;
+
+        final long rval = threads.getCurrentThreadCpuTime();
+        return rval < 0 ? 0 : rval;
+    }
+
+    /* (non-Javadoc)
+     * @see java.lang.Object#toString()
+     */
+    @Override
+    public String toString() {
+        return String.format("%s(%d elements, %d workers, %.3fms wall, %.3fms cpu, %d chunks, %.2f imbalance)", this.method, 
+                             Integer.valueOf(this.elements), Integer.valueOf(this.workers), Double.valueOf(this.wall / 1e6), 
+                             Double.valueOf(this.cpu / 1e6), Long.valueOf(chunks()), Double.valueOf(imbalance()));
+    }
+}
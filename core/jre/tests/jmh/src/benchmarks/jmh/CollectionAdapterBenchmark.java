@@ -0,0 +1,143 @@
+/*
+ * CollectionAdapterBenchmark.java
+ * 
+ * Copyright (c) 2011, Ralf Biedert All rights reserved.
+ * 
+ * Redistribution and use in source and binary forms, with or without modification, are
+ * permitted provided that the following conditions are met:
+ * 
+ * Redistributions of source code must retain the above copyright notice, this list of
+ * conditions and the following disclaimer. Redistributions in binary form must reproduce the
+ * above copyright notice, this list of conditions and the following disclaimer in the
+ * documentation and/or other materials provided with the distribution.
+ * 
+ * Neither the name of the author nor the names of its contributors may be used to endorse or
+ * promote products derived from this software without specific prior written permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY EXPRESS
+ * OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE
+ * COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL,
+ * EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION)
+ * HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR
+ * TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE,
+ * EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ * 
+ */
+package benchmarks.jmh;
+
+import static net.jcores.jre.CoreKeeper.$;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashSet;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import net.jcores.jre.cores.CoreObject;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Wraps the same elements as array (<code>ArrayAdapter</code>), as <code>ArrayList</code>
+ * (<code>ListAdapter</code>) and as <code>LinkedList</code> and <code>LinkedHashSet</code> 
+ * (<code>CollectionAdapter</code>), and maps and filters them, next to plain iteration over the
+ * collections.
+ * 
+ * @author Ralf Biedert
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class CollectionAdapterBenchmark {
+    /** The number of elements */
+    @Param({ "100", "10000", "1000000" })
+    public int size;
+
+    /** The cost of each element, in JMH tokens */
+    @Param({ "0", "50", "500" })
+    public long cost;
+
+    /** Our elements in the different containers */
+    Item[] array;
+
+    /** */
+    List<Item> arrayList, linkedList;
+
+    /** */
+    LinkedHashSet<Item> set;
+
+    /** Creates the elements. */
+    @Setup
+    public void setup() {
+        this.array = Item.items(this.size, this.cost);
+        this.arrayList = new ArrayList<Item>(Arrays.asList(this.array));
+        this.linkedList = new LinkedList<Item>(this.arrayList);
+        this.set = new LinkedHashSet<Item>(this.arrayList);
+    }
+
+    /** @return . */
+    @Benchmark
+    public Object mapArray() {
+        return $(this.array).map(CoreObjectBenchmark.VALUE).get(-1);
+    }
+
+    /** @return . */
+    @Benchmark
+    public Object mapArrayList() {
+        return $(this.arrayList).map(CoreObjectBenchmark.VALUE).get(-1);
+    }
+
+    /** @return . */
+    @Benchmark
+    public Object mapLinkedList() {
+        return $(this.linkedList).map(CoreObjectBenchmark.VALUE).get(-1);
+    }
+
+    /** @return . */
+    @Benchmark
+    public Object mapLinkedHashSet() {
+        return new CoreObject<Item>($, this.set).map(CoreObjectBenchmark.VALUE).get(-1);
+    }
+
+    /** @return . */
+    @Benchmark
+    public Object mapLinkedListVanilla() {
+        final List<Integer> rval = new ArrayList<Integer>(this.linkedList.size());
+        for (Item item : this.linkedList) {
+            rval.add(CoreObjectBenchmark.VALUE.f(item));
+        }
+        return rval.get(rval.size() - 1);
+    }
+
+    /** @return . */
+    @Benchmark
+    public Object filterLinkedList() {
+        return Integer.valueOf($(this.linkedList).filter(CoreObjectBenchmark.EVEN).size());
+    }
+
+    /** @return . */
+    @Benchmark
+    public Object filterLinkedListVanilla() {
+        final List<Item> rval = new ArrayList<Item>();
+        for (Item item : this.linkedList) {
+            if (CoreObjectBenchmark.EVEN.f(item)) rval.add(item);
+        }
+        return Integer.valueOf(rval.size());
+    }
+}
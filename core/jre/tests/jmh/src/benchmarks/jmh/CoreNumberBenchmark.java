@@ -0,0 +1,171 @@
+/*
+ * CoreNumberBenchmark.java
+ * 
+ * Copyright (c) 2011, Ralf Biedert All rights reserved.
+ * 
+ * Redistribution and use in source and binary forms, with or without modification, are
+ * permitted provided that the following conditions are met:
+ * 
+ * Redistributions of source code must retain the above copyright notice, this list of
+ * conditions and the following disclaimer. Redistributions in binary form must reproduce the
+ * above copyright notice, this list of conditions and the following disclaimer in the
+ * documentation and/or other materials provided with the distribution.
+ * 
+ * Neither the name of the author nor the names of its contributors may be used to endorse or
+ * promote products derived from this software without specific prior written permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY EXPRESS
+ * OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE
+ * COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL,
+ * EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION)
+ * HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR
+ * TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE,
+ * EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ * 
+ */
+package benchmarks.jmh;
+
+import static net.jcores.jre.CoreKeeper.$;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import net.jcores.jre.cores.CoreNumber;
+import net.jcores.jre.interfaces.functions.F1;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * The statistics of <code>CoreNumber</code> next to plain loops over a <code>double[]</code>.
+ * The statistics themselves have a fixed cost per element, so the per-element cost applies to
+ * computing the numbers before their statistics are taken (<code>*Mapped</code>).
+ * 
+ * @author Ralf Biedert
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class CoreNumberBenchmark {
+    /** The number of elements */
+    @Param({ "100", "10000", "1000000" })
+    public int size;
+
+    /** The cost of computing each number, in JMH tokens */
+    @Param({ "0", "50", "500" })
+    public long cost;
+
+    /** Our numbers */
+    double[] numbers;
+
+    /** Our numbers, boxed */
+    Double[] boxed;
+
+    /** The core of our numbers */
+    CoreNumber core;
+
+    /** Creates the numbers. */
+    @Setup
+    public void setup() {
+        final Random random = new Random(0);
+        this.numbers = new double[this.size];
+        this.boxed = new Double[this.size];
+
+        for (int i = 0; i < this.size; i++) {
+            this.numbers[i] = random.nextGaussian();
+            this.boxed[i] = Double.valueOf(this.numbers[i]);
+        }
+
+        this.core = $(this.numbers);
+    }
+
+    /** @return . */
+    @Benchmark
+    public double sumJCores() {
+        return this.core.sum();
+    }
+
+    /** @return . */
+    @Benchmark
+    public double sumVanilla() {
+        double rval = 0;
+        for (double d : this.numbers) {
+            rval += d;
+        }
+        return rval;
+    }
+
+    /** @return . */
+    @Benchmark
+    public double varianceJCores() {
+        return this.core.variance();
+    }
+
+    /** @return . */
+    @Benchmark
+    public double varianceVanilla() {
+        double sum = 0, squares = 0;
+        for (double d : this.numbers) {
+            sum += d;
+            squares += d * d;
+        }
+        final double mean = sum / this.numbers.length;
+        return squares / this.numbers.length - mean * mean;
+    }
+
+    /** @return . */
+    @Benchmark
+    public double minMaxJCores() {
+        return this.core.max() - this.core.min();
+    }
+
+    /** @return . */
+    @Benchmark
+    public double minMaxVanilla() {
+        double min = Double.POSITIVE_INFINITY, max = Double.NEGATIVE_INFINITY;
+        for (double d : this.numbers) {
+            min = Math.min(min, d);
+            max = Math.max(max, d);
+        }
+        return max - min;
+    }
+
+    /** @return . */
+    @Benchmark
+    public double averageMappedJCores() {
+        final long c = this.cost;
+        return $(this.boxed).map(new F1<Number, Double>() {
+            @Override
+            public Double f(Number x) {
+                if (c > 0) Blackhole.consumeCPU(c);
+                return Double.valueOf(x.doubleValue() * 2);
+            }
+        }).as(CoreNumber.class).average();
+    }
+
+    /** @return . */
+    @Benchmark
+    public double averageMappedVanilla() {
+        double rval = 0;
+        for (double d : this.numbers) {
+            if (this.cost > 0) Blackhole.consumeCPU(this.cost);
+            rval += d * 2;
+        }
+        return rval / this.numbers.length;
+    }
+}
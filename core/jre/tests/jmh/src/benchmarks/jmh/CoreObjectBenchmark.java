@@ -0,0 +1,213 @@
+/*
+ * CoreObjectBenchmark.java
+ * 
+ * Copyright (c) 2011, Ralf Biedert All rights reserved.
+ * 
+ * Redistribution and use in source and binary forms, with or without modification, are
+ * permitted provided that the following conditions are met:
+ * 
+ * Redistributions of source code must retain the above copyright notice, this list of
+ * conditions and the following disclaimer. Redistributions in binary form must reproduce the
+ * above copyright notice, this list of conditions and the following disclaimer in the
+ * documentation and/or other materials provided with the distribution.
+ * 
+ * Neither the name of the author nor the names of its contributors may be used to endorse or
+ * promote products derived from this software without specific prior written permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY EXPRESS
+ * OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE
+ * COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL,
+ * EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION)
+ * HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR
+ * TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE,
+ * EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ * 
+ */
+package benchmarks.jmh;
+
+import static net.jcores.jre.CoreKeeper.$;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import net.jcores.jre.interfaces.functions.F1;
+import net.jcores.jre.interfaces.functions.F1Object2Bool;
+import net.jcores.jre.interfaces.functions.F2ReduceObjects;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * The general <code>CoreObject</code> operations, each next to the loop a developer would
+ * write without jCores.
+ * 
+ * @author Ralf Biedert
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class CoreObjectBenchmark {
+    /** The number of elements */
+    @Param({ "100", "10000", "1000000" })
+    public int size;
+
+    /** The cost of each element, in JMH tokens */
+    @Param({ "0", "50", "500" })
+    public long cost;
+
+    /** Our elements */
+    Item[] items;
+
+    /** Maps an item to its value */
+    static final F1<Item, Integer> VALUE = new F1<Item, Integer>() {
+        @Override
+        public Integer f(Item x) {
+            return Integer.valueOf(x.work());
+        }
+    };
+
+    /** Accepts items with even values */
+    static final F1Object2Bool<Item> EVEN = new F1Object2Bool<Item>() {
+        @Override
+        public boolean f(Item x) {
+            return x.work() % 2 == 0;
+        }
+    };
+
+    /** Keeps the larger item */
+    static final F2ReduceObjects<Item> MAX = new F2ReduceObjects<Item>() {
+        @Override
+        public Item f(Item left, Item right) {
+            return left.work() >= right.work() ? left : right;
+        }
+    };
+
+    /** Creates the elements. */
+    @Setup
+    public void setup() {
+        this.items = Item.items(this.size, this.cost);
+    }
+
+    /** @return . */
+    @Benchmark
+    public Object mapJCores() {
+        return $(this.items).map(VALUE).get(-1);
+    }
+
+    /** @return . */
+    @Benchmark
+    public Object mapVanilla() {
+        final Integer[] rval = new Integer[this.items.length];
+        for (int i = 0; i < this.items.length; i++) {
+            rval[i] = VALUE.f(this.items[i]);
+        }
+        return rval[rval.length - 1];
+    }
+
+    /** @return . */
+    @Benchmark
+    public Object filterJCores() {
+        return Integer.valueOf($(this.items).filter(EVEN).size());
+    }
+
+    /** @return . */
+    @Benchmark
+    public Object filterVanilla() {
+        final List<Item> rval = new ArrayList<Item>();
+        for (Item item : this.items) {
+            if (EVEN.f(item)) rval.add(item);
+        }
+        return Integer.valueOf(rval.size());
+    }
+
+    /** @return . */
+    @Benchmark
+    public Object foldJCores() {
+        return $(this.items).fold(MAX).get(0);
+    }
+
+    /** @return . */
+    @Benchmark
+    public Object foldVanilla() {
+        // Without jCores a fold of an associative function is the same loop as a reduction
+        return reduceVanilla();
+    }
+
+    /** @return . */
+    @Benchmark
+    public Object reduceJCores() {
+        return $(this.items).reduce(MAX).get(0);
+    }
+
+    /** @return . */
+    @Benchmark
+    public Object reduceVanilla() {
+        Item rval = this.items[0];
+        for (int i = 1; i < this.items.length; i++) {
+            rval = MAX.f(rval, this.items[i]);
+        }
+        return rval;
+    }
+
+    /** @return . */
+    @Benchmark
+    public Object uniqueJCores() {
+        return Integer.valueOf($(this.items).unique().size());
+    }
+
+    /** @return . */
+    @Benchmark
+    public Object uniqueVanilla() {
+        return Integer.valueOf(new LinkedHashSet<Item>(Arrays.asList(this.items)).size());
+    }
+
+    /** @return . */
+    @Benchmark
+    public Object sortJCores() {
+        return $(this.items).sort().get(0);
+    }
+
+    /** @return . */
+    @Benchmark
+    public Object sortVanilla() {
+        final Item[] copy = this.items.clone();
+        Arrays.sort(copy);
+        return copy[0];
+    }
+
+    /** @return . */
+    @Benchmark
+    public Object countJCores() {
+        return Integer.valueOf($(this.items).count().size());
+    }
+
+    /** @return . */
+    @Benchmark
+    public Object countVanilla() {
+        final Map<Item, Integer> rval = new HashMap<Item, Integer>();
+        for (Item item : this.items) {
+            final Integer count = rval.get(item);
+            rval.put(item, Integer.valueOf(count == null ? 1 : count.intValue() + 1));
+        }
+        return Integer.valueOf(rval.size());
+    }
+}
@@ -0,0 +1,141 @@
+/*
+ * CoreStringBenchmark.java
+ * 
+ * Copyright (c) 2011, Ralf Biedert All rights reserved.
+ * 
+ * Redistribution and use in source and binary forms, with or without modification, are
+ * permitted provided that the following conditions are met:
+ * 
+ * Redistributions of source code must retain the above copyright notice, this list of
+ * conditions and the following disclaimer. Redistributions in binary form must reproduce the
+ * above copyright notice, this list of conditions and the following disclaimer in the
+ * documentation and/or other materials provided with the distribution.
+ * 
+ * Neither the name of the author nor the names of its contributors may be used to endorse or
+ * promote products derived from this software without specific prior written permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY EXPRESS
+ * OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE
+ * COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL,
+ * EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION)
+ * HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR
+ * TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE,
+ * EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ * 
+ */
+package benchmarks.jmh;
+
+import static net.jcores.jre.CoreKeeper.$;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * <code>CoreString</code>'s <code>split()</code>, <code>join()</code> and <code>replace()</code>
+ * next to their vanilla equivalents. The per-element cost is the number of tokens in each string.
+ * 
+ * @author Ralf Biedert
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class CoreStringBenchmark {
+    /** The number of strings */
+    @Param({ "100", "10000", "1000000" })
+    public int size;
+
+    /** The number of comma separated tokens per string */
+    @Param({ "1", "10", "100" })
+    public int cost;
+
+    /** Our strings */
+    String[] strings;
+
+    /** The pattern the vanilla replacement uses */
+    static final Pattern COMMA = Pattern.compile(",");
+
+    /** Creates the strings. */
+    @Setup
+    public void setup() {
+        final StringBuilder sb = new StringBuilder();
+        this.strings = new String[this.size];
+
+        for (int i = 0; i < this.size; i++) {
+            sb.setLength(0);
+            for (int j = 0; j < this.cost; j++) {
+                if (j > 0) sb.append(',');
+                sb.append("token").append(i + j);
+            }
+            this.strings[i] = sb.toString();
+        }
+    }
+
+    /** @return . */
+    @Benchmark
+    public Object splitJCores() {
+        return Integer.valueOf($(this.strings).split(",").size());
+    }
+
+    /** @return . */
+    @Benchmark
+    public Object splitVanilla() {
+        final List<String> rval = new ArrayList<String>();
+        for (String string : this.strings) {
+            rval.addAll(Arrays.asList(string.split(",")));
+        }
+        return Integer.valueOf(rval.size());
+    }
+
+    /** @return . */
+    @Benchmark
+    public Object joinJCores() {
+        return Integer.valueOf($(this.strings).join(";").length());
+    }
+
+    /** @return . */
+    @Benchmark
+    public Object joinVanilla() {
+        final StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < this.strings.length; i++) {
+            if (i > 0) sb.append(';');
+            sb.append(this.strings[i]);
+        }
+        return Integer.valueOf(sb.length());
+    }
+
+    /** @return . */
+    @Benchmark
+    public Object replaceJCores() {
+        return $(this.strings).replace(",", ";").get(-1);
+    }
+
+    /** @return . */
+    @Benchmark
+    public Object replaceVanilla() {
+        final String[] rval = new String[this.strings.length];
+        for (int i = 0; i < this.strings.length; i++) {
+            rval[i] = COMMA.matcher(this.strings[i]).replaceAll(";");
+        }
+        return rval[rval.length - 1];
+    }
+}
@@ -0,0 +1,108 @@
+/*
+ * Item.java
+ * 
+ * Copyright (c) 2011, Ralf Biedert All rights reserved.
+ * 
+ * Redistribution and use in source and binary forms, with or without modification, are
+ * permitted provided that the following conditions are met:
+ * 
+ * Redistributions of source code must retain the above copyright notice, this list of
+ * conditions and the following disclaimer. Redistributions in binary form must reproduce the
+ * above copyright notice, this list of conditions and the following disclaimer in the
+ * documentation and/or other materials provided with the distribution.
+ * 
+ * Neither the name of the author nor the names of its contributors may be used to endorse or
+ * promote products derived from this software without specific prior written permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY EXPRESS
+ * OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE
+ * COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL,
+ * EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION)
+ * HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR
+ * TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE,
+ * EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ * 
+ */
+package benchmarks.jmh;
+
+import java.util.Random;
+
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * An element with a configurable cost. Calling <code>work()</code>, hashing and comparing
+ * an item burns <code>cost</code> JMH tokens, so the same benchmark can be run for cheap and
+ * for expensive elements, and the point where going parallel pays off becomes visible.
+ * 
+ * @author Ralf Biedert
+ */
+public final class Item implements Comparable<Item> {
+    /** The value of this item */
+    private final int value;
+
+    /** How many tokens each operation on this item consumes */
+    private final long cost;
+
+    /**
+     * Creates a new item.
+     * 
+     * @param value The value.
+     * @param cost The cost of each operation.
+     */
+    public Item(int value, long cost) {
+        this.value = value;
+        this.cost = cost;
+    }
+
+    /**
+     * Creates <code>size</code> items with random values, a quarter of them distinct.
+     * 
+     * @param size The number of items.
+     * @param cost The cost of each item.
+     * @return The items.
+     */
+    public static Item[] items(int size, long cost) {
+        final Random random = new Random(0);
+        final Item[] rval = new Item[size];
+        for (int i = 0; i < size; i++) {
+            rval[i] = new Item(random.nextInt(size / 4 + 1), cost);
+        }
+        return rval;
+    }
+
+    /**
+     * Does some work and returns the value.
+     * 
+     * @return The value.
+     */
+    public int work() {
+        if (this.cost > 0) Blackhole.consumeCPU(this.cost);
+        return this.value;
+    }
+
+    /* (non-Javadoc)
+     * @see java.lang.Comparable#compareTo(java.lang.Object)
+     */
+    @Override
+    public int compareTo(Item o) {
+        return Integer.compare(work(), o.value);
+    }
+
+    /* (non-Javadoc)
+     * @see java.lang.Object#hashCode()
+     */
+    @Override
+    public int hashCode() {
+        return work();
+    }
+
+    /* (non-Javadoc)
+     * @see java.lang.Object#equals(java.lang.Object)
+     */
+    @Override
+    public boolean equals(Object obj) {
+        return obj instanceof Item && ((Item) obj).value == this.value;
+    }
+}
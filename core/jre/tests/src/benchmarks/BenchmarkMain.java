@@ -28,19 +28,29 @@
 package benchmarks;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 
 import net.jcores.jre.interfaces.functions.F0;
 import net.jcores.jre.interfaces.functions.F1;
+import benchmarks.benchmarker.Allocations;
 import benchmarks.benchmarker.Benchmark;
 import benchmarks.benchmarker.BenchmarkResults;
 import benchmarks.benchmarker.Benchmarker;
+import benchmarks.benchmarker.Scalability;
 import benchmarks.benchmarks.SimpleClone;
 import benchmarks.benchmarks.SimpleTest;
 import benchmarks.benchmarks.mappinglooping.ComplexLoopingStringArray;
 import benchmarks.benchmarks.mappinglooping.SimpleLoopingStringArray;
+import benchmarks.benchmarks.memory.AdapterFootprint;
+import benchmarks.benchmarks.memory.OperationAllocations;
+import benchmarks.benchmarks.primitives.PrimitiveStatistics;
+import benchmarks.benchmarks.reduction.ParallelReduction;
 import benchmarks.benchmarks.regexdna.RegExDNA;
 import benchmarks.benchmarks.reversecomplement.ReverseComplement;
+import benchmarks.benchmarks.sets.SetOperations;
+import benchmarks.benchmarks.sorting.ParallelSort;
+import benchmarks.benchmarks.startup.StartupTime;
 import benchmarks.model.TaskData;
 import benchmarks.model.TaskSolver;
 
@@ -50,12 +60,11 @@ import benchmarks.model.TaskSolver;
  */
 public class BenchmarkMain {
     /**
-     * @param args
+     * Returns all benchmarks we have.
+     * 
+     * @return The benchmark classes.
      */
-    @SuppressWarnings("unchecked")
-    public static void main(String[] args) {
-    	//JCoresScript.SCRIPT("Benchmark", args).console().pack();
-    	
+    public static Collection<Class<? extends Benchmark<?>>> benchmarks() {
         // Prepare benchmarks contianer
         final Collection<Class<? extends Benchmark<?>>> classes = new ArrayList<Class<? extends Benchmark<?>>>();
         
@@ -66,6 +75,68 @@ public class BenchmarkMain {
         classes.add(ComplexLoopingStringArray.class);
         classes.add(RegExDNA.class);
         classes.add(ReverseComplement.class);
+        classes.add(ParallelReduction.class);
+        classes.add(PrimitiveStatistics.class);
+        classes.add(SetOperations.class);
+        classes.add(ParallelSort.class);
+        classes.add(StartupTime.class);
+        classes.add(OperationAllocations.class);
+        classes.add(AdapterFootprint.class);
+
+        return classes;
+    }
+
+    /**
+     * Returns the benchmarks that measure throughput and can therefore be run across thread 
+     * counts and sizes. Startup time and allocation counts don't depend on the number of threads.
+     * 
+     * @return The benchmark classes.
+     */
+    public static Collection<Class<? extends Benchmark<?>>> scalable() {
+        final Collection<Class<? extends Benchmark<?>>> classes = benchmarks();
+
+        classes.remove(StartupTime.class);
+        classes.remove(OperationAllocations.class);
+        classes.remove(AdapterFootprint.class);
+
+        return classes;
+    }
+
+    /**
+     * Runs all benchmarks. Pass <code>scalability</code> as first argument to run them across 
+     * thread counts and sizes instead (see {@link Scalability} for further arguments), or 
+     * <code>allocations</code> to report allocated and retained bytes (see {@link Allocations}).
+     * 
+     * @param args
+     */
+    @SuppressWarnings("unchecked")
+    public static void main(String[] args) {
+    	//JCoresScript.SCRIPT("Benchmark", args).console().pack();
+    	
+        final Collection<Class<? extends Benchmark<?>>> classes = benchmarks();
+
+        // Scalability mode, run all solvers across thread counts and sizes and report JSON 
+        if (args.length > 0 && "scalability".equals(args[0])) {
+            try {
+                final boolean passed = new Scalability(Arrays.copyOfRange(args, 1, args.length)).run(scalable());
+                if (!passed) System.exit(1);
+            } catch (Exception e) {
+                e.printStackTrace();
+                System.exit(2);
+            }
+            return;
+        }
+
+        // Allocation mode, report allocated and retained bytes of all solvers as JSON
+        if (args.length > 0 && "allocations".equals(args[0])) {
+            try {
+                new Allocations(Arrays.copyOfRange(args, 1, args.length)).run(classes);
+            } catch (Exception e) {
+                e.printStackTrace();
+                System.exit(2);
+            }
+            return;
+        }
         
         // Now process all benchmarks
         for (Class<?> class1 : classes) {
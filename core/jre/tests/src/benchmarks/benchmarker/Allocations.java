@@ -0,0 +1,312 @@
+/*
+ * Allocations.java
+ * 
+ * Copyright (c) 2010, Ralf Biedert All rights reserved.
+ * 
+ * Redistribution and use in source and binary forms, with or without modification, are
+ * permitted provided that the following conditions are met:
+ * 
+ * Redistributions of source code must retain the above copyright notice, this list of
+ * conditions and the following disclaimer. Redistributions in binary form must reproduce the
+ * above copyright notice, this list of conditions and the following disclaimer in the
+ * documentation and/or other materials provided with the distribution.
+ * 
+ * Neither the name of the author nor the names of its contributors may be used to endorse or
+ * promote products derived from this software without specific prior written permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY EXPRESS
+ * OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE
+ * COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL,
+ * EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION)
+ * HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR
+ * TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE,
+ * EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ * 
+ */
+package benchmarks.benchmarker;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Locale;
+
+import net.jcores.jre.interfaces.functions.F0;
+import benchmarks.model.TaskData;
+import benchmarks.model.TaskSolver;
+
+/**
+ * Measures how many bytes the solvers of the given benchmarks allocate per run, summed over 
+ * all threads (so the work done by jCores' workers counts as well), and how much heap their 
+ * results retain. Benchmarks with sizes are run for each size, and the numbers are also given 
+ * per element. The report is JSON, one line per measurement.<br/>
+ * <br/>
+ * 
+ * Allocations are counted with the thread allocation counters of HotSpot-like VMs
+ * (<code>com.sun.management.ThreadMXBean</code>), retained heap is the difference of the used 
+ * heap after garbage collections, so it is only an approximation for small results.<br/>
+ * <br/>
+ * 
+ * Arguments: <code>[--passes 10] [--only name] [--output file]</code>
+ * 
+ * @author Ralf Biedert
+ */
+public class Allocations {
+    /** How many results we keep alive at the same time when measuring the retained heap */
+    private static final int COPIES = 8;
+
+    /** The thread bean */
+    private static final ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+
+    /** <code>getThreadAllocatedBytes(long[])</code>, if this VM has it */
+    private static final Method allocatedBytes = allocatedBytes();
+
+    /** How often each solver is run, after one warm-up run */
+    private int passes = 10;
+
+    /** If set, only benchmarks whose name contains this are run */
+    private String only;
+
+    /** Where the report goes, <code>null</code> for stdout */
+    private File output;
+
+    /**
+     * Creates the allocation report with the given command line arguments.
+     * 
+     * @param args The arguments.
+     */
+    public Allocations(String... args) {
+        for (int i = 0; i + 1 < args.length; i += 2) {
+            final String value = args[i + 1];
+
+            if ("--passes".equals(args[i])) this.passes = Math.max(1, Integer.parseInt(value));
+            else if ("--only".equals(args[i])) this.only = value;
+            else if ("--output".equals(args[i])) this.output = new File(value);
+            else throw new IllegalArgumentException("Unknown argument " + args[i]);
+        }
+    }
+
+    /**
+     * Runs all given benchmarks and writes the report.
+     * 
+     * @param classes The benchmarks to run.
+     * @throws Exception If a benchmark can't be created or the report not be written.
+     */
+    @SuppressWarnings("unchecked")
+    public void run(Collection<Class<? extends Benchmark<?>>> classes) throws Exception {
+        if (!supported()) throw new UnsupportedOperationException("This VM can't count allocated bytes per thread.");
+
+        final List<String> lines = new ArrayList<String>();
+
+        for (Class<? extends Benchmark<?>> c : classes) {
+            final Benchmark<Object> benchmark = (Benchmark<Object>) c.newInstance();
+            if (this.only != null && !benchmark.name().contains(this.only)) continue;
+
+            System.err.println(benchmark.name());
+
+            final int[] sizes = benchmark.sizes().length == 0 ? new int[] { -1 } : benchmark.sizes();
+            for (int size : sizes) {
+                final TaskData<Object> data = size < 0 ? benchmark.data() : benchmark.data(size);
+                final Object d = data != null ? data.getData() : null;
+
+                for (final TaskSolver<Object> solver : (size < 0 ? benchmark.solver() : benchmark.solver(size))) {
+                    try {
+                        final F0 f = new F0() {
+                            @Override
+                            public void f() {
+                                solver.f().f(d);
+                            }
+                        };
+
+                        final long allocated = allocated(f, this.passes);
+                        final long retained = retained(solver, d);
+                        System.err.println("    " + solver.name() + (size < 0 ? "" : " @" + size) + ": " + allocated + " bytes allocated, " + retained + " bytes retained");
+
+                        lines.add("    {\"benchmark\": \"" + escape(benchmark.name()) + "\", \"solver\": \"" + escape(solver.name()) + 
+                                  "\", \"size\": " + (size < 0 ? "null" : Integer.toString(size)) + 
+                                  ", \"allocated\": " + allocated + ", \"allocatedPerElement\": " + perElement(allocated, size) + 
+                                  ", \"retained\": " + retained + ", \"retainedPerElement\": " + perElement(retained, size) + "}");
+                    } catch (RuntimeException e) {
+                        // A broken solver should not stop the others, it just won't be in the report
+                        System.err.println("    " + solver.name() + (size < 0 ? "" : " @" + size) + ": failed (" + e + ")");
+                    }
+                }
+            }
+        }
+
+        final StringBuilder sb = new StringBuilder();
+        sb.append("{\n");
+        sb.append("  \"passes\": ").append(this.passes).append(",\n");
+        sb.append("  \"measurements\": [\n");
+        for (int i = 0; i < lines.size(); i++) {
+            sb.append(lines.get(i)).append(i < lines.size() - 1 ? ",\n" : "\n");
+        }
+        sb.append("  ]\n");
+        sb.append("}\n");
+
+        write(sb.toString());
+    }
+
+    /**
+     * Returns if this VM can count allocations.
+     * 
+     * @return True if supported.
+     */
+    public static boolean supported() {
+        return allocatedBytes != null && allocated() >= 0;
+    }
+
+    /**
+     * Returns the bytes allocated so far by all live threads.
+     * 
+     * @return The number of bytes, or <code>-1</code> if unsupported.
+     */
+    public static long allocated() {
+        if (allocatedBytes == null) return -1;
+
+        try {
+            final long[] bytes = (long[]) allocatedBytes.invoke(threads, threads.getAllThreadIds());
+            long rval = 0;
+            for (long b : bytes) {
+                if (b > 0) rval += b;
+            }
+            return rval;
+        } catch (Exception e) {
+            return -1;
+        }
+    }
+
+    /**
+     * Runs the function once to warm up and returns how many bytes each of the following
+     * runs allocated on average, on all threads. Threads that end while we measure take 
+     * their counts with them, jCores' workers are pooled, so this rarely matters.
+     * 
+     * @param f The function.
+     * @param passes How often to run it.
+     * @return The bytes per run.
+     */
+    public static long allocated(F0 f, int passes) {
+        f.f();
+
+        final long start = allocated();
+        for (int i = 0; i < passes; i++) {
+            f.f();
+        }
+        return (allocated() - start) / passes;
+    }
+
+    /**
+     * Returns how much heap a result of the solver retains, on average.
+     * 
+     * @param solver The solver.
+     * @param data The data to pass.
+     * @return The retained bytes per result.
+     */
+    public static long retained(TaskSolver<Object> solver, Object data) {
+        final Object[] results = new Object[COPIES];
+
+        final long before = used();
+        for (int i = 0; i < results.length; i++) {
+            results[i] = solver.f().f(data);
+        }
+        final long after = used();
+
+        // Keep the results alive until we measured
+        int alive = 0;
+        for (Object object : results) {
+            if (object != null) alive++;
+        }
+
+        return alive == 0 ? 0 : Math.max(0, after - before) / COPIES;
+    }
+
+    /**
+     * Collects all garbage we can and returns the used heap.
+     * 
+     * @return The used heap in bytes.
+     */
+    private static long used() {
+        final Runtime runtime = Runtime.getRuntime();
+
+        long rval = Long.MAX_VALUE;
+        for (int i = 0; i < 5; i++) {
+            System.gc();
+            try {
+                Thread.sleep(20);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            rval = Math.min(rval, runtime.totalMemory() - runtime.freeMemory());
+        }
+        return rval;
+    }
+
+    /**
+     * Looks up <code>getThreadAllocatedBytes(long[])</code>. It is not part of the standard 
+     * bean, and we are compiled for VMs that might not have it.
+     * 
+     * @return The method, or <code>null</code>.
+     */
+    private static Method allocatedBytes() {
+        try {
+            final Class<?> bean = Class.forName("com.sun.management.ThreadMXBean");
+            if (!bean.isInstance(threads)) return null;
+
+            final Method enabled = bean.getMethod("isThreadAllocatedMemoryEnabled");
+            if (!((Boolean) enabled.invoke(threads)).booleanValue()) bean.getMethod("setThreadAllocatedMemoryEnabled", boolean.class).invoke(threads, Boolean.TRUE);
+
+            return bean.getMethod("getThreadAllocatedBytes", long[].class);
+        } catch (Exception e) {
+            return null;
+        }
+    }
+
+    /**
+     * Formats a value per element.
+     * 
+     * @param bytes The bytes.
+     * @param size The number of elements, -1 if unknown.
+     * @return The JSON value.
+     */
+    private static String perElement(long bytes, int size) {
+        return size <= 0 ? "null" : String.format(Locale.US, "%.2f", Double.valueOf((double) bytes / size));
+    }
+
+    /**
+     * Escapes a JSON string.
+     * 
+     * @param s The string.
+     * @return The escaped string.
+     */
+    private static String escape(String s) {
+        return s.replace("\\", "\\\\").replace("\"", "\\\"");
+    }
+
+    /**
+     * Writes the report to our output.
+     * 
+     * @param report The report.
+     * @throws IOException If it can't be written.
+     */
+    private void write(String report) throws IOException {
+        if (this.output == null) {
+            System.out.print(report);
+            return;
+        }
+
+        final Writer writer = new FileWriter(this.output);
+        try {
+            writer.write(report);
+        } finally {
+            writer.close();
+        }
+    }
+}
@@ -57,4 +57,36 @@ public abstract class Benchmark<T> {
      */
     public abstract Collection<TaskSolver<T>> solver();  
 
+    /**
+     * Returns the input sizes this benchmark can be run with, used by the {@link Scalability} 
+     * harness. By default the data has a fixed size.
+     * 
+     * @return The sizes, or an empty array if the size is fixed.
+     */
+    public int[] sizes() {
+        return new int[0];
+    }
+
+    /**
+     * Returns the data for the given size. Only called for the sizes returned by <code>sizes()</code>,
+     * by default this is the same as <code>data()</code>.
+     * 
+     * @param size The input size.
+     * @return .
+     */
+    public TaskData<T> data(int size) {
+        return data();
+    }
+
+    /**
+     * Returns the solvers for the given size. Only called for the sizes returned by <code>sizes()</code>,
+     * by default these are the same as <code>solver()</code>.
+     * 
+     * @param size The input size.
+     * @return .
+     */
+    public Collection<TaskSolver<T>> solver(int size) {
+        return solver();
+    }
+
 }
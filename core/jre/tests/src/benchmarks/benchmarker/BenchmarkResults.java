@@ -29,6 +29,8 @@ package benchmarks.benchmarker;
 
 import static net.jcores.jre.CoreKeeper.$;
 
+import java.util.Arrays;
+
 /**
  * Stores the results of a given benchmark run.
  * 
@@ -78,4 +80,16 @@ public class BenchmarkResults {
     public long median(int i) {
         return $($.box(this.results)).slice(-i, -1).get(0.5).longValue();
     }
+
+    /**
+     * Returns the median of the n last runs, so that warm-up runs can be skipped.
+     * 
+     * @param nlast The number of runs to consider.
+     * @return The median in µ-seconds.
+     */
+    public long lastMedian(int nlast) {
+        final long[] last = Arrays.copyOfRange(this.results, Math.max(0, this.results.length - nlast), this.results.length);
+        Arrays.sort(last);
+        return last.length == 0 ? 0 : last[last.length / 2];
+    }
 }
@@ -0,0 +1,491 @@
+/*
+ * Scalability.java
+ * 
+ * Copyright (c) 2010, Ralf Biedert All rights reserved.
+ * 
+ * Redistribution and use in source and binary forms, with or without modification, are
+ * permitted provided that the following conditions are met:
+ * 
+ * Redistributions of source code must retain the above copyright notice, this list of
+ * conditions and the following disclaimer. Redistributions in binary form must reproduce the
+ * above copyright notice, this list of conditions and the following disclaimer in the
+ * documentation and/or other materials provided with the distribution.
+ * 
+ * Neither the name of the author nor the names of its contributors may be used to endorse or
+ * promote products derived from this software without specific prior written permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY EXPRESS
+ * OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE
+ * COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL,
+ * EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION)
+ * HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR
+ * TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE,
+ * EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ * 
+ */
+package benchmarks.benchmarker;
+
+import static net.jcores.jre.CoreKeeper.$;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileReader;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import net.jcores.jre.interfaces.functions.F0;
+import net.jcores.jre.interfaces.functions.F1;
+import net.jcores.jre.utils.internal.processing.Engine;
+import net.jcores.jre.utils.internal.processing.ForkJoinEngine;
+import benchmarks.model.TaskData;
+import benchmarks.model.TaskSolver;
+
+/**
+ * Runs every solver of the given benchmarks across thread counts and input sizes, and 
+ * reports the speedup, the parallel efficiency and the input size from which the parallel 
+ * run beats the single threaded one (the crossover) as JSON. If a baseline (the JSON of an 
+ * earlier run) is given, all timings that got slower by more than the tolerance are flagged
+ * as regressions.<br/>
+ * <br/>
+ * 
+ * The number of threads is limited by replacing jCores' default engine with one on a pool of 
+ * that size, and by limiting the CPUs of the profile information, so the CPU budget follows.<br/>
+ * <br/>
+ * 
+ * Arguments: <code>[--threads 1,2,4] [--passes 10] [--only name] [--output file] [--baseline file] [--tolerance 0.2]</code>
+ * 
+ * @author Ralf Biedert
+ */
+public class Scalability {
+    /** Timings below this (in µs) are too noisy to be flagged as regressions */
+    private static final long MIN_MICROS = 100;
+
+    /** Matches a measurement line we wrote into a previous report */
+    private static final Pattern MEASUREMENT = Pattern.compile("\"benchmark\": \"((?:[^\"\\\\]|\\\\.)*)\", \"solver\": \"((?:[^\"\\\\]|\\\\.)*)\", " +
+                                                               "\"size\": (-?\\d+|null), \"threads\": (\\d+), \"micros\": (\\d+)");
+
+    /** The thread counts to test, always starting with 1 */
+    private int[] threads;
+
+    /** How often each solver is run per configuration, the second half is measured */
+    private int passes = 10;
+
+    /** If set, only benchmarks whose name contains this are run */
+    private String only;
+
+    /** Where the report goes, <code>null</code> for stdout */
+    private File output;
+
+    /** The baseline to compare with, or <code>null</code> */
+    private File baseline;
+
+    /** How much slower (relative) a timing may get before it is flagged */
+    private double tolerance = 0.2;
+
+    /** All measurements of this run, in order */
+    private final List<Measurement> measurements = new ArrayList<Measurement>();
+
+    /**
+     * A single timing.
+     */
+    static class Measurement {
+        /** What was measured */
+        final String benchmark, solver;
+
+        /** The input size, -1 if fixed */
+        final int size;
+
+        /** The number of threads */
+        final int threads;
+
+        /** The median time in µs */
+        final long micros;
+
+        Measurement(String benchmark, String solver, int size, int threads, long micros) {
+            this.benchmark = benchmark;
+            this.solver = solver;
+            this.size = size;
+            this.threads = threads;
+            this.micros = micros;
+        }
+
+        /**
+         * Returns the key identifying the configuration of this measurement.
+         * 
+         * @return The key.
+         */
+        String key() {
+            return key(this.threads);
+        }
+
+        /**
+         * Returns the key of the same configuration with another number of threads.
+         * 
+         * @param t The number of threads.
+         * @return The key.
+         */
+        String key(int t) {
+            return this.benchmark + "|" + this.solver + "|" + this.size + "|" + t;
+        }
+    }
+
+    /**
+     * Creates the harness with the given command line arguments.
+     * 
+     * @param args The arguments.
+     */
+    public Scalability(String... args) {
+        for (int i = 0; i + 1 < args.length; i += 2) {
+            final String value = args[i + 1];
+
+            if ("--threads".equals(args[i])) this.threads = threads(value);
+            else if ("--passes".equals(args[i])) this.passes = Math.max(2, Integer.parseInt(value));
+            else if ("--only".equals(args[i])) this.only = value;
+            else if ("--output".equals(args[i])) this.output = new File(value);
+            else if ("--baseline".equals(args[i])) this.baseline = new File(value);
+            else if ("--tolerance".equals(args[i])) this.tolerance = Double.parseDouble(value);
+            else throw new IllegalArgumentException("Unknown argument " + args[i]);
+        }
+
+        if (this.threads == null) this.threads = defaultThreads(Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * Runs all given benchmarks and writes the report.
+     * 
+     * @param classes The benchmarks to run.
+     * @return True if no regressions were found.
+     * @throws Exception If a benchmark can't be created or the report not be written.
+     */
+    @SuppressWarnings("unchecked")
+    public boolean run(Collection<Class<? extends Benchmark<?>>> classes) throws Exception {
+        final Engine originalEngine = $.executor().engine();
+        final int originalCPUs = $.profileInformation().numCPUs;
+
+        try {
+            for (Class<? extends Benchmark<?>> c : classes) {
+                final Benchmark<Object> benchmark = (Benchmark<Object>) c.newInstance();
+                if (this.only != null && !benchmark.name().contains(this.only)) continue;
+
+                System.err.println(benchmark.name());
+
+                final int[] sizes = benchmark.sizes().length == 0 ? new int[] { -1 } : benchmark.sizes();
+                for (int size : sizes) {
+                    final TaskData<Object> data = size < 0 ? benchmark.data() : benchmark.data(size);
+                    final Object d = data != null ? data.getData() : null;
+
+                    for (TaskSolver<Object> solver : (size < 0 ? benchmark.solver() : benchmark.solver(size))) {
+                        for (int t : this.threads) {
+                            final ForkJoinPool pool = use(t);
+                            try {
+                                final long micros = measure(solver.f(), d);
+                                this.measurements.add(new Measurement(benchmark.name(), solver.name(), size, t, micros));
+                                System.err.println("    " + solver.name() + (size < 0 ? "" : " @" + size) + " x" + t + ": " + micros + "µs");
+                            } catch (RuntimeException e) {
+                                // A broken solver should not stop the others, it just won't be in the report
+                                System.err.println("    " + solver.name() + (size < 0 ? "" : " @" + size) + " x" + t + ": failed (" + e + ")");
+                                break;
+                            } finally {
+                                pool.shutdown();
+                            }
+                        }
+                    }
+                }
+            }
+        } finally {
+            $.profileInformation().numCPUs = originalCPUs;
+            $.executor().defaultEngine(originalEngine);
+        }
+
+        final List<String[]> regressions = regressions();
+        write(report(regressions));
+
+        return regressions.isEmpty();
+    }
+
+    /**
+     * Limits jCores to the given number of threads.
+     * 
+     * @param t The number of threads.
+     * @return The pool the new default engine runs on, to be shut down afterwards.
+     */
+    private static ForkJoinPool use(int t) {
+        final ForkJoinPool pool = new ForkJoinPool(t);
+        $.profileInformation().numCPUs = t;
+        $.executor().defaultEngine(new ForkJoinEngine(pool));
+        return pool;
+    }
+
+    /**
+     * Runs the solver and returns the median of the second half of the passes.
+     * 
+     * @param f The solver.
+     * @param data The data.
+     * @return The time in µs.
+     */
+    private long measure(final F1<Object, Object> f, final Object data) {
+        final BenchmarkResults results = Benchmarker.benchmark(new F0() {
+            @Override
+            public void f() {
+                f.f(data);
+            }
+        }, this.passes);
+
+        return results.lastMedian(this.passes / 2);
+    }
+
+    /**
+     * Compares our measurements with the baseline.
+     * 
+     * @return For each regression the key, the baseline and the current time.
+     * @throws IOException If the baseline can't be read.
+     */
+    private List<String[]> regressions() throws IOException {
+        final List<String[]> rval = new ArrayList<String[]>();
+        if (this.baseline == null) return rval;
+
+        final Map<String, Long> base = load(this.baseline);
+        for (Measurement m : this.measurements) {
+            final Long before = base.get(m.key());
+            if (before == null || Math.max(before.longValue(), m.micros) < MIN_MICROS) continue;
+            if (m.micros <= before.longValue() * (1 + this.tolerance)) continue;
+
+            rval.add(new String[] { m.benchmark, m.solver, size(m.size), Integer.toString(m.threads), before.toString(), Long.toString(m.micros) });
+        }
+
+        return rval;
+    }
+
+    /**
+     * Creates the JSON report.
+     * 
+     * @param regressions The regressions found.
+     * @return The report.
+     */
+    private String report(List<String[]> regressions) {
+        final Map<String, Measurement> byKey = new HashMap<String, Measurement>();
+        for (Measurement m : this.measurements) {
+            byKey.put(m.key(), m);
+        }
+
+        final StringBuilder sb = new StringBuilder();
+        sb.append("{\n");
+        sb.append("  \"cpus\": ").append(Runtime.getRuntime().availableProcessors()).append(",\n");
+        sb.append("  \"threads\": [");
+        for (int i = 0; i < this.threads.length; i++) {
+            sb.append(i > 0 ? ", " : "").append(this.threads[i]);
+        }
+        sb.append("],\n");
+        sb.append("  \"passes\": ").append(this.passes).append(",\n");
+
+        // One line per measurement, so baselines can be read back line by line
+        sb.append("  \"measurements\": [\n");
+        for (int i = 0; i < this.measurements.size(); i++) {
+            final Measurement m = this.measurements.get(i);
+            final Measurement serial = byKey.get(m.key(1));
+            final double speedup = serial == null || m.micros == 0 ? Double.NaN : (double) serial.micros / m.micros;
+
+            sb.append("    {").append(head(m.benchmark, m.solver)).append(", \"size\": ").append(size(m.size));
+            sb.append(", \"threads\": ").append(m.threads);
+            sb.append(", \"micros\": ").append(m.micros);
+            sb.append(", \"speedup\": ").append(number(speedup));
+            sb.append(", \"efficiency\": ").append(number(speedup / m.threads)).append("}");
+            sb.append(i < this.measurements.size() - 1 ? ",\n" : "\n");
+        }
+        sb.append("  ],\n");
+
+        // For each solver with sizes and each thread count the smallest size from which on we beat a single thread
+        final List<String> crossovers = new ArrayList<String>();
+        final Map<String, List<Measurement>> bySolver = new LinkedHashMap<String, List<Measurement>>();
+        for (Measurement m : this.measurements) {
+            if (m.size < 0 || m.threads == 1) continue;
+
+            final String key = m.benchmark + "|" + m.solver + "|" + m.threads;
+            if (!bySolver.containsKey(key)) bySolver.put(key, new ArrayList<Measurement>());
+            bySolver.get(key).add(m);
+        }
+
+        for (List<Measurement> list : bySolver.values()) {
+            Integer crossover = null;
+            for (Measurement m : list) {
+                final Measurement serial = byKey.get(m.key(1));
+                final boolean faster = serial != null && m.micros < serial.micros;
+                if (!faster) crossover = null;
+                else if (crossover == null) crossover = Integer.valueOf(m.size);
+            }
+
+            final Measurement first = list.get(0);
+            crossovers.add("    {" + head(first.benchmark, first.solver) + ", \"threads\": " + first.threads + 
+                           ", \"crossover\": " + (crossover == null ? "null" : crossover.toString()) + "}");
+        }
+
+        sb.append("  \"crossovers\": [\n");
+        for (int i = 0; i < crossovers.size(); i++) {
+            sb.append(crossovers.get(i)).append(i < crossovers.size() - 1 ? ",\n" : "\n");
+        }
+        sb.append("  ],\n");
+
+        sb.append("  \"regressions\": [\n");
+        for (int i = 0; i < regressions.size(); i++) {
+            final String[] r = regressions.get(i);
+            final double ratio = Double.parseDouble(r[5]) / Double.parseDouble(r[4]);
+            sb.append("    {").append(head(r[0], r[1])).append(", \"size\": ").append(r[2]).append(", \"threads\": ").append(r[3]);
+            sb.append(", \"baseline\": ").append(r[4]).append(", \"micros\": ").append(r[5]);
+            sb.append(", \"ratio\": ").append(number(ratio)).append("}");
+            sb.append(i < regressions.size() - 1 ? ",\n" : "\n");
+        }
+        sb.append("  ]\n");
+        sb.append("}\n");
+
+        return sb.toString();
+    }
+
+    /**
+     * Writes the report to our output.
+     * 
+     * @param report The report.
+     * @throws IOException If it can't be written.
+     */
+    private void write(String report) throws IOException {
+        if (this.output == null) {
+            System.out.print(report);
+            return;
+        }
+
+        final Writer writer = new FileWriter(this.output);
+        try {
+            writer.write(report);
+        } finally {
+            writer.close();
+        }
+    }
+
+    /**
+     * Loads the measurements of an earlier report.
+     * 
+     * @param file The report.
+     * @return The times by key.
+     * @throws IOException If it can't be read.
+     */
+    static Map<String, Long> load(File file) throws IOException {
+        final Map<String, Long> rval = new HashMap<String, Long>();
+        final BufferedReader reader = new BufferedReader(new FileReader(file));
+
+        try {
+            for (String line = reader.readLine(); line != null; line = reader.readLine()) {
+                final Matcher matcher = MEASUREMENT.matcher(line);
+                if (!matcher.find()) continue;
+
+                final int size = "null".equals(matcher.group(3)) ? -1 : Integer.parseInt(matcher.group(3));
+                final Measurement m = new Measurement(unescape(matcher.group(1)), unescape(matcher.group(2)), size, 
+                                                      Integer.parseInt(matcher.group(4)), Long.parseLong(matcher.group(5)));
+                rval.put(m.key(), Long.valueOf(m.micros));
+            }
+        } finally {
+            reader.close();
+        }
+
+        return rval;
+    }
+
+    /**
+     * Returns the common start of all JSON objects.
+     * 
+     * @param benchmark The benchmark.
+     * @param solver The solver.
+     * @return The fields.
+     */
+    private static String head(String benchmark, String solver) {
+        return "\"benchmark\": \"" + escape(benchmark) + "\", \"solver\": \"" + escape(solver) + "\"";
+    }
+
+    /**
+     * Formats a size.
+     * 
+     * @param size The size.
+     * @return The JSON value.
+     */
+    private static String size(int size) {
+        return size < 0 ? "null" : Integer.toString(size);
+    }
+
+    /**
+     * Formats a number.
+     * 
+     * @param d The number.
+     * @return The JSON value.
+     */
+    private static String number(double d) {
+        return Double.isNaN(d) || Double.isInfinite(d) ? "null" : String.format(Locale.US, "%.3f", Double.valueOf(d));
+    }
+
+    /**
+     * Escapes a JSON string.
+     * 
+     * @param s The string.
+     * @return The escaped string.
+     */
+    private static String escape(String s) {
+        return s.replace("\\", "\\\\").replace("\"", "\\\"");
+    }
+
+    /**
+     * Reverses <code>escape()</code>.
+     * 
+     * @param s The escaped string.
+     * @return The string.
+     */
+    private static String unescape(String s) {
+        return s.replace("\\\"", "\"").replace("\\\\", "\\");
+    }
+
+    /**
+     * Parses a comma separated list of thread counts.
+     * 
+     * @param value The list.
+     * @return The thread counts, starting with 1.
+     */
+    private static int[] threads(String value) {
+        final List<Integer> list = new ArrayList<Integer>();
+        list.add(Integer.valueOf(1));
+
+        for (String s : value.split(",")) {
+            final Integer t = Integer.valueOf(s.trim());
+            if (t.intValue() > 0 && !list.contains(t)) list.add(t);
+        }
+
+        final int[] rval = new int[list.size()];
+        for (int i = 0; i < rval.length; i++) {
+            rval[i] = list.get(i).intValue();
+        }
+        return rval;
+    }
+
+    /**
+     * Returns the powers of two up to the number of CPUs, and the number of CPUs.
+     * 
+     * @param cpus The number of CPUs.
+     * @return The thread counts.
+     */
+    private static int[] defaultThreads(int cpus) {
+        final StringBuilder sb = new StringBuilder("1");
+        for (int t = 2; t < cpus; t *= 2) {
+            sb.append(",").append(t);
+        }
+        sb.append(",").append(cpus);
+        return threads(sb.toString());
+    }
+}
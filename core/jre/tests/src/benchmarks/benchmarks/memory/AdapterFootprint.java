@@ -0,0 +1,186 @@
+/*
+ * AdapterFootprint.java
+ * 
+ * Copyright (c) 2011, Ralf Biedert All rights reserved.
+ * 
+ * Redistribution and use in source and binary forms, with or without modification, are
+ * permitted provided that the following conditions are met:
+ * 
+ * Redistributions of source code must retain the above copyright notice, this list of
+ * conditions and the following disclaimer. Redistributions in binary form must reproduce the
+ * above copyright notice, this list of conditions and the following disclaimer in the
+ * documentation and/or other materials provided with the distribution.
+ * 
+ * Neither the name of the author nor the names of its contributors may be used to endorse or
+ * promote products derived from this software without specific prior written permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY EXPRESS
+ * OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE
+ * COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL,
+ * EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION)
+ * HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR
+ * TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE,
+ * EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ * 
+ */
+package benchmarks.benchmarks.memory;
+
+import static net.jcores.jre.CoreKeeper.$;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+
+import net.jcores.jre.cores.CoreMap;
+import net.jcores.jre.cores.CoreObject;
+import net.jcores.jre.interfaces.functions.F1;
+import benchmarks.benchmarker.Allocations;
+import benchmarks.benchmarker.Benchmark;
+import benchmarks.model.TaskData;
+import benchmarks.model.TaskSolver;
+
+/**
+ * Wraps the same elements as array (<code>ArrayAdapter</code>), <code>ArrayList</code> 
+ * (<code>ListAdapter</code>), <code>LinkedList</code> (<code>CollectionAdapter</code>) and 
+ * map (<code>MapAdapter</code>). The solvers return the cores, so when run with 
+ * {@link Allocations} the retained heap per element is what each adapter costs on top of the 
+ * wrapped structure. Cores over collections and maps are measured twice, fresh and after 
+ * all elements were accessed once, since these adapters cache what they have seen.
+ * 
+ * @author Ralf Biedert
+ */
+public class AdapterFootprint extends Benchmark<AdapterFootprint.Structures> {
+
+    /** The same elements in all structures we wrap */
+    public static class Structures {
+        /** As array */
+        final Integer[] array;
+
+        /** As array list */
+        final List<Integer> list;
+
+        /** As linked list */
+        final Collection<Integer> collection;
+
+        /** As map */
+        final Map<Integer, Integer> map;
+
+        /**
+         * Creates the structures with the given number of elements.
+         * 
+         * @param size The number of elements.
+         */
+        Structures(int size) {
+            this.array = new Integer[size];
+            this.map = new HashMap<Integer, Integer>();
+
+            for (int i = 0; i < size; i++) {
+                this.array[i] = Integer.valueOf(i);
+                this.map.put(this.array[i], this.array[i]);
+            }
+
+            this.list = new ArrayList<Integer>(Arrays.asList(this.array));
+            this.collection = new LinkedList<Integer>(this.list);
+        }
+    }
+
+    /* (non-Javadoc)
+     * @see benchmarks.benchmarker.Benchmark#data()
+     */
+    @Override
+    public TaskData<Structures> data() {
+        return data(100000);
+    }
+
+    /* (non-Javadoc)
+     * @see benchmarks.benchmarker.Benchmark#sizes()
+     */
+    @Override
+    public int[] sizes() {
+        return new int[] { 1000, 100000 };
+    }
+
+    /* (non-Javadoc)
+     * @see benchmarks.benchmarker.Benchmark#data(int)
+     */
+    @Override
+    public TaskData<Structures> data(int size) {
+        return new TaskData<Structures>(new Structures(size));
+    }
+
+    /* (non-Javadoc)
+     * @see benchmarks.benchmarker.Benchmark#solver()
+     */
+    @Override
+    public Collection<TaskSolver<Structures>> solver() {
+        final Collection<TaskSolver<Structures>> rval = new ArrayList<TaskSolver<Structures>>();
+
+        // ADD SOLVER
+        rval.add(new TaskSolver<Structures>("array.fresh", new F1<Structures, Object>() {
+            @Override
+            public Object f(Structures x) {
+                return $(x.array);
+            }
+        }));
+
+        // ADD SOLVER
+        rval.add(new TaskSolver<Structures>("list.fresh", new F1<Structures, Object>() {
+            @Override
+            public Object f(Structures x) {
+                return $(x.list);
+            }
+        }));
+
+        // ADD SOLVER
+        rval.add(new TaskSolver<Structures>("collection.fresh", new F1<Structures, Object>() {
+            @Override
+            public Object f(Structures x) {
+                return new CoreObject<Integer>($, x.collection);
+            }
+        }));
+
+        // ADD SOLVER
+        rval.add(new TaskSolver<Structures>("collection.accessed", new F1<Structures, Object>() {
+            @Override
+            public Object f(Structures x) {
+                final CoreObject<Integer> core = new CoreObject<Integer>($, x.collection);
+                core.get(-1);
+                return core;
+            }
+        }));
+
+        // ADD SOLVER
+        rval.add(new TaskSolver<Structures>("map.fresh", new F1<Structures, Object>() {
+            @Override
+            public Object f(Structures x) {
+                return $(x.map);
+            }
+        }));
+
+        // ADD SOLVER
+        rval.add(new TaskSolver<Structures>("map.accessed", new F1<Structures, Object>() {
+            @Override
+            public Object f(Structures x) {
+                final CoreMap<Integer, Integer> core = $(x.map);
+                core.get(-1);
+                return core;
+            }
+        }));
+
+        return rval;
+    }
+
+    /* (non-Javadoc)
+     * @see benchmarks.benchmarker.Benchmark#name()
+     */
+    @Override
+    public String name() {
+        return "Adapter Footprint";
+    }
+}
@@ -0,0 +1,192 @@
+/*
+ * OperationAllocations.java
+ * 
+ * Copyright (c) 2011, Ralf Biedert All rights reserved.
+ * 
+ * Redistribution and use in source and binary forms, with or without modification, are
+ * permitted provided that the following conditions are met:
+ * 
+ * Redistributions of source code must retain the above copyright notice, this list of
+ * conditions and the following disclaimer. Redistributions in binary form must reproduce the
+ * above copyright notice, this list of conditions and the following disclaimer in the
+ * documentation and/or other materials provided with the distribution.
+ * 
+ * Neither the name of the author nor the names of its contributors may be used to endorse or
+ * promote products derived from this software without specific prior written permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY EXPRESS
+ * OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE
+ * COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL,
+ * EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION)
+ * HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR
+ * TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE,
+ * EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ * 
+ */
+package benchmarks.benchmarks.memory;
+
+import static net.jcores.jre.CoreKeeper.$;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Random;
+
+import net.jcores.jre.interfaces.functions.F1;
+import net.jcores.jre.interfaces.functions.F1Object2Bool;
+import net.jcores.jre.interfaces.functions.F2ReduceObjects;
+import benchmarks.benchmarker.Allocations;
+import benchmarks.benchmarker.Benchmark;
+import benchmarks.model.TaskData;
+import benchmarks.model.TaskSolver;
+
+/**
+ * The common operations of <code>CoreObject</code>, mostly meant to be run with 
+ * {@link Allocations} to see how many bytes each of them allocates per element.
+ * 
+ * @author Ralf Biedert
+ */
+public class OperationAllocations extends Benchmark<Integer[]> {
+
+    /** Keeps the larger of two numbers */
+    static final F2ReduceObjects<Number> MAX = new F2ReduceObjects<Number>() {
+        @Override
+        public Number f(Number left, Number right) {
+            return left.intValue() > right.intValue() ? left : right;
+        }
+    };
+
+    /* (non-Javadoc)
+     * @see benchmarks.benchmarker.Benchmark#data()
+     */
+    @Override
+    public TaskData<Integer[]> data() {
+        return data(100000);
+    }
+
+    /* (non-Javadoc)
+     * @see benchmarks.benchmarker.Benchmark#sizes()
+     */
+    @Override
+    public int[] sizes() {
+        return new int[] { 1000, 100000 };
+    }
+
+    /* (non-Javadoc)
+     * @see benchmarks.benchmarker.Benchmark#data(int)
+     */
+    @Override
+    public TaskData<Integer[]> data(int size) {
+        final Random random = new Random(0);
+        final Integer[] rval = new Integer[size];
+
+        // Half of the elements are duplicates, every 16th is null
+        for (int i = 0; i < size; i++) {
+            if (i % 16 == 15) continue;
+            rval[i] = Integer.valueOf(random.nextInt(Math.max(1, size / 2)));
+        }
+
+        return new TaskData<Integer[]>(rval);
+    }
+
+    /* (non-Javadoc)
+     * @see benchmarks.benchmarker.Benchmark#solver()
+     */
+    @Override
+    public Collection<TaskSolver<Integer[]>> solver() {
+        final Collection<TaskSolver<Integer[]>> rval = new ArrayList<TaskSolver<Integer[]>>();
+
+        // ADD SOLVER
+        rval.add(new TaskSolver<Integer[]>("map", new F1<Integer[], Object>() {
+            @Override
+            public Object f(Integer[] x) {
+                return $(x).map(new F1<Number, String>() {
+                    @Override
+                    public String f(Number i) {
+                        return i.toString();
+                    }
+                });
+            }
+        }));
+
+        // ADD SOLVER
+        rval.add(new TaskSolver<Integer[]>("filter", new F1<Integer[], Object>() {
+            @Override
+            public Object f(Integer[] x) {
+                return $(x).filter(new F1Object2Bool<Number>() {
+                    @Override
+                    public boolean f(Number i) {
+                        return i.intValue() % 2 == 0;
+                    }
+                });
+            }
+        }));
+
+        // ADD SOLVER
+        rval.add(new TaskSolver<Integer[]>("compact", new F1<Integer[], Object>() {
+            @Override
+            public Object f(Integer[] x) {
+                return $(x).compact();
+            }
+        }));
+
+        // ADD SOLVER
+        rval.add(new TaskSolver<Integer[]>("unique", new F1<Integer[], Object>() {
+            @Override
+            public Object f(Integer[] x) {
+                return $(x).unique();
+            }
+        }));
+
+        // ADD SOLVER
+        rval.add(new TaskSolver<Integer[]>("intersect", new F1<Integer[], Object>() {
+            @Override
+            public Object f(Integer[] x) {
+                return $(x).intersect(x);
+            }
+        }));
+
+        // ADD SOLVER
+        rval.add(new TaskSolver<Integer[]>("sort", new F1<Integer[], Object>() {
+            @Override
+            public Object f(Integer[] x) {
+                return $(x).compact().sort();
+            }
+        }));
+
+        // ADD SOLVER
+        rval.add(new TaskSolver<Integer[]>("reduce", new F1<Integer[], Object>() {
+            @Override
+            public Object f(Integer[] x) {
+                return $(x).reduce(MAX);
+            }
+        }));
+
+        // ADD SOLVER
+        rval.add(new TaskSolver<Integer[]>("fold", new F1<Integer[], Object>() {
+            @Override
+            public Object f(Integer[] x) {
+                return $(x).fold(MAX);
+            }
+        }));
+
+        // ADD SOLVER
+        rval.add(new TaskSolver<Integer[]>("count", new F1<Integer[], Object>() {
+            @Override
+            public Object f(Integer[] x) {
+                return $(x).count();
+            }
+        }));
+
+        return rval;
+    }
+
+    /* (non-Javadoc)
+     * @see benchmarks.benchmarker.Benchmark#name()
+     */
+    @Override
+    public String name() {
+        return "Operation Allocations";
+    }
+}
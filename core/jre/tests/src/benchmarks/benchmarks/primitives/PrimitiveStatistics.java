@@ -0,0 +1,158 @@
+/*
+ * PrimitiveStatistics.java
+ * 
+ * Copyright (c) 2011, Ralf Biedert All rights reserved.
+ * 
+ * Redistribution and use in source and binary forms, with or without modification, are
+ * permitted provided that the following conditions are met:
+ * 
+ * Redistributions of source code must retain the above copyright notice, this list of
+ * conditions and the following disclaimer. Redistributions in binary form must reproduce the
+ * above copyright notice, this list of conditions and the following disclaimer in the
+ * documentation and/or other materials provided with the distribution.
+ * 
+ * Neither the name of the author nor the names of its contributors may be used to endorse or
+ * promote products derived from this software without specific prior written permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY EXPRESS
+ * OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE
+ * COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL,
+ * EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION)
+ * HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR
+ * TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE,
+ * EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ * 
+ */
+package benchmarks.benchmarks.primitives;
+
+import static net.jcores.jre.CoreKeeper.$;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Random;
+
+import net.jcores.jre.interfaces.functions.F1;
+import benchmarks.benchmarker.Benchmark;
+import benchmarks.model.TaskData;
+import benchmarks.model.TaskSolver;
+
+/**
+ * Compares statistics on boxed numbers ({@link net.jcores.jre.cores.CoreNumber}) with the 
+ * ones on primitive values ({@link net.jcores.jre.cores.CoreDouble}).
+ * 
+ * @author Ralf Biedert
+ */
+public class PrimitiveStatistics extends Benchmark<double[]> {
+
+    /* (non-Javadoc)
+     * @see benchmarks.benchmarker.Benchmark#data()
+     */
+    @Override
+    public TaskData<double[]> data() {
+        return data(1000000);
+    }
+
+    /* (non-Javadoc)
+     * @see benchmarks.benchmarker.Benchmark#sizes()
+     */
+    @Override
+    public int[] sizes() {
+        return new int[] { 1000, 10000, 100000, 1000000 };
+    }
+
+    /* (non-Javadoc)
+     * @see benchmarks.benchmarker.Benchmark#data(int)
+     */
+    @Override
+    public TaskData<double[]> data(int size) {
+        final Random random = new Random(0);
+        final double[] values = new double[size];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = random.nextGaussian();
+        }
+
+        return new TaskData<double[]>(values);
+    }
+
+    /* (non-Javadoc)
+     * @see benchmarks.benchmarker.Benchmark#solver()
+     */
+    @Override
+    public Collection<TaskSolver<double[]>> solver() {
+        final Collection<TaskSolver<double[]>> rval = new ArrayList<TaskSolver<double[]>>();
+
+        // ADD SOLVER
+        rval.add(new TaskSolver<double[]>("variance.plain", new F1<double[], Object>() {
+            @Override
+            public Object f(double[] x) {
+                double sum = 0, squares = 0;
+                for (int i = 0; i < x.length; i++) {
+                    sum += x[i];
+                    squares += x[i] * x[i];
+                }
+                final double mean = sum / x.length;
+                return Double.valueOf(squares / x.length - mean * mean);
+            }
+        }));
+
+        // ADD SOLVER
+        rval.add(new TaskSolver<double[]>("variance.number", new F1<double[], Object>() {
+            @Override
+            public Object f(double[] x) {
+                return Double.valueOf($(x).variance());
+            }
+        }));
+
+        // ADD SOLVER
+        rval.add(new TaskSolver<double[]>("variance.doubles", new F1<double[], Object>() {
+            @Override
+            public Object f(double[] x) {
+                return Double.valueOf($.doubles(x).variance());
+            }
+        }));
+
+        // ADD SOLVER
+        rval.add(new TaskSolver<double[]>("sum.number", new F1<double[], Object>() {
+            @Override
+            public Object f(double[] x) {
+                return Double.valueOf($(x).sum());
+            }
+        }));
+
+        // ADD SOLVER
+        rval.add(new TaskSolver<double[]>("sum.doubles", new F1<double[], Object>() {
+            @Override
+            public Object f(double[] x) {
+                return Double.valueOf($.doubles(x).sum());
+            }
+        }));
+
+        // ADD SOLVER
+        rval.add(new TaskSolver<double[]>("sort.number", new F1<double[], Object>() {
+            @Override
+            public Object f(double[] x) {
+                return $(x).sort().get(0);
+            }
+        }));
+
+        // ADD SOLVER
+        rval.add(new TaskSolver<double[]>("sort.doubles", new F1<double[], Object>() {
+            @Override
+            public Object f(double[] x) {
+                return Double.valueOf($.doubles(x).sort().get(0));
+            }
+        }));
+
+        return rval;
+    }
+
+    /* (non-Javadoc)
+     * @see benchmarks.benchmarker.Benchmark#name()
+     */
+    @Override
+    public String name() {
+        return "Primitive Statistics";
+    }
+}
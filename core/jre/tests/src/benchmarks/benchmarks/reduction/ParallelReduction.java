@@ -0,0 +1,161 @@
+/*
+ * ParallelReduction.java
+ * 
+ * Copyright (c) 2011, Ralf Biedert All rights reserved.
+ * 
+ * Redistribution and use in source and binary forms, with or without modification, are
+ * permitted provided that the following conditions are met:
+ * 
+ * Redistributions of source code must retain the above copyright notice, this list of
+ * conditions and the following disclaimer. Redistributions in binary form must reproduce the
+ * above copyright notice, this list of conditions and the following disclaimer in the
+ * documentation and/or other materials provided with the distribution.
+ * 
+ * Neither the name of the author nor the names of its contributors may be used to endorse or
+ * promote products derived from this software without specific prior written permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY EXPRESS
+ * OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE
+ * COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL,
+ * EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION)
+ * HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR
+ * TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE,
+ * EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ * 
+ */
+package benchmarks.benchmarks.reduction;
+
+import static net.jcores.jre.CoreKeeper.$;
+
+import java.util.ArrayList;
+import java.util.Collection;
+
+import net.jcores.jre.cores.CoreNumber;
+import net.jcores.jre.interfaces.functions.F1;
+import net.jcores.jre.interfaces.functions.F2ReduceObjects;
+import net.jcores.jre.options.Associative;
+import net.jcores.jre.options.Execution;
+import benchmarks.benchmarker.Benchmark;
+import benchmarks.model.TaskData;
+import benchmarks.model.TaskSolver;
+
+/**
+ * Compares the sequential <code>reduce()</code>, the shared array <code>fold()</code> and 
+ * the chunk-wise tree reduction enabled by {@link Associative}.
+ * 
+ * @author Ralf Biedert
+ */
+public class ParallelReduction extends Benchmark<CoreNumber> {
+
+    /** Sums up two numbers */
+    static final F2ReduceObjects<Number> SUM = new F2ReduceObjects<Number>() {
+        @Override
+        public Number f(Number left, Number right) {
+            return Double.valueOf(left.doubleValue() + right.doubleValue());
+        }
+    };
+
+    /* (non-Javadoc)
+     * @see benchmarks.benchmarker.Benchmark#data()
+     */
+    @Override
+    public TaskData<CoreNumber> data() {
+        return data(1000000);
+    }
+
+    /* (non-Javadoc)
+     * @see benchmarks.benchmarker.Benchmark#sizes()
+     */
+    @Override
+    public int[] sizes() {
+        return new int[] { 1000, 10000, 100000, 1000000 };
+    }
+
+    /* (non-Javadoc)
+     * @see benchmarks.benchmarker.Benchmark#data(int)
+     */
+    @Override
+    public TaskData<CoreNumber> data(int size) {
+        return new TaskData<CoreNumber>($.range(size));
+    }
+
+    /* (non-Javadoc)
+     * @see benchmarks.benchmarker.Benchmark#solver()
+     */
+    @Override
+    public Collection<TaskSolver<CoreNumber>> solver() {
+        final Collection<TaskSolver<CoreNumber>> rval = new ArrayList<TaskSolver<CoreNumber>>();
+
+        // ADD SOLVER
+        rval.add(new TaskSolver<CoreNumber>("sum.plain", new F1<CoreNumber, Object>() {
+            @Override
+            public Object f(CoreNumber x) {
+                double sum = 0;
+                for (int i = 0; i < x.size(); i++) {
+                    sum += x.get(i).doubleValue();
+                }
+                return Double.valueOf(sum);
+            }
+        }));
+
+        // ADD SOLVER
+        rval.add(new TaskSolver<CoreNumber>("sum.sum", new F1<CoreNumber, Object>() {
+            @Override
+            public Object f(CoreNumber x) {
+                return Double.valueOf(x.sum());
+            }
+        }));
+
+        // ADD SOLVER
+        rval.add(new TaskSolver<CoreNumber>("sum.reduce", new F1<CoreNumber, Object>() {
+            @Override
+            public Object f(CoreNumber x) {
+                return x.reduce(SUM).get(0);
+            }
+        }));
+
+        // ADD SOLVER
+        rval.add(new TaskSolver<CoreNumber>("sum.reduce.associative", new F1<CoreNumber, Object>() {
+            @Override
+            public Object f(CoreNumber x) {
+                return x.reduce(SUM, Associative.DO).get(0);
+            }
+        }));
+
+        // ADD SOLVER
+        rval.add(new TaskSolver<CoreNumber>("sum.fold.barrier", new F1<CoreNumber, Object>() {
+            @Override
+            public Object f(CoreNumber x) {
+                return x.fold(SUM, Execution.BARRIER).get(0);
+            }
+        }));
+
+        // ADD SOLVER
+        rval.add(new TaskSolver<CoreNumber>("sum.fold.forkjoin", new F1<CoreNumber, Object>() {
+            @Override
+            public Object f(CoreNumber x) {
+                return x.fold(SUM, Execution.FORKJOIN).get(0);
+            }
+        }));
+
+        // ADD SOLVER
+        rval.add(new TaskSolver<CoreNumber>("sum.fold.associative", new F1<CoreNumber, Object>() {
+            @Override
+            public Object f(CoreNumber x) {
+                return x.fold(SUM, Associative.DO).get(0);
+            }
+        }));
+
+        return rval;
+    }
+
+    /* (non-Javadoc)
+     * @see benchmarks.benchmarker.Benchmark#name()
+     */
+    @Override
+    public String name() {
+        return "Parallel Reduction";
+    }
+}
@@ -0,0 +1,242 @@
+/*
+ * SetOperations.java
+ * 
+ * Copyright (c) 2011, Ralf Biedert All rights reserved.
+ * 
+ * Redistribution and use in source and binary forms, with or without modification, are
+ * permitted provided that the following conditions are met:
+ * 
+ * Redistributions of source code must retain the above copyright notice, this list of
+ * conditions and the following disclaimer. Redistributions in binary form must reproduce the
+ * above copyright notice, this list of conditions and the following disclaimer in the
+ * documentation and/or other materials provided with the distribution.
+ * 
+ * Neither the name of the author nor the names of its contributors may be used to endorse or
+ * promote products derived from this software without specific prior written permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY EXPRESS
+ * OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE
+ * COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL,
+ * EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION)
+ * HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR
+ * TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE,
+ * EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ * 
+ */
+package benchmarks.benchmarks.sets;
+
+import static net.jcores.jre.CoreKeeper.$;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Random;
+
+import net.jcores.jre.interfaces.functions.F1;
+import benchmarks.benchmarker.Benchmark;
+import benchmarks.model.TaskData;
+import benchmarks.model.TaskSolver;
+
+/**
+ * Compares the hash based <code>unique()</code> and <code>intersect()</code> with the nested
+ * loops they used before, for growing core sizes. The sizes at which the hash based variant
+ * wins determine <code>NESTED_PAIRS</code> in <code>CoreObject</code>.
+ * 
+ * @author Ralf Biedert
+ */
+public class SetOperations extends Benchmark<Integer[][]> {
+
+    /** The sizes we test */
+    static final int[] SIZES = { 4, 8, 16, 32, 64, 256, 1024, 8192, 65536 };
+
+    /** Up to which size we run the nested loops */
+    static final int NESTED_LIMIT = 8192;
+
+    /* (non-Javadoc)
+     * @see benchmarks.benchmarker.Benchmark#data()
+     */
+    @Override
+    public TaskData<Integer[][]> data() {
+        final Random random = new Random(0);
+        final Integer[][] rval = new Integer[SIZES.length][];
+
+        for (int s = 0; s < SIZES.length; s++) {
+            rval[s] = values(random, SIZES[s]);
+        }
+
+        return new TaskData<Integer[][]>(rval);
+    }
+
+    /* (non-Javadoc)
+     * @see benchmarks.benchmarker.Benchmark#sizes()
+     */
+    @Override
+    public int[] sizes() {
+        return SIZES.clone();
+    }
+
+    /* (non-Javadoc)
+     * @see benchmarks.benchmarker.Benchmark#data(int)
+     */
+    @Override
+    public TaskData<Integer[][]> data(int size) {
+        final Random random = new Random(0);
+        return new TaskData<Integer[][]>(new Integer[][] { values(random, size), values(random, Math.max(1, size / 2)) });
+    }
+
+    /* (non-Javadoc)
+     * @see benchmarks.benchmarker.Benchmark#solver()
+     */
+    @Override
+    public Collection<TaskSolver<Integer[][]>> solver() {
+        final Collection<TaskSolver<Integer[][]>> rval = new ArrayList<TaskSolver<Integer[][]>>();
+
+        for (int s = 0; s < SIZES.length; s++) {
+            solvers(rval, "." + SIZES[s], SIZES[s], s, s > 0 ? s - 1 : s);
+        }
+
+        return rval;
+    }
+
+    /* (non-Javadoc)
+     * @see benchmarks.benchmarker.Benchmark#solver(int)
+     */
+    @Override
+    public Collection<TaskSolver<Integer[][]>> solver(int size) {
+        final Collection<TaskSolver<Integer[][]>> rval = new ArrayList<TaskSolver<Integer[][]>>();
+        solvers(rval, "", size, 0, 1);
+        return rval;
+    }
+
+    /**
+     * Creates <code>size</code> random values, half of which are duplicates.
+     * 
+     * @param random The random generator to use.
+     * @param size The number of values.
+     * @return The values.
+     */
+    static Integer[] values(Random random, int size) {
+        final Integer[] rval = new Integer[size];
+        for (int i = 0; i < size; i++) {
+            rval[i] = Integer.valueOf(random.nextInt(Math.max(1, size / 2)));
+        }
+        return rval;
+    }
+
+    /**
+     * Adds the solvers for one size.
+     * 
+     * @param rval The collection to add to.
+     * @param suffix The suffix of the solver names.
+     * @param size The size of the values.
+     * @param index The index of the values in the data.
+     * @param other The index of the values to intersect with.
+     */
+    static void solvers(Collection<TaskSolver<Integer[][]>> rval, String suffix, int size, final int index, final int other) {
+        final int repeat = Math.max(1, 65536 / size);
+
+        // ADD SOLVER
+        if (size <= NESTED_LIMIT) rval.add(new TaskSolver<Integer[][]>("unique.nested" + suffix, new F1<Integer[][], Object>() {
+            @Override
+            public Object f(Integer[][] x) {
+                int v = 0;
+                for (int r = 0; r < repeat; r++) {
+                    v += nestedUnique(x[index]);
+                }
+                return Integer.valueOf(v);
+            }
+        }));
+
+        // ADD SOLVER
+        rval.add(new TaskSolver<Integer[][]>("unique.jcores" + suffix, new F1<Integer[][], Object>() {
+            @Override
+            public Object f(Integer[][] x) {
+                int v = 0;
+                for (int r = 0; r < repeat; r++) {
+                    v += $(x[index]).unique().size();
+                }
+                return Integer.valueOf(v);
+            }
+        }));
+
+        // ADD SOLVER
+        if (size <= NESTED_LIMIT) rval.add(new TaskSolver<Integer[][]>("intersect.nested" + suffix, new F1<Integer[][], Object>() {
+            @Override
+            public Object f(Integer[][] x) {
+                int v = 0;
+                for (int r = 0; r < repeat; r++) {
+                    v += nestedIntersect(x[index], x[other]);
+                }
+                return Integer.valueOf(v);
+            }
+        }));
+
+        // ADD SOLVER
+        rval.add(new TaskSolver<Integer[][]>("intersect.jcores" + suffix, new F1<Integer[][], Object>() {
+            @Override
+            public Object f(Integer[][] x) {
+                int v = 0;
+                for (int r = 0; r < repeat; r++) {
+                    v += $(x[index]).intersect(x[other]).size();
+                }
+                return Integer.valueOf(v);
+            }
+        }));
+    }
+
+    /**
+     * The nested loop unique() used before.
+     * 
+     * @param values The values.
+     * @return The number of unique values.
+     */
+    static int nestedUnique(Integer[] values) {
+        final Integer[] copy = values.clone();
+        int rval = 0;
+
+        for (int i = 0; i < copy.length; i++) {
+            if (copy[i] == null) continue;
+            rval++;
+
+            for (int j = 0; j < i; j++) {
+                if (copy[i].equals(copy[j])) {
+                    copy[i] = null;
+                    rval--;
+                    break;
+                }
+            }
+        }
+
+        return rval;
+    }
+
+    /**
+     * The nested loop intersect() used before.
+     * 
+     * @param values The values.
+     * @param other The values to intersect with.
+     * @return The number of values in the intersection.
+     */
+    static int nestedIntersect(Integer[] values, Integer[] other) {
+        int rval = 0;
+
+        for (int i = 0; i < values.length; i++) {
+            for (Integer x : other) {
+                if (x == null || !x.equals(values[i])) continue;
+                rval++;
+                break;
+            }
+        }
+
+        return rval;
+    }
+
+    /* (non-Javadoc)
+     * @see benchmarks.benchmarker.Benchmark#name()
+     */
+    @Override
+    public String name() {
+        return "Set Operations";
+    }
+}
@@ -0,0 +1,167 @@
+/*
+ * ParallelSort.java
+ * 
+ * Copyright (c) 2011, Ralf Biedert All rights reserved.
+ * 
+ * Redistribution and use in source and binary forms, with or without modification, are
+ * permitted provided that the following conditions are met:
+ * 
+ * Redistributions of source code must retain the above copyright notice, this list of
+ * conditions and the following disclaimer. Redistributions in binary form must reproduce the
+ * above copyright notice, this list of conditions and the following disclaimer in the
+ * documentation and/or other materials provided with the distribution.
+ * 
+ * Neither the name of the author nor the names of its contributors may be used to endorse or
+ * promote products derived from this software without specific prior written permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY EXPRESS
+ * OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE
+ * COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL,
+ * EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION)
+ * HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR
+ * TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE,
+ * EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ * 
+ */
+package benchmarks.benchmarks.sorting;
+
+import static net.jcores.jre.CoreKeeper.$;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Random;
+
+import net.jcores.jre.interfaces.functions.F1;
+import net.jcores.jre.options.Top;
+import benchmarks.benchmarker.Benchmark;
+import benchmarks.model.TaskData;
+import benchmarks.model.TaskSolver;
+
+/**
+ * Compares <code>sort()</code> and <code>sort(Top.K(10))</code> with a plain 
+ * <code>Arrays.sort()</code>, for growing core sizes. The size at which the parallel sort wins 
+ * determines <code>SORT_CUTOFF</code> in <code>CoreObject</code>.
+ * 
+ * @author Ralf Biedert
+ */
+public class ParallelSort extends Benchmark<String[][]> {
+
+    /** The sizes we test */
+    static final int[] SIZES = { 1024, 8192, 65536, 1024 * 1024 };
+
+    /* (non-Javadoc)
+     * @see benchmarks.benchmarker.Benchmark#data()
+     */
+    @Override
+    public TaskData<String[][]> data() {
+        final Random random = new Random(0);
+        final String[][] rval = new String[SIZES.length][];
+
+        for (int s = 0; s < SIZES.length; s++) {
+            rval[s] = values(random, SIZES[s]);
+        }
+
+        return new TaskData<String[][]>(rval);
+    }
+
+    /* (non-Javadoc)
+     * @see benchmarks.benchmarker.Benchmark#sizes()
+     */
+    @Override
+    public int[] sizes() {
+        return SIZES.clone();
+    }
+
+    /* (non-Javadoc)
+     * @see benchmarks.benchmarker.Benchmark#data(int)
+     */
+    @Override
+    public TaskData<String[][]> data(int size) {
+        return new TaskData<String[][]>(new String[][] { values(new Random(0), size) });
+    }
+
+    /* (non-Javadoc)
+     * @see benchmarks.benchmarker.Benchmark#solver()
+     */
+    @Override
+    public Collection<TaskSolver<String[][]>> solver() {
+        final Collection<TaskSolver<String[][]>> rval = new ArrayList<TaskSolver<String[][]>>();
+
+        for (int s = 0; s < SIZES.length; s++) {
+            solvers(rval, "." + SIZES[s], s);
+        }
+
+        return rval;
+    }
+
+    /* (non-Javadoc)
+     * @see benchmarks.benchmarker.Benchmark#solver(int)
+     */
+    @Override
+    public Collection<TaskSolver<String[][]>> solver(int size) {
+        final Collection<TaskSolver<String[][]>> rval = new ArrayList<TaskSolver<String[][]>>();
+        solvers(rval, "", 0);
+        return rval;
+    }
+
+    /**
+     * Creates <code>size</code> random strings.
+     * 
+     * @param random The random generator to use.
+     * @param size The number of strings.
+     * @return The strings.
+     */
+    static String[] values(Random random, int size) {
+        final String[] rval = new String[size];
+        for (int i = 0; i < size; i++) {
+            rval[i] = Integer.toString(random.nextInt());
+        }
+        return rval;
+    }
+
+    /**
+     * Adds the solvers for one size.
+     * 
+     * @param rval The collection to add to.
+     * @param suffix The suffix of the solver names.
+     * @param index The index of the strings in the data.
+     */
+    static void solvers(Collection<TaskSolver<String[][]>> rval, String suffix, final int index) {
+        // ADD SOLVER
+        rval.add(new TaskSolver<String[][]>("sort.arrays" + suffix, new F1<String[][], Object>() {
+            @Override
+            public Object f(String[][] x) {
+                final String[] copy = x[index].clone();
+                Arrays.sort(copy);
+                return copy[0];
+            }
+        }));
+
+        // ADD SOLVER
+        rval.add(new TaskSolver<String[][]>("sort.jcores" + suffix, new F1<String[][], Object>() {
+            @Override
+            public Object f(String[][] x) {
+                return $(x[index]).sort().get(0);
+            }
+        }));
+
+        // ADD SOLVER
+        rval.add(new TaskSolver<String[][]>("top10.jcores" + suffix, new F1<String[][], Object>() {
+            @Override
+            public Object f(String[][] x) {
+                return $(x[index]).sort(Top.K(10)).get(0);
+            }
+        }));
+    }
+
+    /* (non-Javadoc)
+     * @see benchmarks.benchmarker.Benchmark#name()
+     */
+    @Override
+    public String name() {
+        return "Parallel Sort";
+    }
+}
@@ -0,0 +1,138 @@
+/*
+ * StartupTime.java
+ * 
+ * Copyright (c) 2011, Ralf Biedert All rights reserved.
+ * 
+ * Redistribution and use in source and binary forms, with or without modification, are
+ * permitted provided that the following conditions are met:
+ * 
+ * Redistributions of source code must retain the above copyright notice, this list of
+ * conditions and the following disclaimer. Redistributions in binary form must reproduce the
+ * above copyright notice, this list of conditions and the following disclaimer in the
+ * documentation and/or other materials provided with the distribution.
+ * 
+ * Neither the name of the author nor the names of its contributors may be used to endorse or
+ * promote products derived from this software without specific prior written permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY EXPRESS
+ * OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE
+ * COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL,
+ * EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION)
+ * HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR
+ * TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE,
+ * EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ * 
+ */
+package benchmarks.benchmarks.startup;
+
+import static net.jcores.jre.CoreKeeper.$;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Collection;
+
+import net.jcores.jre.interfaces.functions.F1;
+import net.jcores.jre.managers.ManagerExecution;
+import benchmarks.benchmarker.Benchmark;
+import benchmarks.model.TaskData;
+import benchmarks.model.TaskSolver;
+
+/**
+ * Measures the time to the first <code>$()</code> call (including its first parallel 
+ * decision) in a fresh VM, without jCores, with jCores, and with jCores and a cached
+ * calibration. Each run starts a new VM, so the differences between the solvers are what
+ * jCores adds to the startup of short-lived applications.
+ * 
+ * @author Ralf Biedert
+ */
+public class StartupTime extends Benchmark<Object> {
+
+    /** The calibration cache the cached runs share */
+    static final File CACHE = new File(System.getProperty("java.io.tmpdir"), "jcores-startup-benchmark.properties");
+
+    /* (non-Javadoc)
+     * @see benchmarks.benchmarker.Benchmark#data()
+     */
+    @Override
+    public TaskData<Object> data() {
+        return null;
+    }
+
+    /* (non-Javadoc)
+     * @see benchmarks.benchmarker.Benchmark#solver()
+     */
+    @Override
+    public Collection<TaskSolver<Object>> solver() {
+        final Collection<TaskSolver<Object>> rval = new ArrayList<TaskSolver<Object>>();
+
+        // ADD SOLVER
+        rval.add(new TaskSolver<Object>("startup.plain", spawn("plain", false)));
+
+        // ADD SOLVER
+        rval.add(new TaskSolver<Object>("startup.jcores", spawn("jcores", false)));
+
+        // ADD SOLVER
+        rval.add(new TaskSolver<Object>("startup.jcores.cached", spawn("jcores", true)));
+
+        return rval;
+    }
+
+    /**
+     * Returns a solver that runs this class in a new VM and waits for it.
+     * 
+     * @param mode The mode passed to <code>main()</code>.
+     * @param cached If the calibration cache should be used.
+     * @return The solver.
+     */
+    static F1<Object, Object> spawn(final String mode, final boolean cached) {
+        return new F1<Object, Object>() {
+            @Override
+            public Object f(Object x) {
+                final String java = System.getProperty("java.home") + File.separator + "bin" + File.separator + "java";
+                final String cache = "-D" + ManagerExecution.PROFILE_CACHE + "=" + (cached ? CACHE.getAbsolutePath() : "");
+
+                try {
+                    final Process process = new ProcessBuilder(java, cache, "-cp", System.getProperty("java.class.path"), 
+                                                               StartupTime.class.getName(), mode).inheritIO().start();
+                    return Integer.valueOf(process.waitFor());
+                } catch (Exception e) {
+                    e.printStackTrace();
+                    return null;
+                }
+            }
+        };
+    }
+
+    /**
+     * Runs in the spawned VM.
+     * 
+     * @param args The mode, <code>plain</code> or <code>jcores</code>.
+     */
+    public static void main(String[] args) {
+        final String[] strings = { "a", "b", "c", "d" };
+
+        if ("plain".equals(args[0])) {
+            for (int i = 0; i < strings.length; i++) {
+                strings[i] = strings[i].toUpperCase();
+            }
+            return;
+        }
+
+        $(strings).map(new F1<String, String>() {
+            @Override
+            public String f(String x) {
+                return x.toUpperCase();
+            }
+        });
+    }
+
+    /* (non-Javadoc)
+     * @see benchmarks.benchmarker.Benchmark#name()
+     */
+    @Override
+    public String name() {
+        return "Startup Time";
+    }
+}
@@ -40,7 +40,9 @@ import net.jcores.jre.cores.CoreMap;
 import net.jcores.jre.cores.CoreNumber;
 import net.jcores.jre.cores.CoreObject;
 import net.jcores.jre.cores.adapter.CollectionAdapter;
+import net.jcores.jre.cores.adapter.ConcatAdapter;
 import net.jcores.jre.cores.adapter.MapAdapter;
+import net.jcores.jre.cores.adapter.ViewAdapter;
 import net.jcores.jre.interfaces.functions.F1;
 import net.jcores.jre.utils.map.MapEntry;
 
@@ -93,6 +95,97 @@ public class AdapterTest {
         }
     }
 
+    /** */
+    @Test
+    public void testCollectionSegments() {
+        final int size = 3 * CollectionAdapter.SEGMENT + 7;
+        final List<Integer> linked = new LinkedList<Integer>();
+        for (int i = 0; i < size; i++) {
+            linked.add(Integer.valueOf(i));
+        }
+
+        // Slices across segment boundaries, read before the segments were pulled
+        final CoreObject<Integer> x = $(linked);
+        final CoreObject<Integer> slice = x.slice(CollectionAdapter.SEGMENT - 2, 4);
+        Assert.assertEquals(Integer.valueOf(CollectionAdapter.SEGMENT + 1), slice.get(-1));
+        Assert.assertEquals(Integer.valueOf(size - 1), x.get(-1));
+        Assert.assertEquals(size, x.array(Integer.class).length);
+        Assert.assertEquals(Integer.valueOf(CollectionAdapter.SEGMENT - 1), slice.array(Integer.class)[1]);
+
+        // The converter runs on all segments
+        final CoreObject<String> converted = $(linked, new F1<Integer, String>() {
+            @Override
+            public String f(Integer i) {
+                return i.toString();
+            }
+        });
+        Assert.assertEquals(size, converted.size());
+        Assert.assertEquals("" + (size - 1), converted.get(-1));
+        Assert.assertEquals("" + CollectionAdapter.SEGMENT, converted.get(CollectionAdapter.SEGMENT));
+
+        // Converted segments are shared between slices
+        final Map<Integer, Integer> map = $.map();
+        for (Integer i : linked) {
+            map.put(i, i);
+        }
+        final CoreMap<Integer, Integer> m = $(map);
+        final MapEntry<Integer, Integer> entry = m.slice(CollectionAdapter.SEGMENT, 1).get(0);
+        Assert.assertSame(entry, m.get(CollectionAdapter.SEGMENT));
+        Assert.assertEquals(entry.key(), entry.value());
+
+        // Subclasses only overriding the converter are converted as well
+        final CollectionAdapter<Integer, String> strings = new CollectionAdapter<Integer, String>(linked) {
+            /** */
+            private static final long serialVersionUID = 1L;
+
+            @Override
+            protected String converter(Integer i) {
+                return "#" + i;
+            }
+        };
+        Assert.assertEquals("#" + (size - 1), strings.get(size - 1));
+        Assert.assertEquals("#3", strings.slice(2, 4).get(1));
+        Assert.assertEquals("#0", strings.iterator().next());
+    }
+
+    /** */
+    @Test
+    public void testViewAdapters() {
+        final String[] array = new String[] { "a", "b", "c", "d", "e", "f" };
+        final CoreObject<String> x = $(array);
+
+        // Views share the array
+        final CoreObject<String> slice = x.slice(1, 4);
+        Assert.assertTrue(slice.unsafeadapter() instanceof ViewAdapter);
+        Assert.assertEquals("bcde", slice.string().join());
+        Assert.assertEquals("edcb", slice.reverse().string().join());
+        Assert.assertEquals("dc", slice.reverse().slice(1, 2).string().join());
+        Assert.assertEquals("cd", slice.reverse().slice(1, 2).reverse().string().join());
+        Assert.assertEquals("fedcba", x.reverse().string().join());
+        Assert.assertEquals("abcdef", x.random(1.0).sort().string().join());
+        Assert.assertEquals(8, x.random(8).size());
+        Assert.assertEquals(6, x.random(8).compact().size());
+        Assert.assertEquals(String.class, x.slice(1, 2).unsafeadapter().array().getClass().getComponentType());
+
+        // Writing gives the view its own copy
+        final List<String> list = slice.reverse().unsafelist();
+        list.set(0, "x");
+        Assert.assertEquals("x", list.get(0));
+        Assert.assertEquals("e", array[4]);
+        Assert.assertEquals("bcde", slice.string().join());
+
+        // Joined cores share their parts
+        final CoreObject<String> joined = x.slice(0, 2).add(slice.reverse()).add("z");
+        Assert.assertTrue(joined.unsafeadapter() instanceof ConcatAdapter);
+        Assert.assertEquals("abedcbz", joined.string().join());
+        Assert.assertEquals("edc", joined.slice(2, 3).string().join());
+        Assert.assertEquals(7, joined.unsafearray().length);
+
+        final LinkedList<String> linked = new LinkedList<String>(Arrays.asList(array));
+        Assert.assertEquals("fedcba", $(linked).reverse().string().join());
+        Assert.assertEquals("abcdefabcdef", $(linked).add(x).string().join());
+    }
+
     /** */
     @SuppressWarnings("boxing")
     @Test
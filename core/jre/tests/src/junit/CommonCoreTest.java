@@ -29,14 +29,22 @@ package junit;
 
 import static net.jcores.jre.CoreKeeper.$;
 
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.nio.ByteBuffer;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicReference;
 
+import net.jcores.jre.cores.CoreNumber;
 import net.jcores.jre.interfaces.functions.F0R;
+import net.jcores.jre.interfaces.functions.F1;
 import net.jcores.jre.interfaces.functions.F1V;
+import net.jcores.jre.managers.ManagerExecution;
 import net.jcores.jre.options.KillSwitch;
 import net.jcores.jre.utils.Async;
+import net.jcores.jre.utils.internal.structures.BufferPool;
 import net.jcores.jre.utils.map.MapUtil;
 import net.jcores.jre.utils.map.generators.NewUnsafeInstance;
 
@@ -128,4 +136,98 @@ public class CommonCoreTest {
         Assert.assertEquals(0, async.available().size());
     }
 
+    /** Tests if nested parallel operations work and return their CPUs. */
+    @Test
+    public void testCPUBudget() {
+        final int numCPUs = $.profileInformation().numCPUs;
+        final AtomicInteger maxUsed = new AtomicInteger();
+
+        final List<Integer> sums = $.range(64).map(new F1<Number, Integer>() {
+            @Override
+            public Integer f(Number x) {
+                final int used = $.usedCPUs();
+                if (used > maxUsed.get()) maxUsed.set(used);
+
+                $.sys.sleep(1);
+                return Integer.valueOf((int) $.range(x.intValue() + 1).map(new F1<Number, Integer>() {
+                    @Override
+                    public Integer f(Number y) {
+                        return Integer.valueOf(y.intValue());
+                    }
+                }).as(CoreNumber.class).sum());
+            }
+        }).list();
+
+        Assert.assertEquals(64, sums.size());
+        Assert.assertEquals(Integer.valueOf(63 * 64 / 2), sums.get(63));
+        Assert.assertTrue(maxUsed.get() <= numCPUs);
+        Assert.assertEquals(0, $.usedCPUs());
+    }
+
+    /** Tests if calibrations are cached. */
+    @Test
+    public void testProfileCache() throws Exception {
+        final File cache = File.createTempFile("jcores", ".properties");
+        cache.delete();
+
+        final ManagerExecution first = new ManagerExecution();
+        first.profileCache(cache);
+        Assert.assertTrue(first.getProfile().forkTime > 0);
+        Assert.assertTrue(cache.exists());
+
+        final ManagerExecution second = new ManagerExecution();
+        second.profileCache(cache);
+        Assert.assertTrue(second.getProfile().forkTime > 0);
+        Assert.assertEquals(first.getProfile().numCPUs, second.getProfile().numCPUs);
+
+        cache.delete();
+    }
+
+    /** Tests if buffers are pooled and reused. */
+    @Test
+    public void testBufferPool() {
+        final BufferPool pool = new BufferPool(1);
+
+        // Sizes are rounded up to their class, oversized buffers are never pooled
+        final byte[] a = pool.array(5000);
+        Assert.assertEquals(8192, a.length);
+        Assert.assertEquals(BufferPool.MAX + 1, pool.array(BufferPool.MAX + 1).length);
+
+        pool.release(a);
+        pool.release(new byte[8192]);
+        pool.release(new byte[5000]);
+        Assert.assertEquals(1, pool.getPooledBuffers());
+        Assert.assertEquals(8192, pool.getPooledHeapBytes());
+        Assert.assertEquals(2, pool.getDiscarded());
+        Assert.assertSame(a, pool.array(6000));
+
+        final ByteBuffer d = pool.direct(100);
+        Assert.assertTrue(d.isDirect());
+        Assert.assertEquals(BufferPool.MIN, d.capacity());
+        d.position(10);
+        pool.release(d);
+        Assert.assertEquals(BufferPool.MIN, pool.getPooledDirectBytes());
+        Assert.assertSame(d, pool.direct(BufferPool.MIN));
+        Assert.assertEquals(0, d.position());
+
+        Assert.assertEquals(5, pool.getAcquired());
+        Assert.assertEquals(2, pool.getReused());
+        Assert.assertEquals(3, pool.getAllocated());
+
+        pool.release(d);
+        pool.clear();
+        Assert.assertEquals(0, pool.getPooledBuffers());
+
+        // Streams read through the shared pool and hand their buffers back
+        final byte[] data = new byte[3 * BufferPool.MAX + 17];
+        $.random().nextBytes(data);
+
+        final long reused = $.buffers().getReused();
+        for (int i = 0; i < 3; i++) {
+            final ByteBuffer read = $(new ByteArrayInputStream(data)).data().get(0);
+            Assert.assertEquals(data.length, read.remaining());
+            Assert.assertEquals(ByteBuffer.wrap(data), read);
+        }
+        Assert.assertTrue($.buffers().getReused() >= reused + 2);
+    }
 }
@@ -29,12 +29,27 @@ package junit;
 
 import static net.jcores.jre.CoreKeeper.$;
 
+import java.io.BufferedWriter;
 import java.io.File;
+import java.io.FileOutputStream;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.MappedByteBuffer;
+import java.nio.charset.Charset;
 
+import net.jcores.jre.cores.CoreByteBuffer;
 import net.jcores.jre.cores.CoreFile;
+import net.jcores.jre.cores.CoreNumber;
 import net.jcores.jre.cores.CoreString;
+import net.jcores.jre.cores.adapter.LinesAdapter;
+import net.jcores.jre.cores.adapter.LinesAdapter.Chunk;
 import net.jcores.jre.interfaces.functions.F1;
 import net.jcores.jre.interfaces.functions.F2ReduceObjects;
+import net.jcores.jre.options.Execution;
+import net.jcores.jre.options.ListDirectories;
+import net.jcores.jre.options.Mapped;
+import net.jcores.jre.options.Walk;
 
 import org.junit.Assert;
 import org.junit.Test;
@@ -116,6 +131,87 @@ public class CoreFileTest {
     }
     
     
+    /** */
+    @Test
+    public void testData() {
+        final File a = $.sys.tempfile();
+        final File b = $.sys.tempfile();
+        $(a).append("hello world");
+        $(b).append("");
+
+        final CoreByteBuffer heap = $(a, b).data();
+        final CoreByteBuffer mapped = $(a, b).data(Mapped.DO);
+        Assert.assertTrue(mapped.get(0) instanceof MappedByteBuffer);
+        Assert.assertEquals(11, heap.get(0).remaining());
+        Assert.assertEquals(11, mapped.get(0).remaining());
+
+        final String hash = $("hello world").bytes().hash().get(0);
+        Assert.assertEquals(hash, heap.hash().get(0));
+        Assert.assertEquals(hash, mapped.hash().get(0));
+        Assert.assertEquals($("").bytes().hash().get(0), mapped.hash().get(1));
+        Assert.assertNull($(new File("does.not.exist")).data(Mapped.DO).get(0));
+    }
+
+    /** */
+    @Test
+    public void testLines() throws IOException {
+        final File file = $.sys.tempfile();
+        final int n = 300000;
+
+        // Spans several chunks, one line break is \r\n and the last line has none
+        final Writer writer = new BufferedWriter(new FileWriter(file));
+        for (int i = 0; i < n; i++) {
+            writer.write("line " + i + (i == 7 ? "\r\n" : i == n - 1 ? "" : "\n"));
+        }
+        writer.close();
+        Assert.assertTrue(file.length() > 2 * LinesAdapter.CHUNK);
+
+        final CoreString lines = $(file).lines();
+        Assert.assertEquals(n, lines.size());
+        Assert.assertEquals("line 0", lines.get(0));
+        Assert.assertEquals("line 7", lines.get(7));
+        Assert.assertEquals("line " + (n - 1), lines.get(-1));
+        Assert.assertEquals(n, lines.filter("line [0-9]+").size());
+        Assert.assertEquals((long) n * (n - 1) / 2, (long) lines.map(new F1<String, Integer>() {
+            public Integer f(String x) {
+                return Integer.valueOf(x.substring(5));
+            }
+        }).as(CoreNumber.class).sum());
+
+        // Several files are joined, empty and missing ones add nothing
+        final File empty = $.sys.tempfile();
+        $(empty).append("");
+        Assert.assertEquals(2 * n, $(file, empty, new File("does.not.exist"), file).lines().size());
+        Assert.assertEquals("line 0", $(file, empty, file).lines().get(n));
+    }
+
+    /** */
+    @Test
+    public void testLinesLimits() throws IOException {
+        final File file = $.sys.tempfile();
+        final StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < 5000; i++) {
+            sb.append('x');
+        }
+        $(file).append(sb.toString() + "\nshort\n");
+
+        // Chunks may only grow so far to end at a line break
+        final Charset charset = Charset.defaultCharset();
+        Assert.assertNull(Chunk.split($, file, charset, 10));
+
+        final Chunk[] chunks = Chunk.split($, file, charset, 100);
+        Assert.assertEquals(2, chunks.length);
+        for (Chunk chunk : chunks) {
+            chunk.count();
+        }
+
+        // Files gone in the meantime give missing lines
+        final LinesAdapter adapter = new LinesAdapter(chunks);
+        Assert.assertEquals(2, adapter.size());
+        Assert.assertTrue(file.delete());
+        Assert.assertNull(adapter.get(0));
+    }
+
     /** */
     @Test
     public void testFilesize() {
@@ -136,4 +232,65 @@ public class CoreFileTest {
         Assert.assertEquals($("core/tests/junit/data/ranges.zip").file().get(0).length(), new File(dir.getAbsolutePath() + "/ranges.zip").length());
     }
 
+    /** Tests if directory trees are copied completely. */
+    @Test
+    public void testCopyTree() throws IOException {
+        final File src = $.sys.tempdir();
+        final File dest = $.sys.tempdir();
+
+        // A few nested files, one larger than a single copy buffer
+        final byte[] data = new byte[300 * 1024 + 7];
+        $.random().nextBytes(data);
+        for (int i = 0; i < 20; i++) {
+            final File file = new File(src, "d" + (i % 4) + "/s" + (i % 3) + "/f" + i + ".bin");
+            file.getParentFile().mkdirs();
+            final FileOutputStream fos = new FileOutputStream(file);
+            fos.write(data, 0, i == 0 ? data.length : i);
+            fos.close();
+        }
+
+        final CoreFile copied = $(src).copy(dest.getAbsolutePath() + "/");
+        Assert.assertEquals(20, copied.size());
+        Assert.assertEquals(20, $(dest).dir().size());
+
+        for (int i = 0; i < 20; i++) {
+            final String name = "d" + (i % 4) + "/s" + (i % 3) + "/f" + i + ".bin";
+            Assert.assertEquals(i == 0 ? data.length : i, new File(dest, name).length());
+            Assert.assertEquals($(new File(src, name)).data().hash().get(0), $(new File(dest, name)).data().hash().get(0));
+        }
+
+        $(src, dest).delete();
+    }
+
+    /** Tests walks with restrictions. */
+    @Test
+    public void testWalk() throws IOException {
+        final File root = $.sys.tempdir();
+
+        // 3 x 3 directories with 4 files each, plus a directory we skip
+        for (int i = 0; i < 3; i++) {
+            for (int j = 0; j < 3; j++) {
+                for (int k = 0; k < 4; k++) {
+                    final File file = new File(root, "a" + i + "/b" + j + "/f" + k + (k % 2 == 0 ? ".txt" : ".bin"));
+                    file.getParentFile().mkdirs();
+                    file.createNewFile();
+                }
+            }
+        }
+        new File(root, "a0/skip").mkdirs();
+        new File(root, "a0/skip/hidden.txt").createNewFile();
+
+        Assert.assertEquals(37, $(root).dir().size());
+        Assert.assertEquals(37 + 3 + 9 + 1, $(root).dir(ListDirectories.DO).size());
+        Assert.assertEquals(37, $(root).walk().await().size());
+        Assert.assertEquals(19, $(root).dir(Walk.MATCH(".*\\.txt")).size());
+        Assert.assertEquals(18, $(root).dir(Walk.MATCH(".*\\.txt"), Walk.PRUNE(".*skip")).size());
+        Assert.assertEquals(3, $(root).dir(Walk.DEPTH(1), ListDirectories.DO).size());
+        Assert.assertEquals(5, $(root).dir(Walk.DEPTH(2), ListDirectories.DO, Walk.MATCH(".*/a0(/.*)?")).size());
+        Assert.assertEquals(36, $(root).dir(Walk.PRUNE(".*skip"), Execution.IO(2)).size());
+        Assert.assertEquals(0, $(new File(root, "a0/b0/f0.txt")).dir().size());
+
+        $(root).delete();
+    }
+
 }
@@ -0,0 +1,150 @@
+/*
+ * CoreLazyTest.java
+ * 
+ * Copyright (c) 2011, Ralf Biedert All rights reserved.
+ * 
+ * Redistribution and use in source and binary forms, with or without modification, are
+ * permitted provided that the following conditions are met:
+ * 
+ * Redistributions of source code must retain the above copyright notice, this list of
+ * conditions and the following disclaimer. Redistributions in binary form must reproduce the
+ * above copyright notice, this list of conditions and the following disclaimer in the
+ * documentation and/or other materials provided with the distribution.
+ * 
+ * Neither the name of the author nor the names of its contributors may be used to endorse or
+ * promote products derived from this software without specific prior written permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY EXPRESS
+ * OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE
+ * COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL,
+ * EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION)
+ * HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR
+ * TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE,
+ * EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ * 
+ */
+package junit;
+
+import static net.jcores.jre.CoreKeeper.$;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import net.jcores.jre.cores.CoreLazy;
+import net.jcores.jre.cores.CoreObject;
+import net.jcores.jre.cores.CoreString;
+import net.jcores.jre.interfaces.functions.F1;
+import net.jcores.jre.interfaces.functions.F1Object2Bool;
+import net.jcores.jre.interfaces.functions.F2ReduceObjects;
+import net.jcores.jre.options.Associative;
+import net.jcores.jre.options.Execution;
+import net.jcores.jre.utils.internal.structures.CostEstimate;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * @author Ralf Biedert
+ */
+public class CoreLazyTest {
+    /** Squares a number */
+    private static final F1<Number, Integer> SQUARE = new F1<Number, Integer>() {
+        @Override
+        public Integer f(Number x) {
+            return Integer.valueOf(x.intValue() * x.intValue());
+        }
+    };
+
+    /** Keeps odd numbers */
+    private static final F1Object2Bool<Integer> ODD = new F1Object2Bool<Integer>() {
+        @Override
+        public boolean f(Integer x) {
+            return x.intValue() % 2 == 1;
+        }
+    };
+
+    /** Tests if the lazy pipeline computes the same as the eager calls. */
+    @Test
+    public void testPipeline() {
+        final CoreObject<String> eager = $.range(100000).map(SQUARE).filter(ODD).string().filter(".*1");
+
+        for (Execution execution : new Execution[] { Execution.FORKJOIN, Execution.BARRIER }) {
+            final CoreLazy<String> lazy = $.range(100000).lazy().map(SQUARE).filter(ODD).string().filter(".*1");
+
+            Assert.assertEquals(eager.list(), lazy.list(execution));
+            Assert.assertEquals(eager.size(), lazy.size());
+            Assert.assertArrayEquals(eager.array(String.class), lazy.array(String.class, execution));
+            Assert.assertEquals(eager.as(CoreString.class).join(","), lazy.join(",", execution));
+        }
+
+        // Null elements are kept until compacted, as for eager cores
+        Assert.assertEquals(3, $("a", null, "b").lazy().size());
+        Assert.assertEquals(2, $("a", null, "b").lazy().compact().size());
+        Assert.assertEquals(1, $(new Object[] { "a", 1, "b" }).lazy().cast(Integer.class).compact().size());
+        Assert.assertEquals(0, $.range(0).lazy().map(SQUARE).list().size());
+    }
+
+    /** Tests if nothing is executed before a terminal operation, and all stages run once per element. */
+    @Test
+    public void testLaziness() {
+        final AtomicInteger calls = new AtomicInteger();
+        final CoreLazy<Integer> lazy = $.range(1000).lazy().map(new F1<Number, Integer>() {
+            @Override
+            public Integer f(Number x) {
+                calls.incrementAndGet();
+                return Integer.valueOf(x.intValue());
+            }
+        }).filter(ODD);
+
+        Assert.assertEquals(0, calls.get());
+        Assert.assertEquals(500, lazy.core().size());
+        Assert.assertEquals(1000, calls.get());
+    }
+
+    /** Tests the fused reduction. */
+    @Test
+    public void testReduce() {
+        final F2ReduceObjects<Integer> sum = new F2ReduceObjects<Integer>() {
+            @Override
+            public Integer f(Integer left, Integer right) {
+                return Integer.valueOf(left.intValue() + right.intValue());
+            }
+        };
+
+        final CoreLazy<Integer> odd = $.range(10000).lazy().map(SQUARE).filter(ODD);
+        final Integer expected = $.range(10000).map(SQUARE).filter(ODD).reduce(sum).get(0);
+
+        Assert.assertEquals(expected, odd.reduce(sum).get(0));
+        Assert.assertEquals(expected, odd.reduce(sum, Associative.DO).get(0));
+        Assert.assertEquals(0, $.range(0).lazy().map(SQUARE).reduce(sum, Associative.DO).size());
+    }
+
+    /** Tests if pipelines ending in the same reduction keep their own cost estimates. */
+    @Test
+    public void testCostEstimate() {
+        final F2ReduceObjects<Integer> max = new F2ReduceObjects<Integer>() {
+            @Override
+            public Integer f(Integer left, Integer right) {
+                return left.intValue() > right.intValue() ? left : right;
+            }
+        };
+        final F1<Number, Integer> slow = new F1<Number, Integer>() {
+            @Override
+            public Integer f(Number x) {
+                $.sys.sleep(1);
+                return Integer.valueOf(x.intValue());
+            }
+        };
+
+        $.range(100).lazy().map(slow).reduce(max, Associative.DO);
+        $.range(10000).lazy().map(SQUARE).reduce(max, Associative.DO);
+
+        final CostEstimate expensive = $.executor().cost(Arrays.<Class<?>> asList(slow.getClass(), max.getClass()));
+        final CostEstimate cheap = $.executor().cost(Arrays.<Class<?>> asList(SQUARE.getClass(), max.getClass()));
+        Assert.assertTrue(expensive.updates() > 0);
+        Assert.assertTrue(cheap.updates() > 0);
+        Assert.assertTrue(expensive.nanos() > 100 * cheap.nanos());
+    }
+}
@@ -29,20 +29,48 @@ package junit;
 
 import static net.jcores.jre.CoreKeeper.$;
 
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Random;
+import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
 
 import junit.data.Data;
+import net.jcores.jre.cores.CoreMap;
 import net.jcores.jre.cores.CoreNumber;
 import net.jcores.jre.cores.CoreObject;
 import net.jcores.jre.cores.CoreString;
 import net.jcores.jre.interfaces.functions.F1;
+import net.jcores.jre.interfaces.functions.F1Object2Bool;
 import net.jcores.jre.interfaces.functions.F2DeltaObjects;
 import net.jcores.jre.interfaces.functions.F2ReduceObjects;
 import net.jcores.jre.interfaces.functions.Fn;
+import net.jcores.jre.options.Associative;
+import net.jcores.jre.options.Deadline;
+import net.jcores.jre.options.Execution;
 import net.jcores.jre.options.Indexer;
+import net.jcores.jre.options.InvertSelection;
 import net.jcores.jre.options.KillSwitch;
+import net.jcores.jre.options.Option;
+import net.jcores.jre.options.Top;
+import net.jcores.jre.utils.internal.structures.CostEstimate;
+import net.jcores.jre.utils.internal.structures.OperationMetrics;
+import net.jcores.jre.utils.internal.structures.Trace;
 
 import org.junit.Assert;
 import org.junit.Test;
@@ -82,6 +110,45 @@ public class CoreObjectTest {
         Assert.assertEquals(1, $("world", "hello").intersect($("world", "goodbye")).compact().size());
     }
 
+    /** Tests if the hash based set operations keep the order and null handling of the nested loops. */
+    @Test
+    public void testSetOperations() {
+        final Random random = new Random(0);
+        final Integer[] values = new Integer[20000];
+        final Integer[] other = new Integer[5000];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = i % 100 == 0 ? null : Integer.valueOf(random.nextInt(5000));
+        }
+        for (int i = 0; i < other.length; i++) {
+            other[i] = i % 10 == 0 ? null : Integer.valueOf(random.nextInt(10000));
+        }
+
+        // Reference results as computed without any hashing
+        final Set<Integer> seen = new LinkedHashSet<Integer>();
+        final Set<Integer> others = new HashSet<Integer>(Arrays.asList(other));
+        final List<Integer> intersection = new ArrayList<Integer>();
+        final List<Integer> difference = new ArrayList<Integer>();
+        for (Integer v : values) {
+            if (v != null) seen.add(v);
+            if (v != null && others.contains(v)) intersection.add(v);
+            difference.add(v == null || others.contains(v) ? null : v);
+        }
+
+        Assert.assertEquals(new ArrayList<Integer>(seen), $(values).unique().list());
+        Assert.assertEquals(intersection, $(values).intersect(other).list());
+        Assert.assertEquals(difference, $(values).subtract(other).list());
+
+        Assert.assertTrue($(values).contains(null));
+        Assert.assertTrue($(values).contains(values[values.length - 1]));
+        Assert.assertFalse($(values).contains(Integer.valueOf(-1)));
+
+        final CoreNumber index = $(values).index(values[1], null, Integer.valueOf(-1), values[1]);
+        Assert.assertEquals(1, index.i(0));
+        Assert.assertEquals(0, index.i(1));
+        Assert.assertNull(index.get(2));
+        Assert.assertEquals(1, index.i(3));
+    }
+
     /** Tests if forEach() works. */
     @Test
     public void testForEach() {
@@ -266,6 +333,227 @@ public class CoreObjectTest {
         
      }
 
+    /** Tests if all engines produce the same results. */
+    @SuppressWarnings("boxing")
+    @Test
+    public void testExecution() {
+        final F1<Number, Integer> square = new F1<Number, Integer>() {
+            @Override
+            public Integer f(Number x) {
+                $.sys.sleep(0);
+                return x.intValue() * x.intValue();
+            }
+        };
+        final F2ReduceObjects<Number> sum = new F2ReduceObjects<Number>() {
+            @Override
+            public Number f(Number left, Number right) {
+                return left.intValue() + right.intValue();
+            }
+        };
+
+        for (Execution execution : new Execution[] { Execution.FORKJOIN, Execution.BARRIER }) {
+            final CoreNumber squares = $.range(10000).map(square, execution).as(CoreNumber.class);
+            Assert.assertEquals(10000, squares.size());
+            Assert.assertEquals(9999 * 9999, squares.get(-1).intValue());
+            Assert.assertEquals(49995000, $.range(10000).fold(sum, execution).as(CoreNumber.class).get(0).intValue());
+        }
+    }
+
+    /** Tests if blocking operations run on more workers than we have CPUs. */
+    @SuppressWarnings("boxing")
+    @Test
+    public void testExecutionIO() {
+        final F1<Number, Integer> blocking = new F1<Number, Integer>() {
+            @Override
+            public Integer f(Number x) {
+                $.sys.sleep(20);
+                return x.intValue() * 2;
+            }
+        };
+
+        // All elements are blocked at the same time
+        long start = System.currentTimeMillis();
+        final CoreNumber doubled = $.range(64).map(blocking, Execution.IO).as(CoreNumber.class);
+        Assert.assertEquals(64, doubled.size());
+        Assert.assertEquals(126, doubled.get(-1).intValue());
+        Assert.assertTrue(System.currentTimeMillis() - start < 64 * 20 / 2);
+
+        // Unless we limit them
+        start = System.currentTimeMillis();
+        Assert.assertEquals(64, $.range(64).map(blocking, Execution.IO(4)).size());
+        Assert.assertTrue(System.currentTimeMillis() - start >= 64 / 4 * 20);
+    }
+
+    /** Tests if operations called from foreign fork/join pools still run in parallel. */
+    @SuppressWarnings("boxing")
+    @Test
+    public void testForeignPool() throws Exception {
+        final Set<Thread> threads = Collections.newSetFromMap(new ConcurrentHashMap<Thread, Boolean>());
+        final F1<Number, Integer> f = new F1<Number, Integer>() {
+            @Override
+            public Integer f(Number x) {
+                threads.add(Thread.currentThread());
+                $.sys.sleep(5);
+                return x.intValue() * 2;
+            }
+        };
+
+        // The common pool only exists on newer VMs, our own pool is foreign as well
+        ForkJoinPool foreign = new ForkJoinPool(2);
+        try {
+            foreign = (ForkJoinPool) ForkJoinPool.class.getMethod("commonPool").invoke(null);
+        } catch (NoSuchMethodException e) {
+            //
+        }
+
+        // We don't wait with get(), as the caller might run the task itself
+        final AtomicReference<CoreNumber> reference = new AtomicReference<CoreNumber>();
+        final CountDownLatch done = new CountDownLatch(1);
+        foreign.execute(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    Assert.assertTrue(Thread.currentThread() instanceof ForkJoinWorkerThread);
+                    reference.set($.range(64).map(f).as(CoreNumber.class));
+                } finally {
+                    done.countDown();
+                }
+            }
+        });
+        done.await();
+
+        final CoreNumber result = reference.get();
+        Assert.assertEquals(64, result.size());
+        Assert.assertEquals(126, result.get(-1).intValue());
+        if ($.profileInformation().numCPUs > 1) Assert.assertTrue(threads.size() > 1);
+
+        // Blocking operations nested in a parallel one still run in parallel
+        final F1<Number, Integer> blocking = new F1<Number, Integer>() {
+            @Override
+            public Integer f(Number x) {
+                $.sys.sleep(20);
+                return x.intValue();
+            }
+        };
+
+        final long start = System.currentTimeMillis();
+        $.range(2).map(new F1<Number, Integer>() {
+            @Override
+            public Integer f(Number x) {
+                return $.range(32).map(blocking, Execution.IO).size();
+            }
+        });
+        Assert.assertTrue(System.currentTimeMillis() - start < 32 * 20 / 2);
+    }
+
+    /** Tests if cancelled operations return consistent partial results. */
+    @SuppressWarnings("boxing")
+    @Test
+    public void testCancellation() {
+        final F1<Number, Integer> slow = new F1<Number, Integer>() {
+            @Override
+            public Integer f(Number x) {
+                $.sys.sleep(1);
+                return x.intValue();
+            }
+        };
+        final F2ReduceObjects<Number> sum = new F2ReduceObjects<Number>() {
+            @Override
+            public Number f(Number left, Number right) {
+                $.sys.sleep(1);
+                return left.intValue() + right.intValue();
+            }
+        };
+
+        final int size = 4000;
+        final int total = size * (size - 1) / 2;
+
+        for (Execution execution : new Execution[] { Execution.FORKJOIN, Execution.BARRIER }) {
+            // Elements not mapped in time stay null
+            final Deadline deadline = Deadline.IN(50);
+            final Integer[] mapped = $.range(size).map(slow, execution, deadline).array(Integer.class);
+            final int[] unprocessed = deadline.unprocessed();
+            Assert.assertTrue(deadline.partial());
+            Assert.assertEquals(size - unprocessed.length, $(mapped).compact().size());
+            for (int i : unprocessed) {
+                Assert.assertNull(mapped[i]);
+            }
+
+            // Folds and reductions only contain what was processed
+            for (Option associative : new Option[] { execution, Associative.DO }) {
+                final Deadline d = Deadline.IN(50);
+                final Number folded = $.range(size).fold(sum, execution, associative, d).get(0);
+                Assert.assertTrue(d.partial());
+                Assert.assertEquals(total - $(d.unprocessed()).sum(), folded.doubleValue(), 0.0);
+            }
+
+            // A kill switch stops the operation as well
+            final KillSwitch killswitch = KillSwitch.NEW();
+            final AtomicInteger calls = new AtomicInteger();
+            final CoreObject<Number> kept = $.range(size).filter(new F1Object2Bool<Number>() {
+                @Override
+                public boolean f(Number x) {
+                    if (calls.incrementAndGet() == 100) killswitch.terminate();
+                    $.sys.sleep(0);
+                    return true;
+                }
+            }, execution, killswitch);
+            Assert.assertTrue(killswitch.partial());
+            Assert.assertEquals(size, kept.size() + killswitch.unprocessed().length);
+        }
+
+        // Without cancellation nothing is partial
+        final Deadline relaxed = Deadline.IN(1, TimeUnit.HOURS);
+        Assert.assertEquals(100, $.range(100).map(slow, relaxed).size());
+        Assert.assertFalse(relaxed.partial());
+        Assert.assertEquals(0, relaxed.unprocessed().length);
+    }
+
+    /** Tests if operations sharing one cancellation keep their skipped elements apart. */
+    @SuppressWarnings("boxing")
+    @Test
+    public void testSharedCancellation() throws Exception {
+        final KillSwitch killswitch = KillSwitch.NEW();
+        final CountDownLatch started = new CountDownLatch(1);
+        final AtomicInteger kept = new AtomicInteger();
+        final AtomicReference<int[]> unprocessed = new AtomicReference<int[]>();
+
+        // A long operation on another thread, killed below
+        final Thread thread = new Thread() {
+            @Override
+            public void run() {
+                kept.set($.range(200).map(new F1<Number, Integer>() {
+                    @Override
+                    public Integer f(Number x) {
+                        started.countDown();
+                        $.sys.sleep(5);
+                        return x.intValue();
+                    }
+                }, Execution.IO(2), killswitch).compact().size());
+                unprocessed.set(killswitch.unprocessed());
+            }
+        };
+        thread.start();
+        started.await();
+
+        // A short operation with the same switch must neither clear nor inherit its skipped elements
+        Assert.assertEquals(10, $.range(10).map(new F1<Number, Integer>() {
+            @Override
+            public Integer f(Number x) {
+                return x.intValue();
+            }
+        }, killswitch).size());
+
+        $.sys.sleep(50);
+        killswitch.terminate();
+        thread.join();
+
+        Assert.assertFalse(killswitch.partial());
+        Assert.assertEquals(0, killswitch.unprocessed().length);
+        Assert.assertTrue(unprocessed.get().length > 0);
+        Assert.assertEquals(200, kept.get() + unprocessed.get().length);
+    }
+
     /** */
     @SuppressWarnings("boxing")
     @Test
@@ -278,8 +566,106 @@ public class CoreObjectTest {
         }).as(CoreNumber.class).get(0).doubleValue();
         Assert.assertEquals(50000, sum, 0.01);
     }
+
+    /** Tests if the parallel reduction keeps the order and calls f() n-1 times. */
+    @Test
+    public void testReduceAssociative() {
+        final AtomicInteger ai = new AtomicInteger();
+        final F2ReduceObjects<String> concat = new F2ReduceObjects<String>() {
+            @Override
+            public String f(String left, String right) {
+                ai.incrementAndGet();
+                return left + right;
+            }
+        };
+
+        final CoreString strings = $.range(10000).string();
+        final String expected = strings.reduce(concat).get(0);
+
+        for (Execution execution : new Execution[] { Execution.FORKJOIN, Execution.BARRIER }) {
+            ai.set(0);
+            Assert.assertEquals(expected, strings.reduce(concat, Associative.DO, execution).get(0));
+            Assert.assertEquals(9999, ai.get());
+            Assert.assertEquals(expected, strings.fold(concat, Associative.DO, execution).get(0));
+        }
+        
+        Assert.assertNull($.range(0).reduce(new F2ReduceObjects<Number>() {
+            @Override
+            public Number f(Number left, Number right) {
+                return left;
+            }
+        }, Associative.DO).get(0));
+    }
    
     
+    /** Tests if map() keeps a cost estimate for its functions. */
+    @Test
+    public void testCostEstimate() {
+        final F1<Number, String> f = new F1<Number, String>() {
+            @Override
+            public String f(Number x) {
+                return x.toString();
+            }
+        };
+
+        $.range(1000).map(f);
+        $.range(1000).map(f);
+
+        final CostEstimate estimate = $.executor().costs().get(f.getClass());
+        Assert.assertNotNull(estimate);
+        Assert.assertTrue(estimate.updates() >= 2);
+        Assert.assertTrue(estimate.samples() >= 2);
+        Assert.assertFalse(Double.isNaN(estimate.nanos()));
+    }
+
+    /** Tests if operations are traced when metrics are enabled. */
+    @Test
+    public void testMetrics() throws Exception {
+        final F1<Number, String> f = new F1<Number, String>() {
+            @Override
+            public String f(Number x) {
+                $.sys.sleep(1);
+                return x.toString();
+            }
+        };
+
+        $.executor().resetMetrics();
+        $.range(100).map(f);
+        Assert.assertTrue($.executor().metrics().isEmpty());
+
+        $.executor().metrics(true);
+        try {
+            $.range(100).map(f);
+            $.range(100).map(f, Execution.BARRIER);
+        } finally {
+            $.executor().metrics(false);
+        }
+
+        final OperationMetrics map = $.executor().metrics().get("map");
+        Assert.assertNotNull(map);
+        Assert.assertEquals(2, map.getCalls());
+        Assert.assertEquals(200, map.getElements());
+        Assert.assertTrue(map.getWallNanos() >= 2 * 100 * 1000000L / $.profileInformation().numCPUs);
+        Assert.assertTrue(map.getCPUNanos() >= 0);
+        if ($.profileInformation().numCPUs > 1) {
+            Assert.assertEquals(2, map.getParallelCalls());
+            Assert.assertTrue(map.getImbalance() >= 1.0);
+        }
+
+        final Trace trace = $.executor().traces().get(1);
+        Assert.assertEquals("map", trace.method());
+        Assert.assertEquals(trace.workers() > 1, trace.parallel());
+
+        // Metrics and profile are also visible through JMX
+        final MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        Assert.assertEquals(Long.valueOf(2), server.getAttribute(new ObjectName("net.jcores:type=Operation,name=map"), "Calls"));
+        Assert.assertEquals(Integer.valueOf($.profileInformation().numCPUs), server.getAttribute(new ObjectName("net.jcores:type=Profile"), "NumCPUs"));
+
+        $.executor().resetMetrics();
+        Assert.assertTrue($.executor().metrics().isEmpty());
+        Assert.assertFalse(server.isRegistered(new ObjectName("net.jcores:type=Operation,name=map")));
+    }
+
     /** */
     @Test
     public void testIndexer() {
@@ -343,12 +729,114 @@ public class CoreObjectTest {
         Assert.assertEquals($("a", "b", "c", "d", "e", "f", "g"), $("a", "b", "c", "d", "e", "f", "g").random(1.0).sort());
         Assert.assertEquals(0, $("a", "b", "c", "d", "e", "f", "g").random(0.0).size());
     }
+
+    /** */
+    @SuppressWarnings("boxing")
+    @Test
+    public void testFilter() {
+        Assert.assertEquals($("a", "b"), $("a", null, "b").compact());
+        Assert.assertEquals($("bb", "ccc"), $("a", "bb", null, "ccc").filter(".{2,}"));
+        Assert.assertEquals($("a"), $("a", "bb", null, "ccc").filter(".{2,}", InvertSelection.DO));
+
+        // Large cores are filtered in parallel, survivors must keep their order
+        final Integer[] values = new Integer[100000];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = i % 3 == 0 ? null : Integer.valueOf(i);
+        }
+
+        final F1Object2Bool<Number> rare = new F1Object2Bool<Number>() {
+            @Override
+            public boolean f(Number x) {
+                return x.intValue() % 100 == 1;
+            }
+        };
+
+        for (Execution execution : new Execution[] { Execution.FORKJOIN, Execution.BARRIER }) {
+            final Integer[] kept = $(values).filter(rare, execution).array(Integer.class);
+            Assert.assertEquals(667, kept.length);
+            for (int i = 0; i < kept.length; i++) {
+                Assert.assertTrue(kept[i] % 100 == 1 && kept[i] % 3 != 0);
+                if (i > 0) Assert.assertTrue(kept[i - 1] < kept[i]);
+            }
+
+            Assert.assertEquals(66666 - 667, $(values).filter(rare, InvertSelection.DO, execution).size());
+        }
+
+        final Integer[] compact = $(values).compact().array(Integer.class);
+        Assert.assertEquals(66666, compact.length);
+        Assert.assertEquals(1, compact[0].intValue());
+        Assert.assertEquals(99998, compact[compact.length - 1].intValue());
+    }
+
+    /** */
+    @SuppressWarnings("boxing")
+    @Test
+    public void testSort() {
+        Assert.assertEquals($("a", "b", "c"), $("c", null, "a", "b").sort());
+        Assert.assertEquals($("a", "b"), $("c", "a", "b").sort(Top.K(2)));
+
+        // Large cores are sorted in parallel, equal elements must keep their order
+        final Random random = new Random(0);
+        final String[] values = new String[50000];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = random.nextInt(100) + "." + i;
+        }
+
+        final Comparator<String> prefix = new Comparator<String>() {
+            @Override
+            public int compare(String o1, String o2) {
+                return Integer.valueOf(o1.split("\\.")[0]).compareTo(Integer.valueOf(o2.split("\\.")[0]));
+            }
+        };
+
+        final String[] expected = values.clone();
+        Arrays.sort(expected, prefix);
+
+        for (Execution execution : new Execution[] { Execution.FORKJOIN, Execution.BARRIER }) {
+            Assert.assertArrayEquals(expected, $(values).sort(prefix, execution).array(String.class));
+            Assert.assertArrayEquals(Arrays.copyOf(expected, 100), $(values).sort(prefix, Top.K(100), execution).array(String.class));
+        }
+
+        final String[] natural = values.clone();
+        Arrays.sort(natural);
+        Assert.assertArrayEquals(natural, $(values).sort().array(String.class));
+        Assert.assertArrayEquals(Arrays.copyOf(natural, 10), $(values).sort(Top.K(10)).array(String.class));
+        Assert.assertEquals(0, $(values).sort(Top.K(0)).size());
+
+        // Not comparable elements leave the core as it is
+        Assert.assertEquals(2, $(new Object(), new Object()).sort().size());
+    }
     
     /** */
     @SuppressWarnings("boxing")
     @Test
     public void testCount() {
         Assert.assertEquals(4, 0 + $("a", "b", "a", "c", "a", "d", "a").count().value("a"));
+
+        // Large cores are counted in parallel, the top k are sorted by their count
+        final Integer[] values = new Integer[100000];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = i % 7 == 0 ? null : Integer.valueOf(i % 1000 < 10 ? 10 - i % 1000 : 100 + i % 200);
+        }
+
+        final CoreMap<Number, Integer> counts = $(values).count();
+        Assert.assertEquals(210, counts.size());
+        Assert.assertEquals($(values).compact().size(), counts.values().as(CoreNumber.class).sum(), 0.0);
+
+        final CoreMap<Number, Integer> top = $(values).count(Top.K(3));
+        Assert.assertEquals(3, top.size());
+        Assert.assertEquals(counts.values().as(CoreNumber.class).max(), top.get(0).value().doubleValue(), 0.0);
+        Assert.assertTrue(top.get(0).value().intValue() >= top.get(1).value().intValue());
+        Assert.assertTrue(top.get(1).value().intValue() >= top.get(2).value().intValue());
+        Assert.assertEquals(0, $(values).count(Top.K(0)).size());
+
+        // Asking for more than there are still sorts them
+        final CoreMap<Number, Integer> all = $(values).count(Top.K(1000));
+        Assert.assertEquals(210, all.size());
+        for (int i = 1; i < all.size(); i++) {
+            Assert.assertTrue(all.get(i - 1).value().intValue() >= all.get(i).value().intValue());
+        }
+        Assert.assertEquals(counts.values().as(CoreNumber.class).max(), all.get(0).value().doubleValue(), 0.0);
     }
     
     
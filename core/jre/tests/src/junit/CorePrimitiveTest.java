@@ -0,0 +1,152 @@
+/*
+ * CorePrimitiveTest.java
+ * 
+ * Copyright (c) 2011, Ralf Biedert All rights reserved.
+ * 
+ * Redistribution and use in source and binary forms, with or without modification, are
+ * permitted provided that the following conditions are met:
+ * 
+ * Redistributions of source code must retain the above copyright notice, this list of
+ * conditions and the following disclaimer. Redistributions in binary form must reproduce the
+ * above copyright notice, this list of conditions and the following disclaimer in the
+ * documentation and/or other materials provided with the distribution.
+ * 
+ * Neither the name of the author nor the names of its contributors may be used to endorse or
+ * promote products derived from this software without specific prior written permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY EXPRESS
+ * OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE
+ * COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL,
+ * EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION)
+ * HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR
+ * TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE,
+ * EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ * 
+ */
+package junit;
+
+import static net.jcores.jre.CoreKeeper.$;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import net.jcores.jre.cores.CoreDouble;
+import net.jcores.jre.cores.CoreInt;
+import net.jcores.jre.cores.CoreLong;
+import net.jcores.jre.cores.CoreNumber;
+import net.jcores.jre.interfaces.functions.F1Double2Double;
+import net.jcores.jre.interfaces.functions.F1Int2Bool;
+import net.jcores.jre.interfaces.functions.F1Int2Int;
+import net.jcores.jre.interfaces.functions.F2ReduceLongs;
+import net.jcores.jre.options.Associative;
+import net.jcores.jre.options.Execution;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * @author Ralf Biedert
+ */
+public class CorePrimitiveTest {
+
+    /** Tests if the primitive statistics match the ones of CoreNumber */
+    @Test
+    public void testStatistics() {
+        final Random random = new Random(0);
+        final double[] values = new double[100000];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = random.nextGaussian() * 10 + 5;
+        }
+        values[17] = Double.NaN;
+
+        final CoreNumber number = $(values);
+        final CoreDouble doubles = $.doubles(values);
+
+        Assert.assertEquals(number.sum(), doubles.sum(), 0.0001);
+        Assert.assertEquals(number.average(), doubles.average(), 0.0001);
+        Assert.assertEquals(number.variance(), doubles.variance(), 0.0001);
+        Assert.assertEquals(number.min(), doubles.min(), 0.0);
+        Assert.assertEquals(number.max(), doubles.max(), 0.0);
+
+        final CoreInt ints = $.range(100001).ints();
+        Assert.assertEquals(100000L * 100001L / 2, ints.sum());
+        Assert.assertEquals(50000.0, ints.average(), 0.0);
+        Assert.assertEquals($.range(100001).variance(), ints.variance(), 0.001);
+        Assert.assertEquals(100000, ints.max());
+        Assert.assertEquals(0, ints.min());
+        Assert.assertEquals(100000, ints.get(-1));
+
+        Assert.assertEquals(0, $.ints().sum());
+        Assert.assertEquals(-1, $.ints().max(-1));
+        Assert.assertEquals(4.0, $.longs(2, -2, 2, -2).variance(), 0.0);
+        Assert.assertTrue(Double.isNaN($.doubles(Double.NaN).min(Double.NaN)));
+    }
+
+    /** Tests map, filter and reduce */
+    @Test
+    public void testKernels() {
+        for (Execution execution : new Execution[] { Execution.FORKJOIN, Execution.BARRIER }) {
+            final CoreInt odd = $.range(100000).ints().map(new F1Int2Int() {
+                @Override
+                public int f(int x) {
+                    return x * 2 + 1;
+                }
+            }, execution).filter(new F1Int2Bool() {
+                @Override
+                public boolean f(int x) {
+                    return x % 3 == 0;
+                }
+            }, execution);
+
+            Assert.assertEquals(33333, odd.size());
+            Assert.assertEquals(3, odd.get(0));
+            Assert.assertEquals(9, odd.get(1));
+            Assert.assertEquals(odd.size(), odd.number().size());
+        }
+
+        final F2ReduceLongs sum = new F2ReduceLongs() {
+            @Override
+            public long f(long left, long right) {
+                return left + right;
+            }
+        };
+
+        final CoreLong longs = $.range(100000).longs();
+        Assert.assertEquals(longs.sum(), longs.reduce(sum, 0));
+        Assert.assertEquals(longs.sum(), longs.reduce(sum, 0, Associative.DO));
+        Assert.assertEquals(-1, $.longs().reduce(sum, -1, Associative.DO));
+    }
+
+    /** Tests the parallel sort */
+    @Test
+    public void testSort() {
+        final Random random = new Random(1);
+        final double[] values = new double[200000];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = random.nextDouble();
+        }
+        values[5] = Double.NaN;
+        values[6] = -0.0;
+        values[7] = 0.0;
+
+        final double[] expected = values.clone();
+        Arrays.sort(expected);
+
+        for (Execution execution : new Execution[] { Execution.FORKJOIN, Execution.BARRIER }) {
+            Assert.assertTrue(Arrays.equals(expected, $.doubles(values).sort(execution).array()));
+        }
+
+        final int[] ints = $.doubles(values).map(new F1Double2Double() {
+            @Override
+            public double f(double x) {
+                return x * 1000;
+            }
+        }).number().is();
+
+        final int[] sorted = ints.clone();
+        Arrays.sort(sorted);
+        Assert.assertArrayEquals(sorted, $.ints(ints).sort().array());
+    }
+}
@@ -0,0 +1,113 @@
+/*
+ * AdapterSpliterator.java
+ * 
+ * Copyright (c) 2010, Ralf Biedert All rights reserved.
+ * 
+ * Redistribution and use in source and binary forms, with or without modification, are
+ * permitted provided that the following conditions are met:
+ * 
+ * Redistributions of source code must retain the above copyright notice, this list of
+ * conditions and the following disclaimer. Redistributions in binary form must reproduce the
+ * above copyright notice, this list of conditions and the following disclaimer in the
+ * documentation and/or other materials provided with the distribution.
+ * 
+ * Neither the name of the author nor the names of its contributors may be used to endorse or
+ * promote products derived from this software without specific prior written permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY EXPRESS
+ * OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE
+ * COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL,
+ * EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION)
+ * HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR
+ * TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE,
+ * EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ * 
+ */
+package net.jcores.extensions.streams;
+
+import java.util.Spliterator;
+import java.util.function.Consumer;
+
+import net.jcores.jre.cores.adapter.AbstractAdapter;
+
+/**
+ * Spliterator over a range of an adapter, reading its elements in place. Splits in halves.
+ * 
+ * @author Ralf Biedert
+ * @since 1.0
+ * @param <T> The type of the elements.
+ */
+final class AdapterSpliterator<T> implements Spliterator<T> {
+    /** The adapter we read */
+    private final AbstractAdapter<T> adapter;
+
+    /** The next index we return */
+    private int index;
+
+    /** The exclusive end of our range */
+    private final int end;
+
+    /**
+     * @param adapter The adapter to read.
+     * @param start The first index.
+     * @param end The exclusive end.
+     */
+    AdapterSpliterator(AbstractAdapter<T> adapter, int start, int end) {
+        this.adapter = adapter;
+        this.index = start;
+        this.end = end;
+    }
+
+    /* (non-Javadoc)
+     * @see java.util.Spliterator#tryAdvance(java.util.function.Consumer)
+     */
+    @Override
+    public boolean tryAdvance(Consumer<? super T> action) {
+        if (this.index >= this.end) return false;
+        action.accept(this.adapter.get(this.index++));
+        return true;
+    }
+
+    /* (non-Javadoc)
+     * @see java.util.Spliterator#forEachRemaining(java.util.function.Consumer)
+     */
+    @Override
+    public void forEachRemaining(Consumer<? super T> action) {
+        final int end = this.end;
+        for (int i = this.index; i < end; i++) {
+            action.accept(this.adapter.get(i));
+        }
+        this.index = end;
+    }
+
+    /* (non-Javadoc)
+     * @see java.util.Spliterator#trySplit()
+     */
+    @Override
+    public Spliterator<T> trySplit() {
+        final int start = this.index;
+        final int middle = (start + this.end) >>> 1;
+        if (middle <= start) return null;
+
+        this.index = middle;
+        return new AdapterSpliterator<T>(this.adapter, start, middle);
+    }
+
+    /* (non-Javadoc)
+     * @see java.util.Spliterator#estimateSize()
+     */
+    @Override
+    public long estimateSize() {
+        return this.end - this.index;
+    }
+
+    /* (non-Javadoc)
+     * @see java.util.Spliterator#characteristics()
+     */
+    @Override
+    public int characteristics() {
+        return ORDERED | SIZED | SUBSIZED;
+    }
+}
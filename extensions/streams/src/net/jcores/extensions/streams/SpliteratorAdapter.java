@@ -0,0 +1,258 @@
+/*
+ * SpliteratorAdapter.java
+ * 
+ * Copyright (c) 2010, Ralf Biedert All rights reserved.
+ * 
+ * Redistribution and use in source and binary forms, with or without modification, are
+ * permitted provided that the following conditions are met:
+ * 
+ * Redistributions of source code must retain the above copyright notice, this list of
+ * conditions and the following disclaimer. Redistributions in binary form must reproduce the
+ * above copyright notice, this list of conditions and the following disclaimer in the
+ * documentation and/or other materials provided with the distribution.
+ * 
+ * Neither the name of the author nor the names of its contributors may be used to endorse or
+ * promote products derived from this software without specific prior written permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY EXPRESS
+ * OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE
+ * COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL,
+ * EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION)
+ * HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR
+ * TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE,
+ * EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ * 
+ */
+package net.jcores.extensions.streams;
+
+import java.io.IOException;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+import java.lang.reflect.Array;
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.ListIterator;
+import java.util.Spliterator;
+import java.util.stream.StreamSupport;
+
+import net.jcores.jre.cores.adapter.AbstractAdapter;
+import net.jcores.jre.cores.adapter.CollectionAdapter;
+
+/**
+ * Wraps a {@link Spliterator}. If the source knows the exact sizes of its splits (it is 
+ * <code>SIZED</code> and <code>SUBSIZED</code>, like the spliterators of arrays, lists and 
+ * most streams over them), it is split right away into a few pieces per CPU, and each piece 
+ * is only drained when one of its elements is needed. Parallel workers of a core therefore 
+ * drain different pieces at the same time instead of waiting for each other. Other sources 
+ * are drained at once by a parallel stream, since we need to know our size.
+ * 
+ * @author Ralf Biedert
+ * @since 1.0
+ * @param <T> The type of the elements.
+ */
+public class SpliteratorAdapter<T> extends AbstractAdapter<T> {
+    /** */
+    private static final long serialVersionUID = 4591470167254815523L;
+
+    /** How many pieces per CPU we split into at most */
+    static final int PIECES_PER_CPU = 4;
+
+    /** Piece of the source, drained on first access */
+    static final class Piece<T> implements Serializable {
+        /** */
+        private static final long serialVersionUID = -2861373498614035317L;
+
+        /** The part of the source, <code>null</code> once drained */
+        transient Spliterator<T> source;
+
+        /** The elements, set when drained */
+        volatile Object[] elements;
+
+        /**
+         * @param source The source of this piece.
+         * @param size Its exact size.
+         */
+        Piece(Spliterator<T> source, int size) {
+            this.source = source;
+            if (size == 0) this.elements = new Object[0];
+        }
+
+        /**
+         * Returns our elements, drains the source if nobody did so far.
+         * 
+         * @param size The size of this piece.
+         * @return The elements.
+         */
+        Object[] elements(int size) {
+            final Object[] rval = this.elements;
+            if (rval != null) return rval;
+
+            synchronized (this) {
+                if (this.elements != null) return this.elements;
+
+                final Object[] drained = new Object[size];
+                final int[] i = new int[1];
+                this.source.forEachRemaining(x -> drained[i[0]++] = x);
+
+                this.source = null;
+                this.elements = drained;
+                return drained;
+            }
+        }
+    }
+
+    /** Our pieces, in order */
+    final Piece<T>[] pieces;
+
+    /** The index of the first element of each piece, plus our size at the end */
+    final int[] offsets;
+
+    /**
+     * Wraps the given spliterator. It must not be used afterwards.
+     * 
+     * @param spliterator The spliterator to wrap.
+     */
+    @SuppressWarnings({ "unchecked", "rawtypes" })
+    public SpliteratorAdapter(Spliterator<T> spliterator) {
+        final List<Spliterator<T>> split = split(spliterator);
+        
+        this.pieces = new Piece[split.size()];
+        this.offsets = new int[split.size() + 1];
+
+        for (int i = 0; i < this.pieces.length; i++) {
+            final Spliterator<T> s = split.get(i);
+            final int size = (int) s.getExactSizeIfKnown();
+
+            // Unknown sizes are only possible if we didn't split, then drain everything now 
+            if (size < 0) {
+                this.pieces[i] = new Piece<T>(null, 0);
+                this.pieces[i].elements = StreamSupport.stream(s, true).toArray();
+                this.offsets[i + 1] = this.offsets[i] + this.pieces[i].elements.length;
+                continue;
+            }
+
+            this.pieces[i] = new Piece<T>(s, size);
+            this.offsets[i + 1] = this.offsets[i] + size;
+        }
+    }
+
+    /**
+     * Drains all pieces before writing, as their sources can't be serialized.
+     * 
+     * @param out The stream to write to.
+     * @throws IOException If writing failed.
+     */
+    private void writeObject(ObjectOutputStream out) throws IOException {
+        for (int p = 0; p < this.pieces.length; p++) {
+            this.pieces[p].elements(this.offsets[p + 1] - this.offsets[p]);
+        }
+
+        out.defaultWriteObject();
+    }
+
+    /**
+     * Splits the spliterator into pieces. Only sources knowing the exact size of their 
+     * splits are split.
+     * 
+     * @param spliterator The source.
+     * @return The pieces, in encounter order.
+     */
+    static <T> List<Spliterator<T>> split(Spliterator<T> spliterator) {
+        final List<Spliterator<T>> rval = new ArrayList<Spliterator<T>>();
+        rval.add(spliterator);
+
+        if (!spliterator.hasCharacteristics(Spliterator.SIZED | Spliterator.SUBSIZED)) return rval;
+
+        // Split the largest piece until we have enough or they got small
+        final int max = Runtime.getRuntime().availableProcessors() * PIECES_PER_CPU;
+        while (rval.size() < max) {
+            int largest = 0;
+            for (int i = 1; i < rval.size(); i++) {
+                if (rval.get(i).estimateSize() > rval.get(largest).estimateSize()) largest = i;
+            }
+
+            if (rval.get(largest).estimateSize() < 2 * CollectionAdapter.SEGMENT) break;
+
+            // The split off part comes before the rest
+            final Spliterator<T> prefix = rval.get(largest).trySplit();
+            if (prefix == null) break;
+            rval.add(largest, prefix);
+        }
+
+        return rval;
+    }
+
+    /* (non-Javadoc)
+     * @see net.jcores.jre.cores.adapter.AbstractAdapter#size()
+     */
+    @Override
+    public int size() {
+        return this.offsets[this.offsets.length - 1];
+    }
+
+    /* (non-Javadoc)
+     * @see net.jcores.jre.cores.adapter.AbstractAdapter#get(int)
+     */
+    @SuppressWarnings("unchecked")
+    @Override
+    public T get(int i) {
+        final int piece = part(this.offsets, i);
+
+        final int offset = this.offsets[piece];
+        return (T) this.pieces[piece].elements(this.offsets[piece + 1] - offset)[i - offset];
+    }
+
+    /* (non-Javadoc)
+     * @see net.jcores.jre.cores.adapter.AbstractAdapter#iterator()
+     */
+    @Override
+    public ListIterator<T> iterator() {
+        return unsafelist().listIterator();
+    }
+
+    /* (non-Javadoc)
+     * @see net.jcores.jre.cores.adapter.AbstractAdapter#array(java.lang.Class)
+     */
+    @SuppressWarnings("unchecked")
+    @Override
+    public <N> N[] array(Class<N> in) {
+        final N[] rval = (N[]) Array.newInstance(in, size());
+
+        for (int p = 0; p < this.pieces.length; p++) {
+            final int offset = this.offsets[p];
+            final int size = this.offsets[p + 1] - offset;
+            System.arraycopy(this.pieces[p].elements(size), 0, rval, offset, size);
+        }
+
+        return rval;
+    }
+
+    /* (non-Javadoc)
+     * @see net.jcores.jre.cores.adapter.AbstractAdapter#unsafelist()
+     */
+    @Override
+    public List<T> unsafelist() {
+        return new AbstractList<T>() {
+            @Override
+            public T get(int index) {
+                return SpliteratorAdapter.this.get(index);
+            }
+
+            @Override
+            public int size() {
+                return SpliteratorAdapter.this.size();
+            }
+        };
+    }
+
+    /* (non-Javadoc)
+     * @see net.jcores.jre.cores.adapter.AbstractAdapter#slice(int, int)
+     */
+    @Override
+    public List<T> slice(int start, int end) {
+        return new ArrayList<T>(unsafelist().subList(start, end));
+    }
+}
@@ -0,0 +1,129 @@
+/*
+ * StreamKeeper.java
+ * 
+ * Copyright (c) 2010, Ralf Biedert All rights reserved.
+ * 
+ * Redistribution and use in source and binary forms, with or without modification, are
+ * permitted provided that the following conditions are met:
+ * 
+ * Redistributions of source code must retain the above copyright notice, this list of
+ * conditions and the following disclaimer. Redistributions in binary form must reproduce the
+ * above copyright notice, this list of conditions and the following disclaimer in the
+ * documentation and/or other materials provided with the distribution.
+ * 
+ * Neither the name of the author nor the names of its contributors may be used to endorse or
+ * promote products derived from this software without specific prior written permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY EXPRESS
+ * OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE
+ * COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL,
+ * EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION)
+ * HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR
+ * TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE,
+ * EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ * 
+ */
+package net.jcores.extensions.streams;
+
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+import net.jcores.jre.CoreKeeper;
+import net.jcores.jre.cores.CoreObject;
+import net.jcores.jre.cores.adapter.AbstractAdapter;
+import net.jcores.jre.cores.adapter.ArrayAdapter;
+
+/**
+ * The counterpart of {@link CoreKeeper} for <code>java.util.stream</code>. Import both 
+ * statically and <code>$()</code> also takes streams and spliterators:<br/>
+ * <br/>
+ * 
+ * <code>import static net.jcores.jre.CoreKeeper.$;</code><br/>
+ * <code>import static net.jcores.extensions.streams.StreamKeeper.*;</code><br/>
+ * <br/>
+ * 
+ * Examples:
+ * <ul>
+ * <li><code>$(list.stream().filter(p)).map(f)</code> - Maps the filtered elements in parallel.</li>
+ * <li><code>parallelStream($(array)).count()</code> - Streams the array without copying it.</li>
+ * </ul>
+ * 
+ * @author Ralf Biedert
+ * @since 1.0
+ */
+public class StreamKeeper {
+
+    /**
+     * Wraps the given stream. Streams over sized sources are split right away and drained 
+     * in parallel when the core needs their elements, others are drained at once. The 
+     * stream must not be used afterwards.
+     * 
+     * @param stream The stream to wrap.
+     * @param <T> The type of the elements.
+     * 
+     * @return A CoreObject wrapping the stream's elements.
+     */
+    public static <T> CoreObject<T> $(Stream<T> stream) {
+        return $(stream.spliterator());
+    }
+
+    /**
+     * Wraps the given spliterator, see {@link SpliteratorAdapter}. The spliterator must not 
+     * be used afterwards.
+     * 
+     * @param spliterator The spliterator to wrap.
+     * @param <T> The type of the elements.
+     * 
+     * @return A CoreObject wrapping the spliterator's elements.
+     */
+    public static <T> CoreObject<T> $(Spliterator<T> spliterator) {
+        return new CoreObject<T>(CoreKeeper.$, new SpliteratorAdapter<T>(spliterator));
+    }
+
+    /**
+     * Returns a spliterator over the elements of the core, including <code>null</code> 
+     * elements. Cores backed by arrays are read in place, others through their adapter, 
+     * so nothing is copied.
+     * 
+     * @param core The core to read.
+     * @param <T> The type of the elements.
+     * 
+     * @return A spliterator over the core.
+     */
+    public static <T> Spliterator<T> spliterator(CoreObject<T> core) {
+        final AbstractAdapter<T> adapter = core.unsafeadapter();
+
+        if (adapter instanceof ArrayAdapter) 
+            return Spliterators.spliterator(adapter.unsafearray(), 0, adapter.size(), Spliterator.ORDERED);
+
+        return new AdapterSpliterator<T>(adapter, 0, adapter.size());
+    }
+
+    /**
+     * Returns a sequential stream over the elements of the core, see {@link #spliterator(CoreObject)}.
+     * 
+     * @param core The core to stream.
+     * @param <T> The type of the elements.
+     * 
+     * @return A stream over the core.
+     */
+    public static <T> Stream<T> stream(CoreObject<T> core) {
+        return StreamSupport.stream(spliterator(core), false);
+    }
+
+    /**
+     * Returns a parallel stream over the elements of the core, see {@link #spliterator(CoreObject)}.
+     * 
+     * @param core The core to stream.
+     * @param <T> The type of the elements.
+     * 
+     * @return A parallel stream over the core.
+     */
+    public static <T> Stream<T> parallelStream(CoreObject<T> core) {
+        return StreamSupport.stream(spliterator(core), true);
+    }
+}
@@ -0,0 +1,8 @@
+/**
+ * Bridges cores and <code>java.util.stream</code>: wrap streams and spliterators with <code>$()</code> 
+ * from {@link net.jcores.extensions.streams.StreamKeeper}, and stream any core without copying it. 
+ * Needs Java 8, unlike the rest of jCores.
+ *
+ * @since 1.0
+ */
+package net.jcores.extensions.streams;
@@ -0,0 +1,127 @@
+/*
+ * StreamKeeperTest.java
+ * 
+ * Copyright (c) 2010, Ralf Biedert All rights reserved.
+ * 
+ * Redistribution and use in source and binary forms, with or without modification, are
+ * permitted provided that the following conditions are met:
+ * 
+ * Redistributions of source code must retain the above copyright notice, this list of
+ * conditions and the following disclaimer. Redistributions in binary form must reproduce the
+ * above copyright notice, this list of conditions and the following disclaimer in the
+ * documentation and/or other materials provided with the distribution.
+ * 
+ * Neither the name of the author nor the names of its contributors may be used to endorse or
+ * promote products derived from this software without specific prior written permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY EXPRESS
+ * OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE
+ * COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL,
+ * EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION)
+ * HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR
+ * TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE,
+ * EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ * 
+ */
+package junit;
+
+import static net.jcores.extensions.streams.StreamKeeper.$;
+import static net.jcores.extensions.streams.StreamKeeper.parallelStream;
+import static net.jcores.extensions.streams.StreamKeeper.stream;
+import static net.jcores.jre.CoreKeeper.$;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import net.jcores.extensions.streams.SpliteratorAdapter;
+import net.jcores.jre.cores.CoreNumber;
+import net.jcores.jre.cores.CoreObject;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * @author Ralf Biedert
+ */
+public class StreamKeeperTest {
+
+    /** */
+    @Test
+    public void testStreamToCore() {
+        final List<Integer> list = new ArrayList<Integer>();
+        for (int i = 0; i < 100000; i++) {
+            list.add(Integer.valueOf(i));
+        }
+
+        // Sized streams are split and drained lazily
+        final CoreObject<Integer> x = $(list.stream().map(i -> Integer.valueOf(i.intValue() * 2)));
+        Assert.assertTrue(x.unsafeadapter() instanceof SpliteratorAdapter);
+        Assert.assertEquals(100000, x.size());
+        Assert.assertEquals(Integer.valueOf(199998), x.get(-1));
+        Assert.assertEquals(Integer.valueOf(4), x.slice(1, 2).get(1));
+
+        final CoreNumber strings = x.map(i -> Integer.valueOf(i.intValue() / 2)).as(CoreNumber.class);
+        Assert.assertEquals(99999L * 100000L / 2, (long) strings.sum());
+
+        // Unsized ones are drained at once
+        final CoreObject<Integer> filtered = $(list.stream().filter(i -> i.intValue() % 3 == 0));
+        Assert.assertEquals(33334, filtered.size());
+        Assert.assertEquals(Integer.valueOf(99999), filtered.get(-1));
+        Assert.assertEquals(33334, filtered.array(Integer.class).length);
+
+        Assert.assertEquals(0, $(IntStream.range(0, 0).boxed()).size());
+    }
+
+    /** */
+    @SuppressWarnings("unchecked")
+    @Test
+    public void testSerialize() throws Exception {
+        final List<String> list = new ArrayList<String>();
+        for (int i = 0; i < 100000; i++) {
+            list.add("s" + i);
+        }
+
+        // Pieces nobody looked at yet must be drained before writing
+        final SpliteratorAdapter<String> adapter = new SpliteratorAdapter<String>(list.spliterator());
+        Assert.assertEquals("s5", adapter.get(5));
+
+        final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        final ObjectOutputStream out = new ObjectOutputStream(bytes);
+        out.writeObject(adapter);
+        out.close();
+
+        final ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(bytes.toByteArray()));
+        final SpliteratorAdapter<String> copy = (SpliteratorAdapter<String>) in.readObject();
+        Assert.assertEquals(100000, copy.size());
+        Assert.assertEquals("s99999", copy.get(99999));
+        Assert.assertEquals(list, copy.unsafelist());
+    }
+
+    /** */
+    @Test
+    public void testCoreToStream() {
+        final String[] array = new String[] { "a", null, "b", "c" };
+        Assert.assertEquals("a,null,b,c", stream($(array)).map(String::valueOf).collect(Collectors.joining(",")));
+        Assert.assertEquals(3, parallelStream($(array)).filter(s -> s != null).count());
+
+        // Other adapters are streamed in place as well
+        final List<Integer> linked = new LinkedList<Integer>();
+        for (int i = 0; i < 10000; i++) {
+            linked.add(Integer.valueOf(i % 100));
+        }
+        final Set<Integer> set = parallelStream($(linked)).collect(Collectors.toSet());
+        Assert.assertEquals(new HashSet<Integer>(linked), set);
+        Assert.assertEquals(10000, parallelStream($(linked)).count());
+    }
+}